@@ -0,0 +1,12 @@
+package com.example.Bibliotech_backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Bật các tác vụ định kỳ ({@code @Scheduled}) của ứng dụng.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,36 @@
+package com.example.Bibliotech_backend.config;
+
+import com.example.Bibliotech_backend.security.CurrentUserArgumentResolver;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Cấu hình Spring MVC: đăng ký resolver cho tham số {@code @CurrentUser} và thời gian chờ của response bất đồng bộ
+ * (xuất danh mục sách dạng luồng có thể kéo dài hơn thời gian chờ mặc định của servlet container).
+ */
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+    private final CurrentUserArgumentResolver currentUserArgumentResolver;
+    private final long asyncRequestTimeoutMs;
+
+    public WebMvcConfig(CurrentUserArgumentResolver currentUserArgumentResolver,
+                        @Value("${app.async.request-timeout-ms:1800000}") long asyncRequestTimeoutMs) {
+        this.currentUserArgumentResolver = currentUserArgumentResolver;
+        this.asyncRequestTimeoutMs = asyncRequestTimeoutMs;
+    }
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(currentUserArgumentResolver);
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(asyncRequestTimeoutMs);
+    }
+}
@@ -3,13 +3,18 @@ package com.example.Bibliotech_backend.controller;
 import com.example.Bibliotech_backend.dto.AuthResponse;
 import com.example.Bibliotech_backend.dto.LoginRequest;
 import com.example.Bibliotech_backend.dto.SignUpRequest;
+import com.example.Bibliotech_backend.exception.ErrorResponse;
 import com.example.Bibliotech_backend.model.Users;
+import com.example.Bibliotech_backend.security.CurrentUser;
 import com.example.Bibliotech_backend.security.JwtTokenProvider;
+import com.example.Bibliotech_backend.security.TokenDenylist;
+import com.example.Bibliotech_backend.security.UserPrincipal;
 import com.example.Bibliotech_backend.service.AuthService;
 import com.example.Bibliotech_backend.service.UserRegistrationStatusService;
 import com.example.Bibliotech_backend.util.TokenUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
@@ -27,6 +32,7 @@ public class AuthController {
     private final JwtTokenProvider jwtTokenProvider;
     private final UserRegistrationStatusService registrationStatusService;
     private final TokenUtils tokenUtils;
+    private final TokenDenylist tokenDenylist;
 
     private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
 
@@ -37,16 +43,19 @@ public class AuthController {
      * @param jwtTokenProvider Provider cho JWT token
      * @param registrationStatusService Dịch vụ kiểm tra trạng thái đăng ký
      * @param tokenUtils Tiện ích xử lý token
+     * @param tokenDenylist Danh sách token đã bị thu hồi
      */
     public AuthController(
             AuthService authService,
             JwtTokenProvider jwtTokenProvider,
             UserRegistrationStatusService registrationStatusService,
-            TokenUtils tokenUtils) {
+            TokenUtils tokenUtils,
+            TokenDenylist tokenDenylist) {
         this.authService = authService;
         this.jwtTokenProvider = jwtTokenProvider;
         this.registrationStatusService = registrationStatusService;
         this.tokenUtils = tokenUtils;
+        this.tokenDenylist = tokenDenylist;
     }
 
     /**
@@ -104,7 +113,7 @@ public class AuthController {
     }
 
     /**
-     * API đăng xuất.
+     * API đăng xuất. Token hiện tại bị thu hồi và không thể dùng lại dù chưa hết hạn.
      *
      * @param token JWT token từ header Authorization
      * @return Phản hồi thành công nếu đăng xuất thành công
@@ -114,7 +123,26 @@ public class AuthController {
         Integer userId = tokenUtils.validateTokenAndGetUserId(token);
         logger.debug("User ID {} logging out", userId);
 
-        // Tùy chọn: Thêm logic xử lý đăng xuất phía server nếu cần
+        tokenDenylist.revoke(jwtTokenProvider.verifyToken(token.substring(7)));
         return ResponseEntity.ok().body("Logged out successfully");
     }
+
+    /**
+     * API buộc đăng xuất một người dùng khỏi mọi phiên (chỉ dành cho admin).
+     *
+     * @param currentUser Người dùng hiện tại
+     * @param userId ID của người dùng cần buộc đăng xuất
+     * @return Phản hồi thành công nếu thu hồi token thành công
+     */
+    @PostMapping("/users/{userId}/logout")
+    public ResponseEntity<?> forceLogout(@CurrentUser UserPrincipal currentUser, @PathVariable Integer userId) {
+        if (currentUser == null || !currentUser.isAdmin()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(new ErrorResponse("Bạn không có quyền thực hiện thao tác này"));
+        }
+
+        logger.info("Admin {} forcing logout of user ID {}", currentUser.getId(), userId);
+        tokenDenylist.revokeAllForUser(userId);
+        return ResponseEntity.ok().body("User logged out from all sessions");
+    }
 }
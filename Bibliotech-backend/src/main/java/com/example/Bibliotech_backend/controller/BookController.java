@@ -2,22 +2,28 @@ package com.example.Bibliotech_backend.controller;
 
 import com.example.Bibliotech_backend.dto.*;
 import com.example.Bibliotech_backend.exception.ErrorResponse;
+import com.example.Bibliotech_backend.exception.TooManyRequestsException;
 import com.example.Bibliotech_backend.model.Book;
 import com.example.Bibliotech_backend.model.Category;
 import com.example.Bibliotech_backend.model.Review;
-import com.example.Bibliotech_backend.model.Users;
+import com.example.Bibliotech_backend.security.CurrentUser;
+import com.example.Bibliotech_backend.security.UserPrincipal;
 import com.example.Bibliotech_backend.service.*;
-import com.example.Bibliotech_backend.util.TokenUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.http.MediaType;
 
 import jakarta.validation.Valid;
+import java.io.InputStream;
+import java.net.URI;
 import java.util.List;
 import java.util.Map;
 
@@ -30,10 +36,11 @@ public class BookController {
     private final BookService bookService;
     private final CategoryService categoryService;
     private final ReviewService reviewService;
-    private final AuthService authService;
-    private final TokenUtils tokenUtils;
-    private final CloudinaryService cloudinaryService;
-
+    private final CoverUploadService coverUploadService;
+    private final BookSuggestionIndex bookSuggestionIndex;
+    private final ResourceVersionService resourceVersionService;
+    private final BookImportService bookImportService;
+    private final BookExportService bookExportService;
 
     private static final Logger logger = LoggerFactory.getLogger(BookController.class);
 
@@ -43,21 +50,28 @@ public class BookController {
      * @param bookService Service xử lý dữ liệu sách
      * @param categoryService Service xử lý dữ liệu danh mục
      * @param reviewService Service xử lý dữ liệu đánh giá
-     * @param authService Service xử lý thông tin người dùng
-     * @param tokenUtils Tiện ích xử lý token
+     * @param coverUploadService Service tải ảnh bìa lên nơi lưu ảnh
+     * @param bookSuggestionIndex Chỉ mục gợi ý cho ô tìm kiếm
+     * @param resourceVersionService Service tính ETag cho GET có điều kiện
+     * @param bookImportService Service nhập sách hàng loạt
+     * @param bookExportService Service xuất danh mục sách
      */
     public BookController(BookService bookService,
                           CategoryService categoryService,
                           ReviewService reviewService,
-                          AuthService authService,
-                          TokenUtils tokenUtils,
-                          CloudinaryService cloudinaryService) {
+                          CoverUploadService coverUploadService,
+                          BookSuggestionIndex bookSuggestionIndex,
+                          ResourceVersionService resourceVersionService,
+                          BookImportService bookImportService,
+                          BookExportService bookExportService) {
         this.bookService = bookService;
         this.categoryService = categoryService;
         this.reviewService = reviewService;
-        this.authService = authService;
-        this.tokenUtils = tokenUtils;
-        this.cloudinaryService = cloudinaryService;
+        this.coverUploadService = coverUploadService;
+        this.bookSuggestionIndex = bookSuggestionIndex;
+        this.resourceVersionService = resourceVersionService;
+        this.bookImportService = bookImportService;
+        this.bookExportService = bookExportService;
     }
 
     /**
@@ -74,6 +88,14 @@ public class BookController {
      * @param size Kích thước trang (mặc định là 10)
      * @param sortBy Trường cần sắp xếp (mặc định là title)
      * @param direction Hướng sắp xếp (mặc định là asc)
+     * @param cursor Con trỏ phân trang (tùy chọn). Khi có tham số này (rỗng cho trang đầu), API phân trang
+     *               theo con trỏ và trả về {@link BookSliceResponse} thay vì danh sách theo số trang
+     * @param view Dạng dữ liệu trả về: full (mặc định, {@link BookResponse}) hoặc card ({@link BookCardDTO},
+     *             chỉ gồm các trường hiển thị trên danh sách và categoryId)
+     * @param facets Có kèm số lượng sách theo từng bộ lọc hay không. Ở chế độ theo số trang, API trả về
+     *               {@link BookListResponse} thay vì danh sách
+     * @param fuzzy Tìm tiêu đề và tác giả gần đúng, chấp nhận lỗi gõ; kết quả kèm gợi ý "có phải bạn muốn tìm"
+     *              và cũng được trả về dạng {@link BookListResponse} ở chế độ theo số trang
      * @return Danh sách sách đáp ứng các tiêu chí lọc
      */
     @GetMapping
@@ -88,12 +110,37 @@ public class BookController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "title") String sortBy,
-            @RequestParam(defaultValue = "asc") String direction) {
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "full") String view,
+            @RequestParam(defaultValue = "false") boolean facets,
+            @RequestParam(defaultValue = "false") boolean fuzzy) {
         logger.info("API called: getAllBooks");
         try {
             logger.debug("Getting books with filters - title: {}, author: {}, category: {}, language: {}",
                     title, author, category, language);
 
+            BookSearchCriteria criteria = new BookSearchCriteria(
+                    title, author, category, language, minPrice, maxPrice, hasDiscount);
+            criteria.setFuzzy(fuzzy);
+
+            if ("card".equalsIgnoreCase(view)) {
+                if (cursor != null) {
+                    return ResponseEntity.ok(bookService.getBookCardsByCursor(criteria, cursor, size, sortBy, direction, facets));
+                }
+                return ResponseEntity.ok(facets || fuzzy
+                        ? bookService.getBookCardList(criteria, page, size, sortBy, direction, facets)
+                        : bookService.getBookCards(criteria, page, size, sortBy, direction));
+            }
+
+            if (cursor != null) {
+                return ResponseEntity.ok(bookService.getBooksByCursor(criteria, cursor, size, sortBy, direction, facets));
+            }
+
+            if (facets || fuzzy) {
+                return ResponseEntity.ok(bookService.getBookList(criteria, page, size, sortBy, direction, facets));
+            }
+
             List<BookResponse> books = bookService.getAllBooks(
                     title, author, category, language, minPrice, maxPrice, hasDiscount,
                     page, size, sortBy, direction);
@@ -105,25 +152,50 @@ public class BookController {
         }
     }
 
+    /**
+     * API gợi ý tiêu đề và tác giả khi người dùng đang gõ vào ô tìm kiếm
+     *
+     * @param q Chuỗi đang gõ
+     * @param limit Số gợi ý tối đa (mặc định là 8)
+     * @return Danh sách gợi ý, sắp theo mức độ phổ biến
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<?> suggest(@RequestParam(defaultValue = "") String q,
+                                     @RequestParam(defaultValue = "8") int limit) {
+        try {
+            List<BookSuggestion> suggestions = bookSuggestionIndex.suggest(q, limit);
+            return ResponseEntity.ok(suggestions);
+        } catch (Exception e) {
+            logger.error("Error getting suggestions for '{}'", q, e);
+            return ResponseEntity.badRequest().body(new ErrorResponse("Không thể lấy gợi ý tìm kiếm: " + e.getMessage()));
+        }
+    }
+
     /**
      * API lấy thông tin chi tiết của một cuốn sách
      *
      * @param bookId ID của sách cần lấy thông tin
-     * @return Thông tin chi tiết của sách
+     * @return Thông tin chi tiết của sách, hoặc 304 nếu ETag của client vẫn còn đúng
      */
     @GetMapping("/{bookId}")
-    public ResponseEntity<?> getBookById(@PathVariable Integer bookId) {
+    public ResponseEntity<?> getBookById(@PathVariable Integer bookId, WebRequest webRequest) {
         logger.info("API called: get Book By ID");
         try {
             logger.debug("Getting book with ID: {}", bookId);
 
-            BookResponse book = bookService.getBookById(bookId);
+            // ETag được lưu cùng chi tiết sách trong bộ đệm, chỉ tính lại khi nạp
+            BookDetailCache.BookDetail book = bookService.getBookDetail(bookId);
             if (book == null) {
                 logger.error("Book not found with ID: {}", bookId);
                 return ResponseEntity.notFound().build();
             }
 
-            return ResponseEntity.ok(book);
+            ResourceVersionService.ResourceVersion version = book.getVersion();
+            if (version != null && version.isNotModified(webRequest)) {
+                return null;
+            }
+
+            return ResponseEntity.ok(book.getResponse());
         } catch (Exception e) {
             logger.error("Error getting book with ID: {}", bookId, e);
             return ResponseEntity.badRequest().body(new ErrorResponse("Không thể lấy thông tin sách: " + e.getMessage()));
@@ -137,15 +209,13 @@ public class BookController {
      * @return Thông tin sách đã được thêm
      */
     @PostMapping(produces = "application/json")
-    public ResponseEntity<?> addBook(@Valid @RequestBody BookRequest bookRequest) {
+    public ResponseEntity<?> addBook(@CurrentUser UserPrincipal currentUser,
+                                     @Valid @RequestBody BookRequest bookRequest) {
         logger.info("API called: addBook");
         try {
-            String username = tokenUtils.getCurrentUsername();
-            Users currentUser = authService.getUserByUsername(username);
-
             // Kiểm tra quyền admin
-            if (currentUser == null || !currentUser.getIsAdmin()) {
-                logger.error("Unauthorized attempt to add book by user: {}", username);
+            if (currentUser == null || !currentUser.isAdmin()) {
+                logger.error("Unauthorized attempt to add book by user: {}", currentUser != null ? currentUser.getUsername() : null);
                 return ResponseEntity.status(HttpStatus.FORBIDDEN)
                         .body(new ErrorResponse("Bạn không có quyền thực hiện thao tác này"));
             }
@@ -160,6 +230,82 @@ public class BookController {
         }
     }
 
+    /**
+     * API nhập sách hàng loạt từ CSV hoặc NDJSON (chỉ admin mới có quyền)
+     * <p>
+     * Nội dung tệp được gửi trực tiếp trong body (UTF-8) và được đọc dạng luồng. Dòng lỗi không làm hỏng
+     * cả lần nhập; kết quả liệt kê lỗi theo số thứ tự dòng.
+     * </p>
+     *
+     * @param format "csv" hoặc "ndjson" (tùy chọn, mặc định theo Content-Type: text/csv là CSV, còn lại là NDJSON)
+     * @return Số sách đã nhập, số dòng lỗi và lỗi của từng dòng
+     */
+    @PostMapping(value = "/import", produces = "application/json")
+    public ResponseEntity<?> importBooks(@CurrentUser UserPrincipal currentUser,
+                                         @RequestParam(required = false) String format,
+                                         @RequestHeader(value = "Content-Type", required = false) String contentType,
+                                         InputStream body) {
+        logger.info("API called: importBooks");
+        try {
+            // Kiểm tra quyền admin
+            if (currentUser == null || !currentUser.isAdmin()) {
+                logger.error("Unauthorized attempt to import books by user: {}", currentUser != null ? currentUser.getUsername() : null);
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                        .body(new ErrorResponse("Bạn không có quyền thực hiện thao tác này"));
+            }
+
+            BookImportResult result = bookImportService.importBooks(body, BookImportService.Format.resolve(format, contentType));
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            logger.error("Error importing books", e);
+            return ResponseEntity.badRequest().body(new ErrorResponse("Không thể nhập sách: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * API xuất toàn bộ danh mục sách (chỉ admin mới có quyền)
+     * <p>
+     * Dữ liệu được ghi dần ra response trong lúc đọc từ cơ sở dữ liệu, nên bộ nhớ không tăng theo số sách.
+     * Số lần xuất chạy cùng lúc bị giới hạn; vượt giới hạn trả về 429.
+     * </p>
+     *
+     * @param format "ndjson" (mặc định) hoặc "csv"
+     * @param gzip Nén gzip tệp xuất (mặc định là false)
+     * @return Tệp đính kèm books.ndjson / books.csv (thêm .gz khi nén)
+     */
+    @GetMapping("/export")
+    public ResponseEntity<?> exportBooks(@CurrentUser UserPrincipal currentUser,
+                                         @RequestParam(defaultValue = "ndjson") String format,
+                                         @RequestParam(defaultValue = "false") boolean gzip) {
+        logger.info("API called: exportBooks");
+        try {
+            // Kiểm tra quyền admin
+            if (currentUser == null || !currentUser.isAdmin()) {
+                logger.error("Unauthorized attempt to export books by user: {}", currentUser != null ? currentUser.getUsername() : null);
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                        .body(new ErrorResponse("Bạn không có quyền thực hiện thao tác này"));
+            }
+
+            BookExportService.Format exportFormat = BookExportService.Format.of(format);
+            BookExportService.ExportSlot slot = bookExportService.acquireSlot();
+            StreamingResponseBody body = out -> {
+                try (slot) {
+                    bookExportService.export(out, exportFormat, gzip);
+                }
+            };
+            String filename = "books." + exportFormat.getExtension() + (gzip ? ".gz" : "");
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : exportFormat.getContentType()))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                    .body(body);
+        } catch (TooManyRequestsException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error exporting books", e);
+            return ResponseEntity.badRequest().body(new ErrorResponse("Không thể xuất danh sách sách: " + e.getMessage()));
+        }
+    }
+
     /**
      * API cập nhật thông tin sách (chỉ admin mới có quyền)
      *
@@ -168,15 +314,14 @@ public class BookController {
      * @return Thông tin sách đã được cập nhật
      */
     @PutMapping("/{bookId}")
-    public ResponseEntity<?> updateBook(@PathVariable Integer bookId, @Valid @RequestBody BookRequest bookRequest) {
+    public ResponseEntity<?> updateBook(@CurrentUser UserPrincipal currentUser,
+                                        @PathVariable Integer bookId,
+                                        @Valid @RequestBody BookRequest bookRequest) {
         logger.info("API called: uodateBook");
         try {
-            String username = tokenUtils.getCurrentUsername();
-            Users currentUser = authService.getUserByUsername(username);
-
             // Kiểm tra quyền admin
-            if (currentUser == null || !currentUser.getIsAdmin()) {
-                logger.error("Unauthorized attempt to update book by user: {}", username);
+            if (currentUser == null || !currentUser.isAdmin()) {
+                logger.error("Unauthorized attempt to update book by user: {}", currentUser != null ? currentUser.getUsername() : null);
                 return ResponseEntity.status(HttpStatus.FORBIDDEN)
                         .body(new ErrorResponse("Bạn không có quyền thực hiện thao tác này"));
             }
@@ -203,14 +348,11 @@ public class BookController {
      * @return Thông báo xác nhận đã xóa
      */
     @DeleteMapping("/{bookId}")
-    public ResponseEntity<?> deleteBook(@PathVariable Integer bookId) {
+    public ResponseEntity<?> deleteBook(@CurrentUser UserPrincipal currentUser, @PathVariable Integer bookId) {
         try {
-            String username = tokenUtils.getCurrentUsername();
-            Users currentUser = authService.getUserByUsername(username);
-
             // Kiểm tra quyền admin
-            if (currentUser == null || !currentUser.getIsAdmin()) {
-                logger.error("Unauthorized attempt to delete book by user: {}", username);
+            if (currentUser == null || !currentUser.isAdmin()) {
+                logger.error("Unauthorized attempt to delete book by user: {}", currentUser != null ? currentUser.getUsername() : null);
                 return ResponseEntity.status(HttpStatus.FORBIDDEN)
                         .body(new ErrorResponse("Bạn không có quyền thực hiện thao tác này"));
             }
@@ -263,21 +405,19 @@ public class BookController {
      */
     @PostMapping("/{bookId}/reviews")
     public ResponseEntity<?> addBookReview(
+            @CurrentUser UserPrincipal currentUser,
             @PathVariable Integer bookId,
             @Valid @RequestBody ReviewRequest reviewRequest) {
         try {
-            String username = tokenUtils.getCurrentUsername();
-            Users currentUser = authService.getUserByUsername(username);
-
             if (currentUser == null) {
                 logger.error("Unauthorized attempt to add review");
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                         .body(new ErrorResponse("Bạn cần đăng nhập để đánh giá sách"));
             }
 
-            logger.debug("Adding review for book with ID: {} by user: {}", bookId, currentUser.getUserId());
+            logger.debug("Adding review for book with ID: {} by user: {}", bookId, currentUser.getId());
 
-            Review addedReview = reviewService.addReview(bookId, currentUser.getUserId(), reviewRequest);
+            Review addedReview = reviewService.addReview(bookId, currentUser.getId(), reviewRequest);
             return ResponseEntity.status(HttpStatus.CREATED).body(addedReview);
         } catch (Exception e) {
             logger.error("Error adding review for book with ID: {}", bookId, e);
@@ -285,11 +425,40 @@ public class BookController {
         }
     }
 
+    /**
+     * API lấy sách đang giảm giá, theo mức giảm giảm dần
+     *
+     * @param limit Số sách mỗi trang (tùy chọn). Khi có limit hoặc cursor, API trả về một trang
+     *              ({@code items}, {@code nextCursor}, {@code hasNext}); nếu không thì trả toàn bộ danh sách như trước.
+     * @param cursor Con trỏ của trang trước (rỗng cho trang đầu)
+     * @param dealId Chỉ lấy sách của deal này (tùy chọn)
+     */
     @GetMapping("/sale-books-info")
-    public ResponseEntity<?> getSaleBooksCoverInfo() {
+    public ResponseEntity<?> getSaleBooksCoverInfo(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer dealId) {
         try {
+            if (limit != null || cursor != null || dealId != null) {
+                return ResponseEntity.ok(bookService.getSaleBooks(dealId, cursor, limit != null ? limit : 20));
+            }
             List<BookSaleInfoDTO> saleBooks = bookService.getSaleBooksCoverInfo();
             return ResponseEntity.ok(saleBooks);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse("Không thể lấy thông tin sách sale: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * API lấy sách đang giảm giá nhóm theo deal, deal sắp kết thúc trước
+     *
+     * @param perDeal Số sách tối đa của mỗi deal (mặc định là 10)
+     */
+    @GetMapping("/sale-books-info/deals")
+    public ResponseEntity<?> getSaleDealGroups(@RequestParam(defaultValue = "10") int perDeal) {
+        try {
+            List<SaleDealGroupDTO> groups = bookService.getSaleDealGroups(perDeal);
+            return ResponseEntity.ok(groups);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new ErrorResponse("Không thể lấy thông tin sách sale"));
         }
@@ -297,10 +466,11 @@ public class BookController {
 
     @GetMapping("/top-rated")
     public ResponseEntity<?> getTopRatedBooks(
-            @RequestParam(defaultValue = "5") int limit) {
+            @RequestParam(defaultValue = "5") int limit,
+            @RequestParam(required = false) Integer categoryId) {
         try {
             logger.info("API called: getTopRatedBooks");
-            List<BookResponse> topRatedBooks = bookService.getTopRatedBooks(limit);
+            List<BookResponse> topRatedBooks = bookService.getTopRatedBooks(limit, categoryId);
             return ResponseEntity.ok(topRatedBooks);
         } catch (Exception e) {
             logger.error("Error getting top rated books", e);
@@ -314,9 +484,13 @@ public class BookController {
      * @return Danh sách danh mục sách dưới dạng DTO
      */
     @GetMapping("/categories")
-    public ResponseEntity<?> getAllCategories() {
+    public ResponseEntity<?> getAllCategories(WebRequest webRequest) {
         try {
             logger.debug("Getting all book categories");
+            ResourceVersionService.ResourceVersion version = resourceVersionService.categoriesVersion();
+            if (version != null && version.isNotModified(webRequest)) {
+                return null;
+            }
             List<CategoryDTO> categories = categoryService.getAllCategories();
             return ResponseEntity.ok(categories);
         } catch (Exception e) {
@@ -332,14 +506,12 @@ public class BookController {
      * @return Thông tin danh mục đã được thêm
      */
     @PostMapping("/categories")
-    public ResponseEntity<?> addCategory(@Valid @RequestBody CategoryRequest categoryRequest) {
+    public ResponseEntity<?> addCategory(@CurrentUser UserPrincipal currentUser,
+                                         @Valid @RequestBody CategoryRequest categoryRequest) {
         try {
-            String username = tokenUtils.getCurrentUsername();
-            Users currentUser = authService.getUserByUsername(username);
-
             // Kiểm tra quyền admin
-            if (currentUser == null || !currentUser.getIsAdmin()) {
-                logger.error("Unauthorized attempt to add category by user: {}", username);
+            if (currentUser == null || !currentUser.isAdmin()) {
+                logger.error("Unauthorized attempt to add category by user: {}", currentUser != null ? currentUser.getUsername() : null);
                 return ResponseEntity.status(HttpStatus.FORBIDDEN)
                         .body(new ErrorResponse("Bạn không có quyền thực hiện thao tác này"));
             }
@@ -354,15 +526,21 @@ public class BookController {
         }
     }
 
+    /**
+     * API tải ảnh bìa lên.
+     * <p>
+     * Ảnh nhỏ được tải xong trong request và trả về {@code imageUrl} như trước. Ảnh lớn (hoặc tải quá lâu) trả về
+     * 202 kèm trạng thái lần tải; client tra cứu {@code GET /api/books/upload-cover/{uploadId}} để lấy URL.
+     * Trả 429 khi hàng đợi tải lên đã đầy.
+     * </p>
+     */
     @PostMapping("/upload-cover")
-    public ResponseEntity<?> uploadBookCover(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<?> uploadBookCover(@CurrentUser UserPrincipal currentUser,
+                                             @RequestParam("file") MultipartFile file) {
         try {
-            String username = tokenUtils.getCurrentUsername();
-            Users currentUser = authService.getUserByUsername(username);
-
             // Check admin rights
-            if (currentUser == null || !currentUser.getIsAdmin()) {
-                logger.error("Unauthorized attempt to upload image by user: {}", username);
+            if (currentUser == null || !currentUser.isAdmin()) {
+                logger.error("Unauthorized attempt to upload image by user: {}", currentUser != null ? currentUser.getUsername() : null);
                 return ResponseEntity.status(HttpStatus.FORBIDDEN)
                         .body(new ErrorResponse("Bạn không có quyền thực hiện thao tác này"));
             }
@@ -372,15 +550,46 @@ public class BookController {
             }
 
             // Check file type
-            if (!file.getContentType().startsWith("image/")) {
+            if (file.getContentType() == null || !file.getContentType().startsWith("image/")) {
                 return ResponseEntity.badRequest().body(new ErrorResponse("Chỉ hỗ trợ file hình ảnh"));
             }
 
-            String imageUrl = cloudinaryService.uploadFile(file);
-            return ResponseEntity.ok(Map.of("imageUrl", imageUrl));
+            CoverUploadStatus status = coverUploadService.submit(file);
+            if (status.getState() == CoverUploadStatus.State.DONE) {
+                return ResponseEntity.ok(Map.of("imageUrl", status.getImageUrl()));
+            }
+            if (status.getState() == CoverUploadStatus.State.FAILED) {
+                return ResponseEntity.badRequest()
+                        .body(new ErrorResponse("Không thể tải lên ảnh bìa: " + status.getError()));
+            }
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/books/upload-cover/" + status.getUploadId()))
+                    .body(status);
+        } catch (TooManyRequestsException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Error uploading book cover", e);
             return ResponseEntity.badRequest().body(new ErrorResponse("Không thể tải lên ảnh bìa: " + e.getMessage()));
         }
     }
+
+    /**
+     * API tra cứu trạng thái một lần tải ảnh bìa.
+     *
+     * @param uploadId Mã lần tải do API tải ảnh bìa trả về
+     */
+    @GetMapping("/upload-cover/{uploadId}")
+    public ResponseEntity<?> getBookCoverUploadStatus(@CurrentUser UserPrincipal currentUser,
+                                                      @PathVariable String uploadId) {
+        if (currentUser == null || !currentUser.isAdmin()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(new ErrorResponse("Bạn không có quyền thực hiện thao tác này"));
+        }
+
+        CoverUploadStatus status = coverUploadService.status(uploadId);
+        if (status == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(status);
+    }
 }
\ No newline at end of file
@@ -5,10 +5,12 @@ import com.example.Bibliotech_backend.dto.CategoryRequest;
 import com.example.Bibliotech_backend.exception.ErrorResponse;
 import com.example.Bibliotech_backend.model.Category;
 import com.example.Bibliotech_backend.service.CategoryService;
+import com.example.Bibliotech_backend.service.ResourceVersionService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -19,9 +21,16 @@ public class CategoriesController {
     @Autowired
     private CategoryService categoryService;
 
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
     @GetMapping
-    public ResponseEntity<?> getAllCategories() {
+    public ResponseEntity<?> getAllCategories(WebRequest webRequest) {
         try {
+            ResourceVersionService.ResourceVersion version = resourceVersionService.categoriesVersion();
+            if (version != null && version.isNotModified(webRequest)) {
+                return null;
+            }
             List<CategoryDTO> categories = categoryService.getAllCategories();
             return ResponseEntity.ok(categories);
         } catch (Exception e) {
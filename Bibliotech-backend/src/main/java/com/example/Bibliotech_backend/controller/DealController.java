@@ -3,10 +3,12 @@ package com.example.Bibliotech_backend.controller;
 import com.example.Bibliotech_backend.dto.DealDTO;
 import com.example.Bibliotech_backend.model.Deal;
 import com.example.Bibliotech_backend.service.DealService;
+import com.example.Bibliotech_backend.service.ResourceVersionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Optional;
@@ -18,8 +20,15 @@ public class DealController {
     @Autowired
     private DealService dealService;
 
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
     @GetMapping
-    public List<DealDTO> getActiveDeals() {
+    public List<DealDTO> getActiveDeals(WebRequest webRequest) {
+        ResourceVersionService.ResourceVersion version = resourceVersionService.activeDealsVersion();
+        if (version != null && version.isNotModified(webRequest)) {
+            return null;
+        }
         return dealService.getActiveDeals();
     }
 
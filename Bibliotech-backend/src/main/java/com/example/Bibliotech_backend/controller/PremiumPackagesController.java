@@ -4,12 +4,14 @@ import com.example.Bibliotech_backend.model.PremiumPackage;
 import com.example.Bibliotech_backend.model.Users;
 import com.example.Bibliotech_backend.service.AuthService;
 import com.example.Bibliotech_backend.service.PremiumPackageService;
+import com.example.Bibliotech_backend.service.ResourceVersionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import jakarta.validation.Valid;
 import java.util.List;
@@ -24,13 +26,20 @@ public class PremiumPackagesController {
     @Autowired
     private AuthService authService;
 
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
     /**
      * Lấy danh sách tất cả các gói Premium đang hoạt động.
      *
-     * @return Danh sách các gói Premium đang hoạt động.
+     * @return Danh sách các gói Premium đang hoạt động, hoặc 304 nếu ETag của client vẫn còn đúng.
      */
     @GetMapping("/active")
-    public ResponseEntity<List<PremiumPackage>> getAllActivePackages() {
+    public ResponseEntity<List<PremiumPackage>> getAllActivePackages(WebRequest webRequest) {
+        ResourceVersionService.ResourceVersion version = resourceVersionService.activePremiumPackagesVersion();
+        if (version != null && version.isNotModified(webRequest)) {
+            return null;
+        }
         List<PremiumPackage> packages = premiumPackageService.getAllActivePackages();
         return ResponseEntity.ok(packages);
     }
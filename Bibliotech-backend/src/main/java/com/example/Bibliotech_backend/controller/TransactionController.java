@@ -2,14 +2,12 @@ package com.example.Bibliotech_backend.controller;
 
 import com.example.Bibliotech_backend.dto.BookResponse;
 import com.example.Bibliotech_backend.model.Transaction;
+import com.example.Bibliotech_backend.security.CurrentUser;
+import com.example.Bibliotech_backend.security.UserPrincipal;
 import com.example.Bibliotech_backend.service.TransactionService;
-import com.example.Bibliotech_backend.service.AuthService;
-import com.example.Bibliotech_backend.model.Users;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
@@ -22,20 +20,13 @@ public class TransactionController {
     @Autowired
     private TransactionService transactionService;
 
-    @Autowired
-    private AuthService authService;
-
     @GetMapping
-    public List<Transaction> getUserTransactions(@RequestParam(required = false) Integer userId) {
+    public List<Transaction> getUserTransactions(@CurrentUser UserPrincipal currentUser,
+                                                 @RequestParam(required = false) Integer userId) {
         if (userId == null) {
-            // Get the authenticated user's username from the security context
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            String username = authentication.getName();
-
-            // Get user info from username
-            Users user = authService.getUserByUsername(username);
-            if (user != null) {
-                userId = user.getUserId();
+            // Get the authenticated user from the security context
+            if (currentUser != null) {
+                userId = currentUser.getId();
             } else {
                 // Admin or special case - might need specific handling
                 // For now, return empty list or throw appropriate exception
@@ -47,16 +38,13 @@ public class TransactionController {
     }
 
     @PostMapping
-    public ResponseEntity<?> createTransaction(@RequestBody Transaction transaction) {
+    public ResponseEntity<?> createTransaction(@CurrentUser UserPrincipal currentUser,
+                                               @RequestBody Transaction transaction) {
         try {
             // Only use the transaction's userId if it's provided, otherwise get from auth
             if (transaction.getUserId() == null) {
-                Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-                String username = authentication.getName();
-
-                Users user = authService.getUserByUsername(username);
-                if (user != null) {
-                    transaction.setUserId(user.getUserId());
+                if (currentUser != null) {
+                    transaction.setUserId(currentUser.getId());
                 }
             }
 
@@ -80,16 +68,13 @@ public class TransactionController {
     }
 
     @PostMapping("/deposit")
-    public ResponseEntity<?> depositFunds(@RequestBody Transaction transaction) {
+    public ResponseEntity<?> depositFunds(@CurrentUser UserPrincipal currentUser,
+                                          @RequestBody Transaction transaction) {
         try {
             // Only use the transaction's userId if it's provided, otherwise get from auth
             if (transaction.getUserId() == null) {
-                Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-                String username = authentication.getName();
-
-                Users user = authService.getUserByUsername(username);
-                if (user != null) {
-                    transaction.setUserId(user.getUserId());
+                if (currentUser != null) {
+                    transaction.setUserId(currentUser.getId());
                 }
             }
 
@@ -101,16 +86,13 @@ public class TransactionController {
     }
 
     @PostMapping("/withdraw")
-    public ResponseEntity<?> withdrawFunds(@RequestBody Transaction transaction) {
+    public ResponseEntity<?> withdrawFunds(@CurrentUser UserPrincipal currentUser,
+                                           @RequestBody Transaction transaction) {
         try {
             // Only use the transaction's userId if it's provided, otherwise get from auth
             if (transaction.getUserId() == null) {
-                Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-                String username = authentication.getName();
-
-                Users user = authService.getUserByUsername(username);
-                if (user != null) {
-                    transaction.setUserId(user.getUserId());
+                if (currentUser != null) {
+                    transaction.setUserId(currentUser.getId());
                 }
             }
 
@@ -122,17 +104,15 @@ public class TransactionController {
     }
 
     @GetMapping("/users/{userId}/purchased-books")
-    public ResponseEntity<List<BookResponse>> getUserPurchasedBooks(@PathVariable Integer userId) {
+    public ResponseEntity<List<BookResponse>> getUserPurchasedBooks(@CurrentUser UserPrincipal currentUser,
+                                                                    @PathVariable Integer userId) {
         // Lấy thông tin người dùng từ JWT token
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated() || authentication.getPrincipal().equals("anonymousUser")) {
+        if (currentUser == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(null); // 401 nếu chưa đăng nhập
         }
 
         // Kiểm tra quyền admin
-        boolean isAdmin = authentication.getAuthorities().stream()
-                .anyMatch(auth -> auth.getAuthority().equals("ROLE_ADMIN"));
-        if (!isAdmin) {
+        if (!currentUser.isAdmin()) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(null); // 403 nếu không phải admin
         }
 
@@ -141,32 +121,21 @@ public class TransactionController {
     }
 
     @GetMapping("/purchased-books")
-    public ResponseEntity<List<BookResponse>> getMyPurchasedBooks() {
+    public ResponseEntity<List<BookResponse>> getMyPurchasedBooks(@CurrentUser UserPrincipal currentUser) {
         // Lấy thông tin người dùng từ JWT token
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated() || authentication.getPrincipal().equals("anonymousUser")) {
+        if (currentUser == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(null); // 401 nếu chưa đăng nhập
         }
 
-        String username = authentication.getName();
-        Users user = authService.getUserByUsername(username);
-        if (user == null) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null); // 404 nếu không tìm thấy user
-        }
-
-        Integer authenticatedUserId = user.getUserId();
+        Integer authenticatedUserId = currentUser.getId();
         List<BookResponse> purchasedBooks = transactionService.getPurchasedBooksByUser(authenticatedUserId);
         return ResponseEntity.ok(purchasedBooks);
     }
 
     @GetMapping("/all")
-    public ResponseEntity<?> getAllTransactions() {
+    public ResponseEntity<?> getAllTransactions(@CurrentUser UserPrincipal currentUser) {
         try {
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            String username = authentication.getName();
-            Users currentUser = authService.getUserByUsername(username);
-
-            if (currentUser == null || !currentUser.getIsAdmin()) {
+            if (currentUser == null || !currentUser.isAdmin()) {
                 return ResponseEntity.status(403).body("You are not authorized to access this resource");
             }
 
@@ -7,7 +7,9 @@ import com.example.Bibliotech_backend.model.UserProfile;
 import com.example.Bibliotech_backend.model.Users;
 import com.example.Bibliotech_backend.model.UserLibrary;
 import com.example.Bibliotech_backend.model.ReadingHistory;
+import com.example.Bibliotech_backend.security.CurrentUser;
 import com.example.Bibliotech_backend.security.JwtTokenProvider;
+import com.example.Bibliotech_backend.security.UserPrincipal;
 import com.example.Bibliotech_backend.service.*;
 import com.example.Bibliotech_backend.util.TokenUtils;
 import org.slf4j.Logger;
@@ -116,13 +118,10 @@ public class UserController {
      * @return Thông tin tài khoản của người dùng đang đăng nhập
      */
     @GetMapping("/me")
-    public ResponseEntity<?> getCurrentUser() {
+    public ResponseEntity<?> getCurrentUser(@CurrentUser Users currentUser) {
         try {
-            String username = tokenUtils.getCurrentUsername();
-            Users currentUser = authService.getUserByUsername(username);
-
             if (currentUser == null) {
-                logger.error("Không tìm thấy người dùng hiện tại với username: {}", username);
+                logger.error("Không tìm thấy người dùng hiện tại");
                 return ResponseEntity.notFound().build();
             }
 
@@ -138,22 +137,19 @@ public class UserController {
      * @return Thông tin profile của người dùng đang đăng nhập
      */
     @GetMapping("/me/profile")
-    public ResponseEntity<?> getCurrentUserProfile() {
+    public ResponseEntity<?> getCurrentUserProfile(@CurrentUser UserPrincipal currentUser) {
         try {
-            String username = tokenUtils.getCurrentUsername();
-            Users currentUser = authService.getUserByUsername(username);
-
             if (currentUser == null) {
-                logger.error("Không tìm thấy người dùng hiện tại với username: {}", username);
+                logger.error("Không tìm thấy người dùng hiện tại");
                 return ResponseEntity.notFound().build();
             }
 
-            UserProfile profile = userProfileService.getUserProfileById(currentUser.getUserId());
+            UserProfile profile = userProfileService.getUserProfileById(currentUser.getId());
             if (profile == null) {
-                logger.debug("Chưa có thông tin profile cho người dùng: {}", username);
+                logger.debug("Chưa có thông tin profile cho người dùng: {}", currentUser.getUsername());
                 // Tạo profile rỗng với userId
                 profile = new UserProfile();
-                profile.setUserId(currentUser.getUserId());
+                profile.setUserId(currentUser.getId());
             }
 
             return ResponseEntity.ok(profile);
@@ -169,20 +165,18 @@ public class UserController {
      * @return Thông tin profile đã được cập nhật
      */
     @PutMapping("/me/profile")
-    public ResponseEntity<?> updateCurrentUserProfile(@Valid @RequestBody ProfileData profileData) {
+    public ResponseEntity<?> updateCurrentUserProfile(@CurrentUser UserPrincipal currentUser,
+                                                      @Valid @RequestBody ProfileData profileData) {
         try {
-            String username = tokenUtils.getCurrentUsername();
-            Users currentUser = authService.getUserByUsername(username);
-
             if (currentUser == null) {
-                logger.error("Không tìm thấy người dùng hiện tại với username: {}", username);
+                logger.error("Không tìm thấy người dùng hiện tại");
                 return ResponseEntity.notFound().build();
             }
 
-            UserProfile updatedProfile = userProfileService.updateUserProfile(currentUser.getUserId(), profileData);
+            UserProfile updatedProfile = userProfileService.updateUserProfile(currentUser.getId(), profileData);
 
             if (updatedProfile == null) {
-                logger.error("Không thể cập nhật thông tin profile cho người dùng: {}", username);
+                logger.error("Không thể cập nhật thông tin profile cho người dùng: {}", currentUser.getUsername());
                 return ResponseEntity.badRequest().body(new ErrorResponse("Không thể cập nhật thông tin profile người dùng"));
             }
 
@@ -198,13 +192,10 @@ public class UserController {
      * @return Số dư tài khoản của người dùng đang đăng nhập
      */
     @GetMapping("/me/balance")
-    public ResponseEntity<?> getCurrentUserBalance() {
+    public ResponseEntity<?> getCurrentUserBalance(@CurrentUser Users currentUser) {
         try {
-            String username = tokenUtils.getCurrentUsername();
-            Users currentUser = authService.getUserByUsername(username);
-
             if (currentUser == null) {
-                logger.error("Không tìm thấy người dùng hiện tại với username: {}", username);
+                logger.error("Không tìm thấy người dùng hiện tại");
                 return ResponseEntity.notFound().build();
             }
 
@@ -279,15 +270,14 @@ public class UserController {
      * @return Thông tin profile đã được cập nhật
      */
     @PutMapping("/{userId}/profile")
-    public ResponseEntity<?> updateUserProfile(@PathVariable Integer userId, @Valid @RequestBody ProfileData profileData) {
+    public ResponseEntity<?> updateUserProfile(@CurrentUser UserPrincipal currentUser,
+                                               @PathVariable Integer userId,
+                                               @Valid @RequestBody ProfileData profileData) {
         try {
-            // Kiểm tra quyền truy cập
-            String currentUsername = tokenUtils.getCurrentUsername();
-            Users currentUser = authService.getUserByUsername(currentUsername);
-
             // Chỉ admin hoặc chính người dùng đó mới có thể cập nhật
-            if (currentUser == null || (!currentUser.getIsAdmin() && !currentUser.getUserId().equals(userId))) {
-                logger.error("Người dùng {} không có quyền cập nhật thông tin của người dùng {}", currentUsername, userId);
+            if (currentUser == null || (!currentUser.isAdmin() && !currentUser.getId().equals(userId))) {
+                logger.error("Người dùng {} không có quyền cập nhật thông tin của người dùng {}",
+                        currentUser != null ? currentUser.getUsername() : null, userId);
                 return ResponseEntity.status(403).body(new ErrorResponse("Không có quyền thực hiện thao tác này"));
             }
 
@@ -318,13 +308,11 @@ public class UserController {
      * @return Kết quả cập nhật trạng thái
      */
     @PatchMapping("/registration-status")
-    public ResponseEntity<?> updateRegistrationStatus(@RequestBody Map<String, Object> registrationStatusRequest) {
+    public ResponseEntity<?> updateRegistrationStatus(@CurrentUser UserPrincipal currentUser,
+                                                      @RequestBody Map<String, Object> registrationStatusRequest) {
         try {
-            String username = tokenUtils.getCurrentUsername();
-            Users currentUser = authService.getUserByUsername(username);
-
             if (currentUser == null) {
-                logger.error("Không tìm thấy người dùng với username: {}", username);
+                logger.error("Không tìm thấy người dùng hiện tại");
                 return ResponseEntity.notFound().build();
             }
 
@@ -334,7 +322,7 @@ public class UserController {
                 return ResponseEntity.badRequest().body(new ErrorResponse("Thiếu thông tin cập nhật trạng thái"));
             }
 
-            Boolean result = registrationStatusService.updateRegistrationStatus(currentUser.getUserId(), isProfileCompleted);
+            Boolean result = registrationStatusService.updateRegistrationStatus(currentUser.getId(), isProfileCompleted);
 
             if (result) {
                 return ResponseEntity.ok(Map.of("success", true, "message", "Cập nhật trạng thái đăng ký thành công"));
@@ -352,17 +340,14 @@ public class UserController {
      * @return Danh sách sở thích của người dùng
      */
     @GetMapping("/preferences")
-    public ResponseEntity<?> getUserPreferences() {
+    public ResponseEntity<?> getUserPreferences(@CurrentUser UserPrincipal currentUser) {
         try {
-            String username = tokenUtils.getCurrentUsername();
-            Users currentUser = authService.getUserByUsername(username);
-
             if (currentUser == null) {
-                logger.error("Không tìm thấy người dùng với username: {}", username);
+                logger.error("Không tìm thấy người dùng hiện tại");
                 return ResponseEntity.status(404).body(new ErrorResponse("Người dùng không tồn tại"));
             }
 
-            List<UserPreferences> userPreferences = userPreferencesService.getUserPreferences(currentUser.getUserId());
+            List<UserPreferences> userPreferences = userPreferencesService.getUserPreferences(currentUser.getId());
 
             // Log chi tiết để debug
             logger.debug("Số lượng preferences: {}", userPreferences.size());
@@ -383,13 +368,11 @@ public class UserController {
     }
 
     @PutMapping("/preferences")
-    public ResponseEntity<?> updateUserPreferences(@RequestBody List<UserPreferences> preferences) {
+    public ResponseEntity<?> updateUserPreferences(@CurrentUser UserPrincipal currentUser,
+                                                   @RequestBody List<UserPreferences> preferences) {
         try {
-            String username = tokenUtils.getCurrentUsername();
-            Users currentUser = authService.getUserByUsername(username);
-
             if (currentUser == null) {
-                logger.error("Không tìm thấy người dùng với username: {}", username);
+                logger.error("Không tìm thấy người dùng hiện tại");
                 return ResponseEntity.status(404).body(new ErrorResponse("Người dùng không tồn tại"));
             }
 
@@ -400,7 +383,7 @@ public class UserController {
                             pref.getPreferredCategoryId(), pref.getPreferenceWeight())
             );
 
-            List<UserPreferences> updatedPreferences = userPreferencesService.updateUserPreferences(currentUser.getUserId(), preferences);
+            List<UserPreferences> updatedPreferences = userPreferencesService.updateUserPreferences(currentUser.getId(), preferences);
 
             // Log chi tiết preferences đã lưu
             logger.debug("Số lượng preferences đã lưu: {}", updatedPreferences.size());
@@ -420,17 +403,14 @@ public class UserController {
      * @return Danh sách sách trong thư viện
      */
     @GetMapping("/library")
-    public ResponseEntity<?> getUserLibrary() {
+    public ResponseEntity<?> getUserLibrary(@CurrentUser UserPrincipal currentUser) {
         try {
-            String username = tokenUtils.getCurrentUsername();
-            Users currentUser = authService.getUserByUsername(username);
-
             if (currentUser == null) {
-                logger.error("Không tìm thấy người dùng với username: {}", username);
+                logger.error("Không tìm thấy người dùng hiện tại");
                 return ResponseEntity.notFound().build();
             }
 
-            List<UserLibrary> userLibrary = userLibraryService.getUserLibrary(currentUser.getUserId());
+            List<UserLibrary> userLibrary = userLibraryService.getUserLibrary(currentUser.getId());
 
             return ResponseEntity.ok(userLibrary);
         } catch (Exception e) {
@@ -445,17 +425,14 @@ public class UserController {
      * @return Thông tin sách vừa được thêm vào thư viện
      */
     @PostMapping("/library")
-    public ResponseEntity<?> addBookToLibrary(@RequestBody Integer bookId) {
+    public ResponseEntity<?> addBookToLibrary(@CurrentUser UserPrincipal currentUser, @RequestBody Integer bookId) {
         try {
-            String username = tokenUtils.getCurrentUsername();
-            Users currentUser = authService.getUserByUsername(username);
-
             if (currentUser == null) {
-                logger.error("Không tìm thấy người dùng với username: {}", username);
+                logger.error("Không tìm thấy người dùng hiện tại");
                 return ResponseEntity.notFound().build();
             }
 
-            UserLibrary libraryEntry = userLibraryService.addBookToLibrary(currentUser.getUserId(), bookId);
+            UserLibrary libraryEntry = userLibraryService.addBookToLibrary(currentUser.getId(), bookId);
 
             return ResponseEntity.ok(libraryEntry);
         } catch (Exception e) {
@@ -466,15 +443,13 @@ public class UserController {
 
     @PatchMapping("/library/{bookId}")
     public ResponseEntity<?> updateBookStatus(
+            @CurrentUser UserPrincipal currentUser,
             @PathVariable Integer bookId,
             @RequestBody Map<String, Object> updateData
     ) {
         try {
-            String username = tokenUtils.getCurrentUsername();
-            Users currentUser = authService.getUserByUsername(username);
-
             if (currentUser == null) {
-                logger.error("Không tìm thấy người dùng với username: {}", username);
+                logger.error("Không tìm thấy người dùng hiện tại");
                 return ResponseEntity.notFound().build();
             }
 
@@ -492,7 +467,7 @@ public class UserController {
             }
 
             UserLibrary updatedLibraryEntry = userLibraryService.updateBookStatus(
-                    currentUser.getUserId(),
+                    currentUser.getId(),
                     bookId,
                     userLibrary
             );
@@ -512,17 +487,14 @@ public class UserController {
      * @return Danh sách lịch sử đọc sách
      */
     @GetMapping("/reading-history")
-    public ResponseEntity<?> getReadingHistory() {
+    public ResponseEntity<?> getReadingHistory(@CurrentUser UserPrincipal currentUser) {
         try {
-            String username = tokenUtils.getCurrentUsername();
-            Users currentUser = authService.getUserByUsername(username);
-
             if (currentUser == null) {
-                logger.error("Không tìm thấy người dùng với username: {}", username);
+                logger.error("Không tìm thấy người dùng hiện tại");
                 return ResponseEntity.notFound().build();
             }
 
-            List<ReadingHistory> readingHistory = readingHistoryService.getUserReadingHistory(currentUser.getUserId());
+            List<ReadingHistory> readingHistory = readingHistoryService.getUserReadingHistory(currentUser.getId());
 
             return ResponseEntity.ok(readingHistory);
         } catch (Exception e) {
@@ -537,18 +509,16 @@ public class UserController {
      * @return Thông tin phiên đọc đã được ghi nhận
      */
     @PostMapping("/reading-history")
-    public ResponseEntity<?> recordReadingSession(@RequestBody ReadingHistory readingSession) {
+    public ResponseEntity<?> recordReadingSession(@CurrentUser UserPrincipal currentUser,
+                                                  @RequestBody ReadingHistory readingSession) {
         try {
-            String username = tokenUtils.getCurrentUsername();
-            Users currentUser = authService.getUserByUsername(username);
-
             if (currentUser == null) {
-                logger.error("Không tìm thấy người dùng với username: {}", username);
+                logger.error("Không tìm thấy người dùng hiện tại");
                 return ResponseEntity.notFound().build();
             }
 
             // Đảm bảo session được gắn với user hiện tại
-            readingSession.setUserId(currentUser.getUserId());
+            readingSession.setUserId(currentUser.getId());
 
             ReadingHistory recordedSession = readingHistoryService.recordReadingSession(readingSession);
 
@@ -560,13 +530,11 @@ public class UserController {
     }
 
     @GetMapping("/all")
-    public ResponseEntity<?> getAllUsers() {
+    public ResponseEntity<?> getAllUsers(@CurrentUser UserPrincipal currentUser) {
         try {
-            String username = tokenUtils.getCurrentUsername();
-            Users currentUser = authService.getUserByUsername(username);
-
-            if (currentUser == null || !currentUser.getIsAdmin()) {
-                logger.error("User {} is not authorized to access all users", username);
+            if (currentUser == null || !currentUser.isAdmin()) {
+                logger.error("User {} is not authorized to access all users",
+                        currentUser != null ? currentUser.getUsername() : null);
                 return ResponseEntity.status(403).body(new ErrorResponse("You are not authorized to access this resource"));
             }
 
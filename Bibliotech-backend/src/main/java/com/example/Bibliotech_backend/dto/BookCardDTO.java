@@ -0,0 +1,146 @@
+package com.example.Bibliotech_backend.dto;
+
+import com.example.Bibliotech_backend.model.Book;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Dữ liệu rút gọn của một cuốn sách cho trang danh sách (thẻ sách).
+ * <p>
+ * Được tạo trực tiếp từ truy vấn projection nên không nạp cột description, không tạo entity
+ * và không bị Hibernate theo dõi thay đổi. Danh mục chỉ gồm danh sách categoryId.
+ * </p>
+ */
+public class BookCardDTO {
+    private Integer bookId;
+    private String title;
+    private String author;
+    private String coverImageUrl;
+    private BigDecimal originalPrice;
+    private BigDecimal discountedPrice;
+    private BigDecimal averageRating;
+    private Integer ratingCount;
+    private String language;
+    private Integer dealId;
+    private LocalDateTime createdAt;
+    private List<Integer> categoryIds;
+
+    public BookCardDTO() {
+    }
+
+    public BookCardDTO(Integer bookId, String title, String author, String coverImageUrl,
+                       BigDecimal originalPrice, BigDecimal discountedPrice, BigDecimal averageRating,
+                       Integer ratingCount, Book.Language language, Integer dealId, LocalDateTime createdAt) {
+        this.bookId = bookId;
+        this.title = title;
+        this.author = author;
+        this.coverImageUrl = coverImageUrl;
+        this.originalPrice = originalPrice;
+        this.discountedPrice = discountedPrice;
+        this.averageRating = averageRating;
+        this.ratingCount = ratingCount;
+        this.language = language != null ? language.name() : null;
+        this.dealId = dealId;
+        this.createdAt = createdAt;
+        this.categoryIds = new ArrayList<>();
+    }
+
+    public Integer getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(Integer bookId) {
+        this.bookId = bookId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public void setAuthor(String author) {
+        this.author = author;
+    }
+
+    public String getCoverImageUrl() {
+        return coverImageUrl;
+    }
+
+    public void setCoverImageUrl(String coverImageUrl) {
+        this.coverImageUrl = coverImageUrl;
+    }
+
+    public BigDecimal getOriginalPrice() {
+        return originalPrice;
+    }
+
+    public void setOriginalPrice(BigDecimal originalPrice) {
+        this.originalPrice = originalPrice;
+    }
+
+    public BigDecimal getDiscountedPrice() {
+        return discountedPrice;
+    }
+
+    public void setDiscountedPrice(BigDecimal discountedPrice) {
+        this.discountedPrice = discountedPrice;
+    }
+
+    public BigDecimal getAverageRating() {
+        return averageRating;
+    }
+
+    public void setAverageRating(BigDecimal averageRating) {
+        this.averageRating = averageRating;
+    }
+
+    public Integer getRatingCount() {
+        return ratingCount;
+    }
+
+    public void setRatingCount(Integer ratingCount) {
+        this.ratingCount = ratingCount;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    public void setLanguage(String language) {
+        this.language = language;
+    }
+
+    public Integer getDealId() {
+        return dealId;
+    }
+
+    public void setDealId(Integer dealId) {
+        this.dealId = dealId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public List<Integer> getCategoryIds() {
+        return categoryIds;
+    }
+
+    public void setCategoryIds(List<Integer> categoryIds) {
+        this.categoryIds = categoryIds;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.Bibliotech_backend.dto;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Số lượng sách theo từng giá trị bộ lọc (facet), tính trên toàn bộ tập sách khớp với truy vấn.
+ */
+public class BookFacets {
+    private int totalMatches;
+    private Map<String, Integer> languages = new LinkedHashMap<>();
+    private Map<Integer, Integer> categories = new LinkedHashMap<>();
+    private Map<String, Integer> priceRanges = new LinkedHashMap<>();
+    private int discounted;
+    private int notDiscounted;
+    private Map<String, Integer> readingDifficulties = new LinkedHashMap<>();
+    private Map<String, Integer> contentRatings = new LinkedHashMap<>();
+
+    public BookFacets() {
+    }
+
+    public int getTotalMatches() {
+        return totalMatches;
+    }
+
+    public void setTotalMatches(int totalMatches) {
+        this.totalMatches = totalMatches;
+    }
+
+    public Map<String, Integer> getLanguages() {
+        return languages;
+    }
+
+    public void setLanguages(Map<String, Integer> languages) {
+        this.languages = languages;
+    }
+
+    /**
+     * Số sách theo categoryId.
+     */
+    public Map<Integer, Integer> getCategories() {
+        return categories;
+    }
+
+    public void setCategories(Map<Integer, Integer> categories) {
+        this.categories = categories;
+    }
+
+    /**
+     * Số sách theo khoảng giá gốc, ví dụ "50000-100000" (gồm cận dưới, không gồm cận trên) hoặc "500000+".
+     */
+    public Map<String, Integer> getPriceRanges() {
+        return priceRanges;
+    }
+
+    public void setPriceRanges(Map<String, Integer> priceRanges) {
+        this.priceRanges = priceRanges;
+    }
+
+    public int getDiscounted() {
+        return discounted;
+    }
+
+    public void setDiscounted(int discounted) {
+        this.discounted = discounted;
+    }
+
+    public int getNotDiscounted() {
+        return notDiscounted;
+    }
+
+    public void setNotDiscounted(int notDiscounted) {
+        this.notDiscounted = notDiscounted;
+    }
+
+    public Map<String, Integer> getReadingDifficulties() {
+        return readingDifficulties;
+    }
+
+    public void setReadingDifficulties(Map<String, Integer> readingDifficulties) {
+        this.readingDifficulties = readingDifficulties;
+    }
+
+    public Map<String, Integer> getContentRatings() {
+        return contentRatings;
+    }
+
+    public void setContentRatings(Map<String, Integer> contentRatings) {
+        this.contentRatings = contentRatings;
+    }
+}
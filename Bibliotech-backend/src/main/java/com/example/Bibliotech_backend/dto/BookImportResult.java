@@ -0,0 +1,96 @@
+package com.example.Bibliotech_backend.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Kết quả nhập sách hàng loạt.
+ */
+public class BookImportResult {
+    private long totalRows;
+    private long imported;
+    private long failed;
+    private List<RowError> errors = new ArrayList<>();
+    private boolean errorsTruncated;
+
+    public long getTotalRows() {
+        return totalRows;
+    }
+
+    public void setTotalRows(long totalRows) {
+        this.totalRows = totalRows;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public void setImported(long imported) {
+        this.imported = imported;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    /**
+     * Lỗi của từng dòng, theo thứ tự trong tệp; chỉ giữ tối đa một số lượng cấu hình.
+     */
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<RowError> errors) {
+        this.errors = errors;
+    }
+
+    /**
+     * true nếu có nhiều lỗi hơn số lỗi được trả về trong {@link #getErrors()}.
+     */
+    public boolean isErrorsTruncated() {
+        return errorsTruncated;
+    }
+
+    public void setErrorsTruncated(boolean errorsTruncated) {
+        this.errorsTruncated = errorsTruncated;
+    }
+
+    /**
+     * Lỗi của một dòng dữ liệu.
+     */
+    public static class RowError {
+        private long row;
+        private String message;
+
+        public RowError() {
+        }
+
+        public RowError(long row, String message) {
+            this.row = row;
+            this.message = message;
+        }
+
+        /**
+         * Số thứ tự dòng dữ liệu, bắt đầu từ 1 (không tính dòng tiêu đề CSV).
+         */
+        public long getRow() {
+            return row;
+        }
+
+        public void setRow(long row) {
+            this.row = row;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.Bibliotech_backend.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Một trang sách theo số trang, kèm số lượng theo từng bộ lọc (facet).
+ *
+ * @param <T> Kiểu phần tử: {@link BookResponse} hoặc {@link BookCardDTO}.
+ */
+public class BookListResponse<T> {
+    private List<T> items;
+    private BookFacets facets;
+    private Map<String, String> didYouMean;
+
+    public BookListResponse() {
+    }
+
+    public BookListResponse(List<T> items, BookFacets facets) {
+        this.items = items;
+        this.facets = facets;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    /**
+     * Số lượng theo từng bộ lọc, null nếu chưa thể tính (bản chụp danh mục sách chưa sẵn sàng).
+     */
+    public BookFacets getFacets() {
+        return facets;
+    }
+
+    public void setFacets(BookFacets facets) {
+        this.facets = facets;
+    }
+
+    /**
+     * Truy vấn đã sửa lỗi gõ theo từng trường ("title", "author"), chỉ có ở chế độ tìm gần đúng.
+     */
+    public Map<String, String> getDidYouMean() {
+        return didYouMean;
+    }
+
+    public void setDidYouMean(Map<String, String> didYouMean) {
+        this.didYouMean = didYouMean;
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.Bibliotech_backend.dto;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 
 public class BookSaleInfoDTO {
     private Integer bookId;
@@ -8,6 +9,8 @@ public class BookSaleInfoDTO {
     private String coverImageUrl;
     private BigDecimal originalPrice;
     private BigDecimal discountedPrice;
+    private Integer dealId;
+    private LocalDate dealEndDate;
 
     public BookSaleInfoDTO(Integer bookId, String title, String coverImageUrl, BigDecimal originalPrice, BigDecimal discountedPrice) {
         this.bookId = bookId;
@@ -56,4 +59,23 @@ public class BookSaleInfoDTO {
     public void setDiscountedPrice(BigDecimal discountedPrice) {
         this.discountedPrice = discountedPrice;
     }
+
+    /**
+     * Deal đang áp cho sách, null nếu giá giảm được nhập tay.
+     */
+    public Integer getDealId() {
+        return dealId;
+    }
+
+    public void setDealId(Integer dealId) {
+        this.dealId = dealId;
+    }
+
+    public LocalDate getDealEndDate() {
+        return dealEndDate;
+    }
+
+    public void setDealEndDate(LocalDate dealEndDate) {
+        this.dealEndDate = dealEndDate;
+    }
 }
@@ -0,0 +1,96 @@
+package com.example.Bibliotech_backend.dto;
+
+/**
+ * Các bộ lọc của API danh sách sách.
+ */
+public class BookSearchCriteria {
+    private String title;
+    private String author;
+    private Integer categoryId;
+    private String language;
+    private Double minPrice;
+    private Double maxPrice;
+    private Boolean hasDiscount;
+    private boolean fuzzy;
+
+    public BookSearchCriteria() {
+    }
+
+    public BookSearchCriteria(String title, String author, Integer categoryId, String language,
+                              Double minPrice, Double maxPrice, Boolean hasDiscount) {
+        this.title = title;
+        this.author = author;
+        this.categoryId = categoryId;
+        this.language = language;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.hasDiscount = hasDiscount;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public void setAuthor(String author) {
+        this.author = author;
+    }
+
+    public Integer getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Integer categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    public void setLanguage(String language) {
+        this.language = language;
+    }
+
+    public Double getMinPrice() {
+        return minPrice;
+    }
+
+    public void setMinPrice(Double minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public Double getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(Double maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    public Boolean getHasDiscount() {
+        return hasDiscount;
+    }
+
+    public void setHasDiscount(Boolean hasDiscount) {
+        this.hasDiscount = hasDiscount;
+    }
+
+    /**
+     * Tìm tiêu đề và tác giả gần đúng (chấp nhận lỗi gõ) thay vì khớp chính xác từng từ.
+     */
+    public boolean isFuzzy() {
+        return fuzzy;
+    }
+
+    public void setFuzzy(boolean fuzzy) {
+        this.fuzzy = fuzzy;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.Bibliotech_backend.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Một trang sách trong chế độ phân trang theo con trỏ (keyset).
+ *
+ * @param <T> Kiểu phần tử: {@link BookResponse} hoặc {@link BookCardDTO}.
+ */
+public class BookSliceResponse<T> {
+    private List<T> items;
+    private String nextCursor;
+    private boolean hasNext;
+    private BookFacets facets;
+    private Map<String, String> didYouMean;
+
+    public BookSliceResponse() {
+    }
+
+    public BookSliceResponse(List<T> items, String nextCursor, boolean hasNext) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasNext = hasNext;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    /**
+     * Con trỏ để lấy trang tiếp theo, null nếu đây là trang cuối.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public void setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+
+    /**
+     * Số lượng theo từng bộ lọc, chỉ có khi được yêu cầu.
+     */
+    public BookFacets getFacets() {
+        return facets;
+    }
+
+    public void setFacets(BookFacets facets) {
+        this.facets = facets;
+    }
+
+    /**
+     * Truy vấn đã sửa lỗi gõ theo từng trường ("title", "author"), chỉ có ở chế độ tìm gần đúng.
+     */
+    public Map<String, String> getDidYouMean() {
+        return didYouMean;
+    }
+
+    public void setDidYouMean(Map<String, String> didYouMean) {
+        this.didYouMean = didYouMean;
+    }
+}
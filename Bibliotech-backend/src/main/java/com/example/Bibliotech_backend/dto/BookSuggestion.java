@@ -0,0 +1,51 @@
+package com.example.Bibliotech_backend.dto;
+
+/**
+ * Một gợi ý cho ô tìm kiếm sách.
+ */
+public class BookSuggestion {
+    public enum Type {
+        TITLE,
+        AUTHOR
+    }
+
+    private String text;
+    private Type type;
+    private Integer bookId;
+
+    public BookSuggestion() {
+    }
+
+    public BookSuggestion(String text, Type type, Integer bookId) {
+        this.text = text;
+        this.type = type;
+        this.bookId = bookId;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public void setText(String text) {
+        this.text = text;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    /**
+     * ID của sách với gợi ý tiêu đề; null với gợi ý tác giả.
+     */
+    public Integer getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(Integer bookId) {
+        this.bookId = bookId;
+    }
+}
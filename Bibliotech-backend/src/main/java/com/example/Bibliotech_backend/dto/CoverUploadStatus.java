@@ -0,0 +1,77 @@
+package com.example.Bibliotech_backend.dto;
+
+/**
+ * Trạng thái của một lần tải ảnh bìa lên.
+ */
+public class CoverUploadStatus {
+
+    public enum State {
+        PENDING, DONE, FAILED
+    }
+
+    private String uploadId;
+    private State state;
+    private long size;
+    private String imageUrl;
+    private String error;
+
+    public CoverUploadStatus() {
+    }
+
+    public CoverUploadStatus(String uploadId, State state, long size, String imageUrl, String error) {
+        this.uploadId = uploadId;
+        this.state = state;
+        this.size = size;
+        this.imageUrl = imageUrl;
+        this.error = error;
+    }
+
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    public void setUploadId(String uploadId) {
+        this.uploadId = uploadId;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void setState(State state) {
+        this.state = state;
+    }
+
+    /**
+     * Kích thước ảnh (byte).
+     */
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    /**
+     * URL của ảnh khi {@code state} là {@code DONE}.
+     */
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public void setImageUrl(String imageUrl) {
+        this.imageUrl = imageUrl;
+    }
+
+    /**
+     * Lý do thất bại khi {@code state} là {@code FAILED}.
+     */
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.Bibliotech_backend.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Các sách đang giảm giá của một deal, theo mức giảm giảm dần.
+ */
+public class SaleDealGroupDTO {
+    private Integer dealId;
+    private String dealName;
+    private LocalDate endDate;
+    private int totalBooks;
+    private List<BookSaleInfoDTO> books;
+
+    public SaleDealGroupDTO() {
+    }
+
+    public SaleDealGroupDTO(Integer dealId, String dealName, LocalDate endDate, int totalBooks, List<BookSaleInfoDTO> books) {
+        this.dealId = dealId;
+        this.dealName = dealName;
+        this.endDate = endDate;
+        this.totalBooks = totalBooks;
+        this.books = books;
+    }
+
+    public Integer getDealId() {
+        return dealId;
+    }
+
+    public void setDealId(Integer dealId) {
+        this.dealId = dealId;
+    }
+
+    public String getDealName() {
+        return dealName;
+    }
+
+    public void setDealName(String dealName) {
+        this.dealName = dealName;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDate endDate) {
+        this.endDate = endDate;
+    }
+
+    /**
+     * Tổng số sách đang giảm giá của deal; {@link #getBooks()} có thể chỉ chứa một phần.
+     */
+    public int getTotalBooks() {
+        return totalBooks;
+    }
+
+    public void setTotalBooks(int totalBooks) {
+        this.totalBooks = totalBooks;
+    }
+
+    public List<BookSaleInfoDTO> getBooks() {
+        return books;
+    }
+
+    public void setBooks(List<BookSaleInfoDTO> books) {
+        this.books = books;
+    }
+}
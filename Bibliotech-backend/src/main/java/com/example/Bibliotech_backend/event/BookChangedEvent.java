@@ -0,0 +1,50 @@
+package com.example.Bibliotech_backend.event;
+
+/**
+ * Sự kiện phát ra khi dữ liệu của một cuốn sách thay đổi.
+ * <p>
+ * Các chỉ mục và bộ đệm trong bộ nhớ lắng nghe sự kiện này sau khi transaction commit
+ * để cập nhật riêng cuốn sách bị ảnh hưởng thay vì nạp lại toàn bộ.
+ * </p>
+ */
+public class BookChangedEvent {
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    private final Integer bookId;
+    private final ChangeType changeType;
+
+    public BookChangedEvent(Integer bookId, ChangeType changeType) {
+        this.bookId = bookId;
+        this.changeType = changeType;
+    }
+
+    public static BookChangedEvent created(Integer bookId) {
+        return new BookChangedEvent(bookId, ChangeType.CREATED);
+    }
+
+    public static BookChangedEvent updated(Integer bookId) {
+        return new BookChangedEvent(bookId, ChangeType.UPDATED);
+    }
+
+    public static BookChangedEvent deleted(Integer bookId) {
+        return new BookChangedEvent(bookId, ChangeType.DELETED);
+    }
+
+    public Integer getBookId() {
+        return bookId;
+    }
+
+    public ChangeType getChangeType() {
+        return changeType;
+    }
+
+    @Override
+    public String toString() {
+        return "BookChangedEvent{bookId=" + bookId + ", changeType=" + changeType + "}";
+    }
+}
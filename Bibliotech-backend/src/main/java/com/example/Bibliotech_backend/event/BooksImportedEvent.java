@@ -0,0 +1,26 @@
+package com.example.Bibliotech_backend.event;
+
+/**
+ * Sự kiện phát ra sau khi nhập hàng loạt sách.
+ * <p>
+ * Phát một sự kiện cho cả lần nhập thay vì một {@link BookChangedEvent} cho từng cuốn, vì đọc lại
+ * hàng trăm nghìn cuốn sách từng cuốn một chậm hơn nhiều so với dựng lại các chỉ mục trong bộ nhớ.
+ * </p>
+ */
+public class BooksImportedEvent {
+
+    private final int importedBooks;
+
+    public BooksImportedEvent(int importedBooks) {
+        this.importedBooks = importedBooks;
+    }
+
+    public int getImportedBooks() {
+        return importedBooks;
+    }
+
+    @Override
+    public String toString() {
+        return "BooksImportedEvent{importedBooks=" + importedBooks + "}";
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.Bibliotech_backend.event;
+
+/**
+ * Sự kiện phát ra khi thông tin của một deal (tên, phần trăm giảm, thời hạn, trạng thái) thay đổi.
+ * <p>
+ * Deal được nhúng trong BookResponse của mọi cuốn sách gắn với nó, nên các bộ đệm chi tiết sách
+ * lắng nghe sự kiện này để loại bỏ những cuốn sách bị ảnh hưởng.
+ * </p>
+ */
+public class DealChangedEvent {
+
+    private final Integer dealId;
+    private final int repricedBooks;
+
+    public DealChangedEvent(Integer dealId) {
+        this(dealId, 0);
+    }
+
+    public DealChangedEvent(Integer dealId, int repricedBooks) {
+        this.dealId = dealId;
+        this.repricedBooks = repricedBooks;
+    }
+
+    public Integer getDealId() {
+        return dealId;
+    }
+
+    /**
+     * Số sách có giá sau giảm vừa được tính lại theo deal; 0 nếu chỉ thông tin của deal thay đổi.
+     */
+    public int getRepricedBooks() {
+        return repricedBooks;
+    }
+
+    @Override
+    public String toString() {
+        return "DealChangedEvent{dealId=" + dealId + ", repricedBooks=" + repricedBooks + "}";
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.Bibliotech_backend.event;
+
+import com.example.Bibliotech_backend.model.OutboxEvent;
+
+/**
+ * Sự kiện phát ra khi một tác vụ được ghi vào outbox.
+ * <p>
+ * Bộ điều phối nghe sự kiện này sau khi transaction commit để thực hiện tác vụ ngay, thay vì đợi tới
+ * lần quét định kỳ kế tiếp.
+ * </p>
+ */
+public class OutboxEnqueuedEvent {
+
+    private final OutboxEvent.Type eventType;
+
+    public OutboxEnqueuedEvent(OutboxEvent.Type eventType) {
+        this.eventType = eventType;
+    }
+
+    public OutboxEvent.Type getEventType() {
+        return eventType;
+    }
+
+    @Override
+    public String toString() {
+        return "OutboxEnqueuedEvent{eventType=" + eventType + "}";
+    }
+}
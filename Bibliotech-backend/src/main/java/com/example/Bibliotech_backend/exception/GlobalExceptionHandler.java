@@ -2,6 +2,7 @@ package com.example.Bibliotech_backend.exception;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -31,6 +32,21 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(error);
     }
 
+    /**
+     * Xử lý ngoại lệ TooManyRequestsException khi hệ thống đang quá tải.
+     *
+     * @param e Ngoại lệ TooManyRequestsException
+     * @return Đối tượng ResponseEntity chứa thông tin lỗi và header Retry-After
+     */
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ErrorResponse> handleTooManyRequests(TooManyRequestsException e) {
+        logger.warn("Too many requests: {}", e.getMessage());
+        ErrorResponse error = new ErrorResponse(HttpStatus.TOO_MANY_REQUESTS.value(), e.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(error);
+    }
+
     /**
      * Xử lý ngoại lệ liên quan đến validation khi request không hợp lệ.
      *
@@ -0,0 +1,48 @@
+package com.example.Bibliotech_backend.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Entity class đại diện cho bảng AccountVersions.
+ * <p>
+ * Mỗi dòng ghi thời điểm quyền của một tài khoản (admin, premium) thay đổi gần nhất. Token phát hành trước
+ * thời điểm đó phải tải lại người dùng từ cơ sở dữ liệu thay vì tin claim của token. Dòng được xóa khi mọi
+ * token phát hành trước thay đổi đã hết hạn.
+ * </p>
+ */
+@Entity
+@Table(name = "AccountVersions")
+public class AccountVersion {
+
+    @Id
+    @Column(name = "user_id")
+    private Integer userId;
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+
+    public AccountVersion() {
+    }
+
+    public AccountVersion(Integer userId, LocalDateTime changedAt) {
+        this.userId = userId;
+        this.changedAt = changedAt;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Integer userId) {
+        this.userId = userId;
+    }
+
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+
+    public void setChangedAt(LocalDateTime changedAt) {
+        this.changedAt = changedAt;
+    }
+}
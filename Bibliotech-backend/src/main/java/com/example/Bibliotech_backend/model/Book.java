@@ -1,4 +1,5 @@
 package com.example.Bibliotech_backend.model;
+import com.example.Bibliotech_backend.util.TextNormalizer;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -9,7 +10,9 @@ import java.util.Set;
  * Entity class đại diện cho bảng Books trong cơ sở dữ liệu
  */
 @Entity
-@Table(name = "Books")
+@Table(name = "Books", indexes = {
+        @Index(name = "idx_books_title_sort_key", columnList = "title_sort_key, book_id")
+})
 public class Book {
     @Id
     @Column(name = "book_id")
@@ -18,6 +21,14 @@ public class Book {
     @Column(name = "title", nullable = false)
     private String title;
 
+    /**
+     * Tiêu đề đã bỏ dấu và chuyển chữ thường ({@link TextNormalizer#fold}), so sánh theo byte.
+     * Mọi nơi sắp xếp theo tiêu đề (truy vấn MySQL, bản chụp trong bộ nhớ, con trỏ) đều dùng khóa này
+     * để cho cùng một thứ tự.
+     */
+    @Column(name = "title_sort_key", columnDefinition = "VARCHAR(255) COLLATE utf8mb4_bin")
+    private String titleSortKey;
+
     @Column(name = "author", nullable = false)
     private String author;
 
@@ -55,7 +66,7 @@ public class Book {
     @Column(name = "stock_quantity", nullable = false)
     private Integer stockQuantity;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "deal_id")
     private Deal deal;
 
@@ -111,6 +122,10 @@ public class Book {
         this.title = title;
     }
 
+    public String getTitleSortKey() {
+        return titleSortKey;
+    }
+
     public String getAuthor() {
         return author;
     }
@@ -296,10 +311,12 @@ public class Book {
     protected void onCreate() {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
+        titleSortKey = TextNormalizer.fold(title);
     }
 
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
+        titleSortKey = TextNormalizer.fold(title);
     }
 }
@@ -0,0 +1,65 @@
+package com.example.Bibliotech_backend.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Entity class đại diện cho bảng IdSequences.
+ * <p>
+ * Mỗi dòng giữ giá trị ID tiếp theo chưa được cấp phát của một bảng (hi/lo segment).
+ * Các node ứng dụng giữ chỗ cả một khối ID bằng cách tăng {@code next_value} dưới khóa dòng,
+ * sau đó cấp phát ID trong khối đó từ bộ nhớ.
+ * </p>
+ */
+@Entity
+@Table(name = "IdSequences")
+public class IdSequence {
+
+    @Id
+    @Column(name = "sequence_name", length = 64)
+    private String sequenceName;
+
+    @Column(name = "next_value", nullable = false)
+    private Long nextValue;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public IdSequence() {
+    }
+
+    public IdSequence(String sequenceName, Long nextValue) {
+        this.sequenceName = sequenceName;
+        this.nextValue = nextValue;
+    }
+
+    public String getSequenceName() {
+        return sequenceName;
+    }
+
+    public void setSequenceName(String sequenceName) {
+        this.sequenceName = sequenceName;
+    }
+
+    public Long getNextValue() {
+        return nextValue;
+    }
+
+    public void setNextValue(Long nextValue) {
+        this.nextValue = nextValue;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
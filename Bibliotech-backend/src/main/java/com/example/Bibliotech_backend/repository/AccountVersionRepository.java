@@ -0,0 +1,22 @@
+package com.example.Bibliotech_backend.repository;
+
+import com.example.Bibliotech_backend.model.AccountVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface AccountVersionRepository extends JpaRepository<AccountVersion, Integer> {
+    List<AccountVersion> findByChangedAtAfter(LocalDateTime cutoff);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM AccountVersion av WHERE av.changedAt <= :cutoff")
+    int deleteChangedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
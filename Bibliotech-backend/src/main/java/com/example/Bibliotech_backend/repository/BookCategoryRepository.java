@@ -9,10 +9,11 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface BookCategoryRepository extends JpaRepository<BookCategory, BookCategoryId> {
+public interface BookCategoryRepository extends JpaRepository<BookCategory, BookCategoryId>, BookCategoryRepositoryCustom {
 
     /**
      * Xóa tất cả liên kết danh mục của một cuốn sách
@@ -28,6 +29,13 @@ public interface BookCategoryRepository extends JpaRepository<BookCategory, Book
     @Query("DELETE FROM BookCategory bc WHERE bc.bookId = :bookId AND bc.categoryId = :categoryId")
     void deleteBookCategory(@Param("bookId") Integer bookId, @Param("categoryId") Integer categoryId);
 
+    /**
+     * Xóa nhiều liên kết của một cuốn sách trong một câu lệnh
+     */
+    @Modifying
+    @Query("DELETE FROM BookCategory bc WHERE bc.bookId = :bookId AND bc.categoryId IN :categoryIds")
+    void deleteBookCategories(@Param("bookId") Integer bookId, @Param("categoryIds") Collection<Integer> categoryIds);
+
 //    /**
 //     * Lưu liên kết giữa sách và danh mục
 //     */
@@ -52,4 +60,15 @@ public interface BookCategoryRepository extends JpaRepository<BookCategory, Book
      */
     @Query("SELECT bc.categoryId FROM BookCategory bc WHERE bc.bookId = :bookId")
     List<Integer> findCategoryIdsByBookId(@Param("bookId") Integer bookId);
+
+    /**
+     * Lấy liên kết sách - danh mục của nhiều cuốn sách trong một truy vấn
+     */
+    @Query("SELECT bc.bookId AS bookId, bc.categoryId AS categoryId FROM BookCategory bc WHERE bc.bookId IN :bookIds")
+    List<BookCategoryLink> findLinksByBookIds(@Param("bookIds") Collection<Integer> bookIds);
+
+    interface BookCategoryLink {
+        Integer getBookId();
+        Integer getCategoryId();
+    }
 }
\ No newline at end of file
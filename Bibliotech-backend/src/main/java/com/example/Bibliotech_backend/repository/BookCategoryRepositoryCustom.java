@@ -0,0 +1,19 @@
+package com.example.Bibliotech_backend.repository;
+
+import java.util.Collection;
+
+/**
+ * Các thao tác trên liên kết sách - danh mục cần câu lệnh dựng động.
+ */
+public interface BookCategoryRepositoryCustom {
+
+    /**
+     * Thêm liên kết giữa một cuốn sách và nhiều danh mục bằng một câu INSERT nhiều dòng,
+     * trong transaction của người gọi. Liên kết đã tồn tại (ví dụ do một request song song vừa thêm)
+     * được bỏ qua thay vì làm lỗi cả câu lệnh.
+     *
+     * @param bookId ID sách.
+     * @param categoryIds Các danh mục cần liên kết.
+     */
+    void insertLinks(Integer bookId, Collection<Integer> categoryIds);
+}
@@ -0,0 +1,37 @@
+package com.example.Bibliotech_backend.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.util.Collection;
+import java.util.StringJoiner;
+
+public class BookCategoryRepositoryCustomImpl implements BookCategoryRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void insertLinks(Integer bookId, Collection<Integer> categoryIds) {
+        if (categoryIds.isEmpty()) {
+            return;
+        }
+
+        StringJoiner rows = new StringJoiner(", ");
+        for (int i = 0; i < categoryIds.size(); i++) {
+            rows.add("(?" + (2 * i + 1) + ", ?" + (2 * i + 2) + ")");
+        }
+        // Không dùng INSERT IGNORE: câu đó cũng nuốt lỗi khóa ngoại của danh mục không tồn tại
+        Query insert = entityManager.createNativeQuery(
+                "INSERT INTO BookCategories (book_id, category_id) VALUES " + rows +
+                        " ON DUPLICATE KEY UPDATE category_id = category_id");
+
+        int position = 1;
+        for (Integer categoryId : categoryIds) {
+            insert.setParameter(position++, bookId);
+            insert.setParameter(position++, categoryId);
+        }
+        insert.executeUpdate();
+    }
+}
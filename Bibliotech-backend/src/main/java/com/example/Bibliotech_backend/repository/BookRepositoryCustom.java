@@ -0,0 +1,65 @@
+package com.example.Bibliotech_backend.repository;
+
+import com.example.Bibliotech_backend.dto.BookCardDTO;
+import com.example.Bibliotech_backend.dto.BookSearchCriteria;
+import com.example.Bibliotech_backend.model.Book;
+import com.example.Bibliotech_backend.util.BookCursor;
+import org.springframework.data.domain.Slice;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Các truy vấn sách được dựng động, không biểu diễn được bằng {@code @Query} cố định.
+ */
+public interface BookRepositoryCustom {
+
+    /**
+     * Lấy một trang sách theo con trỏ (keyset), không chạy truy vấn COUNT.
+     *
+     * @param criteria Các bộ lọc.
+     * @param bookIds Tập bookId đã khớp chỉ mục tìm kiếm; null để lọc tiêu đề/tác giả bằng LIKE.
+     * @param after Con trỏ của trang trước, null cho trang đầu.
+     * @param sortBy Trường sắp xếp, một trong {@link BookCursor#SORT_FIELDS}.
+     * @param descending Sắp xếp giảm dần hay không.
+     * @param size Số sách mỗi trang.
+     * @return Trang sách, kèm cờ cho biết còn trang tiếp theo hay không.
+     */
+    Slice<Book> findBooksAfter(BookSearchCriteria criteria, Collection<Integer> bookIds,
+                               BookCursor after, String sortBy, boolean descending, int size);
+
+    /**
+     * Giống {@link #findBooksAfter} nhưng chỉ chọn các cột của thẻ sách.
+     * Danh sách categoryId của mỗi thẻ để trống, do tầng service điền.
+     */
+    Slice<BookCardDTO> findBookCardsAfter(BookSearchCriteria criteria, Collection<Integer> bookIds,
+                                          BookCursor after, String sortBy, boolean descending, int size);
+
+    /**
+     * Lấy sách theo OFFSET, không chạy truy vấn COUNT.
+     *
+     * @param bookIds Tập bookId cần lấy; null để lọc tiêu đề/tác giả bằng LIKE.
+     * @param sortBy Thuộc tính của {@link Book} dùng để sắp xếp; bookId luôn được thêm làm khóa phụ.
+     * @param offset Vị trí bắt đầu (page * size).
+     */
+    List<Book> findBooks(BookSearchCriteria criteria, Collection<Integer> bookIds,
+                         String sortBy, boolean descending, int offset, int size);
+
+    /**
+     * Giống {@link #findBooks} nhưng chỉ chọn các cột của thẻ sách.
+     * Danh sách categoryId của mỗi thẻ để trống, do tầng service điền.
+     */
+    List<BookCardDTO> findBookCards(BookSearchCriteria criteria, Collection<Integer> bookIds,
+                                    String sortBy, boolean descending, int offset, int size);
+
+    /**
+     * Lấy bookId và giá trị khóa sắp xếp của các sách khớp bộ lọc trong tập bookId cho trước, không nạp entity.
+     * Tập bookId được chia thành nhiều truy vấn IN có kích thước giới hạn.
+     *
+     * @param criteria Các bộ lọc; tiêu đề và tác giả đã được giải qua {@code bookIds}.
+     * @param bookIds Tập bookId đã khớp chỉ mục tìm kiếm.
+     * @param sortBy Thuộc tính của {@link Book} dùng để sắp xếp.
+     * @return Mỗi phần tử là {@code [bookId, sortKey]}; sortKey có thể null, enum được trả về theo tên.
+     */
+    List<Object[]> findSortKeys(BookSearchCriteria criteria, Collection<Integer> bookIds, String sortBy);
+}
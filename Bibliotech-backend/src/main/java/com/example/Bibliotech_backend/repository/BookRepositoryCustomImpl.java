@@ -0,0 +1,261 @@
+package com.example.Bibliotech_backend.repository;
+
+import com.example.Bibliotech_backend.dto.BookCardDTO;
+import com.example.Bibliotech_backend.dto.BookSearchCriteria;
+import com.example.Bibliotech_backend.model.Book;
+import com.example.Bibliotech_backend.model.BookCategory;
+import com.example.Bibliotech_backend.util.BookCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.util.StringUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiFunction;
+
+public class BookRepositoryCustomImpl implements BookRepositoryCustom {
+
+    /**
+     * Số bookId tối đa trong một danh sách IN.
+     */
+    private static final int ID_CHUNK_SIZE = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Slice<Book> findBooksAfter(BookSearchCriteria criteria, Collection<Integer> bookIds,
+                                      BookCursor after, String sortBy, boolean descending, int size) {
+        return keysetSlice(Book.class, (cb, book) -> book, criteria, bookIds, after, sortBy, descending, size);
+    }
+
+    @Override
+    public Slice<BookCardDTO> findBookCardsAfter(BookSearchCriteria criteria, Collection<Integer> bookIds,
+                                                 BookCursor after, String sortBy, boolean descending, int size) {
+        return keysetSlice(BookCardDTO.class, BookRepositoryCustomImpl::cardSelection,
+                criteria, bookIds, after, sortBy, descending, size);
+    }
+
+    @Override
+    public List<Book> findBooks(BookSearchCriteria criteria, Collection<Integer> bookIds,
+                                String sortBy, boolean descending, int offset, int size) {
+        return offsetPage(Book.class, (cb, book) -> book, criteria, bookIds, sortBy, descending, offset, size);
+    }
+
+    @Override
+    public List<BookCardDTO> findBookCards(BookSearchCriteria criteria, Collection<Integer> bookIds,
+                                           String sortBy, boolean descending, int offset, int size) {
+        return offsetPage(BookCardDTO.class, BookRepositoryCustomImpl::cardSelection,
+                criteria, bookIds, sortBy, descending, offset, size);
+    }
+
+    /**
+     * Lấy một trang theo OFFSET với phần SELECT tùy chọn (entity hoặc projection).
+     */
+    private <T> List<T> offsetPage(Class<T> resultType,
+                                   BiFunction<CriteriaBuilder, Root<Book>, Selection<? extends T>> selection,
+                                   BookSearchCriteria criteria, Collection<Integer> bookIds,
+                                   String sortBy, boolean descending, int offset, int size) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(resultType);
+        Root<Book> book = query.from(Book.class);
+
+        List<Predicate> predicates = filterPredicates(cb, query, book, criteria, bookIds);
+        if (predicates == null) {
+            return List.of();
+        }
+
+        Expression<?> sortKey = sortExpression(cb, book, sortBy);
+        Expression<Integer> bookId = book.get("bookId");
+        query.select(selection.apply(cb, book))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(descending
+                        ? List.of(cb.desc(sortKey), cb.desc(bookId))
+                        : List.of(cb.asc(sortKey), cb.asc(bookId)));
+
+        return entityManager.createQuery(query)
+                .setFirstResult(offset)
+                .setMaxResults(size)
+                .getResultList();
+    }
+
+    @Override
+    public List<Object[]> findSortKeys(BookSearchCriteria criteria, Collection<Integer> bookIds, String sortBy) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        List<Integer> ids = new ArrayList<>(bookIds);
+        List<Object[]> rows = new ArrayList<>(ids.size());
+
+        for (int from = 0; from < ids.size(); from += ID_CHUNK_SIZE) {
+            CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+            Root<Book> book = query.from(Book.class);
+
+            List<Predicate> predicates = filterPredicates(cb, query, book, criteria,
+                    ids.subList(from, Math.min(from + ID_CHUNK_SIZE, ids.size())));
+            if (predicates == null) {
+                return new ArrayList<>();
+            }
+
+            query.multiselect(book.get("bookId"), sortExpression(cb, book, sortBy))
+                    .where(predicates.toArray(new Predicate[0]));
+            for (Object[] row : entityManager.createQuery(query).getResultList()) {
+                // Cột enum lưu dạng chuỗi nên MySQL sắp xếp theo tên, không theo ordinal
+                if (row[1] instanceof Enum<?> value) {
+                    row[1] = value.name();
+                }
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Lấy một trang theo keyset với phần SELECT tùy chọn (entity hoặc projection).
+     */
+    @SuppressWarnings("rawtypes")
+    private <T> Slice<T> keysetSlice(Class<T> resultType,
+                                     BiFunction<CriteriaBuilder, Root<Book>, Selection<? extends T>> selection,
+                                     BookSearchCriteria criteria, Collection<Integer> bookIds,
+                                     BookCursor after, String sortBy, boolean descending, int size) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(resultType);
+        Root<Book> book = query.from(Book.class);
+
+        List<Predicate> predicates = filterPredicates(cb, query, book, criteria, bookIds);
+        if (predicates == null) {
+            return new SliceImpl<>(List.of(), PageRequest.of(0, size), false);
+        }
+
+        Expression<Comparable> sortKey = sortExpression(cb, book, sortBy);
+        Expression<Integer> bookId = book.get("bookId");
+
+        // Keyset: (sortKey, bookId) đứng sau cặp giá trị của cuốn sách cuối trang trước
+        if (after != null) {
+            predicates.add(cb.or(
+                    beyond(cb, sortKey, after.getSortKey(), descending),
+                    cb.and(cb.equal(sortKey, after.getSortKey()), beyond(cb, bookId, after.getBookId(), descending))));
+        }
+
+        query.select(selection.apply(cb, book))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(descending
+                        ? List.of(cb.desc(sortKey), cb.desc(bookId))
+                        : List.of(cb.asc(sortKey), cb.asc(bookId)));
+
+        // Lấy dư một dòng để biết còn trang sau hay không, thay cho truy vấn COUNT
+        List<T> rows = entityManager.createQuery(query)
+                .setMaxResults(size + 1)
+                .getResultList();
+
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? rows.subList(0, size) : rows;
+        return new SliceImpl<>(content, PageRequest.of(0, size), hasNext);
+    }
+
+    /**
+     * Điều kiện lọc chung cho mọi truy vấn danh sách sách.
+     *
+     * @return Danh sách điều kiện, hoặc null nếu chắc chắn không có kết quả (ngôn ngữ không tồn tại).
+     */
+    private static List<Predicate> filterPredicates(CriteriaBuilder cb, CriteriaQuery<?> query, Root<Book> book,
+                                                    BookSearchCriteria criteria, Collection<Integer> bookIds) {
+        List<Predicate> predicates = new ArrayList<>();
+
+        if (bookIds != null) {
+            predicates.add(book.get("bookId").in(bookIds));
+        } else {
+            if (StringUtils.hasText(criteria.getTitle())) {
+                predicates.add(cb.like(cb.lower(book.get("title")), "%" + criteria.getTitle().toLowerCase() + "%"));
+            }
+            if (StringUtils.hasText(criteria.getAuthor())) {
+                predicates.add(cb.like(cb.lower(book.get("author")), "%" + criteria.getAuthor().toLowerCase() + "%"));
+            }
+        }
+
+        if (criteria.getCategoryId() != null) {
+            Subquery<Integer> inCategory = query.subquery(Integer.class);
+            Root<BookCategory> bookCategory = inCategory.from(BookCategory.class);
+            inCategory.select(bookCategory.get("bookId"))
+                    .where(cb.equal(bookCategory.get("categoryId"), criteria.getCategoryId()));
+            predicates.add(book.get("bookId").in(inCategory));
+        }
+
+        if (StringUtils.hasText(criteria.getLanguage())) {
+            Optional<Book.Language> language = Arrays.stream(Book.Language.values())
+                    .filter(value -> value.name().equalsIgnoreCase(criteria.getLanguage()))
+                    .findFirst();
+            if (language.isEmpty()) {
+                return null;
+            }
+            predicates.add(cb.equal(book.get("language"), language.get()));
+        }
+
+        if (criteria.getMinPrice() != null) {
+            predicates.add(cb.ge(book.get("originalPrice"), BigDecimal.valueOf(criteria.getMinPrice())));
+        }
+        if (criteria.getMaxPrice() != null) {
+            predicates.add(cb.le(book.get("originalPrice"), BigDecimal.valueOf(criteria.getMaxPrice())));
+        }
+
+        if (criteria.getHasDiscount() != null) {
+            Expression<BigDecimal> discounted = book.get("discountedPrice");
+            Expression<BigDecimal> original = book.get("originalPrice");
+            predicates.add(criteria.getHasDiscount()
+                    ? cb.and(cb.isNotNull(discounted), cb.lessThan(discounted, original))
+                    : cb.or(cb.isNull(discounted), cb.greaterThanOrEqualTo(discounted, original)));
+        }
+
+        return predicates;
+    }
+
+    /**
+     * Chỉ chọn các cột hiển thị trên thẻ sách; không nạp description và không tạo entity.
+     * dealId được đọc thẳng từ khóa ngoại deal_id của Books, không JOIN bảng Deals.
+     */
+    private static Selection<BookCardDTO> cardSelection(CriteriaBuilder cb, Root<Book> book) {
+        return cb.construct(BookCardDTO.class,
+                book.get("bookId"),
+                book.get("title"),
+                book.get("author"),
+                book.get("coverImageUrl"),
+                book.get("originalPrice"),
+                book.get("discountedPrice"),
+                book.get("averageRating"),
+                book.get("ratingCount"),
+                book.get("language"),
+                book.get("deal").get("dealId"),
+                book.get("createdAt"));
+    }
+
+    /**
+     * Biểu thức sắp xếp; cột có thể null được COALESCE giống {@link BookCursor#sortKeyOf},
+     * tiêu đề được so sánh qua cột title_sort_key (đã bỏ dấu, so sánh theo byte) giống bản chụp trong bộ nhớ.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Expression<Comparable> sortExpression(CriteriaBuilder cb, Root<Book> book, String sortBy) {
+        return switch (sortBy) {
+            case "averageRating" -> (Expression) cb.coalesce(book.<BigDecimal>get("averageRating"), BookCursor.NULL_RATING);
+            case "createdAt" -> (Expression) cb.coalesce(book.get("createdAt"), BookCursor.NULL_CREATED_AT);
+            case "title" -> book.get("titleSortKey");
+            default -> book.get(sortBy);
+        };
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate beyond(CriteriaBuilder cb, Expression expression, Comparable value, boolean descending) {
+        return descending ? cb.lessThan(expression, value) : cb.greaterThan(expression, value);
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -35,4 +36,26 @@ public interface CategoryRepository extends JpaRepository<Category, Integer> {
     // Or if you have a BookCategory entity, you might need this instead
     @Query("SELECT c FROM Category c JOIN BookCategory bc ON c.categoryId = bc.categoryId WHERE bc.bookId = :bookId")
     List<Category> findCategoriesByBookIdWithJoin(@Param("bookId") Integer bookId);
+
+    /**
+     * Lọc ra các ID danh mục thực sự tồn tại trong một truy vấn
+     */
+    @Query("SELECT c.categoryId FROM Category c WHERE c.categoryId IN :categoryIds")
+    List<Integer> findExistingIds(@Param("categoryIds") Collection<Integer> categoryIds);
+
+    /**
+     * Lấy thông tin tóm tắt của nhiều danh mục kèm danh mục cha trong một truy vấn
+     */
+    @Query("SELECT c.categoryId AS categoryId, c.categoryName AS categoryName, c.description AS description, " +
+            "p.categoryId AS parentCategoryId, p.categoryName AS parentCategoryName " +
+            "FROM Category c LEFT JOIN c.parentCategory p WHERE c.categoryId IN :categoryIds")
+    List<CategorySummary> findSummariesByIds(@Param("categoryIds") Collection<Integer> categoryIds);
+
+    interface CategorySummary {
+        Integer getCategoryId();
+        String getCategoryName();
+        String getDescription();
+        Integer getParentCategoryId();
+        String getParentCategoryName();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+package com.example.Bibliotech_backend.repository;
+
+import com.example.Bibliotech_backend.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+}
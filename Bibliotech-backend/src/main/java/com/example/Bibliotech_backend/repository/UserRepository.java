@@ -2,6 +2,7 @@ package com.example.Bibliotech_backend.repository;
 
 import com.example.Bibliotech_backend.model.Users;
 import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<Users, Integer> {
@@ -9,4 +10,20 @@ public interface UserRepository extends JpaRepository<Users, Integer> {
     boolean existsByEmail(String email);
     boolean existsByUsername(String username);
     Optional<Users> findByUsername(String identifier);
-}
\ No newline at end of file
+
+    /**
+     * Tìm người dùng khớp email hoặc username trong một truy vấn.
+     * Có thể trả về hai dòng nếu email của người này trùng username của người khác.
+     */
+    List<Users> findByEmailOrUsername(String email, String username);
+
+    /**
+     * Lấy email và username của các tài khoản đã dùng email hoặc username này, dùng khi đăng ký.
+     */
+    List<UserIdentity> findIdentitiesByEmailOrUsername(String email, String username);
+
+    interface UserIdentity {
+        String getEmail();
+        String getUsername();
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.Bibliotech_backend.security;
+
+import com.example.Bibliotech_backend.model.AccountVersion;
+import com.example.Bibliotech_backend.model.Users;
+import com.example.Bibliotech_backend.repository.AccountVersionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Ghi nhận những tài khoản vừa thay đổi quyền (admin, premium) để token cũ của họ
+ * không còn được dùng để dựng principal mà không truy vấn cơ sở dữ liệu.
+ * <p>
+ * Token mang claim "ver" là phiên bản tài khoản lúc phát hành. Nếu tài khoản được đánh dấu
+ * thay đổi sau phiên bản đó, bộ lọc JWT sẽ tải lại người dùng từ cơ sở dữ liệu.
+ * </p>
+ * <p>
+ * Giống {@link TokenDenylist}, việc tra cứu chỉ dùng bản trong bộ nhớ; bảng {@code AccountVersions} giữ các
+ * lần thay đổi để khôi phục khi khởi động lại và để các node khác đồng bộ theo chu kỳ
+ * ({@code app.jwt.account-version-sync-ms}).
+ * </p>
+ */
+@Component
+public class AccountVersionRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(AccountVersionRegistry.class);
+
+    /**
+     * Sau khoảng thời gian này mọi token phát hành trước khi thay đổi đều đã hết hạn.
+     */
+    private static final long RETENTION_MS = JwtTokenProvider.TOKEN_VALIDITY_MS;
+
+    private final AccountVersionRepository accountVersionRepository;
+
+    /**
+     * userId -> thời điểm (epoch millis) tài khoản thay đổi gần nhất.
+     */
+    private final ConcurrentMap<Integer, Long> changedAt = new ConcurrentHashMap<>();
+
+    public AccountVersionRegistry(AccountVersionRepository accountVersionRepository) {
+        this.accountVersionRepository = accountVersionRepository;
+    }
+
+    @PostConstruct
+    void init() {
+        synchronize();
+        logger.info("Loaded {} recent account changes", changedAt.size());
+    }
+
+    /**
+     * Tính phiên bản tài khoản từ thời điểm cập nhật cuối cùng của người dùng.
+     *
+     * @param user Người dùng cần tính phiên bản.
+     * @return Phiên bản tài khoản (epoch millis), 0 nếu chưa có thời điểm cập nhật.
+     */
+    public static long versionOf(Users user) {
+        LocalDateTime updatedAt = user.getUpdatedAt();
+        return updatedAt == null ? 0L : updatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Đánh dấu tài khoản vừa thay đổi quyền; các token phát hành trước thời điểm này sẽ phải tải lại người dùng.
+     * Phải được gọi ở mọi nơi đổi {@code is_admin} hoặc {@code is_premium}. Lần thay đổi được ghi vào bảng
+     * AccountVersions trong transaction của người gọi.
+     *
+     * @param userId ID của người dùng.
+     */
+    public void markChanged(Integer userId) {
+        long now = System.currentTimeMillis();
+        // Làm tròn xuống giây vì cột updated_at có thể không lưu phần mili giây
+        long changed = changedAt.merge(userId, now - now % 1000, Math::max);
+        accountVersionRepository.save(new AccountVersion(userId, toLocalDateTime(changed)));
+    }
+
+    /**
+     * Kiểm tra token có phiên bản tài khoản cũ hơn lần thay đổi gần nhất hay không.
+     *
+     * @param userId ID của người dùng trong token.
+     * @param tokenVersion Phiên bản tài khoản ghi trong token.
+     * @return true nếu cần tải lại người dùng từ cơ sở dữ liệu.
+     */
+    public boolean requiresReload(Integer userId, long tokenVersion) {
+        Long changed = changedAt.get(userId);
+        return changed != null && tokenVersion < changed;
+    }
+
+    /**
+     * Xóa các lần thay đổi đã quá thời hạn token và nạp các lần thay đổi ghi bởi node khác.
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.account-version-sync-ms:60000}")
+    public void synchronize() {
+        long cutoff = System.currentTimeMillis() - RETENTION_MS;
+        changedAt.values().removeIf(time -> time <= cutoff);
+
+        try {
+            LocalDateTime current = toLocalDateTime(cutoff);
+            int purged = accountVersionRepository.deleteChangedBefore(current);
+            if (purged > 0) {
+                logger.debug("Purged {} expired account changes", purged);
+            }
+
+            for (AccountVersion row : accountVersionRepository.findByChangedAtAfter(current)) {
+                changedAt.merge(row.getUserId(), toEpochMillis(row.getChangedAt()), Math::max);
+            }
+        } catch (DataAccessException e) {
+            logger.error("Could not synchronize account changes", e);
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
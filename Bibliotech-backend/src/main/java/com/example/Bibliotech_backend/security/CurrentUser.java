@@ -0,0 +1,21 @@
+package com.example.Bibliotech_backend.security;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Đánh dấu tham số controller nhận người dùng đang đăng nhập.
+ * <p>
+ * Tham số kiểu {@link UserPrincipal} được lấy trực tiếp từ SecurityContext, không truy vấn cơ sở dữ liệu.
+ * Tham số kiểu {@link com.example.Bibliotech_backend.model.Users} được tải theo ID của principal,
+ * tối đa một lần cho mỗi request. Giá trị là null nếu request chưa được xác thực.
+ * </p>
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CurrentUser {
+}
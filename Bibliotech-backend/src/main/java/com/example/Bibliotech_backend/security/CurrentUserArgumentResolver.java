@@ -0,0 +1,75 @@
+package com.example.Bibliotech_backend.security;
+
+import com.example.Bibliotech_backend.model.Users;
+import com.example.Bibliotech_backend.repository.UserRepository;
+import org.springframework.core.MethodParameter;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import java.util.Optional;
+
+/**
+ * Resolver cho các tham số được đánh dấu {@link CurrentUser}.
+ * <p>
+ * Dùng {@link UserPrincipal} mà bộ lọc JWT đã đặt vào SecurityContext thay vì tra cứu lại
+ * người dùng theo username. Bản ghi {@link Users} chỉ được tải khi controller thực sự cần
+ * và được giữ trong request attribute để không tải lại trong cùng một request.
+ * </p>
+ */
+@Component
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+    private static final String CURRENT_USER_ATTRIBUTE = CurrentUserArgumentResolver.class.getName() + ".USER";
+
+    private final UserRepository userRepository;
+
+    public CurrentUserArgumentResolver(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        if (!parameter.hasParameterAnnotation(CurrentUser.class)) {
+            return false;
+        }
+        Class<?> type = parameter.getParameterType();
+        return UserPrincipal.class.isAssignableFrom(type) || Users.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter,
+                                  ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest,
+                                  WebDataBinderFactory binderFactory) {
+        UserPrincipal principal = currentPrincipal();
+        if (principal == null) {
+            return null;
+        }
+
+        if (UserPrincipal.class.isAssignableFrom(parameter.getParameterType())) {
+            return principal;
+        }
+
+        Object cached = webRequest.getAttribute(CURRENT_USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (cached instanceof Optional<?> user) {
+            return user.orElse(null);
+        }
+
+        Optional<Users> user = userRepository.findById(principal.getId());
+        webRequest.setAttribute(CURRENT_USER_ATTRIBUTE, user, RequestAttributes.SCOPE_REQUEST);
+        return user.orElse(null);
+    }
+
+    private UserPrincipal currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return null;
+        }
+        return authentication.getPrincipal() instanceof UserPrincipal principal ? principal : null;
+    }
+}
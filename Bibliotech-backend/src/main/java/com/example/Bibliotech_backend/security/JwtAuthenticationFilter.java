@@ -40,6 +40,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private CustomUserDetailsService userDetailsService;
 
+    /**
+     * Theo dõi các tài khoản vừa thay đổi để buộc tải lại principal.
+     */
+    @Autowired
+    private AccountVersionRegistry accountVersionRegistry;
+
+    /**
+     * Danh sách token đã bị thu hồi (đăng xuất, buộc đăng xuất).
+     */
+    @Autowired
+    private TokenDenylist tokenDenylist;
+
     /**
      * Xử lý lọc request để trích xuất và xác thực JWT.
      * Nếu token hợp lệ, thiết lập thông tin xác thực trong SecurityContext.
@@ -62,20 +74,30 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
             // Kiểm tra nếu token hợp lệ
             if (StringUtils.hasText(jwt)) {
-                // Giải mã JWT để lấy userId
-                Integer userId = tokenProvider.getUserIdFromJWT(jwt);
+                // Xác minh JWT (dùng bộ đệm nếu token đã được xác minh trước đó)
+                VerifiedToken verified = tokenProvider.verifyToken(jwt);
+                Integer userId = verified.getUserId();
                 logger.debug("Extracted userId: " + userId);
 
-                // Tải thông tin người dùng từ cơ sở dữ liệu
-                UserDetails userDetails = userDetailsService.loadUserById(userId);
-                logger.debug("Loaded userDetails: " + userDetails.getUsername());
+                // Token đã bị thu hồi thì bỏ qua, request được xử lý như chưa đăng nhập
+                if (tokenDenylist.isRevoked(verified)) {
+                    logger.debug("Rejected revoked token for userId: " + userId);
+                } else {
+                    // Dựng principal từ claims đã ký; chỉ tải từ cơ sở dữ liệu với token cũ
+                    // hoặc khi tài khoản đã thay đổi sau khi token được phát hành
+                    UserDetails userDetails = verified.getPrincipal();
+                    if (userDetails == null || accountVersionRegistry.requiresReload(userId, verified.getAccountVersion())) {
+                        userDetails = userDetailsService.loadUserById(userId);
+                        logger.debug("Loaded userDetails: " + userDetails.getUsername());
+                    }
 
-                // Tạo đối tượng xác thực và đặt vào SecurityContext
-                UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    // Tạo đối tượng xác thực và đặt vào SecurityContext
+                    UsernamePasswordAuthenticationToken authentication =
+                            new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                }
             }
         } catch (Exception ex) {
             logger.error("Could not set user authentication in security context", ex);
@@ -1,7 +1,11 @@
 package com.example.Bibliotech_backend.security;
 
 import com.example.Bibliotech_backend.model.Users;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -11,12 +15,31 @@ import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.stereotype.Component;
 import org.springframework.security.core.Authentication;
 
-import java.lang.reflect.Field;
+import jakarta.annotation.PostConstruct;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtTokenProvider {
+    /**
+     * Thời gian hiệu lực của token (1 ngày).
+     */
+    static final long TOKEN_VALIDITY_MS = 86400000;
+
+    /**
+     * Tên các claim mang thông tin người dùng, đủ để dựng {@link UserPrincipal} mà không truy vấn cơ sở dữ liệu.
+     */
+    private static final String CLAIM_USERNAME = "username";
+    private static final String CLAIM_ADMIN = "adm";
+    private static final String CLAIM_PREMIUM = "prm";
+    private static final String CLAIM_VERSION = "ver";
+
     /**
      * Chuỗi bí mật được sử dụng để ký và xác minh token JWT.
      * Giá trị này được lấy từ file cấu hình ứng dụng.
@@ -24,9 +47,72 @@ public class JwtTokenProvider {
     @Value("${app.jwtSecret}")
     private String jwtSecret;
 
+    /**
+     * Số token đã xác minh tối đa được giữ trong bộ nhớ đệm.
+     */
+    @Value("${app.jwt.verified-cache-size:10000}")
+    private int verifiedCacheSize;
+
     @Autowired
     private AuthenticationManager authenticationManager;
 
+    /**
+     * Khóa HMAC dựng sẵn từ chuỗi bí mật.
+     */
+    private Key signingKey;
+
+    /**
+     * Parser dựng sẵn, an toàn khi dùng chung giữa các luồng.
+     */
+    private JwtParser jwtParser;
+
+    /**
+     * Bộ đệm các token đã xác minh chữ ký, khóa theo SHA-256 của token (không giữ chính token trên heap),
+     * mỗi mục tự hết hạn cùng lúc với token.
+     */
+    private Cache<TokenKey, VerifiedToken> verifiedTokens;
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    @PostConstruct
+    void init() {
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(new Expiry<TokenKey, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(TokenKey key, VerifiedToken verified, long currentTime) {
+                        return remainingNanos(verified);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(TokenKey key, VerifiedToken verified, long currentTime,
+                                                  long currentDuration) {
+                        return remainingNanos(verified);
+                    }
+
+                    @Override
+                    public long expireAfterRead(TokenKey key, VerifiedToken verified, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    private static long remainingNanos(VerifiedToken verified) {
+        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, verified.getExpiresAtMillis() - System.currentTimeMillis()));
+    }
+
     /**
      * Tạo token JWT cho người dùng.
      *
@@ -34,41 +120,72 @@ public class JwtTokenProvider {
      * @return Chuỗi token JWT.
      */
     public String generateToken(Users user) {
-        // Chuyển đổi chuỗi bí mật thành mảng byte
-        byte[] keyBytes = jwtSecret.getBytes();
-        // Tạo khóa bảo mật từ chuỗi bí mật
-        Key key = Keys.hmacShaKeyFor(keyBytes);
-
         Date now = new Date();
-        Date expiryDate = new Date(now.getTime() + 86400000); // Token có hiệu lực trong 1 ngày
-
-        // Lấy userId bằng reflection do thuộc tính có thể là private
-        Integer userId = extractUserIdFromUser(user);
+        Date expiryDate = new Date(now.getTime() + TOKEN_VALIDITY_MS); // Token có hiệu lực trong 1 ngày
 
         return Jwts.builder()
-                .setSubject(String.valueOf(userId))
+                .setId(UUID.randomUUID().toString())
+                .setSubject(String.valueOf(user.getUserId()))
+                .claim(CLAIM_USERNAME, user.getUsername())
+                .claim(CLAIM_ADMIN, Boolean.TRUE.equals(user.getIsAdmin()))
+                .claim(CLAIM_PREMIUM, Boolean.TRUE.equals(user.getIsPremium()))
+                .claim(CLAIM_VERSION, AccountVersionRegistry.versionOf(user))
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
-                .signWith(key, SignatureAlgorithm.HS512)
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
 
     /**
-     * Lấy userId từ đối tượng Users bằng cách sử dụng reflection.
+     * Xác minh chữ ký và thời hạn của token JWT.
+     * <p>
+     * Token đã xác minh được lưu trong bộ đệm cho tới khi hết hạn, nên các request lặp lại
+     * với cùng token bỏ qua bước xác minh HS512.
+     * </p>
      *
-     * @param user Đối tượng Users cần lấy userId.
-     * @return Giá trị userId của người dùng.
-     * @throws RuntimeException Nếu không thể lấy userId từ đối tượng Users.
+     * @param token Chuỗi token JWT cần xác minh.
+     * @return Thông tin đã xác minh của token.
+     * @throws io.jsonwebtoken.JwtException Nếu token không hợp lệ hoặc đã hết hạn.
      */
-    private Integer extractUserIdFromUser(Users user) {
-        try {
-            // Truy cập trường private userId bằng reflection
-            Field userIdField = Users.class.getDeclaredField("userId");
-            userIdField.setAccessible(true);
-            return (Integer) userIdField.get(user);
-        } catch (Exception e) {
-            throw new RuntimeException("Không thể lấy userId từ đối tượng Users", e);
+    public VerifiedToken verifyToken(String token) {
+        TokenKey key = TokenKey.of(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(key);
+        if (cached != null && !cached.isExpired(System.currentTimeMillis())) {
+            return cached;
         }
+
+        VerifiedToken verified = parse(token);
+        verifiedTokens.put(key, verified);
+        return verified;
+    }
+
+    /**
+     * Xác minh chữ ký HS512 và giải mã claims, không qua bộ đệm.
+     */
+    VerifiedToken parse(String token) {
+        // Giải mã token để lấy các claims
+        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+
+        Integer userId = Integer.parseInt(claims.getSubject());
+        String username = claims.get(CLAIM_USERNAME, String.class);
+        Boolean admin = claims.get(CLAIM_ADMIN, Boolean.class);
+        Boolean premium = claims.get(CLAIM_PREMIUM, Boolean.class);
+        Number version = claims.get(CLAIM_VERSION, Number.class);
+
+        // Token phát hành trước khi có các claims người dùng thì không dựng được principal
+        UserPrincipal principal = null;
+        if (username != null && admin != null && premium != null && version != null) {
+            principal = UserPrincipal.create(userId, username, admin, premium);
+        }
+
+        Date issuedAt = claims.getIssuedAt();
+        return new VerifiedToken(
+                claims.getId(),
+                userId,
+                issuedAt != null ? issuedAt.getTime() : 0L,
+                claims.getExpiration().getTime(),
+                version != null ? version.longValue() : 0L,
+                principal);
     }
 
     /**
@@ -78,19 +195,7 @@ public class JwtTokenProvider {
      * @return Giá trị userId của người dùng.
      */
     public Integer getUserIdFromJWT(String token) {
-        // Chuyển đổi chuỗi bí mật thành mảng byte
-        byte[] keyBytes = jwtSecret.getBytes();
-        // Tạo khóa bảo mật từ chuỗi bí mật
-        Key key = Keys.hmacShaKeyFor(keyBytes);
-
-        // Giải mã token để lấy các claims
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-
-        return Integer.parseInt(claims.getSubject());
+        return verifyToken(token).getUserId();
     }
 
     /**
@@ -133,4 +238,43 @@ public class JwtTokenProvider {
 
         throw new IllegalArgumentException("Không thể trích xuất userId từ kiểu Authentication này");
     }
-}
\ No newline at end of file
+
+    /**
+     * Khóa bộ đệm: SHA-256 của token, giữ dưới dạng bốn số long.
+     */
+    static final class TokenKey {
+        private final long w0;
+        private final long w1;
+        private final long w2;
+        private final long w3;
+
+        private TokenKey(byte[] digest) {
+            ByteBuffer buffer = ByteBuffer.wrap(digest);
+            this.w0 = buffer.getLong();
+            this.w1 = buffer.getLong();
+            this.w2 = buffer.getLong();
+            this.w3 = buffer.getLong();
+        }
+
+        static TokenKey of(String token) {
+            return new TokenKey(SHA_256.get().digest(token.getBytes(StandardCharsets.US_ASCII)));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof TokenKey other)) {
+                return false;
+            }
+            return w0 == other.w0 && w1 == other.w1 && w2 == other.w2 && w3 == other.w3;
+        }
+
+        @Override
+        public int hashCode() {
+            // Các byte của SHA-256 đã phân bố đều
+            return (int) w0;
+        }
+    }
+}
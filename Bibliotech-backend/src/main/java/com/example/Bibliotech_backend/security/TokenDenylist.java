@@ -0,0 +1,153 @@
+package com.example.Bibliotech_backend.security;
+
+import com.example.Bibliotech_backend.model.RevokedToken;
+import com.example.Bibliotech_backend.repository.RevokedTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Danh sách các token đã bị thu hồi trước hạn (đăng xuất, buộc đăng xuất).
+ * <p>
+ * Toàn bộ danh sách nằm trong bộ nhớ nên {@link #isRevoked(VerifiedToken)} chỉ là hai lần tra
+ * {@link ConcurrentHashMap}, không truy vấn cơ sở dữ liệu. Bảng {@code RevokedTokens} chỉ dùng để
+ * khôi phục danh sách khi khởi động lại và để các node khác đồng bộ theo chu kỳ.
+ * </p>
+ * <p>
+ * Mỗi mục chỉ cần giữ tới khi token gốc hết hạn, vì sau đó chính token đã bị từ chối khi xác minh.
+ * </p>
+ */
+@Component
+public class TokenDenylist {
+    private static final Logger logger = LoggerFactory.getLogger(TokenDenylist.class);
+
+    /**
+     * Tiền tố khóa của các dòng buộc đăng xuất trong bảng RevokedTokens.
+     */
+    private static final String USER_KEY_PREFIX = "user:";
+
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    /**
+     * jti -> thời điểm hết hạn (epoch millis) của token bị thu hồi.
+     */
+    private final ConcurrentMap<String, Long> revokedTokens = new ConcurrentHashMap<>();
+
+    /**
+     * userId -> mốc buộc đăng xuất (epoch millis); token phát hành không muộn hơn mốc này bị từ chối.
+     */
+    private final ConcurrentMap<Integer, Long> revokedBefore = new ConcurrentHashMap<>();
+
+    public TokenDenylist(RevokedTokenRepository revokedTokenRepository) {
+        this.revokedTokenRepository = revokedTokenRepository;
+    }
+
+    @PostConstruct
+    void init() {
+        synchronize();
+        logger.info("Loaded {} revoked tokens and {} forced sign-outs", revokedTokens.size(), revokedBefore.size());
+    }
+
+    /**
+     * Kiểm tra token đã bị thu hồi hay chưa.
+     *
+     * @param token Token đã xác minh chữ ký.
+     * @return true nếu token đã bị thu hồi.
+     */
+    public boolean isRevoked(VerifiedToken token) {
+        String tokenId = token.getTokenId();
+        if (tokenId != null && revokedTokens.containsKey(tokenId)) {
+            return true;
+        }
+        Long cutoff = revokedBefore.get(token.getUserId());
+        return cutoff != null && token.getIssuedAtMillis() <= cutoff;
+    }
+
+    /**
+     * Thu hồi một token (đăng xuất phiên hiện tại).
+     * <p>
+     * Token phát hành trước khi có claim {@code jti} không thể thu hồi riêng lẻ, nên mọi token
+     * của người dùng phát hành không muộn hơn token đó sẽ bị thu hồi.
+     * </p>
+     *
+     * @param token Token đã xác minh chữ ký.
+     */
+    public void revoke(VerifiedToken token) {
+        if (token.getTokenId() == null) {
+            revokeIssuedBefore(token.getUserId(), token.getIssuedAtMillis());
+            return;
+        }
+
+        revokedTokens.put(token.getTokenId(), token.getExpiresAtMillis());
+        revokedTokenRepository.save(new RevokedToken(
+                token.getTokenId(),
+                token.getUserId(),
+                LocalDateTime.now(),
+                toLocalDateTime(token.getExpiresAtMillis())));
+    }
+
+    /**
+     * Buộc đăng xuất người dùng khỏi mọi phiên: thu hồi tất cả token đã phát hành tới thời điểm này.
+     *
+     * @param userId ID của người dùng.
+     */
+    public void revokeAllForUser(Integer userId) {
+        long now = System.currentTimeMillis();
+        // Claim iat chỉ có độ chính xác tới giây
+        revokeIssuedBefore(userId, now - now % 1000);
+    }
+
+    private void revokeIssuedBefore(Integer userId, long cutoff) {
+        long effective = revokedBefore.merge(userId, cutoff, Math::max);
+        revokedTokenRepository.save(new RevokedToken(
+                USER_KEY_PREFIX + userId,
+                userId,
+                toLocalDateTime(effective),
+                toLocalDateTime(effective + JwtTokenProvider.TOKEN_VALIDITY_MS)));
+    }
+
+    /**
+     * Xóa các mục đã hết hạn và nạp các token bị thu hồi bởi node khác.
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.denylist-sync-ms:60000}")
+    public void synchronize() {
+        long now = System.currentTimeMillis();
+        revokedTokens.values().removeIf(expiresAt -> expiresAt <= now);
+        revokedBefore.values().removeIf(cutoff -> cutoff + JwtTokenProvider.TOKEN_VALIDITY_MS <= now);
+
+        try {
+            LocalDateTime current = toLocalDateTime(now);
+            int purged = revokedTokenRepository.deleteExpired(current);
+            if (purged > 0) {
+                logger.debug("Purged {} expired revoked tokens", purged);
+            }
+
+            for (RevokedToken row : revokedTokenRepository.findByExpiresAtAfter(current)) {
+                if (row.getTokenId().startsWith(USER_KEY_PREFIX)) {
+                    revokedBefore.merge(row.getUserId(), toEpochMillis(row.getRevokedAt()), Math::max);
+                } else {
+                    revokedTokens.putIfAbsent(row.getTokenId(), toEpochMillis(row.getExpiresAt()));
+                }
+            }
+        } catch (DataAccessException e) {
+            logger.error("Could not synchronize revoked tokens", e);
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
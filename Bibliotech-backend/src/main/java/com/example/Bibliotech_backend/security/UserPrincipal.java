@@ -30,21 +30,31 @@ public class UserPrincipal implements UserDetails {
     }
 
     public static UserPrincipal create(Users user) {
-        List<GrantedAuthority> authorities = new ArrayList<>();
-        authorities.add(new SimpleGrantedAuthority(user.getIsAdmin() ? "ROLE_ADMIN" : "ROLE_USER"));
-        if(user.getIsPremium()) {
-            authorities.add(new SimpleGrantedAuthority("ROLE_PREMIUM"));
-        }
-
         return new UserPrincipal(
                 user.getUserId(),
                 user.getUsername(),
                 user.getEmail(),
                 user.getPassword(),
-                authorities
+                authoritiesOf(user.getIsAdmin(), user.getIsPremium())
         );
     }
 
+    /**
+     * Dựng principal từ các claims đã ký trong token, không cần email và mật khẩu.
+     */
+    public static UserPrincipal create(Integer id, String username, boolean isAdmin, boolean isPremium) {
+        return new UserPrincipal(id, username, null, null, authoritiesOf(isAdmin, isPremium));
+    }
+
+    private static List<GrantedAuthority> authoritiesOf(boolean isAdmin, boolean isPremium) {
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        authorities.add(new SimpleGrantedAuthority(isAdmin ? "ROLE_ADMIN" : "ROLE_USER"));
+        if (isPremium) {
+            authorities.add(new SimpleGrantedAuthority("ROLE_PREMIUM"));
+        }
+        return authorities;
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return authorities;
@@ -83,4 +93,24 @@ public class UserPrincipal implements UserDetails {
     public Integer getId() {
         return id;
     }
+
+    /**
+     * Kiểm tra quyền admin dựa trên authorities của principal.
+     */
+    public boolean isAdmin() {
+        return hasAuthority("ROLE_ADMIN");
+    }
+
+    public boolean isPremium() {
+        return hasAuthority("ROLE_PREMIUM");
+    }
+
+    private boolean hasAuthority(String authority) {
+        for (GrantedAuthority granted : authorities) {
+            if (authority.equals(granted.getAuthority())) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,65 @@
+package com.example.Bibliotech_backend.security;
+
+/**
+ * Kết quả đã xác minh chữ ký của một token JWT.
+ * <p>
+ * Các giá trị được trích xuất một lần khi xác minh, để những request lặp lại với cùng token
+ * không phải giải mã Base64 và đọc lại claims. Nếu token mang đủ claims của người dùng,
+ * {@link UserPrincipal} cũng được dựng sẵn một lần tại đây.
+ * </p>
+ */
+public class VerifiedToken {
+    private final String tokenId;
+    private final Integer userId;
+    private final long issuedAtMillis;
+    private final long expiresAtMillis;
+    private final long accountVersion;
+    private final UserPrincipal principal;
+
+    public VerifiedToken(String tokenId, Integer userId, long issuedAtMillis, long expiresAtMillis,
+                         long accountVersion, UserPrincipal principal) {
+        this.tokenId = tokenId;
+        this.userId = userId;
+        this.issuedAtMillis = issuedAtMillis;
+        this.expiresAtMillis = expiresAtMillis;
+        this.accountVersion = accountVersion;
+        this.principal = principal;
+    }
+
+    /**
+     * Mã định danh của token (claim "jti"), null nếu token được phát hành trước khi có claim này.
+     */
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public long getIssuedAtMillis() {
+        return issuedAtMillis;
+    }
+
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    /**
+     * Phiên bản tài khoản tại thời điểm phát hành token (claim "ver").
+     */
+    public long getAccountVersion() {
+        return accountVersion;
+    }
+
+    /**
+     * Principal dựng từ claims đã ký, null nếu token được phát hành trước khi có các claims này.
+     */
+    public UserPrincipal getPrincipal() {
+        return principal;
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return nowMillis >= expiresAtMillis;
+    }
+}
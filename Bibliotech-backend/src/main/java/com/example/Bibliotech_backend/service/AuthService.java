@@ -4,25 +4,33 @@ import com.example.Bibliotech_backend.dto.AuthResponse;
 import com.example.Bibliotech_backend.dto.LoginRequest;
 import com.example.Bibliotech_backend.dto.SignUpRequest;
 import com.example.Bibliotech_backend.exception.BadRequestException;
+import com.example.Bibliotech_backend.exception.TooManyRequestsException;
 import com.example.Bibliotech_backend.model.UserRegistrationStatus;
 import com.example.Bibliotech_backend.model.Users;
 import com.example.Bibliotech_backend.repository.UserRepository;
 import com.example.Bibliotech_backend.security.JwtTokenProvider;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 
 /**
@@ -41,10 +49,10 @@ public class AuthService {
 
 
     /**
-     * Mã hóa mật khẩu cho người dùng.
+     * Mã hóa mật khẩu cho người dùng trên thread pool riêng có giới hạn.
      */
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
 
     /**
      * Cung cấp token JWT để xác thực.
@@ -67,22 +75,57 @@ public class AuthService {
     @Autowired
     private AuthenticationManager authenticationManager;
 
+    /**
+     * Thời gian ghi nhớ một email/username không tồn tại. Đây cũng là độ trễ tối đa trước khi một tài khoản
+     * vừa đăng ký trên node khác đăng nhập được ở node này, nên chỉ nên để vài giây.
+     */
+    @Value("${app.auth.unknown-identifier-ttl-ms:5000}")
+    private long unknownIdentifierTtlMs;
+
+    @Value("${app.auth.unknown-identifier-cache-size:100000}")
+    private int unknownIdentifierCacheSize;
+
+    /**
+     * Bộ đệm các định danh đăng nhập không tồn tại, chặn các đợt dò mật khẩu trước khi tới MySQL.
+     * <p>
+     * Bộ đệm nằm riêng trên từng node và chỉ được xóa trên node xử lý đăng ký, nên node khác vẫn có thể
+     * từ chối tài khoản mới trong tối đa {@code app.auth.unknown-identifier-ttl-ms}.
+     * </p>
+     */
+    private Cache<String, Boolean> unknownIdentifiers;
+
+    @PostConstruct
+    void init() {
+        this.unknownIdentifiers = Caffeine.newBuilder()
+                .maximumSize(unknownIdentifierCacheSize)
+                .expireAfterWrite(Duration.ofMillis(unknownIdentifierTtlMs))
+                .build();
+    }
+
     /**
      * Đăng ký người dùng mới.
      *
      * @param request Đối tượng {@link SignUpRequest} chứa thông tin đăng ký.
      * @return {@link AuthResponse} chứa token và thông tin người dùng.
      * @throws BadRequestException Nếu email hoặc username đã tồn tại.
+     * @throws TooManyRequestsException Nếu hệ thống đang quá tải việc băm mật khẩu.
      */
     public AuthResponse signup(SignUpRequest request) {
-        if (userRepository.existsByEmail(request.getEmail())) {
+        // Kiểm tra trùng email và username trong cùng một truy vấn
+        List<UserRepository.UserIdentity> conflicts =
+                userRepository.findIdentitiesByEmailOrUsername(request.getEmail(), request.getUsername());
+
+        if (conflicts.stream().anyMatch(identity -> request.getEmail().equalsIgnoreCase(identity.getEmail()))) {
             throw new BadRequestException("Email already exists");
         }
 
-        if (userRepository.existsByUsername(request.getUsername())) {
+        if (!conflicts.isEmpty()) {
             throw new BadRequestException("Username already exists");
         }
 
+        // Băm mật khẩu trước khi cấp ID, để request bị từ chối do quá tải không tiêu tốn ID
+        String encodedPassword = passwordHashingService.encode(request.getPassword());
+
         try {
             // Generate user ID first
             Integer userId = idGeneratorService.generateUserId();
@@ -95,7 +138,7 @@ public class AuthService {
             user.setUserId(userId);
             user.setUsername(request.getUsername());
             user.setEmail(request.getEmail());
-            user.setPassword(passwordEncoder.encode(request.getPassword()));
+            user.setPassword(encodedPassword);
             user.setRegistrationStatus(Users.RegistrationStatus.PENDING);
             user.setIsAdmin(false);
 
@@ -103,6 +146,9 @@ public class AuthService {
             Users savedUser = userRepository.save(user);
             userRepository.flush(); // Force immediate persistence
 
+            // Email/username mới có thể đang nằm trong bộ đệm định danh không tồn tại
+            forgetUnknownIdentifiers(savedUser.getEmail(), savedUser.getUsername());
+
             // Create registration status in the same transaction
             UserRegistrationStatus status = registrationStatusService.createStatus(savedUser.getUserId());
 
@@ -125,25 +171,29 @@ public class AuthService {
      * @param request Đối tượng {@link LoginRequest} chứa thông tin đăng nhập.
      * @return {@link AuthResponse} chứa token và thông tin người dùng.
      * @throws BadRequestException Nếu thông tin đăng nhập không hợp lệ.
+     * @throws TooManyRequestsException Nếu hệ thống đang quá tải việc kiểm tra mật khẩu.
      */
     public AuthResponse login(LoginRequest request) {
-        Optional<Users> userOptional = userRepository.findByEmail(request.getIdentifier());
-
-        if (userOptional.isEmpty()) {
-            userOptional = userRepository.findByUsername(request.getIdentifier());
+        String identifier = request.getIdentifier();
+        if (identifier == null || identifier.trim().isEmpty()) {
+            throw new BadRequestException("Email/username cannot be empty");
         }
 
-        if (userOptional.isEmpty()) {
+        // Định danh vừa được xác nhận không tồn tại thì từ chối ngay, không truy vấn lại
+        String identifierKey = identifierKey(identifier);
+        if (unknownIdentifiers.getIfPresent(identifierKey) != null) {
             throw new BadRequestException("Invalid email/username or password");
         }
 
-        if (request.getIdentifier() == null || request.getIdentifier().trim().isEmpty()) {
-            throw new BadRequestException("Email/username cannot be empty");
+        Optional<Users> userOptional = findByIdentifier(identifier);
+        if (userOptional.isEmpty()) {
+            unknownIdentifiers.put(identifierKey, Boolean.TRUE);
+            throw new BadRequestException("Invalid email/username or password");
         }
 
         Users user = userOptional.get();
 
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        if (!passwordHashingService.matches(request.getPassword(), user.getPassword())) {
             throw new BadRequestException("Invalid email/username or password");
         }
 
@@ -156,6 +206,52 @@ public class AuthService {
         return new AuthResponse(token, user.getUsername(), user.getEmail(), isFirstLogin);
     }
 
+    /**
+     * Khóa của định danh trong bộ đệm: so sánh email/username trong MySQL không phân biệt hoa thường.
+     */
+    private static String identifierKey(String identifier) {
+        return identifier.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Xóa email và username của tài khoản mới khỏi bộ đệm định danh không tồn tại. Nếu đang trong transaction,
+     * việc xóa chờ tới sau commit, để một lần đăng nhập song song không ghi lại định danh là "không tồn tại"
+     * trong lúc tài khoản chưa hiển thị với các kết nối khác.
+     */
+    private void forgetUnknownIdentifiers(String email, String username) {
+        Runnable forget = () -> {
+            unknownIdentifiers.invalidate(identifierKey(email));
+            unknownIdentifiers.invalidate(identifierKey(username));
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    forget.run();
+                }
+            });
+        } else {
+            forget.run();
+        }
+    }
+
+    /**
+     * Tìm người dùng theo email hoặc username bằng một truy vấn; email được ưu tiên nếu khớp cả hai.
+     *
+     * @param identifier Email hoặc username.
+     * @return Người dùng nếu tìm thấy.
+     */
+    private Optional<Users> findByIdentifier(String identifier) {
+        List<Users> matches = userRepository.findByEmailOrUsername(identifier, identifier);
+        if (matches.size() <= 1) {
+            return matches.stream().findFirst();
+        }
+        return matches.stream()
+                .filter(user -> identifier.equalsIgnoreCase(user.getEmail()))
+                .findFirst()
+                .or(() -> matches.stream().findFirst());
+    }
+
     /**
      * Cập nhật thời gian đăng nhập cuối cùng của người dùng
      *
@@ -0,0 +1,915 @@
+package com.example.Bibliotech_backend.service;
+
+import com.example.Bibliotech_backend.dto.BookFacets;
+import com.example.Bibliotech_backend.dto.BookSearchCriteria;
+import com.example.Bibliotech_backend.event.BookChangedEvent;
+import com.example.Bibliotech_backend.event.BooksImportedEvent;
+import com.example.Bibliotech_backend.event.DealChangedEvent;
+import com.example.Bibliotech_backend.model.Book;
+import com.example.Bibliotech_backend.util.BookCursor;
+import com.example.Bibliotech_backend.util.TextNormalizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.StringUtils;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntBinaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * Bản chụp (snapshot) dạng cột của bảng Books trong bộ nhớ, dùng để lọc và sắp xếp danh sách sách
+ * mà không cần truy vấn MySQL.
+ * <p>
+ * Mỗi thuộc tính được lưu trong một mảng nguyên thủy theo vị trí (giá, điểm đánh giá, năm xuất bản,
+ * ngôn ngữ...). Ngôn ngữ, danh mục và trạng thái giảm giá có sẵn {@link BitSet} riêng, nên một tổ hợp
+ * bộ lọc chỉ là vài phép AND trên bitset. Thứ tự sắp xếp của từng trường được tính trước khi dựng bản chụp.
+ * Facet (số sách theo ngôn ngữ, danh mục, khoảng giá...) được đếm trong một lượt duyệt tập sách đã lọc.
+ * </p>
+ * <p>
+ * Bản chụp không bao giờ bị sửa: khi một cuốn sách thay đổi ({@link BookChangedEvent}), dòng của nó
+ * được đọc lại rồi vá vào một bản sao của bản chụp (sao chép các mảng cột và trộn sách đổi vào các thứ tự
+ * sẵn có, không sắp xếp lại), bản mới thay thế nguyên khối qua trường volatile. Luồng đọc không cần khóa
+ * và luôn thấy một bản chụp nhất quán.
+ * </p>
+ * <p>
+ * Các lượt đọc lại và vá chạy lần lượt dưới {@code refreshLock}, từ lúc đọc MySQL tới lúc vá xong, nên
+ * một dòng đọc trước không thể được vá đè lên dòng mới hơn của cùng cuốn sách.
+ * </p>
+ */
+@Service
+public class BookCatalogSnapshot {
+    private static final Logger logger = LoggerFactory.getLogger(BookCatalogSnapshot.class);
+
+    private static final String SELECT_BOOKS = "SELECT book_id, title, title_sort_key, original_price, discounted_price, "
+            + "average_rating, publication_year, language, reading_difficulty, content_rating, created_at FROM Books";
+    private static final String UPDATE_TITLE_SORT_KEY = "UPDATE Books SET title_sort_key = ? WHERE book_id = ?";
+    private static final String SELECT_BOOK_CATEGORIES = "SELECT book_id, category_id FROM BookCategories";
+
+    /**
+     * Các trường sắp xếp được hỗ trợ; sắp xếp theo trường khác sẽ dùng truy vấn MySQL.
+     */
+    public static final Set<String> SORT_FIELDS = Set.of(
+            "title", "averageRating", "originalPrice", "createdAt", "publicationYear", "bookId");
+
+    private static final Book.Language[] LANGUAGES = Book.Language.values();
+    private static final Book.ReadingDifficulty[] READING_DIFFICULTIES = Book.ReadingDifficulty.values();
+    private static final Book.ContentRating[] CONTENT_RATINGS = Book.ContentRating.values();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Các mốc giá (tăng dần) chia khoảng giá cho facet.
+     */
+    private final double[] priceBounds;
+
+    /**
+     * Bản chụp hiện tại; null cho tới khi được dựng lần đầu.
+     */
+    private volatile Columns columns;
+
+    private boolean loading;
+
+    /**
+     * Các sách thay đổi chưa được áp vào bản chụp (đang nạp lại toàn bộ, hoặc luồng khác đang áp), sẽ được đọc lại
+     * cùng một lượt.
+     */
+    private final Set<Integer> pendingChanges = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Các deal vừa tính lại giá, chờ được đọc lại gộp sau {@code app.catalog.deal-refresh-delay-ms}.
+     */
+    private final Set<Integer> pendingDeals = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Giữ trong suốt một lượt đọc lại và vá; lần nạp lại toàn bộ cũng lấy khóa này khi bắt đầu, để lượt vá
+     * đang đọc dở kết thúc trước khi lần nạp lại đọc bảng Books.
+     */
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    private final TaskScheduler taskScheduler;
+    private final long dealRefreshDelayMs;
+
+    /**
+     * Lần đọc lại các deal đã hẹn; null nếu chưa có deal nào chờ.
+     */
+    private ScheduledFuture<?> dealRefresh;
+
+    public BookCatalogSnapshot(JdbcTemplate jdbcTemplate,
+                               TaskScheduler taskScheduler,
+                               @Value("${app.catalog.facet-price-bounds:50000,100000,200000,500000}") double[] priceBounds,
+                               @Value("${app.catalog.deal-refresh-delay-ms:1000}") long dealRefreshDelayMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.taskScheduler = taskScheduler;
+        this.priceBounds = priceBounds.clone();
+        this.dealRefreshDelayMs = dealRefreshDelayMs;
+        Arrays.sort(this.priceBounds);
+    }
+
+    /**
+     * Nạp lại toàn bộ bản chụp từ MySQL khi khởi động, sau khi nhập sách hàng loạt và định kỳ, để nhận cả các thay đổi
+     * không đi qua {@link BookService} (SQL trực tiếp, instance khác).
+     */
+    @EventListener({ApplicationReadyEvent.class, BooksImportedEvent.class})
+    @Scheduled(fixedDelayString = "${app.catalog.snapshot-refresh-ms:600000}",
+            initialDelayString = "${app.catalog.snapshot-refresh-ms:600000}")
+    public void reload() {
+        refreshLock.lock();
+        try {
+            synchronized (this) {
+                if (loading) {
+                    return;
+                }
+                loading = true;
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+
+        long start = System.currentTimeMillis();
+        Columns built;
+        try {
+            built = Columns.build(readRows("").values());
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                loading = false;
+            }
+            logger.error("Could not load book catalog snapshot", e);
+            return;
+        }
+
+        synchronized (this) {
+            this.columns = built;
+            this.loading = false;
+        }
+        applyPendingChanges();
+        logger.info("Built book catalog snapshot: {} books in {} ms", built.size, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Cập nhật bản chụp cho cuốn sách vừa thay đổi, sau khi transaction đã commit.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        pendingChanges.add(event.getBookId());
+        synchronized (this) {
+            if (loading || columns == null) {
+                return;
+            }
+        }
+        applyPendingChanges();
+    }
+
+    /**
+     * Deal vừa tính lại giá cho các sách của nó (có thể hàng chục nghìn cuốn). Các deal thay đổi trong cùng một khoảng
+     * {@code app.catalog.deal-refresh-delay-ms} được gộp lại, đọc lại sách của chúng trong một lượt trên thread của
+     * bộ lập lịch, không chặn thread vừa commit và không nạp lại cả bản chụp.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDealChanged(DealChangedEvent event) {
+        if (event.getRepricedBooks() > 0) {
+            pendingDeals.add(event.getDealId());
+            scheduleDealRefresh();
+        }
+    }
+
+    private synchronized void scheduleDealRefresh() {
+        if (dealRefresh == null) {
+            dealRefresh = taskScheduler.schedule(this::refreshDeals, Instant.now().plusMillis(dealRefreshDelayMs));
+        }
+    }
+
+    private void refreshDeals() {
+        synchronized (this) {
+            dealRefresh = null;
+            if (loading) {
+                // Lần nạp lại đang chạy có thể đã đọc giá cũ; đợi nó xong rồi đọc lại các deal
+                scheduleDealRefresh();
+                return;
+            }
+            if (columns == null) {
+                // Lần nạp đầu tiên sẽ đọc giá mới
+                pendingDeals.clear();
+                return;
+            }
+        }
+
+        refreshLock.lock();
+        try {
+            int[] dealIds = drain(pendingDeals);
+            if (dealIds.length == 0) {
+                return;
+            }
+            try {
+                Map<Integer, Row> found = readRows("deal_id IN (" + placeholders(dealIds.length) + ")",
+                        Arrays.stream(dealIds).boxed().toArray());
+                // Sách rời deal đi qua BookChangedEvent, ở đây chỉ cần đọc lại các sách còn trong deal
+                apply(found.keySet().stream().mapToInt(Integer::intValue).toArray(), found);
+                logger.debug("Refreshed {} books of {} repriced deals in catalog snapshot", found.size(), dealIds.length);
+            } catch (RuntimeException e) {
+                logger.error("Could not update catalog snapshot for deals {}", Arrays.toString(dealIds), e);
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+        // Các sách đổi trong lúc đọc deal đã bỏ qua lượt vá của chính chúng vì khóa đang bận
+        applyPendingChanges();
+    }
+
+    /**
+     * Đọc lại các sách đang chờ (gỡ các sách không còn tồn tại) trong một lượt và vá bản chụp.
+     * <p>
+     * Nếu luồng khác đang đọc lại, luồng này không chờ: sách của nó đã nằm trong {@code pendingChanges}
+     * và luồng đang giữ khóa kiểm tra lại hàng đợi sau khi nhả khóa.
+     * </p>
+     */
+    private void applyPendingChanges() {
+        while (!pendingChanges.isEmpty() && refreshLock.tryLock()) {
+            try {
+                int[] bookIds = drain(pendingChanges);
+                if (bookIds.length == 0) {
+                    continue;
+                }
+                try {
+                    Map<Integer, Row> found = readRows("book_id IN (" + placeholders(bookIds.length) + ")",
+                            Arrays.stream(bookIds).boxed().toArray());
+                    if (!apply(bookIds, found)) {
+                        // Lần nạp lại đang chạy sẽ áp các sách này khi xong
+                        return;
+                    }
+                } catch (RuntimeException e) {
+                    logger.error("Could not update catalog snapshot for books {}", Arrays.toString(bookIds), e);
+                }
+            } finally {
+                refreshLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Thay bản chụp bằng bản đã vá các sách cho trước. Chỉ tốn O(n) cho việc sao chép các mảng cột và trộn
+     * các sách đổi vào thứ tự sắp xếp sẵn có, không sắp xếp lại toàn bộ.
+     *
+     * @param bookIds Các sách cần thay; sách không có trong {@code found} bị gỡ khỏi bản chụp.
+     * @return false nếu đang nạp lại toàn bộ: các sách được đưa lại vào hàng chờ, bản chụp không đổi.
+     */
+    private boolean apply(int[] bookIds, Map<Integer, Row> found) {
+        synchronized (this) {
+            if (loading) {
+                for (int bookId : bookIds) {
+                    pendingChanges.add(bookId);
+                }
+                return false;
+            }
+            this.columns = columns.patch(bookIds, found);
+            return true;
+        }
+    }
+
+    /**
+     * Đọc các dòng Books (kèm danh mục) theo điều kiện cho trước, đồng thời sửa title_sort_key bị thiếu hoặc cũ.
+     *
+     * @param bookFilter Điều kiện WHERE trên bảng Books, rỗng để đọc mọi sách.
+     */
+    private Map<Integer, Row> readRows(String bookFilter, Object... args) {
+        boolean all = bookFilter.isEmpty();
+        Map<Integer, Row> found = new HashMap<>();
+        List<Row> staleKeys = new ArrayList<>();
+        jdbcTemplate.query(all ? SELECT_BOOKS : SELECT_BOOKS + " WHERE " + bookFilter, rs -> {
+            Row row = readRow(rs);
+            found.put(row.bookId, row);
+            if (!row.titleKey.equals(rs.getString("title_sort_key"))) {
+                staleKeys.add(row);
+            }
+        }, args);
+        repairTitleSortKeys(staleKeys);
+
+        Map<Integer, IntList> categoriesByBook = new HashMap<>();
+        jdbcTemplate.query(all ? SELECT_BOOK_CATEGORIES
+                : SELECT_BOOK_CATEGORIES + " WHERE book_id IN (SELECT book_id FROM Books WHERE " + bookFilter + ")", rs -> {
+            categoriesByBook.computeIfAbsent(rs.getInt("book_id"), id -> new IntList()).add(rs.getInt("category_id"));
+        }, args);
+        categoriesByBook.forEach((bookId, categoryIds) -> {
+            Row row = found.get(bookId);
+            if (row != null) {
+                row.categoryIds = categoryIds.toArray();
+            }
+        });
+        return found;
+    }
+
+    /**
+     * Ghi lại title_sort_key cho các sách chưa có khóa (dữ liệu có trước cột này) hoặc có tiêu đề bị sửa
+     * bằng SQL trực tiếp, để truy vấn MySQL sắp xếp theo tiêu đề giống bản chụp.
+     */
+    private void repairTitleSortKeys(List<Row> staleKeys) {
+        if (staleKeys.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPDATE_TITLE_SORT_KEY, staleKeys, 1000, (ps, row) -> {
+            ps.setString(1, row.titleKey);
+            ps.setInt(2, row.bookId);
+        });
+        logger.info("Updated title sort key of {} books", staleKeys.size());
+    }
+
+    private static int[] drain(Set<Integer> pending) {
+        IntList drained = new IntList();
+        for (Integer id : pending) {
+            if (pending.remove(id)) {
+                drained.add(id);
+            }
+        }
+        return drained.toArray();
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    public boolean isReady() {
+        return columns != null;
+    }
+
+    /**
+     * Lọc và sắp xếp danh sách sách trong bộ nhớ.
+     *
+     * @param criteria Các bộ lọc; tiêu đề và tác giả đã được giải qua {@code matchedIds}.
+     * @param matchedIds bookId khớp bộ lọc văn bản (tăng dần), null nếu không lọc văn bản.
+     * @param sortBy Trường sắp xếp, một trong {@link #SORT_FIELDS}.
+     * @param descending Sắp xếp giảm dần hay không; bookId là khóa phụ cùng chiều.
+     * @param after Con trỏ keyset (tùy chọn); chỉ lấy các sách đứng sau con trỏ.
+     * @param offset Số sách bỏ qua sau con trỏ (phân trang theo số trang).
+     * @param size Số sách cần lấy.
+     * @param withFacets Có tính facet trên tập sách khớp hay không; facet và trang kết quả dùng chung một bản chụp.
+     * @return Kết quả, hoặc null nếu bản chụp chưa sẵn sàng hoặc không hỗ trợ trường sắp xếp.
+     */
+    public CatalogSlice browse(BookSearchCriteria criteria, int[] matchedIds, String sortBy, boolean descending,
+                               BookCursor after, int offset, int size, boolean withFacets) {
+        Columns current = columns;
+        if (current == null || !SORT_FIELDS.contains(sortBy)) {
+            return null;
+        }
+
+        BitSet matched = current.filter(criteria, matchedIds);
+        int[] order = current.orders.get(sortBy);
+
+        int step = descending ? -1 : 1;
+        int index = descending ? order.length - 1 : 0;
+        if (after != null) {
+            index = descending
+                    ? current.countBefore(order, sortBy, after, false) - 1
+                    : current.countBefore(order, sortBy, after, true);
+        }
+
+        int[] page = new int[size];
+        int found = 0;
+        int skipped = 0;
+        boolean hasNext = false;
+        for (; index >= 0 && index < order.length; index += step) {
+            int position = order[index];
+            if (!matched.get(position)) {
+                continue;
+            }
+            if (skipped < offset) {
+                skipped++;
+                continue;
+            }
+            if (found == size) {
+                hasNext = true;
+                break;
+            }
+            page[found++] = current.bookIds[position];
+        }
+
+        BookFacets facets = withFacets ? current.facets(matched, priceBounds) : null;
+        return new CatalogSlice(Arrays.copyOf(page, found), hasNext, matched.cardinality(), facets);
+    }
+
+    private static Row readRow(ResultSet rs) throws SQLException {
+        Row row = new Row();
+        row.bookId = rs.getInt("book_id");
+        // Cùng khóa với cột title_sort_key mà truy vấn MySQL dùng để sắp xếp
+        row.titleKey = TextNormalizer.fold(rs.getString("title"));
+        row.originalPrice = toDouble(rs.getBigDecimal("original_price"), 0);
+        row.discountedPrice = toDouble(rs.getBigDecimal("discounted_price"), Double.NaN);
+        row.averageRating = toDouble(rs.getBigDecimal("average_rating"), BookCursor.NULL_RATING.doubleValue());
+        int year = rs.getInt("publication_year");
+        row.publicationYear = rs.wasNull() ? Integer.MIN_VALUE : year;
+        row.language = languageOrdinal(rs.getString("language"));
+        row.readingDifficulty = ordinalOf(READING_DIFFICULTIES, rs.getString("reading_difficulty"));
+        row.contentRating = ordinalOf(CONTENT_RATINGS, rs.getString("content_rating"));
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        row.createdAt = toNanos(createdAt != null ? createdAt.toLocalDateTime() : BookCursor.NULL_CREATED_AT);
+        return row;
+    }
+
+    private static double toDouble(BigDecimal value, double ifNull) {
+        return value != null ? value.doubleValue() : ifNull;
+    }
+
+    private static long toNanos(LocalDateTime value) {
+        return value.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + value.getNano();
+    }
+
+    private static int languageOrdinal(String language) {
+        return ordinalOf(LANGUAGES, language);
+    }
+
+    /**
+     * Vị trí của giá trị enum theo tên (không phân biệt hoa thường), -1 nếu null hoặc không hợp lệ.
+     */
+    private static int ordinalOf(Enum<?>[] values, String name) {
+        if (name == null) {
+            return -1;
+        }
+        for (Enum<?> value : values) {
+            if (value.name().equalsIgnoreCase(name)) {
+                return value.ordinal();
+            }
+        }
+        return -1;
+    }
+
+    private static String formatPrice(double price) {
+        return BigDecimal.valueOf(price).stripTrailingZeros().toPlainString();
+    }
+
+    /**
+     * Kết quả lọc: một trang bookId theo đúng thứ tự sắp xếp và tổng số sách khớp bộ lọc.
+     */
+    public static final class CatalogSlice {
+        private final int[] bookIds;
+        private final boolean hasNext;
+        private final int totalMatches;
+        private final BookFacets facets;
+
+        CatalogSlice(int[] bookIds, boolean hasNext, int totalMatches, BookFacets facets) {
+            this.bookIds = bookIds;
+            this.hasNext = hasNext;
+            this.totalMatches = totalMatches;
+            this.facets = facets;
+        }
+
+        public int[] getBookIds() {
+            return bookIds;
+        }
+
+        public boolean hasNext() {
+            return hasNext;
+        }
+
+        public int getTotalMatches() {
+            return totalMatches;
+        }
+
+        /**
+         * Facet của tập sách khớp, null nếu không được yêu cầu.
+         */
+        public BookFacets getFacets() {
+            return facets;
+        }
+    }
+
+    /**
+     * Một dòng của bảng Books, chỉ gồm các cột dùng để lọc và sắp xếp.
+     */
+    private static final class Row {
+        private int bookId;
+        private String titleKey;
+        private double originalPrice;
+        private double discountedPrice;
+        private double averageRating;
+        private int publicationYear;
+        private int language;
+        private int readingDifficulty;
+        private int contentRating;
+        private long createdAt;
+        private int[] categoryIds = new int[0];
+    }
+
+    /**
+     * Bản chụp bất biến: các cột theo vị trí (sắp theo bookId tăng dần), các bitset và thứ tự sắp xếp.
+     */
+    private static final class Columns {
+        private final int size;
+        private final int[] bookIds;
+        private final String[] titleKeys;
+        private final double[] originalPrices;
+        private final double[] averageRatings;
+        private final int[] publicationYears;
+        private final long[] createdAts;
+        private final int[] languages;
+        private final int[] readingDifficulties;
+        private final int[] contentRatings;
+        private final int[][] categoryIds;
+
+        private final BitSet[] byLanguage = new BitSet[LANGUAGES.length];
+        private final Map<Integer, BitSet> byCategory = new HashMap<>();
+        private final BitSet discounted = new BitSet();
+
+        private final Map<String, int[]> orders = new HashMap<>();
+
+        private Columns(int size) {
+            this.size = size;
+            bookIds = new int[size];
+            titleKeys = new String[size];
+            originalPrices = new double[size];
+            averageRatings = new double[size];
+            publicationYears = new int[size];
+            createdAts = new long[size];
+            languages = new int[size];
+            readingDifficulties = new int[size];
+            contentRatings = new int[size];
+            categoryIds = new int[size][];
+        }
+
+        /**
+         * Dựng bản chụp từ đầu: đặt các dòng theo bookId tăng dần rồi sắp xếp vị trí cho từng trường.
+         */
+        private static Columns build(Collection<Row> source) {
+            Row[] sorted = source.toArray(new Row[0]);
+            Arrays.sort(sorted, Comparator.comparingInt(row -> row.bookId));
+
+            Columns built = new Columns(sorted.length);
+            for (int position = 0; position < sorted.length; position++) {
+                built.set(position, sorted[position]);
+            }
+            built.index();
+            for (String field : SORT_FIELDS) {
+                int[] order = IntStream.range(0, built.size).toArray();
+                built.sort(order, field);
+                built.orders.put(field, order);
+            }
+            return built;
+        }
+
+        /**
+         * Bản chụp mới với các sách cho trước được thay bằng dòng mới (hoặc bị gỡ nếu không còn dòng).
+         * Các sách khác giữ nguyên khóa nên giữ nguyên thứ tự tương đối; chỉ các sách đổi cần sắp xếp rồi được
+         * trộn vào từng thứ tự sẵn có.
+         *
+         * @param changedIds bookId của các sách cần thay.
+         * @param found Dòng mới theo bookId; sách trong {@code changedIds} mà không có ở đây bị gỡ.
+         */
+        private Columns patch(int[] changedIds, Map<Integer, Row> found) {
+            int[] changed = Arrays.stream(changedIds).distinct().sorted().toArray();
+            int replaced = 0;
+            for (int bookId : changed) {
+                if (Arrays.binarySearch(bookIds, bookId) >= 0) {
+                    replaced++;
+                }
+            }
+
+            Columns next = new Columns(size - replaced + found.size());
+            // Vị trí mới của từng vị trí cũ, -1 nếu dòng đó bị thay hoặc bị gỡ
+            int[] moved = new int[size];
+            IntList inserted = new IntList();
+            int from = 0;
+            int position = 0;
+            for (int i = 0; from < size || i < changed.length; ) {
+                if (i == changed.length || (from < size && bookIds[from] < changed[i])) {
+                    next.copy(this, from, position);
+                    moved[from++] = position++;
+                    continue;
+                }
+                int bookId = changed[i++];
+                if (from < size && bookIds[from] == bookId) {
+                    moved[from++] = -1;
+                }
+                Row row = found.get(bookId);
+                if (row != null) {
+                    next.set(position, row);
+                    inserted.add(position++);
+                }
+            }
+            next.index();
+
+            int[] added = inserted.toArray();
+            for (String field : SORT_FIELDS) {
+                int[] previous = orders.get(field);
+                int[] addedOrder = added.clone();
+                next.sort(addedOrder, field);
+                IntBinaryOperator comparator = next.comparator(field);
+
+                int[] order = new int[next.size];
+                int count = 0;
+                int k = 0;
+                for (int old : previous) {
+                    int kept = moved[old];
+                    if (kept < 0) {
+                        continue;
+                    }
+                    while (k < addedOrder.length && comparator.applyAsInt(addedOrder[k], kept) < 0) {
+                        order[count++] = addedOrder[k++];
+                    }
+                    order[count++] = kept;
+                }
+                while (k < addedOrder.length) {
+                    order[count++] = addedOrder[k++];
+                }
+                next.orders.put(field, order);
+            }
+            return next;
+        }
+
+        private void set(int position, Row row) {
+            bookIds[position] = row.bookId;
+            titleKeys[position] = row.titleKey;
+            originalPrices[position] = row.originalPrice;
+            averageRatings[position] = row.averageRating;
+            publicationYears[position] = row.publicationYear;
+            createdAts[position] = row.createdAt;
+            languages[position] = row.language;
+            readingDifficulties[position] = row.readingDifficulty;
+            contentRatings[position] = row.contentRating;
+            categoryIds[position] = row.categoryIds;
+            // Cùng điều kiện với hasDiscount trong truy vấn SQL: discounted_price IS NOT NULL AND < original_price
+            if (!Double.isNaN(row.discountedPrice) && row.discountedPrice < row.originalPrice) {
+                discounted.set(position);
+            }
+        }
+
+        private void copy(Columns source, int from, int position) {
+            bookIds[position] = source.bookIds[from];
+            titleKeys[position] = source.titleKeys[from];
+            originalPrices[position] = source.originalPrices[from];
+            averageRatings[position] = source.averageRatings[from];
+            publicationYears[position] = source.publicationYears[from];
+            createdAts[position] = source.createdAts[from];
+            languages[position] = source.languages[from];
+            readingDifficulties[position] = source.readingDifficulties[from];
+            contentRatings[position] = source.contentRatings[from];
+            categoryIds[position] = source.categoryIds[from];
+            if (source.discounted.get(from)) {
+                discounted.set(position);
+            }
+        }
+
+        /**
+         * Dựng bitset theo ngôn ngữ và danh mục từ các cột.
+         */
+        private void index() {
+            for (int i = 0; i < byLanguage.length; i++) {
+                byLanguage[i] = new BitSet(size);
+            }
+            for (int position = 0; position < size; position++) {
+                if (languages[position] >= 0) {
+                    byLanguage[languages[position]].set(position);
+                }
+                for (int categoryId : categoryIds[position]) {
+                    byCategory.computeIfAbsent(categoryId, id -> new BitSet(size)).set(position);
+                }
+            }
+        }
+
+        /**
+         * Thứ tự toàn phần theo (khóa, bookId); vị trí đã theo bookId tăng dần nên so sánh vị trí thay cho bookId.
+         */
+        private IntBinaryOperator comparator(String field) {
+            return switch (field) {
+                case "title" -> (a, b) -> {
+                    int result = titleKeys[a].compareTo(titleKeys[b]);
+                    return result != 0 ? result : Integer.compare(a, b);
+                };
+                case "averageRating" -> (a, b) -> {
+                    int result = Double.compare(averageRatings[a], averageRatings[b]);
+                    return result != 0 ? result : Integer.compare(a, b);
+                };
+                case "originalPrice" -> (a, b) -> {
+                    int result = Double.compare(originalPrices[a], originalPrices[b]);
+                    return result != 0 ? result : Integer.compare(a, b);
+                };
+                case "createdAt" -> (a, b) -> {
+                    int result = Long.compare(createdAts[a], createdAts[b]);
+                    return result != 0 ? result : Integer.compare(a, b);
+                };
+                case "publicationYear" -> (a, b) -> {
+                    int result = Integer.compare(publicationYears[a], publicationYears[b]);
+                    return result != 0 ? result : Integer.compare(a, b);
+                };
+                default -> Integer::compare;
+            };
+        }
+
+        /**
+         * Sắp xếp trộn các vị trí trên mảng int, không boxing.
+         */
+        private void sort(int[] positions, String field) {
+            if (positions.length < 2 || "bookId".equals(field)) {
+                Arrays.sort(positions);
+                return;
+            }
+            IntBinaryOperator comparator = comparator(field);
+            int[] buffer = new int[positions.length];
+            for (int width = 1; width < positions.length; width *= 2) {
+                for (int low = 0; low < positions.length - width; low += 2 * width) {
+                    int middle = low + width;
+                    int high = Math.min(low + 2 * width, positions.length);
+                    int left = low;
+                    int right = middle;
+                    for (int out = low; out < high; out++) {
+                        buffer[out] = right >= high || (left < middle
+                                && comparator.applyAsInt(positions[left], positions[right]) <= 0)
+                                ? positions[left++] : positions[right++];
+                    }
+                    System.arraycopy(buffer, low, positions, low, high - low);
+                }
+            }
+        }
+
+        /**
+         * So sánh (khóa, bookId) của một vị trí với con trỏ.
+         */
+        private int compareToCursor(String field, int position, BookCursor cursor) {
+            Comparable<?> key = cursor.getSortKey();
+            int result = switch (field) {
+                case "title" -> titleKeys[position].compareTo((String) key);
+                case "averageRating" -> Double.compare(averageRatings[position], ((BigDecimal) key).doubleValue());
+                case "originalPrice" -> Double.compare(originalPrices[position], ((BigDecimal) key).doubleValue());
+                case "createdAt" -> Long.compare(createdAts[position], toNanos((LocalDateTime) key));
+                default -> 0;
+            };
+            return result != 0 ? result : Integer.compare(bookIds[position], cursor.getBookId());
+        }
+
+        /**
+         * Số phần tử của {@code order} đứng trước con trỏ (hoặc trước và bằng, nếu {@code inclusive}).
+         */
+        private int countBefore(int[] order, String field, BookCursor cursor, boolean inclusive) {
+            int low = 0;
+            int high = order.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                int comparison = compareToCursor(field, order[middle], cursor);
+                if (comparison < 0 || (inclusive && comparison == 0)) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Đếm mọi facet trong một lượt duyệt các vị trí khớp.
+         */
+        private BookFacets facets(BitSet matched, double[] priceBounds) {
+            int[] languageCounts = new int[LANGUAGES.length];
+            int[] difficultyCounts = new int[READING_DIFFICULTIES.length];
+            int[] ratingCounts = new int[CONTENT_RATINGS.length];
+            int[] priceCounts = new int[priceBounds.length + 1];
+            Map<Integer, Integer> categoryCounts = new HashMap<>();
+            int discountedCount = 0;
+            int total = 0;
+
+            for (int position = matched.nextSetBit(0); position >= 0; position = matched.nextSetBit(position + 1)) {
+                total++;
+                if (languages[position] >= 0) {
+                    languageCounts[languages[position]]++;
+                }
+                if (readingDifficulties[position] >= 0) {
+                    difficultyCounts[readingDifficulties[position]]++;
+                }
+                if (contentRatings[position] >= 0) {
+                    ratingCounts[contentRatings[position]]++;
+                }
+                for (int categoryId : categoryIds[position]) {
+                    categoryCounts.merge(categoryId, 1, Integer::sum);
+                }
+                // Khoảng thứ i gồm [priceBounds[i - 1], priceBounds[i])
+                int bound = Arrays.binarySearch(priceBounds, originalPrices[position]);
+                priceCounts[bound >= 0 ? bound + 1 : -bound - 1]++;
+                if (discounted.get(position)) {
+                    discountedCount++;
+                }
+            }
+
+            BookFacets facets = new BookFacets();
+            facets.setTotalMatches(total);
+            facets.setLanguages(countsByName(LANGUAGES, languageCounts));
+            facets.setReadingDifficulties(countsByName(READING_DIFFICULTIES, difficultyCounts));
+            facets.setContentRatings(countsByName(CONTENT_RATINGS, ratingCounts));
+            facets.setCategories(new TreeMap<>(categoryCounts));
+            Map<String, Integer> priceRanges = new LinkedHashMap<>();
+            for (int i = 0; i < priceCounts.length; i++) {
+                String from = i == 0 ? "0" : formatPrice(priceBounds[i - 1]);
+                String label = i == priceBounds.length ? from + "+" : from + "-" + formatPrice(priceBounds[i]);
+                priceRanges.put(label, priceCounts[i]);
+            }
+            facets.setPriceRanges(priceRanges);
+            facets.setDiscounted(discountedCount);
+            facets.setNotDiscounted(total - discountedCount);
+            return facets;
+        }
+
+        private static Map<String, Integer> countsByName(Enum<?>[] values, int[] counts) {
+            Map<String, Integer> result = new LinkedHashMap<>();
+            for (Enum<?> value : values) {
+                result.put(value.name(), counts[value.ordinal()]);
+            }
+            return result;
+        }
+
+        /**
+         * Tập vị trí khớp mọi bộ lọc.
+         */
+        private BitSet filter(BookSearchCriteria criteria, int[] matchedIds) {
+            BitSet result = new BitSet(size);
+            if (matchedIds != null) {
+                for (int bookId : matchedIds) {
+                    int position = Arrays.binarySearch(bookIds, bookId);
+                    if (position >= 0) {
+                        result.set(position);
+                    }
+                }
+            } else {
+                result.set(0, size);
+            }
+
+            if (criteria.getCategoryId() != null) {
+                BitSet inCategory = byCategory.get(criteria.getCategoryId());
+                if (inCategory == null) {
+                    return new BitSet();
+                }
+                result.and(inCategory);
+            }
+
+            if (StringUtils.hasText(criteria.getLanguage())) {
+                int language = languageOrdinal(criteria.getLanguage());
+                if (language < 0) {
+                    return new BitSet();
+                }
+                result.and(byLanguage[language]);
+            }
+
+            if (criteria.getHasDiscount() != null) {
+                if (criteria.getHasDiscount()) {
+                    result.and(discounted);
+                } else {
+                    result.andNot(discounted);
+                }
+            }
+
+            Double minPrice = criteria.getMinPrice();
+            Double maxPrice = criteria.getMaxPrice();
+            if (minPrice != null || maxPrice != null) {
+                for (int position = result.nextSetBit(0); position >= 0; position = result.nextSetBit(position + 1)) {
+                    double price = originalPrices[position];
+                    if ((minPrice != null && price < minPrice) || (maxPrice != null && price > maxPrice)) {
+                        result.clear(position);
+                    }
+                }
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * Danh sách int có thể mở rộng, dùng khi nạp liên kết sách - danh mục để tránh boxing.
+     */
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
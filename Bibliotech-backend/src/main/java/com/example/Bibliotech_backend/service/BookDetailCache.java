@@ -0,0 +1,188 @@
+package com.example.Bibliotech_backend.service;
+
+import com.example.Bibliotech_backend.dto.BookResponse;
+import com.example.Bibliotech_backend.dto.CategoryResponse;
+import com.example.Bibliotech_backend.event.BookChangedEvent;
+import com.example.Bibliotech_backend.event.DealChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Bộ đệm read-through cho trang chi tiết sách, khóa theo bookId.
+ * <p>
+ * Giới hạn theo dung lượng ước tính của từng BookResponse (mô tả dài chiếm phần lớn) thay vì số phần tử,
+ * loại bỏ theo W-TinyLFU của Caffeine và hết hạn sau TTL để giới hạn độ cũ khi dữ liệu bị sửa từ nơi khác.
+ * Mục bị xóa chính xác sau khi transaction commit: theo {@link BookChangedEvent} (thêm, sửa, xóa sách,
+ * cập nhật điểm đánh giá) và {@link DealChangedEvent} (mọi sách gắn với deal đó).
+ * </p>
+ * <p>
+ * Các event này chỉ phát trên node đã ghi. Node khác (và mọi thay đổi ngoài ứng dụng) chỉ thấy nội dung
+ * và ETag mới khi mục hết hạn, nên TTL ({@code app.books.detail-cache.ttl-ms}, mặc định 60 giây) chính là
+ * độ cũ tối đa giữa các node.
+ * </p>
+ * <p>
+ * Caffeine chặn {@code invalidate} cho đến khi lần nạp đang chạy của cùng khóa kết thúc, nên giá trị cũ
+ * được nạp song song với một lần ghi không thể sống sót qua lần xóa sau commit.
+ * </p>
+ * <p>
+ * Mục nạp cho trang chi tiết giữ kèm phiên bản (ETag) tính cùng lúc với nội dung, nên GET có điều kiện
+ * trúng bộ đệm trả 304 mà không cần chạy truy vấn tổng kiểm của {@link ResourceVersionService}.
+ * </p>
+ */
+@Service
+public class BookDetailCache {
+    private static final Logger logger = LoggerFactory.getLogger(BookDetailCache.class);
+
+    /**
+     * Ước tính phần cố định của một BookResponse: header đối tượng, các BigDecimal, ngày tháng và deal.
+     */
+    private static final int BASE_WEIGHT = 640;
+    private static final int CATEGORY_WEIGHT = 160;
+
+    /**
+     * Ước tính một ResourceVersion: đối tượng và chuỗi ETag.
+     */
+    private static final int VERSION_WEIGHT = 120;
+
+    private final Cache<Integer, BookDetail> cache;
+
+    public BookDetailCache(MeterRegistry meterRegistry,
+                           @Value("${app.books.detail-cache.max-bytes:33554432}") long maxBytes,
+                           @Value("${app.books.detail-cache.ttl-ms:60000}") long ttlMs) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Integer bookId, BookDetail detail) -> weigh(detail))
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+
+        // cache_gets{result=hit|miss}, cache_evictions, cache_eviction_weight, cache_size với tag cache=book.detail
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "book.detail");
+    }
+
+    /**
+     * Lấy chi tiết sách từ bộ đệm, nạp bằng {@code loader} nếu chưa có. Kết quả null (sách không tồn tại)
+     * không được lưu.
+     */
+    public BookResponse get(Integer bookId, Function<Integer, BookResponse> loader) {
+        BookDetail detail = cache.get(bookId, key -> BookDetail.of(loader.apply(key), null));
+        return detail != null ? detail.getResponse() : null;
+    }
+
+    /**
+     * Lấy chi tiết sách kèm phiên bản, nạp bằng {@code loader} nếu chưa có hoặc mục đang có được nạp
+     * mà không kèm phiên bản (qua {@link #get} hay {@link #getAll}). Kết quả null không được lưu.
+     */
+    public BookDetail getWithVersion(Integer bookId, Function<Integer, BookDetail> loader) {
+        BookDetail detail = cache.getIfPresent(bookId);
+        if (detail != null && detail.getVersion() != null) {
+            return detail;
+        }
+        // compute cũng khóa theo khóa như get, nên lần xóa sau commit vẫn chờ lần nạp này kết thúc
+        return cache.asMap().compute(bookId, (key, current) ->
+                current != null && current.getVersion() != null ? current : loader.apply(key));
+    }
+
+    /**
+     * Lấy chi tiết của nhiều cuốn sách; các cuốn chưa có trong bộ đệm được nạp chung một lần bằng
+     * {@code loader}. Sách không tồn tại không có trong kết quả.
+     */
+    public Map<Integer, BookResponse> getAll(Collection<Integer> bookIds,
+                                             Function<Set<? extends Integer>, Map<Integer, BookResponse>> loader) {
+        Map<Integer, BookDetail> details = cache.getAll(bookIds, missing -> {
+            Map<Integer, BookDetail> loaded = new HashMap<>();
+            loader.apply(missing).forEach((bookId, response) -> loaded.put(bookId, BookDetail.of(response, null)));
+            return loaded;
+        });
+        Map<Integer, BookResponse> responses = new HashMap<>(details.size() * 2);
+        details.forEach((bookId, detail) -> responses.put(bookId, detail.getResponse()));
+        return responses;
+    }
+
+    /**
+     * Xóa chi tiết của cuốn sách vừa thay đổi, sau khi transaction đã commit.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        cache.invalidate(event.getBookId());
+    }
+
+    /**
+     * Xóa chi tiết của mọi cuốn sách đang gắn với deal vừa thay đổi. Deal hiếm khi sửa nên duyệt bộ đệm
+     * là đủ, không cần duy trì chỉ mục ngược deal - sách.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDealChanged(DealChangedEvent event) {
+        int before = cache.asMap().size();
+        cache.asMap().values().removeIf(detail -> detail.getResponse().getDeal() != null
+                && event.getDealId().equals(detail.getResponse().getDeal().getDealId()));
+        logger.debug("Deal {} changed, evicted {} cached book details", event.getDealId(),
+                before - cache.asMap().size());
+    }
+
+    private static int weigh(BookDetail detail) {
+        BookResponse response = detail.getResponse();
+        long chars = length(response.getTitle()) + length(response.getAuthor()) + length(response.getIsbn())
+                + length(response.getDescription()) + length(response.getCoverImageUrl());
+        int categories = response.getCategories() != null ? response.getCategories().size() : 0;
+        if (response.getCategories() != null) {
+            for (CategoryResponse category : response.getCategories()) {
+                chars += length(category.getCategoryName()) + length(category.getDescription());
+            }
+        }
+        // Chuỗi Java tối đa 2 byte mỗi ký tự
+        long weight = BASE_WEIGHT + 2 * chars + (long) categories * CATEGORY_WEIGHT
+                + (detail.getVersion() != null ? VERSION_WEIGHT : 0);
+        return (int) Math.min(Integer.MAX_VALUE, weight);
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    /**
+     * Chi tiết sách trong bộ đệm cùng phiên bản của nó.
+     */
+    public static final class BookDetail {
+        private final BookResponse response;
+        private final ResourceVersionService.ResourceVersion version;
+
+        private BookDetail(BookResponse response, ResourceVersionService.ResourceVersion version) {
+            this.response = response;
+            this.version = version;
+        }
+
+        /**
+         * @return Mục bộ đệm, null nếu sách không tồn tại.
+         */
+        public static BookDetail of(BookResponse response, ResourceVersionService.ResourceVersion version) {
+            return response != null ? new BookDetail(response, version) : null;
+        }
+
+        public BookResponse getResponse() {
+            return response;
+        }
+
+        /**
+         * Phiên bản tính cùng lần nạp với nội dung; null nếu mục được nạp không kèm phiên bản
+         * hoặc không tính được.
+         */
+        public ResourceVersionService.ResourceVersion getVersion() {
+            return version;
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package com.example.Bibliotech_backend.service;
+
+import com.example.Bibliotech_backend.exception.BadRequestException;
+import com.example.Bibliotech_backend.exception.TooManyRequestsException;
+import com.example.Bibliotech_backend.util.CsvWriter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Xuất toàn bộ danh mục sách ra NDJSON hoặc CSV, dạng luồng.
+ * <p>
+ * Sách được đọc bằng một truy vấn duy nhất, LEFT JOIN với BookCategories và sắp xếp theo book_id, nên các
+ * danh mục của một cuốn nằm liền nhau và được gom trong cùng một lượt đọc. Kết quả được đọc tuần tự
+ * (forward-only, read-only) với fetch size {@code Integer.MIN_VALUE}: MySQL Connector/J khi đó trả từng dòng
+ * thay vì nạp cả tập kết quả, và mỗi cuốn sách được ghi ra ngay khi đọc xong. Bộ nhớ dùng không phụ thuộc
+ * số sách, không có entity nào được tạo.
+ * </p>
+ * <p>
+ * Tên trường trùng với {@code BookRequest} nên tệp xuất có thể nhập lại qua {@link BookImportService}.
+ * </p>
+ * <p>
+ * Mỗi lần xuất giữ một kết nối của pool trong suốt thời gian tải xuống (client chậm có thể giữ hàng phút),
+ * nên số lần xuất chạy cùng lúc bị giới hạn bởi {@code app.books.export.max-concurrent}; lần xuất vượt giới hạn
+ * bị từ chối ngay với {@link TooManyRequestsException} (HTTP 429) thay vì chiếm thêm kết nối.
+ * </p>
+ */
+@Service
+public class BookExportService {
+    private static final Logger logger = LoggerFactory.getLogger(BookExportService.class);
+
+    private static final String SELECT_BOOKS = "SELECT b.book_id, b.title, b.author, b.isbn, b.original_price, "
+            + "b.discounted_price, b.publication_year, b.language, b.page_count, b.average_rating, b.rating_count, "
+            + "b.description, b.cover_image_url, b.stock_quantity, b.deal_id, b.reading_difficulty, "
+            + "b.estimated_reading_time, b.content_rating, b.created_at, b.updated_at, bc.category_id "
+            + "FROM Books b LEFT JOIN BookCategories bc ON bc.book_id = b.book_id "
+            + "ORDER BY b.book_id, bc.category_id";
+
+    private static final String[] CSV_HEADER = {"bookId", "title", "author", "isbn", "originalPrice", "discountedPrice",
+            "publicationYear", "language", "pageCount", "averageRating", "ratingCount", "description", "coverImageUrl",
+            "stockQuantity", "dealId", "readingDifficulty", "estimatedReadingTime", "contentRating", "categoryIds",
+            "createdAt", "updatedAt"};
+
+    /**
+     * Định dạng tệp xuất.
+     */
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv;charset=UTF-8", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * @throws BadRequestException Nếu định dạng không được hỗ trợ.
+         */
+        public static Format of(String format) {
+            if (!StringUtils.hasText(format)) {
+                return NDJSON;
+            }
+            try {
+                return valueOf(format.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Định dạng xuất không được hỗ trợ: " + format);
+            }
+        }
+    }
+
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Semaphore exportSlots;
+
+    public BookExportService(DataSource dataSource,
+                             ObjectMapper objectMapper,
+                             @Value("${app.books.export.fetch-size:" + Integer.MIN_VALUE + "}") int fetchSize,
+                             @Value("${app.books.export.max-concurrent:2}") int maxConcurrent) {
+        // JdbcTemplate riêng: fetch size này chỉ dành cho truy vấn xuất, không áp cho các truy vấn khác
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(fetchSize);
+        this.objectMapper = objectMapper;
+        this.exportSlots = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * Giữ chỗ cho một lần xuất. Gọi trước khi trả response để lần xuất bị từ chối vẫn nhận được 429;
+     * chỗ được nhả khi {@link ExportSlot#close()} (sau khi ghi xong hoặc khi không ghi nữa).
+     *
+     * @throws TooManyRequestsException Nếu đã có đủ {@code app.books.export.max-concurrent} lần xuất đang chạy.
+     */
+    public ExportSlot acquireSlot() {
+        if (!exportSlots.tryAcquire()) {
+            throw new TooManyRequestsException("Đang có quá nhiều lượt xuất dữ liệu, vui lòng thử lại sau");
+        }
+        return new ExportSlot();
+    }
+
+    /**
+     * Chỗ đã giữ cho một lần xuất; đóng nhiều lần chỉ nhả một lần.
+     */
+    public final class ExportSlot implements AutoCloseable {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private ExportSlot() {
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                exportSlots.release();
+            }
+        }
+    }
+
+    /**
+     * Ghi toàn bộ sách ra luồng.
+     *
+     * @param out Luồng đích; không bị đóng ở đây.
+     * @param format Định dạng xuất.
+     * @param gzip Nén gzip hay không.
+     */
+    public void export(OutputStream out, Format format, boolean gzip) throws IOException {
+        long start = System.currentTimeMillis();
+        GZIPOutputStream compressed = gzip ? new GZIPOutputStream(out, 64 * 1024) : null;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(compressed != null ? compressed : out,
+                StandardCharsets.UTF_8), 64 * 1024);
+
+        RowSink sink = format == Format.CSV ? new CsvSink(writer) : new NdjsonSink(writer);
+        BookRowReader reader = new BookRowReader(sink);
+        try {
+            streamingJdbcTemplate.query(SELECT_BOOKS, reader::processRow);
+            reader.finish();
+            sink.close();
+        } catch (UncheckedIOException e) {
+            // Client ngắt kết nối giữa chừng; truy vấn đã dừng, không còn gì để ghi
+            throw e.getCause();
+        }
+        writer.flush();
+        if (compressed != null) {
+            compressed.finish();
+        }
+        logger.info("Exported {} books as {}{} in {} ms", reader.exported, format, gzip ? " (gzip)" : "",
+                System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Gom các dòng liên tiếp của cùng một cuốn sách (một dòng cho mỗi danh mục) rồi ghi ra.
+     */
+    private static final class BookRowReader {
+        private final RowSink sink;
+        private ExportedBook current;
+        private long exported;
+
+        BookRowReader(RowSink sink) {
+            this.sink = sink;
+        }
+
+        void processRow(ResultSet rs) throws SQLException {
+            int bookId = rs.getInt("book_id");
+            if (current == null || current.bookId != bookId) {
+                finish();
+                current = new ExportedBook(rs);
+            }
+            int categoryId = rs.getInt("category_id");
+            if (!rs.wasNull()) {
+                current.categoryIds.add(categoryId);
+            }
+        }
+
+        void finish() {
+            if (current == null) {
+                return;
+            }
+            try {
+                sink.write(current);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            exported++;
+            current = null;
+        }
+    }
+
+    private interface RowSink {
+        void write(ExportedBook book) throws IOException;
+
+        void close() throws IOException;
+    }
+
+    private final class NdjsonSink implements RowSink {
+        private final JsonGenerator generator;
+
+        NdjsonSink(Writer writer) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(writer);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        public void write(ExportedBook book) throws IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("bookId", book.bookId);
+            generator.writeStringField("title", book.title);
+            generator.writeStringField("author", book.author);
+            generator.writeStringField("isbn", book.isbn);
+            writeNumber("originalPrice", book.originalPrice);
+            writeNumber("discountedPrice", book.discountedPrice);
+            writeNumber("publicationYear", book.publicationYear);
+            generator.writeStringField("language", book.language);
+            writeNumber("pageCount", book.pageCount);
+            writeNumber("averageRating", book.averageRating);
+            writeNumber("ratingCount", book.ratingCount);
+            generator.writeStringField("description", book.description);
+            generator.writeStringField("coverImageUrl", book.coverImageUrl);
+            writeNumber("stockQuantity", book.stockQuantity);
+            writeNumber("dealId", book.dealId);
+            generator.writeStringField("readingDifficulty", book.readingDifficulty);
+            writeNumber("estimatedReadingTime", book.estimatedReadingTime);
+            generator.writeStringField("contentRating", book.contentRating);
+            generator.writeArrayFieldStart("categoryIds");
+            for (Integer categoryId : book.categoryIds) {
+                generator.writeNumber(categoryId);
+            }
+            generator.writeEndArray();
+            generator.writeStringField("createdAt", book.createdAt);
+            generator.writeStringField("updatedAt", book.updatedAt);
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        private void writeNumber(String field, Object value) throws IOException {
+            if (value == null) {
+                generator.writeNullField(field);
+            } else if (value instanceof BigDecimal decimal) {
+                generator.writeNumberField(field, decimal);
+            } else {
+                generator.writeNumberField(field, (Integer) value);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.flush();
+        }
+    }
+
+    private static final class CsvSink implements RowSink {
+        private final CsvWriter csv;
+
+        CsvSink(Writer writer) throws IOException {
+            this.csv = new CsvWriter(writer);
+            this.csv.writeRow((Object[]) CSV_HEADER);
+        }
+
+        @Override
+        public void write(ExportedBook book) throws IOException {
+            csv.writeRow(book.bookId, book.title, book.author, book.isbn, book.originalPrice, book.discountedPrice,
+                    book.publicationYear, book.language, book.pageCount, book.averageRating, book.ratingCount,
+                    book.description, book.coverImageUrl, book.stockQuantity, book.dealId, book.readingDifficulty,
+                    book.estimatedReadingTime, book.contentRating,
+                    book.categoryIds.stream().map(String::valueOf).collect(Collectors.joining(";")),
+                    book.createdAt, book.updatedAt);
+        }
+
+        @Override
+        public void close() throws IOException {
+            csv.flush();
+        }
+    }
+
+    /**
+     * Một cuốn sách đang được gom danh mục; chỉ tồn tại cho đến khi được ghi ra.
+     */
+    private static final class ExportedBook {
+        final int bookId;
+        final String title;
+        final String author;
+        final String isbn;
+        final BigDecimal originalPrice;
+        final BigDecimal discountedPrice;
+        final Integer publicationYear;
+        final String language;
+        final Integer pageCount;
+        final BigDecimal averageRating;
+        final Integer ratingCount;
+        final String description;
+        final String coverImageUrl;
+        final Integer stockQuantity;
+        final Integer dealId;
+        final String readingDifficulty;
+        final Integer estimatedReadingTime;
+        final String contentRating;
+        final String createdAt;
+        final String updatedAt;
+        final List<Integer> categoryIds = new ArrayList<>(4);
+
+        ExportedBook(ResultSet rs) throws SQLException {
+            this.bookId = rs.getInt("book_id");
+            this.title = rs.getString("title");
+            this.author = rs.getString("author");
+            this.isbn = rs.getString("isbn");
+            this.originalPrice = rs.getBigDecimal("original_price");
+            this.discountedPrice = rs.getBigDecimal("discounted_price");
+            this.publicationYear = rs.getObject("publication_year", Integer.class);
+            this.language = rs.getString("language");
+            this.pageCount = rs.getObject("page_count", Integer.class);
+            this.averageRating = rs.getBigDecimal("average_rating");
+            this.ratingCount = rs.getObject("rating_count", Integer.class);
+            this.description = rs.getString("description");
+            this.coverImageUrl = rs.getString("cover_image_url");
+            this.stockQuantity = rs.getObject("stock_quantity", Integer.class);
+            this.dealId = rs.getObject("deal_id", Integer.class);
+            this.readingDifficulty = rs.getString("reading_difficulty");
+            this.estimatedReadingTime = rs.getObject("estimated_reading_time", Integer.class);
+            this.contentRating = rs.getString("content_rating");
+            this.createdAt = isoString(rs.getTimestamp("created_at"));
+            this.updatedAt = isoString(rs.getTimestamp("updated_at"));
+        }
+
+        private static String isoString(Timestamp timestamp) {
+            return timestamp != null ? timestamp.toLocalDateTime().toString() : null;
+        }
+    }
+}
@@ -0,0 +1,470 @@
+package com.example.Bibliotech_backend.service;
+
+import com.example.Bibliotech_backend.dto.BookImportResult;
+import com.example.Bibliotech_backend.dto.BookRequest;
+import com.example.Bibliotech_backend.event.BooksImportedEvent;
+import com.example.Bibliotech_backend.exception.BadRequestException;
+import com.example.Bibliotech_backend.model.Book;
+import com.example.Bibliotech_backend.util.CsvReader;
+import com.example.Bibliotech_backend.util.TextNormalizer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Nhập sách hàng loạt từ CSV hoặc NDJSON.
+ * <p>
+ * Tệp được đọc dạng luồng, từng dòng một. Mỗi dòng được kiểm tra ngay khi đọc (ràng buộc của
+ * {@link BookRequest}, giá trị enum, danh mục và deal tồn tại); dòng lỗi được ghi nhận kèm số thứ tự và bỏ qua.
+ * Dòng hợp lệ được gom thành từng khối {@code app.books.import.chunk-size}; mỗi khối nhận một khối ID liên tiếp
+ * từ {@link IdGeneratorService#reserveBookIds(int)} và được ghi vào Books, BookCategories bằng batch JDBC trong
+ * một transaction riêng. Bộ nhớ dùng chỉ phụ thuộc kích thước khối và số lỗi được báo cáo, không phụ thuộc
+ * kích thước tệp.
+ * </p>
+ * <p>
+ * Với MySQL, batch chỉ được gộp thành INSERT nhiều dòng khi URL JDBC có {@code rewriteBatchedStatements=true}.
+ * Nếu một khối lỗi khi ghi (ví dụ ISBN vừa bị chèn trùng từ nơi khác), khối đó được ghi lại từng dòng để chỉ
+ * các dòng thực sự lỗi bị loại.
+ * </p>
+ */
+@Service
+public class BookImportService {
+    private static final Logger logger = LoggerFactory.getLogger(BookImportService.class);
+
+    private static final String INSERT_BOOK = "INSERT INTO Books (book_id, title, author, isbn, original_price, "
+            + "discounted_price, publication_year, language, page_count, description, cover_image_url, stock_quantity, "
+            + "deal_id, reading_difficulty, estimated_reading_time, content_rating, created_at, updated_at, "
+            + "title_sort_key) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_BOOK_CATEGORY = "INSERT INTO BookCategories (book_id, category_id) VALUES (?, ?)";
+
+    /**
+     * Định dạng tệp nhập.
+     */
+    public enum Format {
+        CSV,
+        NDJSON;
+
+        /**
+         * Xác định định dạng từ tham số {@code format} hoặc Content-Type của request.
+         *
+         * @throws BadRequestException Nếu định dạng không được hỗ trợ.
+         */
+        public static Format resolve(String format, String contentType) {
+            if (StringUtils.hasText(format)) {
+                try {
+                    return valueOf(format.trim().toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException e) {
+                    throw new BadRequestException("Định dạng nhập không được hỗ trợ: " + format);
+                }
+            }
+            if (contentType != null && contentType.toLowerCase(Locale.ROOT).contains("csv")) {
+                return CSV;
+            }
+            return NDJSON;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final IdGeneratorService idGeneratorService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DealLifecycleScheduler dealLifecycleScheduler;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int maxReportedErrors;
+
+    public BookImportService(JdbcTemplate jdbcTemplate,
+                             IdGeneratorService idGeneratorService,
+                             ObjectMapper objectMapper,
+                             Validator validator,
+                             ApplicationEventPublisher eventPublisher,
+                             DealLifecycleScheduler dealLifecycleScheduler,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${app.books.import.chunk-size:500}") int chunkSize,
+                             @Value("${app.books.import.max-reported-errors:1000}") int maxReportedErrors) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idGeneratorService = idGeneratorService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+        this.dealLifecycleScheduler = dealLifecycleScheduler;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    /**
+     * Nhập sách từ luồng dữ liệu UTF-8.
+     * <p>
+     * CSV cần dòng tiêu đề với tên cột trùng tên trường của {@link BookRequest} (không phân biệt hoa thường,
+     * chấp nhận cả dạng snake_case); {@code categoryIds} là các ID cách nhau bởi dấu chấm phẩy.
+     * NDJSON là mỗi dòng một đối tượng JSON có dạng {@link BookRequest}.
+     * </p>
+     *
+     * @return Số dòng đã nhập, số dòng lỗi và lỗi của từng dòng.
+     * @throws IOException Nếu không đọc được luồng hoặc CSV sai cú pháp (dấu nháy không được đóng).
+     */
+    public BookImportResult importBooks(InputStream input, Format format) throws IOException {
+        long start = System.currentTimeMillis();
+        ImportRun run = new ImportRun(
+                new HashSet<>(jdbcTemplate.queryForList("SELECT category_id FROM Categories", Integer.class)),
+                new HashSet<>(jdbcTemplate.queryForList("SELECT deal_id FROM Deals", Integer.class)),
+                dealLifecycleScheduler.discountsInEffect());
+
+        Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8);
+        try {
+            if (format == Format.CSV) {
+                readCsv(reader, run);
+            } else {
+                readNdjson(reader, run);
+            }
+        } finally {
+            // Ghi nốt phần đã đọc, kể cả khi luồng bị lỗi giữa chừng
+            run.flush();
+            BookImportResult result = run.result;
+            result.setTotalRows(result.getImported() + result.getFailed());
+            logger.info("Imported {} of {} books ({} failed) in {} ms", result.getImported(), result.getTotalRows(),
+                    result.getFailed(), System.currentTimeMillis() - start);
+            if (result.getImported() > 0) {
+                eventPublisher.publishEvent(new BooksImportedEvent(Math.toIntExact(result.getImported())));
+            }
+        }
+        return run.result;
+    }
+
+    private void readCsv(Reader reader, ImportRun run) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.next();
+        if (header == null) {
+            return;
+        }
+        String[] columns = header.stream().map(BookImportService::columnKey).toArray(String[]::new);
+
+        long row = 0;
+        List<String> values;
+        while ((values = csv.next()) != null) {
+            if (values.size() == 1 && values.get(0).isBlank()) {
+                continue;
+            }
+            row++;
+            try {
+                run.accept(row, fromCsv(header, columns, values));
+            } catch (IllegalArgumentException e) {
+                run.reject(row, e.getMessage());
+            }
+        }
+    }
+
+    private void readNdjson(Reader reader, ImportRun run) throws IOException {
+        BufferedReader lines = new BufferedReader(reader);
+        long row = 0;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            row++;
+            BookRequest request;
+            try {
+                request = objectMapper.readValue(line, BookRequest.class);
+            } catch (JsonProcessingException e) {
+                run.reject(row, "JSON không hợp lệ: " + e.getOriginalMessage());
+                continue;
+            }
+            run.accept(row, request);
+        }
+    }
+
+    /**
+     * Chuyển một bản ghi CSV sang BookRequest; cột rỗng được coi là không có giá trị.
+     *
+     * @throws IllegalArgumentException Nếu giá trị số không hợp lệ.
+     */
+    private static BookRequest fromCsv(List<String> header, String[] columns, List<String> values) {
+        BookRequest request = new BookRequest();
+        for (int i = 0; i < columns.length && i < values.size(); i++) {
+            String value = values.get(i).trim();
+            if (value.isEmpty()) {
+                continue;
+            }
+            try {
+                switch (columns[i]) {
+                    case "title" -> request.setTitle(value);
+                    case "author" -> request.setAuthor(value);
+                    case "isbn" -> request.setIsbn(value);
+                    case "originalprice" -> request.setOriginalPrice(new BigDecimal(value));
+                    case "discountedprice" -> request.setDiscountedPrice(new BigDecimal(value));
+                    case "publicationyear" -> request.setPublicationYear(Integer.valueOf(value));
+                    case "language" -> request.setLanguage(value);
+                    case "pagecount" -> request.setPageCount(Integer.valueOf(value));
+                    case "description" -> request.setDescription(value);
+                    case "coverimageurl" -> request.setCoverImageUrl(value);
+                    case "stockquantity" -> request.setStockQuantity(Integer.valueOf(value));
+                    case "dealid" -> request.setDealId(Integer.valueOf(value));
+                    case "readingdifficulty" -> request.setReadingDifficulty(value);
+                    case "estimatedreadingtime" -> request.setEstimatedReadingTime(Integer.valueOf(value));
+                    case "contentrating" -> request.setContentRating(value);
+                    case "categoryids" -> request.setCategoryIds(Arrays.stream(value.split("[;|]"))
+                            .map(String::trim)
+                            .filter(id -> !id.isEmpty())
+                            .map(Integer::valueOf)
+                            .collect(Collectors.toCollection(LinkedHashSet::new)));
+                    default -> {
+                        // Cột không thuộc BookRequest được bỏ qua
+                    }
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Giá trị '" + value + "' của cột " + header.get(i) + " không hợp lệ");
+            }
+        }
+        return request;
+    }
+
+    private static String columnKey(String column) {
+        return column.trim().replace("_", "").replace(" ", "").toLowerCase(Locale.ROOT);
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value, String field) {
+        if (value == null) {
+            return null;
+        }
+        for (E constant : type.getEnumConstants()) {
+            if (constant.name().equalsIgnoreCase(value.trim())) {
+                return constant;
+            }
+        }
+        throw new IllegalArgumentException(field + " không hợp lệ: " + value);
+    }
+
+    /**
+     * Trạng thái của một lần nhập: khối đang gom và kết quả.
+     */
+    private final class ImportRun {
+        final Set<Integer> categoryIds;
+        final Set<Integer> dealIds;
+
+        /**
+         * Phần trăm giảm của các deal đang có hiệu lực lúc bắt đầu nhập, theo dealId.
+         */
+        final Map<Integer, BigDecimal> dealDiscounts;
+        final List<ParsedBook> chunk = new ArrayList<>();
+        final BookImportResult result = new BookImportResult();
+
+        ImportRun(Set<Integer> categoryIds, Set<Integer> dealIds, Map<Integer, BigDecimal> dealDiscounts) {
+            this.categoryIds = categoryIds;
+            this.dealIds = dealIds;
+            this.dealDiscounts = dealDiscounts;
+        }
+
+        /**
+         * Kiểm tra một dòng; dòng hợp lệ được đưa vào khối, khối đầy thì ghi.
+         */
+        void accept(long row, BookRequest request) {
+            Set<ConstraintViolation<BookRequest>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                reject(row, violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+                return;
+            }
+
+            ParsedBook book;
+            try {
+                book = new ParsedBook(row, request,
+                        parseEnum(Book.Language.class, request.getLanguage(), "Ngôn ngữ"),
+                        parseEnum(Book.ReadingDifficulty.class, request.getReadingDifficulty(), "Độ khó"),
+                        parseEnum(Book.ContentRating.class, request.getContentRating(), "Phân loại nội dung"));
+            } catch (IllegalArgumentException e) {
+                reject(row, e.getMessage());
+                return;
+            }
+
+            for (Integer categoryId : request.getCategoryIds()) {
+                if (!categoryIds.contains(categoryId)) {
+                    reject(row, "Danh mục không tồn tại: " + categoryId);
+                    return;
+                }
+            }
+            if (request.getDealId() != null && !dealIds.contains(request.getDealId())) {
+                reject(row, "Deal không tồn tại: " + request.getDealId());
+                return;
+            }
+            if (request.getDealId() != null) {
+                // Giống BookService: sách gắn deal lấy giá của deal thay cho giá giảm trong tệp
+                request.setDiscountedPrice(DealLifecycleScheduler.discountedPrice(request.getOriginalPrice(),
+                        dealDiscounts.get(request.getDealId())));
+            }
+
+            chunk.add(book);
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        void reject(long row, String message) {
+            result.setFailed(result.getFailed() + 1);
+            if (result.getErrors().size() < maxReportedErrors) {
+                result.getErrors().add(new BookImportResult.RowError(row, message));
+            } else {
+                result.setErrorsTruncated(true);
+            }
+        }
+
+        /**
+         * Ghi khối hiện tại: loại ISBN trùng, giữ chỗ ID, rồi chèn bằng batch trong một transaction.
+         */
+        void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            List<ParsedBook> books = withoutDuplicateIsbns(chunk);
+            chunk.clear();
+            if (books.isEmpty()) {
+                return;
+            }
+
+            int firstId = idGeneratorService.reserveBookIds(books.size());
+            for (int i = 0; i < books.size(); i++) {
+                books.get(i).bookId = firstId + i;
+            }
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> insert(books));
+                result.setImported(result.getImported() + books.size());
+            } catch (DataAccessException e) {
+                logger.warn("Batch insert of {} books failed, retrying row by row: {}", books.size(), e.getMessage());
+                for (ParsedBook book : books) {
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> insert(List.of(book)));
+                        result.setImported(result.getImported() + 1);
+                    } catch (DataAccessException rowError) {
+                        reject(book.row, "Không thể lưu sách: " + rowError.getMostSpecificCause().getMessage());
+                    }
+                }
+            }
+        }
+
+        /**
+         * Loại các dòng có ISBN đã có trong cơ sở dữ liệu hoặc trùng với dòng trước đó trong cùng khối.
+         * ISBN trùng với khối trước đã được ghi nên cũng bị phát hiện qua truy vấn.
+         */
+        private List<ParsedBook> withoutDuplicateIsbns(List<ParsedBook> books) {
+            List<String> isbns = books.stream()
+                    .map(book -> book.isbn)
+                    .filter(isbn -> isbn != null)
+                    .collect(Collectors.toList());
+            Set<String> taken = new HashSet<>();
+            if (!isbns.isEmpty()) {
+                String placeholders = String.join(", ", Collections.nCopies(isbns.size(), "?"));
+                taken.addAll(jdbcTemplate.queryForList(
+                        "SELECT isbn FROM Books WHERE isbn IN (" + placeholders + ")", String.class, isbns.toArray()));
+            }
+
+            List<ParsedBook> accepted = new ArrayList<>(books.size());
+            for (ParsedBook book : books) {
+                if (book.isbn != null && !taken.add(book.isbn)) {
+                    reject(book.row, "ISBN đã tồn tại: " + book.isbn);
+                } else {
+                    accepted.add(book);
+                }
+            }
+            return accepted;
+        }
+    }
+
+    private void insert(List<ParsedBook> books) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_BOOK, books, books.size(), (ps, book) -> {
+            BookRequest request = book.request;
+            ps.setInt(1, book.bookId);
+            ps.setString(2, request.getTitle());
+            ps.setString(3, request.getAuthor());
+            ps.setString(4, book.isbn);
+            ps.setBigDecimal(5, request.getOriginalPrice());
+            ps.setBigDecimal(6, request.getDiscountedPrice());
+            ps.setObject(7, request.getPublicationYear());
+            ps.setString(8, book.language.name());
+            ps.setObject(9, request.getPageCount());
+            ps.setString(10, request.getDescription());
+            ps.setString(11, request.getCoverImageUrl());
+            ps.setInt(12, request.getStockQuantity());
+            ps.setObject(13, request.getDealId());
+            ps.setString(14, book.readingDifficulty != null ? book.readingDifficulty.name() : null);
+            ps.setObject(15, request.getEstimatedReadingTime());
+            ps.setString(16, book.contentRating != null ? book.contentRating.name() : null);
+            ps.setTimestamp(17, now);
+            ps.setTimestamp(18, now);
+            ps.setString(19, TextNormalizer.fold(request.getTitle()));
+        });
+
+        List<int[]> links = new ArrayList<>();
+        for (ParsedBook book : books) {
+            for (Integer categoryId : book.request.getCategoryIds()) {
+                links.add(new int[]{book.bookId, categoryId});
+            }
+        }
+        if (!links.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_BOOK_CATEGORY, links, links.size(), (ps, link) -> {
+                ps.setInt(1, link[0]);
+                ps.setInt(2, link[1]);
+            });
+        }
+    }
+
+    /**
+     * Một dòng đã qua kiểm tra, chờ được ghi.
+     */
+    private static final class ParsedBook {
+        final long row;
+        final BookRequest request;
+        final String isbn;
+        final Book.Language language;
+        final Book.ReadingDifficulty readingDifficulty;
+        final Book.ContentRating contentRating;
+        int bookId;
+
+        ParsedBook(long row, BookRequest request, Book.Language language,
+                   Book.ReadingDifficulty readingDifficulty, Book.ContentRating contentRating) {
+            this.row = row;
+            this.request = request;
+            this.isbn = StringUtils.hasText(request.getIsbn()) ? request.getIsbn().trim() : null;
+            this.language = language;
+            this.readingDifficulty = readingDifficulty;
+            this.contentRating = contentRating;
+        }
+    }
+}
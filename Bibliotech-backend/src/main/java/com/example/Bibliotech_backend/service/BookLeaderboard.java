@@ -0,0 +1,257 @@
+package com.example.Bibliotech_backend.service;
+
+import com.example.Bibliotech_backend.event.BookChangedEvent;
+import com.example.Bibliotech_backend.event.BooksImportedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Bảng xếp hạng sách theo điểm đánh giá, giữ trong bộ nhớ và cập nhật từng cuốn.
+ * <p>
+ * Sách được xếp trong skip list theo (điểm trung bình giảm dần, số lượt đánh giá giảm dần, bookId) cho
+ * toàn bộ cửa hàng và cho từng danh mục. Chỉ sách có ít nhất {@code app.leaderboard.min-rating-count}
+ * lượt đánh giá mới được xếp hạng, để một cuốn có đúng một đánh giá 5 sao không đứng đầu.
+ * Đọc top-N chỉ duyệt N phần tử đầu, không truy vấn cơ sở dữ liệu.
+ * </p>
+ * <p>
+ * Bảng được dựng khi ứng dụng khởi động, sau khi nhập sách hàng loạt và định kỳ, và cập nhật qua
+ * {@link BookChangedEvent}, bao gồm cả khi ReviewService tính lại điểm. Luồng ghi được tuần tự hóa; luồng đọc duyệt skip list không cần khóa,
+ * và bỏ qua bản trùng có thể thấy thoáng qua khi một cuốn sách đang được chuyển vị trí.
+ * </p>
+ */
+@Service
+public class BookLeaderboard {
+    private static final Logger logger = LoggerFactory.getLogger(BookLeaderboard.class);
+
+    private static final String SELECT_BOOKS = "SELECT book_id, average_rating, rating_count FROM Books";
+    private static final String SELECT_CATEGORIES = "SELECT book_id, category_id FROM BookCategories";
+
+    private static final Comparator<Entry> BY_RANK = Comparator.<Entry, BigDecimal>comparing(entry -> entry.rating)
+            .reversed()
+            .thenComparing(Comparator.<Entry>comparingInt(entry -> entry.ratingCount).reversed())
+            .thenComparingInt(entry -> entry.bookId);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int minRatingCount;
+
+    /**
+     * Bảng hiện tại; được thay thế nguyên khối khi dựng lại.
+     */
+    private volatile Board board;
+
+    private boolean loading;
+
+    /**
+     * Các sách thay đổi chưa được cập nhật vào bảng (đang dựng lại toàn bộ, hoặc luồng khác đang cập nhật).
+     */
+    private final Set<Integer> pendingChanges = ConcurrentHashMap.newKeySet();
+
+    public BookLeaderboard(JdbcTemplate jdbcTemplate,
+                           @Value("${app.leaderboard.min-rating-count:1}") int minRatingCount) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.minRatingCount = minRatingCount;
+    }
+
+    /**
+     * Dựng lại toàn bộ bảng xếp hạng từ bảng Books và BookCategories khi khởi động, sau khi nhập sách hàng loạt
+     * và định kỳ, để nhận cả các thay đổi không đi qua {@link BookService} (SQL trực tiếp, instance khác).
+     */
+    @EventListener({ApplicationReadyEvent.class, BooksImportedEvent.class})
+    @Scheduled(fixedDelayString = "${app.leaderboard.refresh-ms:600000}",
+            initialDelayString = "${app.leaderboard.refresh-ms:600000}")
+    public void rebuild() {
+        synchronized (this) {
+            if (loading) {
+                return;
+            }
+            loading = true;
+        }
+
+        long start = System.currentTimeMillis();
+        Map<Integer, Set<Integer>> categoriesByBook = new HashMap<>();
+        Board fresh = new Board();
+        try {
+            jdbcTemplate.query(SELECT_CATEGORIES, rs -> {
+                categoriesByBook.computeIfAbsent(rs.getInt("book_id"), id -> new HashSet<>()).add(rs.getInt("category_id"));
+            });
+
+            jdbcTemplate.query(SELECT_BOOKS, rs -> {
+                int bookId = rs.getInt("book_id");
+                fresh.put(new Entry(bookId, rs.getBigDecimal("average_rating"), rs.getInt("rating_count"),
+                        categoriesByBook.getOrDefault(bookId, Set.of())), minRatingCount);
+            });
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                loading = false;
+            }
+            logger.error("Could not build rating leaderboard", e);
+            return;
+        }
+
+        synchronized (this) {
+            this.board = fresh;
+            this.loading = false;
+        }
+        applyPendingChanges();
+        logger.info("Built rating leaderboard: {} ranked books in {} ms",
+                fresh.overall.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Cập nhật vị trí của cuốn sách vừa thay đổi, sau khi transaction đã commit.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        pendingChanges.add(event.getBookId());
+        synchronized (this) {
+            if (loading || board == null) {
+                return;
+            }
+        }
+        applyPendingChanges();
+    }
+
+    /**
+     * Đọc lại các sách đang chờ; sách đã bị xóa được gỡ khỏi bảng.
+     */
+    private void applyPendingChanges() {
+        for (Integer bookId : pendingChanges) {
+            if (pendingChanges.remove(bookId)) {
+                refresh(bookId);
+            }
+        }
+    }
+
+    private void refresh(Integer bookId) {
+        try {
+            Set<Integer> categoryIds = new HashSet<>(jdbcTemplate.queryForList(
+                    "SELECT category_id FROM BookCategories WHERE book_id = ?", Integer.class, bookId));
+            List<Entry> rows = jdbcTemplate.query(SELECT_BOOKS + " WHERE book_id = ?", (rs, rowNum) ->
+                    new Entry(bookId, rs.getBigDecimal("average_rating"), rs.getInt("rating_count"), categoryIds), bookId);
+            synchronized (this) {
+                if (loading) {
+                    // Bảng đang được dựng lại có thể đã đọc dòng cũ; cập nhật vào bảng mới sau khi dựng xong
+                    pendingChanges.add(bookId);
+                    return;
+                }
+                if (rows.isEmpty()) {
+                    board.remove(bookId);
+                } else {
+                    board.put(rows.get(0), minRatingCount);
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.error("Could not update rating leaderboard for book {}", bookId, e);
+        }
+    }
+
+    /**
+     * Các sách có điểm đánh giá cao nhất.
+     *
+     * @param categoryId Danh mục cần xếp hạng; null cho toàn bộ cửa hàng.
+     * @param limit Số sách tối đa.
+     * @return bookId theo thứ hạng, hoặc null nếu bảng chưa sẵn sàng.
+     */
+    public List<Integer> topBookIds(Integer categoryId, int limit) {
+        Board current = board;
+        if (current == null) {
+            return null;
+        }
+        ConcurrentSkipListSet<Entry> ranking = categoryId == null ? current.overall : current.byCategory.get(categoryId);
+        List<Integer> bookIds = new ArrayList<>(Math.max(0, Math.min(limit, 64)));
+        if (ranking == null || limit <= 0) {
+            return bookIds;
+        }
+        Set<Integer> seen = new HashSet<>();
+        for (Entry entry : ranking) {
+            if (seen.add(entry.bookId)) {
+                bookIds.add(entry.bookId);
+                if (bookIds.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return bookIds;
+    }
+
+    /**
+     * Các skip list xếp hạng và vị trí hiện tại của từng sách để gỡ ra khi cập nhật.
+     */
+    private static final class Board {
+        final ConcurrentSkipListSet<Entry> overall = new ConcurrentSkipListSet<>(BY_RANK);
+        final Map<Integer, ConcurrentSkipListSet<Entry>> byCategory = new ConcurrentHashMap<>();
+        final Map<Integer, Entry> entries = new HashMap<>();
+
+        void put(Entry entry, int minRatingCount) {
+            boolean ranked = entry.rating != null && entry.ratingCount >= minRatingCount;
+            Entry previous = ranked ? entries.put(entry.bookId, entry) : entries.remove(entry.bookId);
+            if (previous != null && (!ranked || BY_RANK.compare(previous, entry) == 0)) {
+                // Cùng khóa xếp hạng: skip list coi hai bản là một, phải gỡ bản cũ trước khi thêm
+                unlink(previous);
+                previous = null;
+            }
+            if (ranked) {
+                overall.add(entry);
+                for (Integer categoryId : entry.categoryIds) {
+                    byCategory.computeIfAbsent(categoryId, id -> new ConcurrentSkipListSet<>(BY_RANK)).add(entry);
+                }
+            }
+            // Khóa xếp hạng đổi: thêm trước rồi mới gỡ để luồng đọc không bỏ sót cuốn sách đang đổi vị trí
+            if (previous != null) {
+                unlink(previous);
+            }
+        }
+
+        void remove(Integer bookId) {
+            Entry previous = entries.remove(bookId);
+            if (previous != null) {
+                unlink(previous);
+            }
+        }
+
+        private void unlink(Entry entry) {
+            overall.remove(entry);
+            for (Integer categoryId : entry.categoryIds) {
+                ConcurrentSkipListSet<Entry> ranking = byCategory.get(categoryId);
+                if (ranking != null) {
+                    ranking.remove(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Điểm, số lượt đánh giá và danh mục của một cuốn sách tại thời điểm được xếp hạng.
+     */
+    private static final class Entry {
+        final int bookId;
+        final BigDecimal rating;
+        final int ratingCount;
+        final Set<Integer> categoryIds;
+
+        Entry(int bookId, BigDecimal rating, int ratingCount, Set<Integer> categoryIds) {
+            this.bookId = bookId;
+            this.rating = rating;
+            this.ratingCount = ratingCount;
+            this.categoryIds = categoryIds;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.Bibliotech_backend.service;
+
+import com.example.Bibliotech_backend.dto.BookResponse;
+import com.example.Bibliotech_backend.dto.CategoryResponse;
+import com.example.Bibliotech_backend.dto.DealResponse;
+import com.example.Bibliotech_backend.model.Book;
+import com.example.Bibliotech_backend.model.Deal;
+import com.example.Bibliotech_backend.repository.BookCategoryRepository;
+import com.example.Bibliotech_backend.repository.CategoryRepository;
+import com.example.Bibliotech_backend.repository.DealRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Chuyển một trang sách sang {@link BookResponse} với số truy vấn cố định.
+ * <p>
+ * Thay vì đọc {@code book.getBookCategories()}, {@code Category.parentCategory} và {@code Book.deal}
+ * cho từng cuốn (N+1), cả trang được nạp bằng ba truy vấn IN: liên kết sách - danh mục,
+ * danh mục kèm danh mục cha, và các deal.
+ * </p>
+ */
+@Service
+public class BookResponseAssembler {
+    private static final Logger logger = LoggerFactory.getLogger(BookResponseAssembler.class);
+
+    private final BookCategoryRepository bookCategoryRepository;
+    private final CategoryRepository categoryRepository;
+    private final DealRepository dealRepository;
+
+    public BookResponseAssembler(BookCategoryRepository bookCategoryRepository,
+                                 CategoryRepository categoryRepository,
+                                 DealRepository dealRepository) {
+        this.bookCategoryRepository = bookCategoryRepository;
+        this.categoryRepository = categoryRepository;
+        this.dealRepository = dealRepository;
+    }
+
+    /**
+     * Chuyển một cuốn sách sang BookResponse.
+     */
+    public BookResponse toResponse(Book book) {
+        return toResponses(List.of(book)).get(0);
+    }
+
+    /**
+     * Chuyển danh sách sách sang BookResponse, giữ nguyên thứ tự.
+     */
+    public List<BookResponse> toResponses(List<Book> books) {
+        if (books.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Integer> bookIds = books.stream().map(Book::getBookId).collect(Collectors.toList());
+
+        // 1. Liên kết sách - danh mục của cả trang
+        Map<Integer, List<Integer>> categoryIdsByBook = new HashMap<>();
+        for (BookCategoryRepository.BookCategoryLink link : bookCategoryRepository.findLinksByBookIds(bookIds)) {
+            categoryIdsByBook.computeIfAbsent(link.getBookId(), id -> new ArrayList<>()).add(link.getCategoryId());
+        }
+        return assemble(books, categoryIdsByBook);
+    }
+
+    /**
+     * Chuyển một cuốn sách sang BookResponse khi đã biết danh mục của nó (ví dụ ngay sau khi ghi),
+     * không cần đọc lại liên kết sách - danh mục.
+     */
+    public BookResponse toResponse(Book book, Collection<Integer> categoryIds) {
+        return assemble(List.of(book), Map.of(book.getBookId(), new ArrayList<>(categoryIds))).get(0);
+    }
+
+    private List<BookResponse> assemble(List<Book> books, Map<Integer, List<Integer>> categoryIdsByBook) {
+        Set<Integer> categoryIds = new LinkedHashSet<>();
+        categoryIdsByBook.values().forEach(categoryIds::addAll);
+
+        // 2. Danh mục kèm danh mục cha, trong một truy vấn
+        Map<Integer, CategoryResponse> categories = categoryIds.isEmpty() ? Map.of()
+                : categoryRepository.findSummariesByIds(categoryIds).stream()
+                .collect(Collectors.toMap(CategoryRepository.CategorySummary::getCategoryId, this::toCategoryResponse));
+
+        // 3. Deal; Book.deal là proxy LAZY nên đọc dealId không phát sinh truy vấn
+        Set<Integer> dealIds = books.stream()
+                .map(Book::getDeal)
+                .filter(deal -> deal != null)
+                .map(Deal::getDealId)
+                .collect(Collectors.toSet());
+        Map<Integer, DealResponse> deals = dealIds.isEmpty() ? Map.of()
+                : dealRepository.findAllById(dealIds).stream()
+                .collect(Collectors.toMap(Deal::getDealId, this::toDealResponse));
+
+        logger.debug("Assembled {} books with {} categories and {} deals", books.size(), categories.size(), deals.size());
+
+        List<BookResponse> responses = new ArrayList<>(books.size());
+        for (Book book : books) {
+            BookResponse response = toBookResponse(book);
+
+            if (book.getDeal() != null) {
+                response.setDeal(deals.get(book.getDeal().getDealId()));
+            }
+
+            List<CategoryResponse> bookCategories = categoryIdsByBook.getOrDefault(book.getBookId(), List.of()).stream()
+                    .map(categories::get)
+                    .filter(category -> category != null)
+                    .collect(Collectors.toList());
+            response.setCategories(bookCategories);
+
+            responses.add(response);
+        }
+        return responses;
+    }
+
+    private BookResponse toBookResponse(Book book) {
+        BookResponse response = new BookResponse();
+
+        response.setBookId(book.getBookId());
+        response.setTitle(book.getTitle());
+        response.setAuthor(book.getAuthor());
+        response.setIsbn(book.getIsbn());
+        response.setOriginalPrice(book.getOriginalPrice());
+        response.setDiscountedPrice(book.getDiscountedPrice());
+        response.setPublicationYear(book.getPublicationYear());
+
+        // Convert Language enum to String if needed
+        if (book.getLanguage() != null) {
+            response.setLanguage(book.getLanguage().name());
+        }
+
+        response.setPageCount(book.getPageCount());
+        response.setAverageRating(book.getAverageRating());
+        response.setRatingCount(book.getRatingCount());
+        response.setDescription(book.getDescription());
+        response.setCoverImageUrl(book.getCoverImageUrl());
+        response.setStockQuantity(book.getStockQuantity());
+
+        // Convert ReadingDifficulty enum to String if needed
+        if (book.getReadingDifficulty() != null) {
+            response.setReadingDifficulty(book.getReadingDifficulty().name());
+        }
+
+        response.setEstimatedReadingTime(book.getEstimatedReadingTime());
+
+        // Convert ContentRating enum to String if needed
+        if (book.getContentRating() != null) {
+            response.setContentRating(book.getContentRating().name());
+        }
+
+        response.setCreatedAt(book.getCreatedAt());
+        response.setUpdatedAt(book.getUpdatedAt());
+
+        return response;
+    }
+
+    private CategoryResponse toCategoryResponse(CategoryRepository.CategorySummary category) {
+        CategoryResponse response = new CategoryResponse();
+        response.setCategoryId(category.getCategoryId());
+        response.setCategoryName(category.getCategoryName());
+        response.setDescription(category.getDescription());
+
+        // Chỉ lấy một cấp danh mục cha để tránh tham chiếu vòng
+        if (category.getParentCategoryId() != null) {
+            CategoryResponse parentResponse = new CategoryResponse();
+            parentResponse.setCategoryId(category.getParentCategoryId());
+            parentResponse.setCategoryName(category.getParentCategoryName());
+            response.setParentCategory(parentResponse);
+        }
+
+        return response;
+    }
+
+    private DealResponse toDealResponse(Deal deal) {
+        DealResponse response = new DealResponse();
+        response.setDealId(deal.getDealId());
+        response.setDealName(deal.getDealName());
+        response.setDiscountPercentage(deal.getDiscountPercentage());
+        response.setStartDate(deal.getStartDate() != null ? deal.getStartDate().toString() : null);
+        response.setEndDate(deal.getEndDate() != null ? deal.getEndDate().toString() : null);
+        response.setIsActive(deal.getIsActive());
+        return response;
+    }
+}
@@ -0,0 +1,389 @@
+package com.example.Bibliotech_backend.service;
+
+import com.example.Bibliotech_backend.dto.BookSaleInfoDTO;
+import com.example.Bibliotech_backend.dto.BookSliceResponse;
+import com.example.Bibliotech_backend.dto.SaleDealGroupDTO;
+import com.example.Bibliotech_backend.event.BookChangedEvent;
+import com.example.Bibliotech_backend.event.BooksImportedEvent;
+import com.example.Bibliotech_backend.event.DealChangedEvent;
+import com.example.Bibliotech_backend.exception.BadRequestException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Danh sách sách đang giảm giá, tính sẵn trong bộ nhớ cho carousel trang chủ.
+ * <p>
+ * Sách được xếp theo mức giảm (tỉ lệ giảm so với giá gốc) giảm dần, rồi theo ngày kết thúc deal sớm nhất
+ * (sách giảm giá nhập tay, không có deal, đứng sau), rồi theo bookId. Ngoài danh sách chung còn có danh sách
+ * riêng cho từng deal. Đọc một trang chỉ là tìm nhị phân vị trí con trỏ rồi cắt mảng.
+ * </p>
+ * <p>
+ * Dữ liệu được dựng khi khởi động, sau khi nhập sách hàng loạt và định kỳ, và cập nhật từng phần: một cuốn sách
+ * qua {@link BookChangedEvent}, các sách của một deal qua {@link DealChangedEvent} (đổi giá theo mốc deal, đổi tên
+ * hoặc thời hạn). Mỗi lần cập nhật tạo mảng mới và thay nguyên khối (copy-on-write) nên luồng đọc không cần khóa.
+ * Trước khi dựng xong lần đầu, danh sách được coi là rỗng.
+ * </p>
+ */
+@Service
+public class BookSaleView {
+    private static final Logger logger = LoggerFactory.getLogger(BookSaleView.class);
+
+    /**
+     * Cùng điều kiện với {@code BookRepository.findSaleBooksCoverInfo}.
+     */
+    private static final String SELECT_SALE_BOOKS = "SELECT b.book_id, b.title, b.cover_image_url, b.original_price, "
+            + "b.discounted_price, b.deal_id, d.deal_name, d.end_date FROM Books b "
+            + "LEFT JOIN Deals d ON d.deal_id = b.deal_id "
+            + "WHERE b.cover_image_url IS NOT NULL AND b.discounted_price IS NOT NULL "
+            + "AND b.discounted_price < b.original_price";
+
+    private static final long NO_END_DATE = Long.MAX_VALUE;
+
+    private static final Comparator<Entry> BY_SALE_ORDER = Comparator.<Entry>comparingDouble(entry -> entry.depth)
+            .reversed()
+            .thenComparingLong(entry -> entry.endDay)
+            .thenComparingInt(entry -> entry.bookId);
+
+    private static final View EMPTY = new View(new Entry[0]);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Dữ liệu hiện tại; được thay thế nguyên khối sau mỗi lần cập nhật.
+     */
+    private volatile View view;
+
+    private boolean loading;
+
+    /**
+     * Sách và deal thay đổi chưa được cập nhật vào dữ liệu (đang dựng lại toàn bộ, hoặc luồng khác đang cập nhật).
+     */
+    private final Set<Integer> pendingBooks = ConcurrentHashMap.newKeySet();
+    private final Set<Integer> pendingDeals = ConcurrentHashMap.newKeySet();
+
+    public BookSaleView(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Dựng lại toàn bộ danh sách giảm giá khi khởi động, sau khi nhập sách hàng loạt và định kỳ, để nhận cả các
+     * thay đổi không đi qua {@link BookService} (SQL trực tiếp, instance khác).
+     */
+    @EventListener({ApplicationReadyEvent.class, BooksImportedEvent.class})
+    @Scheduled(fixedDelayString = "${app.sale.refresh-ms:600000}",
+            initialDelayString = "${app.sale.refresh-ms:600000}")
+    public void rebuild() {
+        synchronized (this) {
+            if (loading) {
+                return;
+            }
+            loading = true;
+        }
+
+        long start = System.currentTimeMillis();
+        View fresh;
+        try {
+            fresh = load();
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                loading = false;
+            }
+            logger.error("Could not build sale view", e);
+            return;
+        }
+
+        synchronized (this) {
+            this.view = fresh;
+            this.loading = false;
+        }
+        applyPendingChanges();
+        logger.info("Built sale view: {} books in {} deals in {} ms",
+                fresh.all.length, fresh.byDeal.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Cập nhật cuốn sách vừa thay đổi, sau khi transaction đã commit.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        pendingBooks.add(event.getBookId());
+        if (isUpdatable()) {
+            applyPendingChanges();
+        }
+    }
+
+    /**
+     * Đọc lại các sách của deal vừa thay đổi, sau khi transaction đã commit.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDealChanged(DealChangedEvent event) {
+        pendingDeals.add(event.getDealId());
+        if (isUpdatable()) {
+            applyPendingChanges();
+        }
+    }
+
+    private synchronized boolean isUpdatable() {
+        return !loading && view != null;
+    }
+
+    /**
+     * Đọc lại các sách và deal đang chờ; sách đã bị xóa hoặc hết giảm giá được gỡ khỏi danh sách.
+     */
+    private void applyPendingChanges() {
+        for (Integer bookId : pendingBooks) {
+            if (pendingBooks.remove(bookId)) {
+                refreshBook(bookId);
+            }
+        }
+        for (Integer dealId : pendingDeals) {
+            if (pendingDeals.remove(dealId)) {
+                refreshDeal(dealId);
+            }
+        }
+    }
+
+    private void refreshBook(Integer bookId) {
+        try {
+            List<Entry> rows = jdbcTemplate.query(SELECT_SALE_BOOKS + " AND b.book_id = ?",
+                    (rs, rowNum) -> readEntry(rs), bookId);
+            synchronized (this) {
+                if (loading) {
+                    // Lần dựng lại đang chạy có thể đã đọc dòng cũ; cập nhật vào dữ liệu mới sau khi dựng xong
+                    pendingBooks.add(bookId);
+                    return;
+                }
+                view = view.replace(Set.of(bookId), rows);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Could not update sale view for book {}", bookId, e);
+        }
+    }
+
+    private void refreshDeal(Integer dealId) {
+        try {
+            List<Entry> rows = jdbcTemplate.query(SELECT_SALE_BOOKS + " AND b.deal_id = ?",
+                    (rs, rowNum) -> readEntry(rs), dealId);
+            synchronized (this) {
+                if (loading) {
+                    pendingDeals.add(dealId);
+                    return;
+                }
+                // Gỡ cả các sách trước đây thuộc deal mà nay không còn giảm giá
+                Set<Integer> replaced = new HashSet<>();
+                Arrays.stream(view.byDeal.getOrDefault(dealId, new Entry[0])).forEach(entry -> replaced.add(entry.bookId));
+                rows.forEach(entry -> replaced.add(entry.bookId));
+                view = view.replace(replaced, rows);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Could not update sale view for deal {}", dealId, e);
+        }
+    }
+
+    /**
+     * Toàn bộ sách đang giảm giá theo thứ tự của danh sách.
+     */
+    public List<BookSaleInfoDTO> all() {
+        return toDtos(current().all, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Một trang sách đang giảm giá.
+     *
+     * @param dealId Chỉ lấy sách của deal này; null cho mọi sách.
+     * @param cursor Con trỏ của trang trước; null hoặc rỗng cho trang đầu.
+     * @param limit Số sách tối đa.
+     * @throws BadRequestException Nếu con trỏ hoặc số sách không hợp lệ.
+     */
+    public BookSliceResponse<BookSaleInfoDTO> page(Integer dealId, String cursor, int limit) {
+        if (limit < 1) {
+            throw new BadRequestException("Số sách mỗi trang phải lớn hơn 0");
+        }
+        View current = current();
+        Entry[] entries = dealId == null ? current.all : current.byDeal.getOrDefault(dealId, new Entry[0]);
+
+        int from = 0;
+        if (cursor != null && !cursor.isEmpty()) {
+            // Vị trí ngay sau khóa của cuốn sách cuối trang trước, kể cả khi nó đã rời danh sách
+            int found = Arrays.binarySearch(entries, decodeCursor(cursor), BY_SALE_ORDER);
+            from = found >= 0 ? found + 1 : -found - 1;
+        }
+        int to = (int) Math.min(entries.length, (long) from + limit);
+        boolean hasNext = to < entries.length;
+        String nextCursor = hasNext ? encodeCursor(entries[to - 1]) : null;
+        return new BookSliceResponse<>(toDtos(entries, from, to), nextCursor, hasNext);
+    }
+
+    /**
+     * Sách đang giảm giá nhóm theo deal, deal kết thúc sớm nhất trước.
+     *
+     * @param perDeal Số sách tối đa của mỗi deal.
+     */
+    public List<SaleDealGroupDTO> groups(int perDeal) {
+        View current = current();
+        List<SaleDealGroupDTO> groups = new ArrayList<>(current.byDeal.size());
+        current.byDeal.values().stream()
+                .sorted(Comparator.<Entry[]>comparingLong(entries -> entries[0].endDay)
+                        .thenComparingInt(entries -> entries[0].dealId))
+                .forEach(entries -> {
+                    Entry first = entries[0];
+                    groups.add(new SaleDealGroupDTO(first.dealId, first.dealName, first.dto.getDealEndDate(),
+                            entries.length, toDtos(entries, 0, Math.max(0, perDeal))));
+                });
+        return groups;
+    }
+
+    /**
+     * Dữ liệu hiện tại; rỗng cho tới khi dựng xong lần đầu, để các request lúc khởi động không mỗi request
+     * một lần đọc toàn bộ sách giảm giá từ MySQL.
+     */
+    private View current() {
+        View current = view;
+        return current != null ? current : EMPTY;
+    }
+
+    private View load() {
+        List<Entry> entries = new ArrayList<>();
+        jdbcTemplate.query(SELECT_SALE_BOOKS, rs -> {
+            entries.add(readEntry(rs));
+        });
+        return new View(entries.toArray(new Entry[0]));
+    }
+
+    private static Entry readEntry(ResultSet rs) throws SQLException {
+        BigDecimal originalPrice = rs.getBigDecimal("original_price");
+        BigDecimal discountedPrice = rs.getBigDecimal("discounted_price");
+        Integer dealId = rs.getObject("deal_id") != null ? rs.getInt("deal_id") : null;
+        Date endDate = rs.getDate("end_date");
+
+        BookSaleInfoDTO dto = new BookSaleInfoDTO(rs.getInt("book_id"), rs.getString("title"),
+                rs.getString("cover_image_url"), originalPrice, discountedPrice);
+        dto.setDealId(dealId);
+        dto.setDealEndDate(endDate != null ? endDate.toLocalDate() : null);
+
+        double depth = originalPrice.signum() > 0
+                ? originalPrice.subtract(discountedPrice).divide(originalPrice, 6, RoundingMode.HALF_UP).doubleValue()
+                : 0;
+        return new Entry(dto, depth, endDate != null ? endDate.toLocalDate().toEpochDay() : NO_END_DATE,
+                dealId, rs.getString("deal_name"));
+    }
+
+    private static List<BookSaleInfoDTO> toDtos(Entry[] entries, int from, int to) {
+        int end = Math.min(entries.length, to);
+        List<BookSaleInfoDTO> dtos = new ArrayList<>(Math.max(0, end - from));
+        for (int i = from; i < end; i++) {
+            dtos.add(entries[i].dto);
+        }
+        return dtos;
+    }
+
+    private static String encodeCursor(Entry entry) {
+        String raw = "sale\n" + entry.depth + "\n" + entry.endDay + "\n" + entry.bookId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Entry decodeCursor(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\n", 4);
+            if (parts.length != 4 || !parts[0].equals("sale")) {
+                throw new BadRequestException("Con trỏ phân trang không hợp lệ");
+            }
+            return new Entry(Double.parseDouble(parts[1]), Long.parseLong(parts[2]), Integer.parseInt(parts[3]));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Con trỏ phân trang không hợp lệ");
+        }
+    }
+
+    /**
+     * Danh sách chung và danh sách theo deal, đều đã sắp xếp; không bao giờ bị sửa sau khi tạo.
+     */
+    private static final class View {
+        final Entry[] all;
+        final Map<Integer, Entry[]> byDeal;
+
+        View(Entry[] entries) {
+            Arrays.sort(entries, BY_SALE_ORDER);
+            this.all = entries;
+
+            Map<Integer, List<Entry>> grouped = new LinkedHashMap<>();
+            for (Entry entry : entries) {
+                if (entry.dealId != null) {
+                    grouped.computeIfAbsent(entry.dealId, id -> new ArrayList<>()).add(entry);
+                }
+            }
+            Map<Integer, Entry[]> byDeal = new HashMap<>();
+            grouped.forEach((dealId, list) -> byDeal.put(dealId, list.toArray(new Entry[0])));
+            this.byDeal = byDeal;
+        }
+
+        /**
+         * Bản mới với các sách trong {@code removed} được gỡ ra và {@code added} được thêm vào.
+         */
+        View replace(Collection<Integer> removed, List<Entry> added) {
+            List<Entry> entries = new ArrayList<>(all.length + added.size());
+            for (Entry entry : all) {
+                if (!removed.contains(entry.bookId)) {
+                    entries.add(entry);
+                }
+            }
+            entries.addAll(added);
+            // Mảng gần như đã sắp xếp nên TimSort trong constructor chạy gần tuyến tính
+            return new View(entries.toArray(new Entry[0]));
+        }
+    }
+
+    private static final class Entry {
+        final BookSaleInfoDTO dto;
+        final double depth;
+        final long endDay;
+        final int bookId;
+        final Integer dealId;
+        final String dealName;
+
+        Entry(BookSaleInfoDTO dto, double depth, long endDay, Integer dealId, String dealName) {
+            this.dto = dto;
+            this.depth = depth;
+            this.endDay = endDay;
+            this.bookId = dto.getBookId();
+            this.dealId = dealId;
+            this.dealName = dealName;
+        }
+
+        /**
+         * Khóa tìm kiếm giải mã từ con trỏ.
+         */
+        Entry(double depth, long endDay, int bookId) {
+            this.dto = null;
+            this.depth = depth;
+            this.endDay = endDay;
+            this.bookId = bookId;
+            this.dealId = null;
+            this.dealName = null;
+        }
+    }
+}
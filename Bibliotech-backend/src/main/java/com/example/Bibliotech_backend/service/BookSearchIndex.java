@@ -0,0 +1,722 @@
+package com.example.Bibliotech_backend.service;
+
+import com.example.Bibliotech_backend.event.BookChangedEvent;
+import com.example.Bibliotech_backend.event.BooksImportedEvent;
+import com.example.Bibliotech_backend.util.TextNormalizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Chỉ mục đảo (inverted index) trong bộ nhớ cho tìm kiếm sách theo tiêu đề, tác giả và ISBN.
+ * <p>
+ * Mỗi từ đã bỏ dấu ánh xạ tới danh sách bookId đã sắp xếp ({@code int[]}). Truy vấn được tách từ
+ * theo cùng cách; mỗi từ trong truy vấn khớp như tiền tố của một từ trong sách, và các từ được
+ * giao (AND) với nhau. Nhờ vậy tìm kiếm không còn phải quét toàn bảng bằng {@code LIKE '%...%'}.
+ * </p>
+ * <p>
+ * Chỉ mục được dựng khi ứng dụng khởi động, sau khi nhập sách hàng loạt và định kỳ, và cập nhật từng cuốn
+ * sách qua {@link BookChangedEvent} sau khi transaction commit. Các mảng posting không bao giờ bị sửa tại chỗ
+ * (copy-on-write), nên luồng đọc không cần khóa.
+ * </p>
+ * <p>
+ * Để chịu được lỗi gõ, mỗi từ trong từ điển còn được lập chỉ mục theo trigram (bộ ba ký tự, có đệm
+ * khoảng trắng hai đầu như pg_trgm). Ở chế độ tìm gần đúng, mỗi từ trong truy vấn khớp với các từ
+ * trong từ điển có độ tương đồng Jaccard trên trigram không thấp hơn ngưỡng cấu hình.
+ * </p>
+ */
+@Service
+public class BookSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(BookSearchIndex.class);
+
+    private static final String SELECT_BOOK_TERMS = "SELECT book_id, title, author, isbn FROM Books";
+
+    private static final int[] EMPTY = new int[0];
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Độ tương đồng trigram tối thiểu để hai từ được coi là khớp gần đúng.
+     */
+    private final double fuzzyThreshold;
+
+    /**
+     * Nội dung chỉ mục hiện tại; được thay thế nguyên khối khi dựng lại.
+     */
+    private volatile Segments segments = new Segments();
+
+    private volatile boolean ready;
+
+    private boolean loading;
+
+    /**
+     * Các sách thay đổi chưa được cập nhật vào chỉ mục (đang dựng lại toàn bộ, hoặc luồng khác đang cập nhật).
+     */
+    private final Set<Integer> pendingChanges = ConcurrentHashMap.newKeySet();
+
+    public BookSearchIndex(JdbcTemplate jdbcTemplate,
+                           @Value("${app.search.fuzzy-threshold:0.4}") double fuzzyThreshold) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fuzzyThreshold = fuzzyThreshold;
+    }
+
+    /**
+     * Dựng lại toàn bộ chỉ mục từ bảng Books khi khởi động, sau khi nhập sách hàng loạt và định kỳ, để nhận cả các
+     * thay đổi không đi qua {@link BookService} (SQL trực tiếp, instance khác).
+     * <p>
+     * Các sách thay đổi trong lúc dựng được cập nhật lại vào chỉ mục mới, không ghi vào chỉ mục sắp bị thay.
+     * </p>
+     */
+    @EventListener({ApplicationReadyEvent.class, BooksImportedEvent.class})
+    @Scheduled(fixedDelayString = "${app.search.index-refresh-ms:600000}",
+            initialDelayString = "${app.search.index-refresh-ms:600000}")
+    public void rebuild() {
+        synchronized (this) {
+            if (loading) {
+                return;
+            }
+            loading = true;
+        }
+
+        long start = System.currentTimeMillis();
+        Map<String, IntList> titles = new HashMap<>();
+        Map<String, IntList> authors = new HashMap<>();
+        Map<String, IntList> isbns = new HashMap<>();
+        Segments fresh = new Segments();
+
+        try {
+            // Sắp xếp theo book_id để các danh sách posting được tạo sẵn theo thứ tự tăng dần
+            jdbcTemplate.query(SELECT_BOOK_TERMS + " ORDER BY book_id", rs -> {
+                int bookId = rs.getInt("book_id");
+                IndexedTerms terms = IndexedTerms.of(rs.getString("title"), rs.getString("author"), rs.getString("isbn"));
+                fresh.documents.put(bookId, terms);
+                append(titles, terms.titleTokens, bookId);
+                append(authors, terms.authorTokens, bookId);
+                append(isbns, terms.isbnTokens, bookId);
+            });
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                loading = false;
+            }
+            logger.error("Could not build book search index", e);
+            return;
+        }
+
+        titles.forEach((token, ids) -> fresh.titles.put(token, ids.toArray()));
+        authors.forEach((token, ids) -> fresh.authors.put(token, ids.toArray()));
+        isbns.forEach((token, ids) -> fresh.isbns.put(token, ids.toArray()));
+        fresh.vocabulary = Vocabulary.of(titles.keySet(), authors.keySet());
+
+        synchronized (this) {
+            this.segments = fresh;
+            this.ready = true;
+            this.loading = false;
+        }
+        applyPendingChanges();
+        logger.info("Built book search index: {} books, {} title terms, {} author terms, {} trigrams in {} ms",
+                fresh.documents.size(), fresh.titles.size(), fresh.authors.size(), fresh.vocabulary.wordTrigrams.size(),
+                System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Cập nhật chỉ mục cho cuốn sách vừa thay đổi, sau khi transaction đã commit.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        pendingChanges.add(event.getBookId());
+        synchronized (this) {
+            if (loading || !ready) {
+                return;
+            }
+        }
+        applyPendingChanges();
+    }
+
+    /**
+     * Đọc lại các sách đang chờ; sách đã bị xóa được gỡ khỏi chỉ mục.
+     */
+    private void applyPendingChanges() {
+        for (Integer bookId : pendingChanges) {
+            if (pendingChanges.remove(bookId)) {
+                reindex(bookId);
+            }
+        }
+    }
+
+    /**
+     * Đọc lại tiêu đề, tác giả, ISBN của một cuốn sách và cập nhật chỉ mục; gỡ sách nếu không còn tồn tại.
+     */
+    private void reindex(Integer bookId) {
+        try {
+            List<IndexedTerms> rows = jdbcTemplate.query(SELECT_BOOK_TERMS + " WHERE book_id = ?",
+                    (rs, rowNum) -> IndexedTerms.of(rs.getString("title"), rs.getString("author"), rs.getString("isbn")),
+                    bookId);
+            if (rows.isEmpty()) {
+                remove(bookId);
+            } else {
+                put(bookId, rows.get(0));
+            }
+        } catch (RuntimeException e) {
+            logger.error("Could not update search index for book {}", bookId, e);
+        }
+    }
+
+    /**
+     * Tìm các bookId khớp với bộ lọc văn bản.
+     * <p>
+     * Bộ lọc tiêu đề cũng khớp theo ISBN, để người dùng có thể dán ISBN vào ô tìm kiếm.
+     * </p>
+     *
+     * @param title Chuỗi tìm theo tiêu đề hoặc ISBN (tùy chọn).
+     * @param author Chuỗi tìm theo tác giả (tùy chọn).
+     * @return Các bookId khớp, tăng dần; null nếu không có bộ lọc văn bản hoặc chỉ mục chưa sẵn sàng.
+     */
+    public int[] search(String title, String author) {
+        if (!ready) {
+            return null;
+        }
+        Segments current = segments;
+
+        int[] result = null;
+
+        List<String> titleTokens = TextNormalizer.tokenize(title);
+        if (!titleTokens.isEmpty()) {
+            int[] byTitle = matchAll(current.titles, titleTokens);
+            String isbnQuery = String.join("", titleTokens);
+            int[] byIsbn = matchPrefix(current.isbns, isbnQuery);
+            result = union(byTitle, byIsbn);
+        }
+
+        List<String> authorTokens = TextNormalizer.tokenize(author);
+        if (!authorTokens.isEmpty()) {
+            int[] byAuthor = matchAll(current.authors, authorTokens);
+            result = result == null ? byAuthor : intersect(result, byAuthor);
+        }
+
+        return result;
+    }
+
+    /**
+     * Tìm gần đúng các bookId khớp với bộ lọc văn bản, chấp nhận lỗi gõ.
+     * <p>
+     * Mỗi từ trong truy vấn khớp với các từ bắt đầu bằng nó hoặc có độ tương đồng trigram đủ cao;
+     * các từ được giao (AND) với nhau như {@link #search}.
+     * </p>
+     *
+     * @return Các bookId khớp, tăng dần; null nếu không có bộ lọc văn bản hoặc chỉ mục chưa sẵn sàng.
+     */
+    public int[] fuzzySearch(String title, String author) {
+        if (!ready) {
+            return null;
+        }
+        Segments current = segments;
+
+        int[] result = null;
+
+        List<String> titleTokens = TextNormalizer.tokenize(title);
+        if (!titleTokens.isEmpty()) {
+            result = fuzzyMatchAll(current, current.titles, titleTokens);
+        }
+
+        List<String> authorTokens = TextNormalizer.tokenize(author);
+        if (!authorTokens.isEmpty()) {
+            int[] byAuthor = fuzzyMatchAll(current, current.authors, authorTokens);
+            result = result == null ? byAuthor : intersect(result, byAuthor);
+        }
+
+        return result;
+    }
+
+    /**
+     * Gợi ý "có phải bạn muốn tìm": thay các từ không có trong từ điển bằng từ gần nhất.
+     *
+     * @return Truy vấn đã sửa theo từng trường ("title", "author"); chỉ gồm các trường có thay đổi.
+     */
+    public Map<String, String> didYouMean(String title, String author) {
+        Map<String, String> corrections = new LinkedHashMap<>();
+        if (!ready) {
+            return corrections;
+        }
+        Segments current = segments;
+
+        String correctedTitle = correct(current, current.titles, TextNormalizer.tokenize(title));
+        if (correctedTitle != null) {
+            corrections.put("title", correctedTitle);
+        }
+        String correctedAuthor = correct(current, current.authors, TextNormalizer.tokenize(author));
+        if (correctedAuthor != null) {
+            corrections.put("author", correctedAuthor);
+        }
+        return corrections;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    private synchronized void put(Integer bookId, IndexedTerms terms) {
+        if (loading) {
+            // Chỉ mục đang được dựng lại có thể đã đọc dòng cũ; cập nhật vào chỉ mục mới sau khi dựng xong
+            pendingChanges.add(bookId);
+            return;
+        }
+        Segments current = segments;
+        IndexedTerms previous = current.documents.put(bookId, terms);
+        if (previous != null) {
+            removeAllPostings(current, previous, bookId);
+        }
+        addPostings(current.titles, terms.titleTokens, bookId);
+        addPostings(current.authors, terms.authorTokens, bookId);
+        addPostings(current.isbns, terms.isbnTokens, bookId);
+        for (String token : terms.titleTokens) {
+            current.vocabulary.register(token);
+        }
+        for (String token : terms.authorTokens) {
+            current.vocabulary.register(token);
+        }
+        current.pruneVocabulary();
+    }
+
+    private synchronized void remove(Integer bookId) {
+        if (loading) {
+            pendingChanges.add(bookId);
+            return;
+        }
+        Segments current = segments;
+        IndexedTerms previous = current.documents.remove(bookId);
+        if (previous != null) {
+            removeAllPostings(current, previous, bookId);
+            current.pruneVocabulary();
+        }
+    }
+
+    private static void removeAllPostings(Segments current, IndexedTerms previous, int bookId) {
+        current.droppedWords += removePostings(current.titles, previous.titleTokens, bookId);
+        current.droppedWords += removePostings(current.authors, previous.authorTokens, bookId);
+        removePostings(current.isbns, previous.isbnTokens, bookId);
+    }
+
+    private static void addPostings(ConcurrentSkipListMap<String, int[]> postings, String[] tokens, int bookId) {
+        for (String token : tokens) {
+            postings.compute(token, (key, ids) -> {
+                if (ids == null) {
+                    return new int[]{bookId};
+                }
+                int position = Arrays.binarySearch(ids, bookId);
+                if (position >= 0) {
+                    return ids;
+                }
+                int insertAt = -position - 1;
+                int[] updated = new int[ids.length + 1];
+                System.arraycopy(ids, 0, updated, 0, insertAt);
+                updated[insertAt] = bookId;
+                System.arraycopy(ids, insertAt, updated, insertAt + 1, ids.length - insertAt);
+                return updated;
+            });
+        }
+    }
+
+    /**
+     * @return Số từ không còn sách nào sau khi gỡ.
+     */
+    private static int removePostings(ConcurrentSkipListMap<String, int[]> postings, String[] tokens, int bookId) {
+        int dropped = 0;
+        for (String token : tokens) {
+            int[] remaining = postings.computeIfPresent(token, (key, ids) -> {
+                int position = Arrays.binarySearch(ids, bookId);
+                if (position < 0) {
+                    return ids;
+                }
+                if (ids.length == 1) {
+                    return null;
+                }
+                int[] updated = new int[ids.length - 1];
+                System.arraycopy(ids, 0, updated, 0, position);
+                System.arraycopy(ids, position + 1, updated, position, ids.length - position - 1);
+                return updated;
+            });
+            if (remaining == null) {
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * Giao kết quả khớp tiền tố của tất cả các từ trong truy vấn.
+     */
+    private static int[] matchAll(ConcurrentSkipListMap<String, int[]> postings, List<String> tokens) {
+        int[] result = null;
+        for (String token : new LinkedHashSet<>(tokens)) {
+            int[] matched = matchPrefix(postings, token);
+            result = result == null ? matched : intersect(result, matched);
+            if (result.length == 0) {
+                break;
+            }
+        }
+        return result == null ? EMPTY : result;
+    }
+
+    /**
+     * Hợp các danh sách posting của mọi từ bắt đầu bằng tiền tố.
+     */
+    private static int[] matchPrefix(ConcurrentSkipListMap<String, int[]> postings, String prefix) {
+        if (prefix.isEmpty()) {
+            return EMPTY;
+        }
+        NavigableMap<String, int[]> range = postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        int[] result = EMPTY;
+        for (int[] ids : range.values()) {
+            result = union(result, ids);
+        }
+        return result;
+    }
+
+    private int[] fuzzyMatchAll(Segments current, ConcurrentSkipListMap<String, int[]> postings, List<String> tokens) {
+        int[] result = null;
+        for (String token : new LinkedHashSet<>(tokens)) {
+            int[] matched = matchPrefix(postings, token);
+            for (String word : similarWords(current, postings, token)) {
+                matched = union(matched, postings.getOrDefault(word, EMPTY));
+            }
+            result = result == null ? matched : intersect(result, matched);
+            if (result.length == 0) {
+                break;
+            }
+        }
+        return result == null ? EMPTY : result;
+    }
+
+    /**
+     * Sửa từng từ của truy vấn không khớp tiền tố từ nào trong trường; null nếu không có gì để sửa.
+     */
+    private String correct(Segments current, ConcurrentSkipListMap<String, int[]> postings, List<String> tokens) {
+        boolean changed = false;
+        List<String> corrected = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            String ceiling = postings.ceilingKey(token);
+            if (ceiling != null && ceiling.startsWith(token)) {
+                corrected.add(token);
+                continue;
+            }
+            List<String> similar = similarWords(current, postings, token);
+            if (similar.isEmpty()) {
+                corrected.add(token);
+            } else {
+                corrected.add(similar.get(0));
+                changed = true;
+            }
+        }
+        return changed ? String.join(" ", corrected) : null;
+    }
+
+    /**
+     * Các từ của trường có độ tương đồng trigram (Jaccard) với {@code token} đạt ngưỡng,
+     * giống nhất trước, cùng độ tương đồng thì từ xuất hiện trong nhiều sách hơn trước.
+     */
+    private List<String> similarWords(Segments current, ConcurrentSkipListMap<String, int[]> postings, String token) {
+        Vocabulary vocabulary = current.vocabulary;
+        // Đọc size trước các mảng: mọi từ có mã nhỏ hơn size đều đã được ghi đầy đủ
+        int size = vocabulary.size;
+        String[] words = vocabulary.words;
+        int[] trigramCounts = vocabulary.trigramCounts;
+
+        String[] grams = trigramsOf(token);
+        int[] sharedCounts = new int[size];
+        IntList candidates = new IntList();
+        for (String gram : grams) {
+            int[] wordIds = vocabulary.wordTrigrams.get(gram);
+            if (wordIds == null) {
+                continue;
+            }
+            for (int wordId : wordIds) {
+                // Các từ được thêm sau khi đọc size bị bỏ qua ở truy vấn này
+                if (wordId >= size) {
+                    break;
+                }
+                if (sharedCounts[wordId]++ == 0) {
+                    candidates.add(wordId);
+                }
+            }
+        }
+
+        List<ScoredWord> scored = new ArrayList<>();
+        for (int i = 0; i < candidates.size; i++) {
+            int wordId = candidates.values[i];
+            String word = words[wordId];
+            int[] books = postings.get(word);
+            if (books == null || word.equals(token)) {
+                continue;
+            }
+            int shared = sharedCounts[wordId];
+            double similarity = (double) shared / (grams.length + trigramCounts[wordId] - shared);
+            if (similarity >= fuzzyThreshold) {
+                scored.add(new ScoredWord(word, similarity, books.length));
+            }
+        }
+        scored.sort(Comparator.comparingDouble((ScoredWord word) -> word.similarity).reversed()
+                .thenComparing(Comparator.comparingInt((ScoredWord word) -> word.frequency).reversed()));
+
+        List<String> result = new ArrayList<>(scored.size());
+        for (ScoredWord word : scored) {
+            result.add(word.word);
+        }
+        return result;
+    }
+
+    /**
+     * Các trigram (không trùng lặp) của một từ, đệm hai khoảng trắng ở đầu và một ở cuối.
+     */
+    private static String[] trigramsOf(String word) {
+        String padded = "  " + word + " ";
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams.toArray(new String[0]);
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        if (a.length == 0) {
+            return b;
+        }
+        if (b.length == 0) {
+            return a;
+        }
+        int[] out = new int[a.length + b.length];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                out[n++] = a[i++];
+            } else if (a[i] > b[j]) {
+                out[n++] = b[j++];
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        while (i < a.length) {
+            out[n++] = a[i++];
+        }
+        while (j < b.length) {
+            out[n++] = b[j++];
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    private static void append(Map<String, IntList> postings, String[] tokens, int bookId) {
+        for (String token : tokens) {
+            postings.computeIfAbsent(token, key -> new IntList()).add(bookId);
+        }
+    }
+
+    /**
+     * Toàn bộ dữ liệu của chỉ mục: danh sách posting theo từng trường và các từ đã lập chỉ mục của mỗi sách.
+     */
+    private static final class Segments {
+        private final ConcurrentSkipListMap<String, int[]> titles = new ConcurrentSkipListMap<>();
+        private final ConcurrentSkipListMap<String, int[]> authors = new ConcurrentSkipListMap<>();
+        private final ConcurrentSkipListMap<String, int[]> isbns = new ConcurrentSkipListMap<>();
+        private final ConcurrentMap<Integer, IndexedTerms> documents = new ConcurrentHashMap<>();
+
+        /**
+         * Từ điển trigram của tiêu đề và tác giả; được thay nguyên khối khi dọn các từ không còn sách nào.
+         */
+        private volatile Vocabulary vocabulary = new Vocabulary();
+
+        /**
+         * Số lần một từ mất hết sách kể từ lần dọn từ điển gần nhất; chỉ dùng trong luồng ghi.
+         */
+        private int droppedWords;
+
+        /**
+         * Dựng lại từ điển từ các từ còn sách khi số từ đã mất hết sách vượt quá một nửa từ điển,
+         * để từ điển không phình mãi giữa hai lần dựng lại toàn bộ chỉ mục. Chỉ gọi từ luồng ghi.
+         */
+        private void pruneVocabulary() {
+            if (droppedWords > vocabulary.size / 2) {
+                vocabulary = Vocabulary.of(titles.keySet(), authors.keySet());
+                droppedWords = 0;
+            }
+        }
+    }
+
+    /**
+     * Từ điển các từ kèm chỉ mục trigram; mã của từ là vị trí trong {@link #words}.
+     * <p>
+     * Luồng ghi chỉ thêm từ mới vào cuối; danh sách mã từ của mỗi trigram được sao chép khi thêm (copy-on-write)
+     * và luôn tăng dần. {@link #size} được ghi sau cùng nên luồng đọc chỉ cần bỏ qua các mã không nhỏ hơn nó.
+     * </p>
+     */
+    private static final class Vocabulary {
+        private final ConcurrentMap<String, Integer> wordIds = new ConcurrentHashMap<>();
+        private final ConcurrentMap<String, int[]> wordTrigrams = new ConcurrentHashMap<>();
+        private volatile String[] words = new String[256];
+
+        /**
+         * Số trigram khác nhau của mỗi từ, theo mã từ.
+         */
+        private volatile int[] trigramCounts = new int[256];
+        private volatile int size;
+
+        /**
+         * Dựng từ điển một lần cho toàn bộ các từ, gom mã từ của mỗi trigram vào {@link IntList} rồi mới đóng băng.
+         */
+        private static Vocabulary of(Set<String> titleWords, Set<String> authorWords) {
+            Vocabulary vocabulary = new Vocabulary();
+            int capacity = Math.max(256, titleWords.size() + authorWords.size());
+            String[] words = new String[capacity];
+            int[] trigramCounts = new int[capacity];
+            Map<String, IntList> trigrams = new HashMap<>();
+            int size = 0;
+            for (Set<String> field : List.of(titleWords, authorWords)) {
+                for (String word : field) {
+                    if (vocabulary.wordIds.putIfAbsent(word, size) != null) {
+                        continue;
+                    }
+                    String[] grams = trigramsOf(word);
+                    for (String gram : grams) {
+                        trigrams.computeIfAbsent(gram, key -> new IntList()).add(size);
+                    }
+                    words[size] = word;
+                    trigramCounts[size] = grams.length;
+                    size++;
+                }
+            }
+            trigrams.forEach((gram, ids) -> vocabulary.wordTrigrams.put(gram, ids.toArray()));
+            vocabulary.words = words;
+            vocabulary.trigramCounts = trigramCounts;
+            vocabulary.size = size;
+            return vocabulary;
+        }
+
+        /**
+         * Thêm một từ mới vào từ điển và chỉ mục trigram; chỉ gọi từ luồng ghi.
+         */
+        private void register(String word) {
+            if (wordIds.containsKey(word)) {
+                return;
+            }
+            int wordId = size;
+            String[] grams = trigramsOf(word);
+            String[] currentWords = words;
+            int[] currentCounts = trigramCounts;
+            if (wordId == currentWords.length) {
+                currentWords = Arrays.copyOf(currentWords, wordId * 2);
+                currentCounts = Arrays.copyOf(currentCounts, wordId * 2);
+            }
+            currentWords[wordId] = word;
+            currentCounts[wordId] = grams.length;
+            // Công bố các mảng và size trước khi mã của từ xuất hiện trong wordIds và wordTrigrams
+            words = currentWords;
+            trigramCounts = currentCounts;
+            size = wordId + 1;
+            wordIds.put(word, wordId);
+            for (String gram : grams) {
+                // Mã từ tăng dần nên nối vào cuối vẫn giữ danh sách đã sắp xếp
+                wordTrigrams.merge(gram, new int[]{wordId}, (ids, added) -> {
+                    int[] updated = Arrays.copyOf(ids, ids.length + 1);
+                    updated[ids.length] = wordId;
+                    return updated;
+                });
+            }
+        }
+    }
+
+    private static final class ScoredWord {
+        private final String word;
+        private final double similarity;
+        private final int frequency;
+
+        private ScoredWord(String word, double similarity, int frequency) {
+            this.word = word;
+            this.similarity = similarity;
+            this.frequency = frequency;
+        }
+    }
+
+    /**
+     * Các từ (không trùng lặp) đã lập chỉ mục của một cuốn sách, dùng để gỡ posting khi sách thay đổi.
+     */
+    private static final class IndexedTerms {
+        private final String[] titleTokens;
+        private final String[] authorTokens;
+        private final String[] isbnTokens;
+
+        private IndexedTerms(String[] titleTokens, String[] authorTokens, String[] isbnTokens) {
+            this.titleTokens = titleTokens;
+            this.authorTokens = authorTokens;
+            this.isbnTokens = isbnTokens;
+        }
+
+        private static IndexedTerms of(String title, String author, String isbn) {
+            // ISBN được lưu liền không dấu gạch để "978-604-1-00000-0" và "9786041000000" khớp nhau
+            String compactIsbn = String.join("", TextNormalizer.tokenize(isbn));
+            return new IndexedTerms(
+                    distinct(TextNormalizer.tokenize(title)),
+                    distinct(TextNormalizer.tokenize(author)),
+                    compactIsbn.isEmpty() ? new String[0] : new String[]{compactIsbn});
+        }
+
+        private static String[] distinct(List<String> tokens) {
+            return new LinkedHashSet<>(tokens).toArray(new String[0]);
+        }
+    }
+
+    /**
+     * Danh sách int có thể mở rộng, dùng khi dựng chỉ mục để tránh boxing.
+     */
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
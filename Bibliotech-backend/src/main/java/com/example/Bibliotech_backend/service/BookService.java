@@ -1,27 +1,30 @@
 package com.example.Bibliotech_backend.service;
 
 import com.example.Bibliotech_backend.dto.*;
+import com.example.Bibliotech_backend.event.BookChangedEvent;
+import com.example.Bibliotech_backend.exception.BadRequestException;
 import com.example.Bibliotech_backend.model.Book;
-import com.example.Bibliotech_backend.model.BookCategory;
-import com.example.Bibliotech_backend.model.Category;
 import com.example.Bibliotech_backend.model.Deal;
+import com.example.Bibliotech_backend.model.OutboxEvent;
 import com.example.Bibliotech_backend.repository.BookRepository;
 import com.example.Bibliotech_backend.repository.BookCategoryRepository;
 import com.example.Bibliotech_backend.repository.CategoryRepository;
+import com.example.Bibliotech_backend.util.BookCursor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.data.domain.Page;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -32,7 +35,37 @@ public class BookService {
     private final IdGeneratorService idGeneratorService;
 
     @Autowired
-    private CloudinaryService cloudinaryService;
+    private OutboxService outboxService;
+
+    private final BookRows<BookResponse> fullRows = new FullRows();
+    private final BookRows<BookCardDTO> cardRows = new CardRows();
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @Autowired
+    private BookResponseAssembler bookResponseAssembler;
+
+    @Autowired
+    private BookCatalogSnapshot bookCatalogSnapshot;
+
+    @Autowired
+    private BookDetailCache bookDetailCache;
+
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
+    @Autowired
+    private DealLifecycleScheduler dealLifecycleScheduler;
+
+    @Autowired
+    private BookLeaderboard bookLeaderboard;
+
+    @Autowired
+    private BookSaleView bookSaleView;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     private static final Logger logger = LoggerFactory.getLogger(BookService.class);
 
@@ -49,43 +82,420 @@ public class BookService {
     /**f
      * Lấy danh sách sách với các bộ lọc
      */
+    @Transactional(readOnly = true)
     public List<BookResponse> getAllBooks(
             String title, String author, Integer categoryId, String language,
             Double minPrice, Double maxPrice, Boolean hasDiscount,
             int page, int size, String sortBy, String direction) {
+        return getAllBooks(new BookSearchCriteria(title, author, categoryId, language, minPrice, maxPrice, hasDiscount),
+                page, size, sortBy, direction);
+    }
 
+    /**
+     * Lấy danh sách sách theo số trang với các bộ lọc
+     */
+    @Transactional(readOnly = true)
+    public List<BookResponse> getAllBooks(BookSearchCriteria criteria, int page, int size,
+                                          String sortBy, String direction) {
         logger.debug("Getting books with filters - title: {}, author: {}, category: {}, language: {}",
-                title, author, categoryId, language);
+                criteria.getTitle(), criteria.getAuthor(), criteria.getCategoryId(), criteria.getLanguage());
+        return listPage(fullRows, criteria, page, size, sortBy, direction);
+    }
 
-        Sort.Direction sortDirection = "desc".equalsIgnoreCase(direction) ? Sort.Direction.DESC : Sort.Direction.ASC;
-        Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
+    /**
+     * Lấy danh sách sách theo số trang, kèm facet tính từ cùng bản chụp với trang kết quả
+     * và gợi ý sửa lỗi gõ ở chế độ tìm gần đúng
+     */
+    @Transactional(readOnly = true)
+    public BookListResponse<BookResponse> getBookList(BookSearchCriteria criteria, int page, int size,
+                                                      String sortBy, String direction, boolean withFacets) {
+        return listWithFacets(fullRows, criteria, page, size, sortBy, direction, withFacets);
+    }
+
+    /**
+     * Lấy danh sách sách theo con trỏ (keyset), không dùng OFFSET và không đếm tổng số bản ghi
+     *
+     * @param cursor Con trỏ trả về từ trang trước, rỗng cho trang đầu tiên
+     * @param withFacets Có kèm facet của tập sách khớp hay không
+     */
+    @Transactional(readOnly = true)
+    public BookSliceResponse<BookResponse> getBooksByCursor(BookSearchCriteria criteria, String cursor,
+                                                            int size, String sortBy, String direction,
+                                                            boolean withFacets) {
+        return listAfter(fullRows, criteria, cursor, size, sortBy, direction, withFacets);
+    }
+
+    /**
+     * Lấy danh sách thẻ sách (dữ liệu rút gọn) theo số trang.
+     * Chỉ chạy một truy vấn projection và một truy vấn lấy categoryId, không tạo entity Book.
+     */
+    @Transactional(readOnly = true)
+    public List<BookCardDTO> getBookCards(BookSearchCriteria criteria, int page, int size,
+                                          String sortBy, String direction) {
+        return listPage(cardRows, criteria, page, size, sortBy, direction);
+    }
+
+    /**
+     * Lấy danh sách thẻ sách theo số trang, kèm facet và gợi ý sửa lỗi gõ như {@link #getBookList}
+     */
+    @Transactional(readOnly = true)
+    public BookListResponse<BookCardDTO> getBookCardList(BookSearchCriteria criteria, int page, int size,
+                                                         String sortBy, String direction, boolean withFacets) {
+        return listWithFacets(cardRows, criteria, page, size, sortBy, direction, withFacets);
+    }
 
-        Page<Book> bookPage;
+    /**
+     * Lấy danh sách thẻ sách theo con trỏ (keyset)
+     */
+    @Transactional(readOnly = true)
+    public BookSliceResponse<BookCardDTO> getBookCardsByCursor(BookSearchCriteria criteria, String cursor,
+                                                               int size, String sortBy, String direction,
+                                                               boolean withFacets) {
+        return listAfter(cardRows, criteria, cursor, size, sortBy, direction, withFacets);
+    }
+
+    /**
+     * Một trang sách theo số trang, ở dạng dữ liệu do {@code rows} quyết định
+     */
+    private <T> List<T> listPage(BookRows<T> rows, BookSearchCriteria criteria, int page, int size,
+                                 String sortBy, String direction) {
+        checkPage(page, size);
+        boolean descending = "desc".equalsIgnoreCase(direction);
+
+        // Bộ lọc văn bản được giải bằng chỉ mục trong bộ nhớ; bản chụp lọc và sắp xếp phần còn lại
+        int[] matchedIds = matchText(criteria);
+        if (matchedIds != null && matchedIds.length == 0) {
+            return new ArrayList<>();
+        }
 
-        if (categoryId != null) {
-            bookPage = bookRepository.findBooksByFiltersAndCategory(
-                    title, author, categoryId, language, minPrice, maxPrice, hasDiscount, pageable);
+        BookCatalogSnapshot.CatalogSlice snapshotPage = browseSnapshot(
+                criteria, matchedIds, sortBy, descending, null, page * size, size, false);
+        if (snapshotPage != null) {
+            return rows.byIds(snapshotPage.getBookIds());
+        }
+        return rows.page(criteria, sortBy, descending, page * size, size);
+    }
+
+    /**
+     * Một trang sách theo số trang kèm facet và gợi ý sửa lỗi gõ
+     */
+    private <T> BookListResponse<T> listWithFacets(BookRows<T> rows, BookSearchCriteria criteria, int page, int size,
+                                                   String sortBy, String direction, boolean withFacets) {
+        checkPage(page, size);
+        BookListResponse<T> response;
+        int[] matchedIds = matchText(criteria);
+        if (matchedIds != null && matchedIds.length == 0) {
+            response = new BookListResponse<>(new ArrayList<>(), withFacets ? new BookFacets() : null);
         } else {
-            bookPage = bookRepository.findBooksByFilters(
-                    title, author, language, minPrice, maxPrice, hasDiscount, pageable);
+            BookCatalogSnapshot.CatalogSlice snapshotPage = withFacets ? browseSnapshot(
+                    criteria, matchedIds, sortBy, "desc".equalsIgnoreCase(direction), null, page * size, size, true) : null;
+            if (snapshotPage == null) {
+                // Không cần facet hoặc bản chụp chưa sẵn sàng: trả về trang sách, facet để null
+                response = new BookListResponse<>(listPage(rows, criteria, page, size, sortBy, direction), null);
+            } else {
+                response = new BookListResponse<>(rows.byIds(snapshotPage.getBookIds()), snapshotPage.getFacets());
+            }
         }
+        response.setDidYouMean(didYouMean(criteria));
+        return response;
+    }
 
-        return bookPage.stream()
-                .map(this::convertToBookResponse)
-                .collect(Collectors.toList());
+    /**
+     * Một trang sách theo con trỏ (keyset)
+     */
+    private <T> BookSliceResponse<T> listAfter(BookRows<T> rows, BookSearchCriteria criteria, String cursor,
+                                               int size, String sortBy, String direction, boolean withFacets) {
+        checkPage(0, size);
+        if (!BookCursor.SORT_FIELDS.contains(sortBy)) {
+            throw new BadRequestException("Không hỗ trợ sắp xếp theo '" + sortBy + "' khi phân trang bằng con trỏ");
+        }
+        boolean descending = "desc".equalsIgnoreCase(direction);
+        BookCursor after = cursor == null || cursor.isEmpty() ? null : BookCursor.decode(cursor, sortBy, descending);
+
+        int[] matchedIds = matchText(criteria);
+        if (matchedIds != null && matchedIds.length == 0) {
+            return emptySlice(withFacets, didYouMean(criteria));
+        }
+
+        List<T> items;
+        boolean hasNext;
+        BookFacets facets = null;
+        BookCatalogSnapshot.CatalogSlice snapshotPage = browseSnapshot(
+                criteria, matchedIds, sortBy, descending, after, 0, size, withFacets);
+        if (snapshotPage != null) {
+            items = rows.byIds(snapshotPage.getBookIds());
+            hasNext = snapshotPage.hasNext();
+            facets = snapshotPage.getFacets();
+        } else {
+            Slice<T> slice = rows.after(criteria, after, sortBy, descending, size);
+            items = slice.getContent();
+            hasNext = slice.hasNext();
+        }
+
+        String nextCursor = hasNext && !items.isEmpty()
+                ? rows.cursorAfter(items.get(items.size() - 1), sortBy, descending).encode()
+                : null;
+        BookSliceResponse<T> response = new BookSliceResponse<>(items, nextCursor, hasNext);
+        response.setFacets(facets);
+        response.setDidYouMean(didYouMean(criteria));
+        return response;
     }
 
     /**
-     * Lấy thông tin chi tiết của một cuốn sách
+     * Lọc và sắp xếp bằng bản chụp trong bộ nhớ, chỉ trả về bookId của trang cần lấy.
+     * Nếu bản chụp không dùng được nhưng chỉ mục tìm kiếm đã giải bộ lọc văn bản, trang được cắt
+     * từ tập bookId khớp bằng {@link #browseMatches}; khi đó không có facet.
+     *
+     * @return null nếu phải truy vấn MySQL: không có bộ lọc văn bản mà bản chụp chưa sẵn sàng hoặc
+     *         không hỗ trợ trường sắp xếp, hoặc có bộ lọc văn bản mà chỉ mục tìm kiếm chưa giải được
+     */
+    private BookCatalogSnapshot.CatalogSlice browseSnapshot(BookSearchCriteria criteria, int[] matchedIds,
+                                                            String sortBy, boolean descending,
+                                                            BookCursor after, int offset, int size,
+                                                            boolean withFacets) {
+        boolean hasTextFilter = (criteria.getTitle() != null && !criteria.getTitle().isBlank())
+                || (criteria.getAuthor() != null && !criteria.getAuthor().isBlank());
+        if (hasTextFilter && matchedIds == null) {
+            return null;
+        }
+        BookCatalogSnapshot.CatalogSlice slice = bookCatalogSnapshot.browse(
+                criteria, matchedIds, sortBy, descending, after, offset, size, withFacets);
+        if (slice == null && matchedIds != null) {
+            slice = browseMatches(criteria, matchedIds, sortBy, descending, after, offset, size);
+        }
+        return slice;
+    }
+
+    /**
+     * Cắt một trang từ tập bookId khớp chỉ mục tìm kiếm khi không dùng được bản chụp: chỉ đọc
+     * (bookId, khóa sắp xếp) của các sách khớp các bộ lọc còn lại, sắp xếp và bỏ qua trong bộ nhớ,
+     * để người gọi chỉ nạp đúng các sách của trang. Không chạy truy vấn COUNT.
+     * Mọi bookId khớp vẫn được gửi xuống MySQL, chia thành các danh sách IN tối đa 1000 phần tử (mỗi
+     * phần một truy vấn), nên số truy vấn và số dòng khóa đọc về tăng theo số sách khớp; chỉ phần nạp
+     * sách đầy đủ là giới hạn theo kích thước trang.
+     * Thứ tự giống truy vấn MySQL: null đứng đầu khi tăng dần, bookId là khóa phụ cùng chiều.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private BookCatalogSnapshot.CatalogSlice browseMatches(BookSearchCriteria criteria, int[] matchedIds,
+                                                           String sortBy, boolean descending,
+                                                           BookCursor after, int offset, int size) {
+        List<Object[]> keys = bookRepository.findSortKeys(criteria,
+                Arrays.stream(matchedIds).boxed().collect(Collectors.toList()), sortBy);
+
+        Comparator<Comparable> sortKeys = Comparator.nullsFirst(Comparator.naturalOrder());
+        Comparator<Object[]> order = (a, b) -> {
+            int result = sortKeys.compare((Comparable) a[1], (Comparable) b[1]);
+            return result != 0 ? result : Integer.compare((Integer) a[0], (Integer) b[0]);
+        };
+        if (descending) {
+            order = order.reversed();
+        }
+        keys.sort(order);
+
+        int index = 0;
+        if (after != null) {
+            Object[] last = {after.getBookId(), after.getSortKey()};
+            while (index < keys.size() && order.compare(keys.get(index), last) <= 0) {
+                index++;
+            }
+        }
+        index += offset;
+
+        int end = Math.min(keys.size(), index + size);
+        int[] page = new int[Math.max(0, end - index)];
+        for (int i = 0; i < page.length; i++) {
+            page[i] = (Integer) keys.get(index + i)[0];
+        }
+        return new BookCatalogSnapshot.CatalogSlice(page, end < keys.size(), keys.size(), null);
+    }
+
+    /**
+     * Kiểm tra tham số phân trang.
+     *
+     * @throws BadRequestException Nếu số trang âm hoặc kích thước trang nhỏ hơn 1.
+     */
+    private static void checkPage(int page, int size) {
+        if (page < 0) {
+            throw new BadRequestException("Số trang không được âm");
+        }
+        if (size < 1) {
+            throw new BadRequestException("Kích thước trang phải lớn hơn 0");
+        }
+    }
+
+    private static <T> BookSliceResponse<T> emptySlice(boolean withFacets, Map<String, String> didYouMean) {
+        BookSliceResponse<T> response = new BookSliceResponse<>(new ArrayList<>(), null, false);
+        if (withFacets) {
+            response.setFacets(new BookFacets());
+        }
+        response.setDidYouMean(didYouMean);
+        return response;
+    }
+
+    /**
+     * Giải bộ lọc tiêu đề/tác giả bằng chỉ mục tìm kiếm, chính xác hoặc gần đúng tùy bộ lọc
+     *
+     * @return Các bookId khớp, tăng dần; null nếu không lọc văn bản hoặc chỉ mục chưa sẵn sàng
+     */
+    private int[] matchText(BookSearchCriteria criteria) {
+        return criteria.isFuzzy()
+                ? bookSearchIndex.fuzzySearch(criteria.getTitle(), criteria.getAuthor())
+                : bookSearchIndex.search(criteria.getTitle(), criteria.getAuthor());
+    }
+
+    private Map<String, String> didYouMean(BookSearchCriteria criteria) {
+        return criteria.isFuzzy() ? bookSearchIndex.didYouMean(criteria.getTitle(), criteria.getAuthor()) : null;
+    }
+
+    /**
+     * Dạng dữ liệu của một trang danh sách sách. Luồng lọc, sắp xếp và phân trang ({@link #listPage},
+     * {@link #listWithFacets}, {@link #listAfter}) dùng chung; mỗi dạng chỉ quyết định cách nạp dòng
+     * và cách tạo con trỏ từ dòng cuối trang.
+     */
+    private interface BookRows<T> {
+        /**
+         * Nạp các dòng theo đúng thứ tự bookId cho trước, bỏ qua sách đã bị xóa
+         */
+        List<T> byIds(int[] bookIds);
+
+        /**
+         * Truy vấn MySQL theo OFFSET, khi không dùng được bản chụp
+         */
+        List<T> page(BookSearchCriteria criteria, String sortBy, boolean descending, int offset, int size);
+
+        /**
+         * Truy vấn MySQL theo con trỏ, khi không dùng được bản chụp
+         */
+        Slice<T> after(BookSearchCriteria criteria, BookCursor after, String sortBy, boolean descending, int size);
+
+        BookCursor cursorAfter(T row, String sortBy, boolean descending);
+    }
+
+    /**
+     * Dữ liệu đầy đủ: nạp entity Book rồi chuyển sang {@link BookResponse}
+     */
+    private final class FullRows implements BookRows<BookResponse> {
+        @Override
+        public List<BookResponse> byIds(int[] bookIds) {
+            if (bookIds.length == 0) {
+                return new ArrayList<>();
+            }
+            List<Book> books = bookRepository.findAllById(Arrays.stream(bookIds).boxed().collect(Collectors.toList()));
+            return bookResponseAssembler.toResponses(inOrder(bookIds, books, Book::getBookId));
+        }
+
+        @Override
+        public List<BookResponse> page(BookSearchCriteria criteria, String sortBy, boolean descending,
+                                       int offset, int size) {
+            return bookResponseAssembler.toResponses(
+                    bookRepository.findBooks(criteria, null, sortBy, descending, offset, size));
+        }
+
+        @Override
+        public Slice<BookResponse> after(BookSearchCriteria criteria, BookCursor after, String sortBy,
+                                         boolean descending, int size) {
+            Slice<Book> slice = bookRepository.findBooksAfter(criteria, null, after, sortBy, descending, size);
+            return new SliceImpl<>(bookResponseAssembler.toResponses(slice.getContent()),
+                    slice.getPageable(), slice.hasNext());
+        }
+
+        @Override
+        public BookCursor cursorAfter(BookResponse row, String sortBy, boolean descending) {
+            return BookCursor.after(row, sortBy, descending);
+        }
+    }
+
+    /**
+     * Thẻ sách: chỉ chọn các cột hiển thị bằng projection, categoryId nạp bằng một truy vấn IN
+     */
+    private final class CardRows implements BookRows<BookCardDTO> {
+        @Override
+        public List<BookCardDTO> byIds(int[] bookIds) {
+            if (bookIds.length == 0) {
+                return new ArrayList<>();
+            }
+            List<BookCardDTO> cards = bookRepository.findBookCards(new BookSearchCriteria(),
+                    Arrays.stream(bookIds).boxed().collect(Collectors.toList()), "bookId", false, 0, bookIds.length);
+            List<BookCardDTO> ordered = inOrder(bookIds, cards, BookCardDTO::getBookId);
+            fillCategoryIds(ordered);
+            return ordered;
+        }
+
+        @Override
+        public List<BookCardDTO> page(BookSearchCriteria criteria, String sortBy, boolean descending,
+                                      int offset, int size) {
+            List<BookCardDTO> cards = bookRepository.findBookCards(criteria, null, sortBy, descending, offset, size);
+            fillCategoryIds(cards);
+            return cards;
+        }
+
+        @Override
+        public Slice<BookCardDTO> after(BookSearchCriteria criteria, BookCursor after, String sortBy,
+                                        boolean descending, int size) {
+            Slice<BookCardDTO> slice = bookRepository.findBookCardsAfter(criteria, null, after, sortBy, descending, size);
+            fillCategoryIds(slice.getContent());
+            return slice;
+        }
+
+        @Override
+        public BookCursor cursorAfter(BookCardDTO row, String sortBy, boolean descending) {
+            return BookCursor.after(row, sortBy, descending);
+        }
+    }
+
+    private static <T> List<T> inOrder(int[] bookIds, List<T> rows, Function<T, Integer> idOf) {
+        Map<Integer, T> byId = rows.stream().collect(Collectors.toMap(idOf, row -> row));
+        List<T> ordered = new ArrayList<>(bookIds.length);
+        for (int bookId : bookIds) {
+            T row = byId.get(bookId);
+            if (row != null) {
+                ordered.add(row);
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * Điền categoryId cho cả trang thẻ sách bằng một truy vấn IN
+     */
+    private void fillCategoryIds(List<BookCardDTO> cards) {
+        if (cards.isEmpty()) {
+            return;
+        }
+        Map<Integer, BookCardDTO> cardsById = cards.stream()
+                .collect(Collectors.toMap(BookCardDTO::getBookId, card -> card));
+        for (BookCategoryRepository.BookCategoryLink link : bookCategoryRepository.findLinksByBookIds(cardsById.keySet())) {
+            cardsById.get(link.getBookId()).getCategoryIds().add(link.getCategoryId());
+        }
+    }
+
+    /**
+     * Lấy thông tin chi tiết của một cuốn sách, qua bộ đệm {@link BookDetailCache}.
+     * Không mở transaction để lần đọc trúng bộ đệm không chiếm kết nối cơ sở dữ liệu.
      */
-    @Transactional(readOnly = true)
     public BookResponse getBookById(Integer bookId) {
-        logger.debug("Getting book with ID: {}", bookId);
+        return bookDetailCache.get(bookId, this::loadBookResponse);
+    }
+
+    /**
+     * Lấy chi tiết sách kèm phiên bản (ETag) cho GET có điều kiện; khi trúng bộ đệm không cần truy vấn nào.
+     *
+     * @return Chi tiết sách, null nếu sách không tồn tại.
+     */
+    public BookDetailCache.BookDetail getBookDetail(Integer bookId) {
+        return bookDetailCache.getWithVersion(bookId, id -> {
+            // Tính phiên bản trước khi nạp nội dung: nếu có lần ghi xen giữa, ETag cũ đi kèm nội dung mới
+            // (client chỉ phải tải lại) chứ không phải ETag mới đi kèm nội dung cũ
+            ResourceVersionService.ResourceVersion version = resourceVersionService.bookVersion(id);
+            return BookDetailCache.BookDetail.of(loadBookResponse(id), version);
+        });
+    }
 
-        // Use the new method to fetch book with categories pre-loaded
-        Optional<Book> bookOptional = bookRepository.findByIdWithCategories(bookId);
+    private BookResponse loadBookResponse(Integer bookId) {
+        logger.debug("Loading book with ID: {}", bookId);
 
-        return bookOptional.map(this::convertToBookResponse).orElse(null);
+        // Danh mục và deal do BookResponseAssembler nạp bằng truy vấn riêng, không cần fetch join
+        return bookRepository.findById(bookId).map(this::convertToBookResponse).orElse(null);
     }
 
     /**
@@ -109,12 +519,12 @@ public class BookService {
         }
 
         Book savedBook = bookRepository.save(book);
+        List<Integer> categoryIds = bookRequest.getCategoryIds() != null
+                ? syncBookCategories(bookId, bookRequest.getCategoryIds(), List.of())
+                : List.of();
 
-        if (bookRequest.getCategoryIds() != null && !bookRequest.getCategoryIds().isEmpty()) {
-            saveBookCategories(savedBook.getBookId(), bookRequest.getCategoryIds());
-        }
-
-        return getFullBookResponse(savedBook.getBookId());
+        eventPublisher.publishEvent(BookChangedEvent.created(savedBook.getBookId()));
+        return bookResponseAssembler.toResponse(savedBook, categoryIds);
     }
 
     @Transactional
@@ -137,90 +547,64 @@ public class BookService {
                 throw new RuntimeException("Error updating book from request", e);
             }
 
-            // If image URL changed and old one exists, delete the old image from Cloudinary
+            // If image URL changed and old one exists, delete the old image from storage once the update commits
             if (oldImageUrl != null && !oldImageUrl.isEmpty() &&
                     !oldImageUrl.equals(book.getCoverImageUrl())) {
-                try {
-                    String publicId = cloudinaryService.extractPublicIdFromUrl(oldImageUrl);
-                    if (publicId != null) {
-                        boolean deleted = cloudinaryService.deleteFile(publicId);
-                        logger.debug("Deleted old image: {} - Success: {}", publicId, deleted);
-                    }
-                } catch (Exception e) {
-                    logger.warn("Failed to delete old image from Cloudinary", e);
-                    // Continue with the update even if image deletion fails
-                }
+                outboxService.enqueue(OutboxEvent.Type.IMAGE_DELETE, oldImageUrl);
+                logger.debug("Queued deletion of old image: {}", oldImageUrl);
             }
 
             // Rest of your existing code...
             Book updatedBook = bookRepository.save(book);
-            updateBookCategories(bookId, bookRequest.getCategoryIds());
-            Book refreshedBook = bookRepository.findById(bookId).orElse(updatedBook);
-            return convertToBookResponse(refreshedBook);
+            List<Integer> categoryIds = updateBookCategories(bookId, bookRequest.getCategoryIds());
+            eventPublisher.publishEvent(BookChangedEvent.updated(bookId));
+            return bookResponseAssembler.toResponse(updatedBook, categoryIds);
         }
 
         return null;
     }
 
     /**
-     * Separate method to handle book categories with its own transaction
+     * Đồng bộ danh mục của một cuốn sách với danh sách được yêu cầu, trong transaction của người gọi.
+     *
+     * @param categoryIds Danh mục mới; null để giữ nguyên danh mục hiện có.
+     * @return Danh mục của sách sau khi đồng bộ.
      */
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public void updateBookCategories(Integer bookId, Set<Integer> categoryIds) {
+    @Transactional
+    public List<Integer> updateBookCategories(Integer bookId, Set<Integer> categoryIds) {
+        List<Integer> existing = bookCategoryRepository.findCategoryIdsByBookId(bookId);
         if (categoryIds == null) {
-            return; // Don't modify categories if not provided
+            return existing; // Don't modify categories if not provided
         }
+        return syncBookCategories(bookId, categoryIds, existing);
+    }
 
-        try {
-            // First, get existing categories for this book to compare
-            List<Integer> existingCategoryIds = bookCategoryRepository.findCategoryIdsByBookId(bookId);
-            logger.debug("Existing categories for book {}: {}", bookId, existingCategoryIds);
-
-            // If we need to delete all categories
-            if (categoryIds.isEmpty()) {
-                bookCategoryRepository.deleteAllByBookId(bookId);
-                logger.debug("Deleted all categories for book {}", bookId);
-                return;
-            }
-
-            // Handle additions and removals separately
-            Set<Integer> toAdd = new HashSet<>(categoryIds);
-            toAdd.removeAll(existingCategoryIds); // Keep only new categories
-
-            Set<Integer> toRemove = new HashSet<>(existingCategoryIds);
-            toRemove.removeAll(categoryIds); // Keep only categories to remove
+    /**
+     * Đồng bộ theo tập hợp: một truy vấn kiểm tra các danh mục được yêu cầu, một câu DELETE ... IN cho các
+     * danh mục bị bỏ và một câu INSERT nhiều dòng cho các danh mục mới. ID danh mục không tồn tại bị bỏ qua.
+     */
+    private List<Integer> syncBookCategories(Integer bookId, Set<Integer> requested, List<Integer> existing) {
+        Set<Integer> valid = requested.isEmpty() ? Set.of()
+                : new LinkedHashSet<>(categoryRepository.findExistingIds(requested));
+        if (valid.size() < requested.size()) {
+            Set<Integer> unknown = new LinkedHashSet<>(requested);
+            unknown.removeAll(valid);
+            logger.warn("Categories {} do not exist, skipped for book {}", unknown, bookId);
+        }
 
-            // Remove categories that are no longer needed
-            if (!toRemove.isEmpty()) {
-                for (Integer categoryId : toRemove) {
-                    bookCategoryRepository.deleteBookCategory(bookId, categoryId);
-                    logger.debug("Removed category {} from book {}", categoryId, bookId);
-                }
-            }
+        List<Integer> toRemove = existing.stream()
+                .filter(categoryId -> !valid.contains(categoryId))
+                .collect(Collectors.toList());
+        Set<Integer> toAdd = new LinkedHashSet<>(valid);
+        toAdd.removeAll(existing);
 
-            // Add new categories
-            if (!toAdd.isEmpty()) {
-                for (Integer categoryId : toAdd) {
-                    if (categoryRepository.existsById(categoryId)) {
-                        try {
-                            // Double-check again to avoid constraint violation
-                            if (!bookCategoryRepository.existsByBookIdAndCategoryId(bookId, categoryId)) {
-                                bookCategoryRepository.saveBookCategory(bookId, categoryId);
-                                logger.debug("Added category {} to book {}", categoryId, bookId);
-                            } else {
-                                logger.debug("Category {} already exists for book {} (skipped)", categoryId, bookId);
-                            }
-                        } catch (DataIntegrityViolationException e) {
-                            logger.debug("Category {} already exists for book {} (caught exception)", categoryId, bookId);
-                        }
-                    } else {
-                        logger.warn("Category with ID {} does not exist", categoryId);
-                    }
-                }
-            }
-        } catch (Exception e) {
-            logger.error("Error updating book categories for book ID: {}", bookId, e);
+        if (!toRemove.isEmpty()) {
+            bookCategoryRepository.deleteBookCategories(bookId, toRemove);
         }
+        bookCategoryRepository.insertLinks(bookId, toAdd);
+        logger.debug("Synced categories of book {}: +{} -{}", bookId, toAdd, toRemove);
+
+        return new ArrayList<>(valid);
     }
 
     /**
@@ -233,6 +617,7 @@ public class BookService {
         if (bookRepository.existsById(bookId)) {
             bookCategoryRepository.deleteAllByBookId(bookId);
             bookRepository.deleteById(bookId);
+            eventPublisher.publishEvent(BookChangedEvent.deleted(bookId));
             return true;
         }
 
@@ -274,6 +659,8 @@ public class BookService {
             Deal deal = new Deal();
             deal.setDealId(bookRequest.getDealId());
             book.setDeal(deal);
+            // Sách gắn deal lấy giá của deal ngay khi ghi, không chờ mốc tiếp theo của DealLifecycleScheduler
+            book.setDiscountedPrice(dealLifecycleScheduler.dealPrice(bookRequest.getDealId(), bookRequest.getOriginalPrice()));
         } else {
             book.setDeal(null);
         }
@@ -302,133 +689,61 @@ public class BookService {
     }
 
     /**
-     * Lưu danh mục sách
+     * Chuyển đổi từ Book sang BookResponse
      */
-    private void saveBookCategories(Integer bookId, Set<Integer> categoryIds) {
-        logger.debug("Saving categories for book ID: {}, Categories: {}", bookId, categoryIds);
-        for (Integer categoryId : categoryIds) {
-            if (categoryRepository.existsById(categoryId)) {
-                logger.debug("Saving category {} for book {}", categoryId, bookId);
-                bookCategoryRepository.saveBookCategory(bookId, categoryId);
-            } else {
-                logger.warn("Category with ID {} does not exist", categoryId);
-            }
-        }
+    public BookResponse convertToBookResponse(Book book) {
+        return bookResponseAssembler.toResponse(book);
     }
 
     /**
-     * Chuyển đổi từ Book sang BookResponse
+     * Toàn bộ sách đang giảm giá, đọc từ {@link BookSaleView}.
      */
-    public BookResponse convertToBookResponse(Book book) {
-        BookResponse response = new BookResponse();
-
-        response.setBookId(book.getBookId());
-        response.setTitle(book.getTitle());
-        response.setAuthor(book.getAuthor());
-        response.setIsbn(book.getIsbn());
-        response.setOriginalPrice(book.getOriginalPrice());
-        response.setDiscountedPrice(book.getDiscountedPrice());
-        response.setPublicationYear(book.getPublicationYear());
-
-        // Convert Language enum to String if needed
-        if (book.getLanguage() != null) {
-            response.setLanguage(book.getLanguage().name());
-        }
-
-        response.setPageCount(book.getPageCount());
-        response.setAverageRating(book.getAverageRating());
-        response.setRatingCount(book.getRatingCount());
-        response.setDescription(book.getDescription());
-        response.setCoverImageUrl(book.getCoverImageUrl());
-        response.setStockQuantity(book.getStockQuantity());
-
-        // Fix the dealId issue
-        if (book.getDeal() != null) {
-            DealResponse dealResponse = new DealResponse();
-            dealResponse.setDealId(book.getDeal().getDealId());
-            // Populate other deal fields as needed
-            response.setDeal(dealResponse);
-        }
-
-        // Convert ReadingDifficulty enum to String if needed
-        if (book.getReadingDifficulty() != null) {
-            response.setReadingDifficulty(book.getReadingDifficulty().name());
-        }
-
-        response.setEstimatedReadingTime(book.getEstimatedReadingTime());
-
-        // Convert ContentRating enum to String if needed
-        if (book.getContentRating() != null) {
-            response.setContentRating(book.getContentRating().name());
-        }
-
-        response.setCreatedAt(book.getCreatedAt());
-        response.setUpdatedAt(book.getUpdatedAt());
-
-        // Log category information for debugging
-        Set<BookCategory> bookCategories = book.getBookCategories();
-        logger.debug("Book {} has {} book categories", book.getBookId(), bookCategories.size());
-
-        // Get categories directly from database as a fallback method in case relationship mapping isn't loading properly
-        List<Category> categories;
-        if (bookCategories == null || bookCategories.isEmpty()) {
-            categories = categoryRepository.findCategoriesByBookId(book.getBookId());
-            logger.debug("Categories fetched directly from repository: {}", categories.size());
-        } else {
-            categories = new ArrayList<>(book.getCategories());
-            logger.debug("Categories fetched from book entity: {}", categories.size());
-        }
-
-        // Convert categories to response objects
-        List<CategoryResponse> categoryResponses = categories.stream()
-                .map(this::convertToCategoryResponse)
-                .collect(Collectors.toList());
-
-        response.setCategories(categoryResponses);
+    public List<BookSaleInfoDTO> getSaleBooksCoverInfo() {
+        return bookSaleView.all();
+    }
 
-        return response;
+    /**
+     * Một trang sách đang giảm giá theo mức giảm, có thể lọc theo deal.
+     */
+    public BookSliceResponse<BookSaleInfoDTO> getSaleBooks(Integer dealId, String cursor, int limit) {
+        return bookSaleView.page(dealId, cursor, limit);
     }
 
-    public List<BookSaleInfoDTO> getSaleBooksCoverInfo() {
-        return bookRepository.findSaleBooksCoverInfo();
+    /**
+     * Sách đang giảm giá nhóm theo deal.
+     */
+    public List<SaleDealGroupDTO> getSaleDealGroups(int perDeal) {
+        return bookSaleView.groups(perDeal);
     }
 
     public List<BookResponse> getTopRatedBooks(int limit) {
-        Pageable topLimit = PageRequest.of(0, limit, Sort.by("averageRating").descending());
-        Page<Book> topRatedBooks = bookRepository.findTopRatedBooks(topLimit);
-
-        return topRatedBooks.stream()
-                .map(this::convertToBookResponse)
-                .collect(Collectors.toList());
+        return getTopRatedBooks(limit, null);
     }
 
-    private CategoryResponse convertToCategoryResponse(Category category) {
-        CategoryResponse response = new CategoryResponse();
-        response.setCategoryId(category.getCategoryId());
-        response.setCategoryName(category.getName());
-        response.setDescription(category.getDescription());
-
-        // Handle parent category if needed
-        if (category.getParentCategory() != null) {
-            CategoryResponse parentResponse = new CategoryResponse();
-            parentResponse.setCategoryId(category.getParentCategory().getCategoryId());
-            parentResponse.setCategoryName(category.getParentCategory().getName());
-            // You may want to limit the depth of parent categories to avoid circular references
-            response.setParentCategory(parentResponse);
+    /**
+     * Lấy các sách có điểm đánh giá cao nhất, toàn cửa hàng hoặc trong một danh mục.
+     * <p>
+     * Thứ hạng đọc từ {@link BookLeaderboard} và chi tiết từ {@link BookDetailCache}; chỉ các sách chưa có
+     * trong bộ đệm mới được nạp, chung một lần. Khi bảng xếp hạng chưa sẵn sàng thì truy vấn trực tiếp.
+     * </p>
+     */
+    public List<BookResponse> getTopRatedBooks(int limit, Integer categoryId) {
+        List<Integer> bookIds = bookLeaderboard.topBookIds(categoryId, limit);
+        if (bookIds == null) {
+            if (categoryId != null) {
+                BookSearchCriteria criteria = new BookSearchCriteria(null, null, categoryId, null, null, null, null);
+                return getAllBooks(criteria, 0, limit, "averageRating", "desc");
+            }
+            Pageable topLimit = PageRequest.of(0, limit, Sort.by("averageRating").descending());
+            return bookResponseAssembler.toResponses(bookRepository.findTopRatedBooks(topLimit).getContent());
         }
 
-        return response;
-    }
-
-    private BookResponse getFullBookResponse(Integer bookId) {
-        // Use the new method to fetch book with categories pre-loaded
-        Book book = bookRepository.findByIdWithCategories(bookId)
-                .orElseThrow(() -> new RuntimeException("Book not found after save"));
-
-        // Force initialization if needed
-        int categoryCount = book.getBookCategories().size();
-        logger.debug("Book {} has {} categories loaded", bookId, categoryCount);
-
-        return convertToBookResponse(book);
+        Map<Integer, BookResponse> details = bookDetailCache.getAll(bookIds, missing ->
+                bookResponseAssembler.toResponses(bookRepository.findAllById(new ArrayList<Integer>(missing))).stream()
+                        .collect(Collectors.toMap(BookResponse::getBookId, Function.identity())));
+        return bookIds.stream()
+                .map(details::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
     }
 }
\ No newline at end of file
@@ -0,0 +1,633 @@
+package com.example.Bibliotech_backend.service;
+
+import com.example.Bibliotech_backend.dto.BookSuggestion;
+import com.example.Bibliotech_backend.event.BookChangedEvent;
+import com.example.Bibliotech_backend.event.BooksImportedEvent;
+import com.example.Bibliotech_backend.util.TextNormalizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cây tiền tố nén (radix trie) trong bộ nhớ cho gợi ý tìm kiếm (autocomplete) theo tiêu đề và tác giả.
+ * <p>
+ * Tiêu đề và tác giả được bỏ dấu, tách từ và nối lại bằng một khoảng trắng. Mỗi chuỗi được chèn vào trie
+ * từ đầu mỗi từ (tối đa {@value #MAX_KEY_WORDS} từ đầu), nên "pot" gợi ý được cả "Harry Potter".
+ * Mỗi nút lưu sẵn top-k gợi ý có trọng số cao nhất trong cây con, trọng số dựa trên số lượt và điểm
+ * đánh giá; truy vấn chỉ cần đi theo tiền tố rồi đọc danh sách đó.
+ * </p>
+ * <p>
+ * Mỗi cạnh mang cả một đoạn khóa thay vì một ký tự, nên nút chỉ xuất hiện ở chỗ rẽ nhánh hoặc nơi một khóa
+ * kết thúc: phần đuôi riêng của một khóa là một nút lá duy nhất, không phải một chuỗi nút mỗi ký tự một nút.
+ * Nút không có khóa kết thúc và nút lá dùng chung mảng rỗng, nút lá chỉ có một khóa dùng chung một mảng
+ * cho cả danh sách khóa kết thúc lẫn top-k.
+ * </p>
+ * <p>
+ * Trie được dựng khi ứng dụng khởi động, sau khi nhập sách hàng loạt và định kỳ, và cập nhật từng cuốn sách
+ * qua {@link BookChangedEvent}.
+ * Luồng ghi được tuần tự hóa; nhánh con và danh sách top-k của mỗi nút được thay thế nguyên khối
+ * (copy-on-write) nên luồng đọc không cần khóa.
+ * </p>
+ */
+@Service
+public class BookSuggestionIndex {
+    private static final Logger logger = LoggerFactory.getLogger(BookSuggestionIndex.class);
+
+    private static final String SELECT_BOOKS = "SELECT book_id, title, author, average_rating, rating_count FROM Books";
+
+    /**
+     * Số từ đầu tiên của tiêu đề/tác giả được dùng làm điểm bắt đầu gợi ý.
+     */
+    private static final int MAX_KEY_WORDS = 6;
+
+    /**
+     * Độ dài tối đa của khóa trong trie; tiền tố dài hơn được cắt bớt.
+     */
+    private static final int MAX_KEY_LENGTH = 64;
+
+    private static final Comparator<Entry> BY_WEIGHT = Comparator.<Entry>comparingDouble(entry -> entry.weight)
+            .reversed()
+            .thenComparing(entry -> entry.text);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxResults;
+
+    /**
+     * Trie hiện tại; được thay thế nguyên khối khi dựng lại.
+     */
+    private volatile Trie trie;
+
+    private boolean loading;
+
+    /**
+     * Các sách thay đổi chưa được cập nhật vào trie (đang dựng lại toàn bộ, hoặc luồng khác đang cập nhật).
+     */
+    private final Set<Integer> pendingChanges = ConcurrentHashMap.newKeySet();
+
+    public BookSuggestionIndex(JdbcTemplate jdbcTemplate,
+                               @Value("${app.suggest.max-results:10}") int maxResults) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxResults = maxResults;
+    }
+
+    /**
+     * Dựng lại toàn bộ trie từ bảng Books khi khởi động, sau khi nhập sách hàng loạt và định kỳ, để nhận cả các
+     * thay đổi không đi qua {@link BookService} (SQL trực tiếp, instance khác).
+     */
+    @EventListener({ApplicationReadyEvent.class, BooksImportedEvent.class})
+    @Scheduled(fixedDelayString = "${app.suggest.refresh-ms:600000}",
+            initialDelayString = "${app.suggest.refresh-ms:600000}")
+    public void rebuild() {
+        synchronized (this) {
+            if (loading) {
+                return;
+            }
+            loading = true;
+        }
+
+        long start = System.currentTimeMillis();
+        Trie fresh = new Trie(maxResults);
+        try {
+            jdbcTemplate.query(SELECT_BOOKS, rs -> {
+                fresh.put(readBook(rs));
+            });
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                loading = false;
+            }
+            logger.error("Could not build book suggestion trie", e);
+            return;
+        }
+
+        synchronized (this) {
+            this.trie = fresh;
+            this.loading = false;
+        }
+        applyPendingChanges();
+        logger.info("Built book suggestion trie: {} books, {} authors in {} ms",
+                fresh.books.size(), fresh.authors.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Cập nhật trie cho cuốn sách vừa thay đổi, sau khi transaction đã commit.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        pendingChanges.add(event.getBookId());
+        synchronized (this) {
+            if (loading || trie == null) {
+                return;
+            }
+        }
+        applyPendingChanges();
+    }
+
+    /**
+     * Đọc lại các sách đang chờ; sách đã bị xóa được gỡ khỏi trie.
+     */
+    private void applyPendingChanges() {
+        for (Integer bookId : pendingChanges) {
+            if (pendingChanges.remove(bookId)) {
+                refresh(bookId);
+            }
+        }
+    }
+
+    private void refresh(Integer bookId) {
+        try {
+            List<IndexedBook> rows = jdbcTemplate.query(SELECT_BOOKS + " WHERE book_id = ?",
+                    (rs, rowNum) -> readBook(rs), bookId);
+            synchronized (this) {
+                if (loading) {
+                    // Trie đang được dựng lại có thể đã đọc dòng cũ; cập nhật vào trie mới sau khi dựng xong
+                    pendingChanges.add(bookId);
+                    return;
+                }
+                if (rows.isEmpty()) {
+                    trie.remove(bookId);
+                } else {
+                    trie.put(rows.get(0));
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.error("Could not update suggestion trie for book {}", bookId, e);
+        }
+    }
+
+    /**
+     * Gợi ý tiêu đề và tác giả bắt đầu bằng chuỗi người dùng đang gõ.
+     *
+     * @param query Chuỗi đang gõ; không phân biệt hoa thường và dấu.
+     * @param limit Số gợi ý tối đa.
+     * @return Các gợi ý theo trọng số giảm dần; rỗng nếu trie chưa sẵn sàng.
+     */
+    public List<BookSuggestion> suggest(String query, int limit) {
+        Trie current = trie;
+        String key = toKey(TextNormalizer.tokenize(query));
+        if (current == null || key.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        Node node = current.find(key);
+        if (node == null) {
+            return new ArrayList<>();
+        }
+
+        Entry[] top = node.top;
+        List<BookSuggestion> suggestions = new ArrayList<>(Math.min(limit, top.length));
+        for (int i = 0; i < top.length && suggestions.size() < limit; i++) {
+            suggestions.add(new BookSuggestion(top[i].text, top[i].type, top[i].bookId));
+        }
+        return suggestions;
+    }
+
+    private static IndexedBook readBook(ResultSet rs) throws SQLException {
+        BigDecimal averageRating = rs.getBigDecimal("average_rating");
+        int ratingCount = rs.getInt("rating_count");
+        // Sách chưa có đánh giá vẫn có trọng số dương; số lượt đánh giá tăng trọng số theo log
+        double weight = (1 + (averageRating != null ? averageRating.doubleValue() : 0)) * (1 + Math.log1p(ratingCount));
+        return new IndexedBook(rs.getInt("book_id"), rs.getString("title"), rs.getString("author"), weight);
+    }
+
+    private static String toKey(List<String> tokens) {
+        String key = String.join(" ", tokens);
+        return key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key;
+    }
+
+    /**
+     * Các khóa của một chuỗi: bắt đầu từ mỗi từ trong {@value #MAX_KEY_WORDS} từ đầu tiên.
+     */
+    private static String[] keysOf(String text) {
+        List<String> tokens = TextNormalizer.tokenize(text);
+        Set<String> keys = new LinkedHashSet<>();
+        for (int i = 0; i < tokens.size() && i < MAX_KEY_WORDS; i++) {
+            keys.add(toKey(tokens.subList(i, tokens.size())));
+        }
+        return keys.toArray(new String[0]);
+    }
+
+    /**
+     * Dữ liệu của trie; chỉ được sửa khi giữ khóa của {@link BookSuggestionIndex}.
+     */
+    private static final class Trie {
+        private final int maxResults;
+        private final Node root = new Node();
+        private final Map<Integer, IndexedBook> books = new HashMap<>();
+        private final Map<String, AuthorGroup> authors = new HashMap<>();
+
+        private Trie(int maxResults) {
+            this.maxResults = maxResults;
+        }
+
+        private void put(IndexedBook book) {
+            remove(book.bookId);
+            books.put(book.bookId, book);
+
+            book.titleEntry = new Entry(book.title, BookSuggestion.Type.TITLE, book.bookId, book.weight);
+            book.titleKeys = keysOf(book.title);
+            for (String key : book.titleKeys) {
+                add(key, book.titleEntry);
+            }
+
+            String authorKey = toKey(TextNormalizer.tokenize(book.author));
+            if (authorKey.isEmpty()) {
+                return;
+            }
+            book.authorKey = authorKey;
+            AuthorGroup group = authors.computeIfAbsent(authorKey, key -> new AuthorGroup(book.author, keysOf(book.author)));
+            group.weights.put(book.bookId, book.weight);
+            replaceAuthorEntry(group);
+        }
+
+        private void remove(Integer bookId) {
+            IndexedBook book = books.remove(bookId);
+            if (book == null) {
+                return;
+            }
+            for (String key : book.titleKeys) {
+                remove(key, book.titleEntry);
+            }
+
+            if (book.authorKey == null) {
+                return;
+            }
+            AuthorGroup group = authors.get(book.authorKey);
+            if (group == null) {
+                return;
+            }
+            group.weights.remove(bookId);
+            if (group.weights.isEmpty()) {
+                for (String key : group.keys) {
+                    remove(key, group.entry);
+                }
+                authors.remove(book.authorKey);
+            } else {
+                replaceAuthorEntry(group);
+            }
+        }
+
+        /**
+         * Trọng số của tác giả là tổng trọng số các cuốn sách của tác giả đó.
+         */
+        private void replaceAuthorEntry(AuthorGroup group) {
+            if (group.entry != null) {
+                for (String key : group.keys) {
+                    remove(key, group.entry);
+                }
+            }
+            double weight = group.weights.values().stream().mapToDouble(Double::doubleValue).sum();
+            group.entry = new Entry(group.displayName, BookSuggestion.Type.AUTHOR, null, weight);
+            for (String key : group.keys) {
+                add(key, group.entry);
+            }
+        }
+
+        /**
+         * Nút nhỏ nhất mà mọi khóa trong cây con của nó bắt đầu bằng {@code prefix}; null nếu không có khóa nào.
+         */
+        private Node find(String prefix) {
+            Node node = root;
+            int i = 0;
+            while (i < prefix.length()) {
+                Node child = node.child(prefix.charAt(i));
+                if (child == null) {
+                    return null;
+                }
+                String edge = child.edge;
+                int length = Math.min(edge.length(), prefix.length() - i);
+                if (!prefix.regionMatches(i, edge, 0, length)) {
+                    return null;
+                }
+                // Tiền tố có thể dừng giữa cạnh: cây con của nút con vẫn là đúng tập khóa cần tìm
+                i += length;
+                node = child;
+            }
+            return node;
+        }
+
+        private void add(String key, Entry entry) {
+            Node node = root;
+            node.offer(entry, maxResults);
+            int i = 0;
+            while (i < key.length()) {
+                Node child = node.child(key.charAt(i));
+                if (child == null) {
+                    node.putChild(Node.leaf(key.substring(i), entry));
+                    return;
+                }
+                int common = commonPrefix(child.edge, key, i);
+                if (common < child.edge.length()) {
+                    // Tách cạnh: nút giữa mang phần chung, nút con cũ giữ phần còn lại
+                    Node middle = new Node(child.edge.substring(0, common));
+                    middle.top = child.top;
+                    middle.putChild(child.withEdge(child.edge.substring(common)));
+                    node.putChild(middle);
+                    child = middle;
+                }
+                child.offer(entry, maxResults);
+                node = child;
+                i += common;
+            }
+            node.addTerminal(entry);
+        }
+
+        private void remove(String key, Entry entry) {
+            List<Node> path = new ArrayList<>();
+            path.add(root);
+            Node node = root;
+            int i = 0;
+            while (i < key.length()) {
+                node = node.child(key.charAt(i));
+                if (node == null || !key.startsWith(node.edge, i)) {
+                    return;
+                }
+                path.add(node);
+                i += node.edge.length();
+            }
+            node.removeTerminal(entry);
+
+            // Tính lại top-k từ dưới lên, để nút cha gộp từ danh sách đã cập nhật của nút con;
+            // nút rỗng bị gỡ, nút chỉ còn một nhánh và không có khóa kết thúc được nhập vào nút con
+            for (int depth = path.size() - 1; depth > 0; depth--) {
+                Node current = path.get(depth);
+                Node parent = path.get(depth - 1);
+                if (current.isEmpty()) {
+                    parent.removeChild(current.edge.charAt(0));
+                    continue;
+                }
+                if (current.contains(entry)) {
+                    current.recompute(maxResults);
+                }
+                Node[] children = current.branches.nodes;
+                if (current.terminals.length == 0 && children.length == 1) {
+                    parent.putChild(children[0].withEdge(current.edge + children[0].edge));
+                }
+            }
+            if (root.contains(entry)) {
+                root.recompute(maxResults);
+            }
+        }
+
+        private static int commonPrefix(String edge, String key, int from) {
+            int length = Math.min(edge.length(), key.length() - from);
+            int common = 0;
+            while (common < length && edge.charAt(common) == key.charAt(from + common)) {
+                common++;
+            }
+            return common;
+        }
+    }
+
+    /**
+     * Một nút của trie, nối với nút cha bằng cạnh {@link #edge}. Nhánh con, top-k và danh sách khóa kết thúc
+     * là các mảng bất biến được thay thế khi ghi; nút mới chỉ được gắn vào cây sau khi đã dựng xong.
+     */
+    private static final class Node {
+        private static final Entry[] NO_ENTRIES = new Entry[0];
+
+        /**
+         * Đoạn khóa trên cạnh từ nút cha tới nút này; rỗng ở gốc.
+         */
+        private final String edge;
+
+        private volatile Branches branches = Branches.EMPTY;
+        private volatile Entry[] top = NO_ENTRIES;
+
+        /**
+         * Các gợi ý có khóa kết thúc tại nút này; chỉ luồng ghi truy cập.
+         */
+        private Entry[] terminals = NO_ENTRIES;
+
+        private Node(String edge) {
+            this.edge = edge;
+        }
+
+        private Node() {
+            this("");
+        }
+
+        /**
+         * Nút lá cho phần đuôi riêng của một khóa; top-k và danh sách khóa kết thúc dùng chung một mảng.
+         */
+        private static Node leaf(String edge, Entry entry) {
+            Node leaf = new Node(edge);
+            Entry[] single = {entry};
+            leaf.terminals = single;
+            leaf.top = single;
+            return leaf;
+        }
+
+        /**
+         * Bản sao của nút với cạnh khác, dùng khi tách hoặc gộp cạnh; nút cũ bị bỏ khỏi cây ngay sau đó.
+         */
+        private Node withEdge(String newEdge) {
+            Node copy = new Node(newEdge);
+            copy.branches = branches;
+            copy.top = top;
+            copy.terminals = terminals;
+            return copy;
+        }
+
+        private Node child(char label) {
+            Branches current = branches;
+            int index = Arrays.binarySearch(current.labels, label);
+            return index >= 0 ? current.nodes[index] : null;
+        }
+
+        /**
+         * Gắn nút con theo ký tự đầu của cạnh, thay nút con cũ cùng ký tự nếu có.
+         */
+        private void putChild(Node child) {
+            Branches current = branches;
+            char label = child.edge.charAt(0);
+            int index = Arrays.binarySearch(current.labels, label);
+            if (index >= 0) {
+                Node[] nodes = current.nodes.clone();
+                nodes[index] = child;
+                branches = new Branches(current.labels, nodes);
+                return;
+            }
+            int insertAt = -index - 1;
+            int size = current.labels.length;
+            char[] labels = new char[size + 1];
+            Node[] nodes = new Node[size + 1];
+            System.arraycopy(current.labels, 0, labels, 0, insertAt);
+            System.arraycopy(current.nodes, 0, nodes, 0, insertAt);
+            labels[insertAt] = label;
+            nodes[insertAt] = child;
+            System.arraycopy(current.labels, insertAt, labels, insertAt + 1, size - insertAt);
+            System.arraycopy(current.nodes, insertAt, nodes, insertAt + 1, size - insertAt);
+            branches = new Branches(labels, nodes);
+        }
+
+        private void removeChild(char label) {
+            Branches current = branches;
+            int index = Arrays.binarySearch(current.labels, label);
+            if (index < 0) {
+                return;
+            }
+            int size = current.labels.length;
+            if (size == 1) {
+                branches = Branches.EMPTY;
+                return;
+            }
+            char[] labels = new char[size - 1];
+            Node[] nodes = new Node[size - 1];
+            System.arraycopy(current.labels, 0, labels, 0, index);
+            System.arraycopy(current.nodes, 0, nodes, 0, index);
+            System.arraycopy(current.labels, index + 1, labels, index, size - index - 1);
+            System.arraycopy(current.nodes, index + 1, nodes, index, size - index - 1);
+            branches = new Branches(labels, nodes);
+        }
+
+        private void addTerminal(Entry entry) {
+            Entry[] updated = Arrays.copyOf(terminals, terminals.length + 1);
+            updated[terminals.length] = entry;
+            terminals = updated;
+        }
+
+        private void removeTerminal(Entry entry) {
+            for (int i = 0; i < terminals.length; i++) {
+                if (terminals[i] == entry) {
+                    if (terminals.length == 1) {
+                        terminals = NO_ENTRIES;
+                        return;
+                    }
+                    Entry[] updated = new Entry[terminals.length - 1];
+                    System.arraycopy(terminals, 0, updated, 0, i);
+                    System.arraycopy(terminals, i + 1, updated, i, terminals.length - i - 1);
+                    terminals = updated;
+                    return;
+                }
+            }
+        }
+
+        private boolean isEmpty() {
+            return terminals.length == 0 && branches.labels.length == 0;
+        }
+
+        private boolean contains(Entry entry) {
+            for (Entry candidate : top) {
+                if (candidate == entry) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Thêm một gợi ý mới vào top-k nếu đủ trọng số.
+         */
+        private void offer(Entry entry, int maxResults) {
+            Entry[] current = top;
+            if (contains(entry)) {
+                return;
+            }
+            if (current.length == maxResults && BY_WEIGHT.compare(entry, current[current.length - 1]) >= 0) {
+                return;
+            }
+            int insertAt = 0;
+            while (insertAt < current.length && BY_WEIGHT.compare(current[insertAt], entry) <= 0) {
+                insertAt++;
+            }
+            int size = Math.min(current.length + 1, maxResults);
+            Entry[] updated = new Entry[size];
+            System.arraycopy(current, 0, updated, 0, insertAt);
+            updated[insertAt] = entry;
+            System.arraycopy(current, insertAt, updated, insertAt + 1, size - insertAt - 1);
+            top = updated;
+        }
+
+        /**
+         * Tính lại top-k từ các gợi ý kết thúc tại nút và top-k của các nút con.
+         */
+        private void recompute(int maxResults) {
+            Set<Entry> candidates = new LinkedHashSet<>(Arrays.asList(terminals));
+            for (Node child : branches.nodes) {
+                candidates.addAll(Arrays.asList(child.top));
+            }
+            top = candidates.isEmpty() ? NO_ENTRIES
+                    : candidates.stream().sorted(BY_WEIGHT).limit(maxResults).toArray(Entry[]::new);
+        }
+    }
+
+    private static final class Branches {
+        private static final Branches EMPTY = new Branches(new char[0], new Node[0]);
+
+        private final char[] labels;
+        private final Node[] nodes;
+
+        private Branches(char[] labels, Node[] nodes) {
+            this.labels = labels;
+            this.nodes = nodes;
+        }
+    }
+
+    /**
+     * Một gợi ý đã lập chỉ mục. So sánh theo định danh đối tượng, nên cập nhật trọng số là gỡ rồi thêm đối tượng mới.
+     */
+    private static final class Entry {
+        private final String text;
+        private final BookSuggestion.Type type;
+        private final Integer bookId;
+        private final double weight;
+
+        private Entry(String text, BookSuggestion.Type type, Integer bookId, double weight) {
+            this.text = text;
+            this.type = type;
+            this.bookId = bookId;
+            this.weight = weight;
+        }
+    }
+
+    private static final class IndexedBook {
+        private final int bookId;
+        private final String title;
+        private final String author;
+        private final double weight;
+        private Entry titleEntry;
+        private String[] titleKeys = new String[0];
+        private String authorKey;
+
+        private IndexedBook(int bookId, String title, String author, double weight) {
+            this.bookId = bookId;
+            this.title = title;
+            this.author = author;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Các sách của cùng một tác giả (so khớp theo tên đã bỏ dấu), gộp thành một gợi ý.
+     */
+    private static final class AuthorGroup {
+        private final String displayName;
+        private final String[] keys;
+        private final Map<Integer, Double> weights = new HashMap<>();
+        private Entry entry;
+
+        private AuthorGroup(String displayName, String[] keys) {
+            this.displayName = displayName;
+            this.keys = keys;
+        }
+    }
+}
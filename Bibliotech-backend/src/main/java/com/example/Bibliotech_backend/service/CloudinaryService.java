@@ -5,65 +5,91 @@ import com.cloudinary.utils.ObjectUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Map;
 
+/**
+ * Lưu ảnh trên Cloudinary; là {@link ImageStorage} mặc định ({@code app.storage.type=cloudinary}).
+ */
 @Service
-public class CloudinaryService {
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "cloudinary", matchIfMissing = true)
+public class CloudinaryService implements ImageStorage {
     private final Cloudinary cloudinary;
     private static final Logger logger = LoggerFactory.getLogger(CloudinaryService.class);
 
+    private static final String UPLOAD_PATH = "/upload/";
+
     @Autowired
     public CloudinaryService(Cloudinary cloudinary) {
         this.cloudinary = cloudinary;
     }
 
-    public String uploadFile(MultipartFile file) {
-        try {
-            Map uploadResult = cloudinary.uploader().upload(file.getBytes(),
-                    ObjectUtils.asMap("folder", "bibliotech/books"));
+    /**
+     * Tải ảnh lên từ file trên đĩa; SDK gửi file theo luồng nên ảnh không bị nạp toàn bộ vào heap.
+     */
+    @Override
+    public String store(Path file, String contentType) throws IOException {
+        Map uploadResult = cloudinary.uploader().upload(file.toFile(),
+                ObjectUtils.asMap("folder", "bibliotech/books", "resource_type", "image"));
+
+        String publicId = (String) uploadResult.get("public_id");
+        String url = (String) uploadResult.get("secure_url");
 
-            String publicId = (String) uploadResult.get("public_id");
-            String url = (String) uploadResult.get("secure_url");
+        logger.info("File uploaded successfully to Cloudinary. Public ID: {}", publicId);
+        return url;
+    }
 
-            logger.info("File uploaded successfully to Cloudinary. Public ID: {}", publicId);
-            return url;
-        } catch (IOException e) {
-            logger.error("Error uploading file to Cloudinary", e);
-            throw new RuntimeException("Could not upload image: " + e.getMessage());
+    @Override
+    public void delete(String url) throws IOException {
+        String publicId = extractPublicIdFromUrl(url);
+        if (publicId != null) {
+            destroy(publicId);
         }
     }
 
-    public boolean deleteFile(String publicId) {
-        try {
-            Map result = cloudinary.uploader().destroy(publicId, ObjectUtils.emptyMap());
-            return "ok".equals(result.get("result"));
-        } catch (IOException e) {
-            logger.error("Error deleting file from Cloudinary", e);
-            return false;
+    /**
+     * Xóa ảnh theo public ID và ném lỗi khi Cloudinary không xác nhận, để bên gọi có thể thử lại.
+     * Ảnh không còn tồn tại được coi là đã xóa, nên gọi lại nhiều lần vẫn an toàn.
+     */
+    public void destroy(String publicId) throws IOException {
+        Map result = cloudinary.uploader().destroy(publicId, ObjectUtils.emptyMap());
+        Object status = result.get("result");
+        if (!"ok".equals(status) && !"not found".equals(status)) {
+            throw new IOException("Cloudinary destroy of " + publicId + " returned " + status);
         }
     }
 
+    /**
+     * Lấy public ID từ URL ảnh, null nếu URL không phải ảnh trên Cloudinary.
+     */
     public String extractPublicIdFromUrl(String url) {
         if (url == null || url.isEmpty()) {
             return null;
         }
 
-        try {
-            //https://res.cloudinary.com/dgtfegznk/image/upload/v1741658639/Call_It_Home_r8bsqb.jpg
-            //https://res.cloudinary.com/dgtfegznk/image/upload/v1741658639/Don_t_Push_the_Button_cvmlva.jpg
-            // Extract the public ID from a URL like:
-            String[] urlParts = url.split("/");
-            String fileName = urlParts[urlParts.length - 1];
-            String folder = urlParts[urlParts.length - 2];
-            String publicId = folder + "/" + fileName.substring(0, fileName.lastIndexOf('.'));
-            return publicId;
-        } catch (Exception e) {
-            logger.error("Error extracting public ID from URL: {}", url, e);
+        // https://res.cloudinary.com/dgtfegznk/image/upload/v1741658639/bibliotech/books/Call_It_Home_r8bsqb.jpg
+        // -> bibliotech/books/Call_It_Home_r8bsqb
+        int upload = url.indexOf(UPLOAD_PATH);
+        if (upload < 0) {
+            logger.debug("Not a Cloudinary image URL: {}", url);
             return null;
         }
+        String path = url.substring(upload + UPLOAD_PATH.length());
+        int query = path.indexOf('?');
+        if (query >= 0) {
+            path = path.substring(0, query);
+        }
+        if (path.matches("v\\d+/.*")) {
+            path = path.substring(path.indexOf('/') + 1);
+        }
+        int extension = path.lastIndexOf('.');
+        if (extension > path.lastIndexOf('/')) {
+            path = path.substring(0, extension);
+        }
+        return path.isEmpty() ? null : path;
     }
-}
\ No newline at end of file
+}
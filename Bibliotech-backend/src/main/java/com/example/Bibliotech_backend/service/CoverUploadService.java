@@ -0,0 +1,243 @@
+package com.example.Bibliotech_backend.service;
+
+import com.example.Bibliotech_backend.dto.CoverUploadStatus;
+import com.example.Bibliotech_backend.exception.BadRequestException;
+import com.example.Bibliotech_backend.exception.TooManyRequestsException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tải ảnh bìa lên {@link ImageStorage} mà không nạp ảnh vào heap.
+ * <p>
+ * Ảnh trong request multipart được chuyển thẳng sang một file tạm trong {@code app.uploads.spool-dir}
+ * (servlet container đã ghi phần multipart ra đĩa), rồi được gửi đi từ file đó trên một thread pool riêng
+ * có giới hạn số thread và số lần tải chờ. Khi hàng đợi đầy, request bị từ chối ngay với
+ * {@link TooManyRequestsException} (HTTP 429), nên nhiều admin tải ảnh cùng lúc chỉ tốn chỗ trên đĩa
+ * chứ không làm tăng heap.
+ * </p>
+ * <p>
+ * Ảnh nhỏ hơn {@code app.uploads.sync-threshold-bytes} được chờ tải xong (tối đa
+ * {@code app.uploads.sync-timeout-ms}) để trả URL ngay; ảnh lớn hơn trả về ngay mã lần tải để client tra cứu
+ * trạng thái. Trạng thái được giữ trong bộ nhớ tới {@code app.uploads.status-ttl-ms}.
+ * </p>
+ * <p>
+ * File tạm của các lần tải bị bỏ khi tắt ứng dụng được xóa ngay lúc tắt; file còn sót lại sau khi tiến trình
+ * bị dừng đột ngột được dọn khi khởi động, chỉ với file cũ hơn thời hạn giữ trạng thái để không đụng tới
+ * file của instance khác dùng chung thư mục.
+ * </p>
+ */
+@Service
+public class CoverUploadService {
+    private static final Logger logger = LoggerFactory.getLogger(CoverUploadService.class);
+
+    private static final String SPOOL_PREFIX = "cover-";
+    private static final String SPOOL_SUFFIX = ".upload";
+
+    /**
+     * Thời gian chờ các lần tải đang chạy tự dọn file tạm khi tắt ứng dụng.
+     */
+    private static final long SHUTDOWN_WAIT_MS = 5000;
+
+    private final ImageStorage imageStorage;
+    private final ExecutorService executor;
+    private final Cache<String, CoverUploadStatus> statuses;
+    private final Path spoolDir;
+
+    /**
+     * File tạm của các lần tải đang chờ hoặc đang chạy.
+     */
+    private final Set<Path> spooledFiles = ConcurrentHashMap.newKeySet();
+    private final long maxBytes;
+    private final long syncThresholdBytes;
+    private final long syncTimeoutMs;
+
+    private final Counter rejectedCounter;
+
+    public CoverUploadService(ImageStorage imageStorage,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.uploads.threads:2}") int threads,
+                              @Value("${app.uploads.queue-capacity:8}") int queueCapacity,
+                              @Value("${app.uploads.spool-dir:${java.io.tmpdir}}") String spoolDir,
+                              @Value("${app.uploads.max-bytes:20971520}") long maxBytes,
+                              @Value("${app.uploads.sync-threshold-bytes:1048576}") long syncThresholdBytes,
+                              @Value("${app.uploads.sync-timeout-ms:10000}") long syncTimeoutMs,
+                              @Value("${app.uploads.status-ttl-ms:3600000}") long statusTtlMs) throws IOException {
+        this.imageStorage = imageStorage;
+        this.spoolDir = Files.createDirectories(Path.of(spoolDir));
+        purgeStaleSpool(statusTtlMs);
+        this.maxBytes = maxBytes;
+        this.syncThresholdBytes = syncThresholdBytes;
+        this.syncTimeoutMs = syncTimeoutMs;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                threads, threads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "cover-upload-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.executor = ExecutorServiceMetrics.monitor(meterRegistry, pool, "cover.upload");
+        this.statuses = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(statusTtlMs))
+                .build();
+        this.rejectedCounter = Counter.builder("cover.upload.rejected")
+                .description("Số lần tải ảnh bìa bị từ chối do quá tải")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Nhận một ảnh bìa và đưa vào hàng đợi tải lên.
+     *
+     * @param file Ảnh trong request multipart.
+     * @return Trạng thái lần tải: {@code DONE}/{@code FAILED} nếu ảnh nhỏ và đã tải xong, ngược lại {@code PENDING}.
+     * @throws BadRequestException Nếu ảnh vượt quá kích thước cho phép.
+     * @throws TooManyRequestsException Nếu hàng đợi tải lên đã đầy.
+     */
+    public CoverUploadStatus submit(MultipartFile file) throws IOException {
+        long size = file.getSize();
+        if (size > maxBytes) {
+            throw new BadRequestException("Ảnh vượt quá kích thước tối đa " + maxBytes + " byte");
+        }
+
+        Path spooled = Files.createTempFile(spoolDir, SPOOL_PREFIX, SPOOL_SUFFIX);
+        spooledFiles.add(spooled);
+        try {
+            file.transferTo(spooled);
+        } catch (IOException | RuntimeException e) {
+            deleteSpooled(spooled);
+            throw e;
+        }
+
+        String uploadId = UUID.randomUUID().toString();
+        String contentType = file.getContentType();
+        statuses.put(uploadId, new CoverUploadStatus(uploadId, CoverUploadStatus.State.PENDING, size, null, null));
+
+        Future<?> future;
+        try {
+            future = executor.submit(() -> upload(uploadId, spooled, contentType, size));
+        } catch (RejectedExecutionException e) {
+            statuses.invalidate(uploadId);
+            deleteSpooled(spooled);
+            rejectedCounter.increment();
+            throw new TooManyRequestsException("Hệ thống đang bận, vui lòng thử lại sau");
+        }
+
+        if (size <= syncThresholdBytes) {
+            try {
+                future.get(syncTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                logger.debug("Upload {} still running after {} ms, returning pending status", uploadId, syncTimeoutMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                // upload() tự ghi lỗi vào trạng thái
+                logger.debug("Upload {} failed", uploadId, e.getCause());
+            }
+        }
+        return status(uploadId);
+    }
+
+    /**
+     * Trạng thái của một lần tải, null nếu không tồn tại hoặc đã hết hạn.
+     */
+    public CoverUploadStatus status(String uploadId) {
+        return statuses.getIfPresent(uploadId);
+    }
+
+    private void upload(String uploadId, Path spooled, String contentType, long size) {
+        try {
+            String url = imageStorage.store(spooled, contentType);
+            statuses.put(uploadId, new CoverUploadStatus(uploadId, CoverUploadStatus.State.DONE, size, url, null));
+        } catch (Exception e) {
+            logger.error("Error uploading book cover {}", uploadId, e);
+            statuses.put(uploadId, new CoverUploadStatus(uploadId, CoverUploadStatus.State.FAILED, size, null,
+                    e.getMessage()));
+        } finally {
+            deleteSpooled(spooled);
+        }
+    }
+
+    private void deleteSpooled(Path spooled) {
+        try {
+            Files.deleteIfExists(spooled);
+            spooledFiles.remove(spooled);
+        } catch (IOException e) {
+            logger.warn("Could not delete spooled upload {}", spooled, e);
+        }
+    }
+
+    /**
+     * Xóa file tạm cũ hơn {@code olderThanMs} do lần chạy trước để lại.
+     */
+    private void purgeStaleSpool(long olderThanMs) {
+        long cutoff = System.currentTimeMillis() - olderThanMs;
+        int purged = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spoolDir, SPOOL_PREFIX + "*" + SPOOL_SUFFIX)) {
+            for (Path file : files) {
+                try {
+                    if (Files.getLastModifiedTime(file).toMillis() < cutoff && Files.deleteIfExists(file)) {
+                        purged++;
+                    }
+                } catch (IOException e) {
+                    logger.warn("Could not delete stale spooled upload {}", file, e);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Could not list spool directory {}", spoolDir, e);
+        }
+        if (purged > 0) {
+            logger.info("Deleted {} stale spooled cover uploads from {}", purged, spoolDir);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        List<Runnable> pending = executor.shutdownNow();
+        if (!pending.isEmpty()) {
+            logger.warn("Discarded {} pending cover uploads on shutdown", pending.size());
+        }
+        try {
+            // Lần tải đang chạy bị ngắt vẫn tự xóa file của nó trong upload()
+            executor.awaitTermination(SHUTDOWN_WAIT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Tác vụ bị bỏ khỏi hàng đợi không bao giờ chạy tới upload(), nên file tạm của chúng được xóa tại đây
+        for (Path spooled : spooledFiles) {
+            deleteSpooled(spooled);
+        }
+    }
+}
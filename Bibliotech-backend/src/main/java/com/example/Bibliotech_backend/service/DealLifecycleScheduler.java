@@ -0,0 +1,286 @@
+package com.example.Bibliotech_backend.service;
+
+import com.example.Bibliotech_backend.event.DealChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Bật/tắt deal đúng thời điểm và áp giá sau giảm cho các sách gắn với deal.
+ * <p>
+ * Một deal có hiệu lực khi {@code is_active} và ngày hiện tại nằm trong [start_date, end_date]. Mốc của deal
+ * là 0 giờ ngày bắt đầu và 0 giờ ngày sau ngày kết thúc, theo múi giờ {@code app.deals.zone}. Bộ lập lịch
+ * chỉ hẹn một lần chạy tại mốc gần nhất trong tương lai; mỗi lần chạy đối chiếu lại toàn bộ deal rồi hẹn
+ * mốc tiếp theo, nên không cần quét định kỳ.
+ * </p>
+ * <p>
+ * Giá được áp theo tập hợp: một câu UPDATE cho mỗi deal (gửi chung một batch JDBC) tính
+ * {@code discounted_price} từ {@code original_price} và {@code discount_percentage}, chỉ ghi các dòng có giá
+ * khác đi, nên hàng chục nghìn sách của một deal được cập nhật trong một lượt và chạy lại nhiều lần (hoặc
+ * trên nhiều instance) không gây thay đổi thừa. Sách không gắn deal giữ nguyên giá giảm nhập tay.
+ * </p>
+ * <p>
+ * Sách được gắn deal khi thêm, sửa hoặc nhập hàng loạt nhận ngay giá của deal qua {@link #dealPrice} hoặc
+ * {@link #discountsInEffect}, không phải chờ mốc tiếp theo. Lượt đối chiếu chỉ xóa giá giảm của deal vừa hết
+ * hạn (còn bật nhưng đã qua ngày kết thúc), không xóa của mọi deal ngoài hiệu lực: giá giảm nhập tay của
+ * sách gắn deal chưa bắt đầu hoặc đã tắt từ trước vẫn được giữ khi triển khai lần đầu. Deal bị admin tắt hoặc
+ * dời ngày thì giá được xóa ngay lúc sửa qua {@link #applyDeal}.
+ * </p>
+ */
+@Service
+public class DealLifecycleScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(DealLifecycleScheduler.class);
+
+    private static final String SELECT_DEALS = "SELECT deal_id, discount_percentage, start_date, end_date, is_active FROM Deals";
+
+    private static final String APPLY_DISCOUNT = "UPDATE Books SET discounted_price = ROUND(original_price * (100 - ?) / 100, 2) "
+            + "WHERE deal_id = ? AND NOT (discounted_price <=> ROUND(original_price * (100 - ?) / 100, 2))";
+
+    private static final String CLEAR_DISCOUNT = "UPDATE Books SET discounted_price = NULL "
+            + "WHERE deal_id = ? AND discounted_price IS NOT NULL";
+
+    private static final String EXPIRE_DEALS = "UPDATE Deals SET is_active = FALSE WHERE is_active = TRUE AND end_date < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TaskScheduler taskScheduler;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final ZoneId zone;
+
+    /**
+     * Lần chạy đã hẹn tại mốc gần nhất; được hủy và hẹn lại khi deal thay đổi.
+     */
+    private ScheduledFuture<?> nextRun;
+
+    public DealLifecycleScheduler(JdbcTemplate jdbcTemplate,
+                                  TaskScheduler taskScheduler,
+                                  ApplicationEventPublisher eventPublisher,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${app.deals.zone:}") String zone) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.taskScheduler = taskScheduler;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.zone = StringUtils.hasText(zone) ? ZoneId.of(zone) : ZoneId.systemDefault();
+    }
+
+    /**
+     * Đối chiếu giá khi khởi động (bù các mốc đã lỡ trong lúc ứng dụng tắt) và hẹn mốc đầu tiên.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onBoundary() {
+        try {
+            LocalDate today = LocalDate.now(zone);
+            transactionTemplate.executeWithoutResult(status -> {
+                List<DealState> deals = loadDeals("");
+                int expired = jdbcTemplate.update(EXPIRE_DEALS, Date.valueOf(today));
+                int repriced = applyPrices(deals, today, false);
+                logger.info("Reconciled {} deals for {}: {} expired, {} books repriced", deals.size(), today, expired, repriced);
+            });
+        } catch (RuntimeException e) {
+            logger.error("Could not apply deal prices", e);
+        }
+        scheduleNext();
+    }
+
+    /**
+     * Áp lại giá cho các sách của một deal vừa được sửa, trong transaction của người gọi. Chỉ dùng các giá trị
+     * được truyền vào nên không cần flush thay đổi của deal trước.
+     *
+     * @return Số sách có giá thay đổi.
+     */
+    public int applyDeal(Integer dealId, BigDecimal discountPercentage, LocalDate startDate, LocalDate endDate,
+                         Boolean isActive) {
+        DealState deal = new DealState(dealId, discountPercentage, startDate, endDate, Boolean.TRUE.equals(isActive));
+        return applyPrices(List.of(deal), LocalDate.now(zone), true);
+    }
+
+    /**
+     * Giá sau giảm của một sách gắn với deal tại thời điểm ghi sách.
+     *
+     * @return Giá theo deal nếu deal đang có hiệu lực; null nếu deal không tồn tại hoặc ngoài hiệu lực.
+     */
+    public BigDecimal dealPrice(Integer dealId, BigDecimal originalPrice) {
+        LocalDate today = LocalDate.now(zone);
+        for (DealState deal : loadDeals(" WHERE deal_id = ?", dealId)) {
+            if (deal.isInEffect(today)) {
+                return discountedPrice(originalPrice, deal.discountPercentage);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Phần trăm giảm của các deal đang có hiệu lực, theo dealId; dùng khi ghi nhiều sách một lượt.
+     */
+    public Map<Integer, BigDecimal> discountsInEffect() {
+        LocalDate today = LocalDate.now(zone);
+        Map<Integer, BigDecimal> discounts = new HashMap<>();
+        for (DealState deal : loadDeals("")) {
+            if (deal.isInEffect(today)) {
+                discounts.put(deal.dealId, deal.discountPercentage);
+            }
+        }
+        return discounts;
+    }
+
+    /**
+     * Tính giá sau giảm giống {@code ROUND(original_price * (100 - ?) / 100, 2)} của {@link #APPLY_DISCOUNT}.
+     */
+    public static BigDecimal discountedPrice(BigDecimal originalPrice, BigDecimal discountPercentage) {
+        if (originalPrice == null || discountPercentage == null) {
+            return null;
+        }
+        return originalPrice.multiply(BigDecimal.valueOf(100).subtract(discountPercentage))
+                .movePointLeft(2)
+                .setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Deal được thêm hoặc sửa có thể làm đổi mốc gần nhất; hẹn lại sau khi transaction đã commit.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDealChanged(DealChangedEvent event) {
+        scheduleNext();
+    }
+
+    /**
+     * Gửi các câu UPDATE của từng deal trong một batch và phát {@link DealChangedEvent} cho deal có sách
+     * đổi giá, để các bộ đệm làm mới sau khi commit.
+     *
+     * @param clearInactive true để xóa giá giảm của mọi deal ngoài hiệu lực (deal vừa được sửa); false để chỉ
+     *                      xóa của deal vừa hết hạn (lượt đối chiếu theo mốc).
+     */
+    private int applyPrices(List<DealState> deals, LocalDate today, boolean clearInactive) {
+        if (deals.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> discounts = new ArrayList<>();
+        List<Object[]> clears = new ArrayList<>();
+        List<DealState> discounted = new ArrayList<>();
+        List<DealState> cleared = new ArrayList<>();
+        for (DealState deal : deals) {
+            if (deal.isInEffect(today)) {
+                discounts.add(new Object[]{deal.discountPercentage, deal.dealId, deal.discountPercentage});
+                discounted.add(deal);
+            } else if (clearInactive || deal.hasJustExpired(today)) {
+                clears.add(new Object[]{deal.dealId});
+                cleared.add(deal);
+            }
+        }
+
+        int total = 0;
+        total += publishChanges(discounted, discounts.isEmpty() ? new int[0] : jdbcTemplate.batchUpdate(APPLY_DISCOUNT, discounts));
+        total += publishChanges(cleared, clears.isEmpty() ? new int[0] : jdbcTemplate.batchUpdate(CLEAR_DISCOUNT, clears));
+        return total;
+    }
+
+    private int publishChanges(List<DealState> deals, int[] updated) {
+        int total = 0;
+        for (int i = 0; i < updated.length; i++) {
+            // Driver có thể trả SUCCESS_NO_INFO (-2) khi gộp batch; coi như có thay đổi
+            if (updated[i] != 0) {
+                eventPublisher.publishEvent(new DealChangedEvent(deals.get(i).dealId, Math.max(updated[i], 1)));
+                total += Math.max(updated[i], 0);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Hẹn lần chạy tại mốc gần nhất sau thời điểm hiện tại, thay cho lần hẹn trước đó.
+     */
+    private synchronized void scheduleNext() {
+        if (nextRun != null) {
+            nextRun.cancel(false);
+            nextRun = null;
+        }
+        Instant next;
+        try {
+            next = nextBoundary(loadDeals(""), LocalDate.now(zone));
+        } catch (RuntimeException e) {
+            logger.error("Could not compute next deal boundary", e);
+            return;
+        }
+        if (next != null) {
+            nextRun = taskScheduler.schedule(this::onBoundary, next);
+            logger.debug("Next deal boundary at {}", next);
+        }
+    }
+
+    private Instant nextBoundary(List<DealState> deals, LocalDate today) {
+        LocalDate next = null;
+        for (DealState deal : deals) {
+            if (!deal.isActive) {
+                continue;
+            }
+            LocalDate boundary = deal.startDate.isAfter(today) ? deal.startDate
+                    : !deal.endDate.isBefore(today) ? deal.endDate.plusDays(1) : null;
+            if (boundary != null && (next == null || boundary.isBefore(next))) {
+                next = boundary;
+            }
+        }
+        return next != null ? next.atStartOfDay(zone).toInstant() : null;
+    }
+
+    private List<DealState> loadDeals(String filter, Object... args) {
+        return jdbcTemplate.query(SELECT_DEALS + filter, (rs, rowNum) -> new DealState(
+                rs.getInt("deal_id"),
+                rs.getBigDecimal("discount_percentage"),
+                rs.getDate("start_date").toLocalDate(),
+                rs.getDate("end_date").toLocalDate(),
+                rs.getBoolean("is_active")), args);
+    }
+
+    /**
+     * Các cột của một deal cần để tính giá và mốc thời gian.
+     */
+    private static final class DealState {
+        final Integer dealId;
+        final BigDecimal discountPercentage;
+        final LocalDate startDate;
+        final LocalDate endDate;
+        final boolean isActive;
+
+        DealState(Integer dealId, BigDecimal discountPercentage, LocalDate startDate, LocalDate endDate, boolean isActive) {
+            this.dealId = dealId;
+            this.discountPercentage = discountPercentage;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.isActive = isActive;
+        }
+
+        boolean isInEffect(LocalDate today) {
+            return isActive && !today.isBefore(startDate) && !today.isAfter(endDate);
+        }
+
+        /**
+         * Deal còn bật nhưng đã qua ngày kết thúc: {@link #EXPIRE_DEALS} sẽ tắt nó trong lượt đối chiếu này.
+         */
+        boolean hasJustExpired(LocalDate today) {
+            return isActive && today.isAfter(endDate);
+        }
+    }
+}
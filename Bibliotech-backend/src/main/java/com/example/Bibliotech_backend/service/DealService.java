@@ -2,12 +2,14 @@ package com.example.Bibliotech_backend.service;
 
 import com.example.Bibliotech_backend.dto.CategoryRequest;
 import com.example.Bibliotech_backend.dto.DealDTO;
+import com.example.Bibliotech_backend.event.DealChangedEvent;
 import com.example.Bibliotech_backend.model.Category;
 import com.example.Bibliotech_backend.model.Deal;
 import com.example.Bibliotech_backend.repository.DealRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,6 +22,12 @@ public class DealService {
 
     @Autowired
     private DealRepository dealRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private DealLifecycleScheduler dealLifecycleScheduler;
     private static final Logger logger = LoggerFactory.getLogger(CategoryService.class);
     private final IdGeneratorService idGeneratorService;
 
@@ -57,10 +65,13 @@ public class DealService {
         deal.setEndDate(dealRequest.getEndDate());
         deal.setIsActive(dealRequest.getIsActive());
 
-        return dealRepository.save(deal);
+        Deal saved = dealRepository.save(deal);
+        eventPublisher.publishEvent(new DealChangedEvent(dealID));
+        return saved;
     }
 
 
+    @Transactional
     public Optional<Deal> updateDeal(Integer dealId, Deal dealDetails) {
         return dealRepository.findById(dealId).map(deal -> {
             deal.setDealName(dealDetails.getDealName());
@@ -68,7 +79,14 @@ public class DealService {
             deal.setStartDate(dealDetails.getStartDate());
             deal.setEndDate(dealDetails.getEndDate());
             deal.setIsActive(dealDetails.getIsActive());
-            return dealRepository.save(deal);
+            Deal saved = dealRepository.save(deal);
+            int repriced = dealLifecycleScheduler.applyDeal(dealId, saved.getDiscountPercentage(),
+                    saved.getStartDate(), saved.getEndDate(), saved.getIsActive());
+            if (repriced == 0) {
+                // Giá không đổi nhưng tên, thời hạn của deal vẫn cần làm mới ở bộ đệm
+                eventPublisher.publishEvent(new DealChangedEvent(dealId));
+            }
+            return saved;
         });
     }
 }
\ No newline at end of file
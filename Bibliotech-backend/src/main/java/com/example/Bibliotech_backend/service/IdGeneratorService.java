@@ -1,230 +1,292 @@
 package com.example.Bibliotech_backend.service;
 
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
-import jakarta.persistence.Query;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.concurrent.locks.ReentrantLock;
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Dịch vụ sinh ID tự động cho các bảng trong cơ sở dữ liệu.
  * <p>
- * Lớp này sử dụng {@link ReentrantLock} để đảm bảo tính đồng bộ khi tạo ID mới.
- * Phương thức của lớp sẽ lấy ID lớn nhất hiện có trong bảng và tăng lên 1 để tạo ID tiếp theo.
+ * ID được cấp phát theo từng khối (hi/lo segment). Mỗi bảng có một dòng trong bảng
+ * {@code IdSequences} lưu giá trị ID tiếp theo chưa được giữ chỗ. Khi khối hiện tại trong bộ nhớ
+ * hết, node sẽ giữ chỗ khối mới bằng {@code SELECT ... FOR UPDATE} trong một transaction riêng,
+ * nên nhiều node chạy song song không bao giờ nhận trùng ID.
+ * </p>
+ * <p>
+ * Việc giữ chỗ khối chạy trên một pool kết nối nhỏ riêng ({@code app.id-sequence.pool-size}), không lấy từ
+ * pool chính: luồng gọi thường đang giữ một kết nối của pool chính trong transaction của nó, nên nếu lần nạp
+ * khối cũng phải chờ pool chính thì khi pool cạn, luồng nạp khối (đang giữ khóa của bảng) và các luồng chờ
+ * khóa đó sẽ chờ lẫn nhau tới khi hết thời gian chờ kết nối.
+ * </p>
+ * <p>
+ * Trong một khối, ID được cấp bằng {@link AtomicLong#getAndIncrement()} nên không cần khóa;
+ * chỉ luồng phát hiện khối đã hết mới phải chờ để nạp khối tiếp theo.
  * </p>
  */
 @Service
 public class IdGeneratorService {
+    private static final Logger logger = LoggerFactory.getLogger(IdGeneratorService.class);
+
+    /**
+     * Số ID được giữ chỗ mỗi lần truy cập bảng IdSequences.
+     */
+    @Value("${app.id-sequence.block-size:50}")
+    private int blockSize;
+
     /**
-     * Khóa đồng bộ để đảm bảo chỉ một luồng có thể tạo ID tại một thời điểm.
+     * Pool kết nối riêng do service này tạo ra và đóng; {@code null} khi DataSource được truyền từ ngoài vào.
      */
-    private final ReentrantLock lock = new ReentrantLock();
+    private final HikariDataSource allocationPool;
+
+    private final JdbcTemplate jdbcTemplate;
 
     /**
-     * EntityManager dùng để thực hiện truy vấn cơ sở dữ liệu.
+     * Transaction trên DataSource riêng cho việc giữ chỗ khối ID, độc lập với transaction của người gọi,
+     * để khóa dòng được nhả ngay và khối đã cấp không bị rollback cùng người gọi.
      */
-    @PersistenceContext
-    private EntityManager entityManager;
+    private final TransactionTemplate allocationTransaction;
+
+    /**
+     * Khối ID hiện tại của từng bảng.
+     */
+    private final ConcurrentMap<String, SequenceHolder> sequences = new ConcurrentHashMap<>();
+
+    @Autowired
+    public IdGeneratorService(DataSourceProperties dataSourceProperties,
+                              @Value("${app.id-sequence.pool-size:2}") int poolSize) {
+        this(createAllocationPool(dataSourceProperties, poolSize), true);
+    }
+
+    /**
+     * Dùng DataSource có sẵn cho việc giữ chỗ khối; service không đóng DataSource này.
+     */
+    IdGeneratorService(DataSource allocationDataSource) {
+        this(allocationDataSource, false);
+    }
+
+    private IdGeneratorService(DataSource allocationDataSource, boolean owned) {
+        this.allocationPool = owned ? (HikariDataSource) allocationDataSource : null;
+        this.jdbcTemplate = new JdbcTemplate(allocationDataSource);
+        this.allocationTransaction = new TransactionTemplate(new DataSourceTransactionManager(allocationDataSource));
+    }
+
+    private static HikariDataSource createAllocationPool(DataSourceProperties properties, int poolSize) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        pool.setPoolName("id-sequence");
+        pool.setMaximumPoolSize(poolSize);
+        pool.setMinimumIdle(0);
+        return pool;
+    }
+
+    @PreDestroy
+    void close() {
+        if (allocationPool != null) {
+            allocationPool.close();
+        }
+    }
 
     /**
      * Tạo một ID mới cho người dùng.
-     * <p>
-     * Phương thức này lấy ID lớn nhất hiện có trong bảng "Users" và tăng lên 1.
-     * Quá trình này được bảo vệ bằng {@link ReentrantLock} để tránh điều kiện tranh chấp (race condition).
-     * </p>
      *
      * @return ID mới của người dùng.
      */
-    @Transactional
     public int generateUserId() {
-        lock.lock(); // Khóa để đảm bảo an toàn luồng
-        try {
-            Query query = entityManager.createNativeQuery(
-                    "SELECT COALESCE(MAX(user_id), 0) FROM Users"
-            );
-            Number result = (Number) query.getSingleResult();
-            return result.intValue() + 1;
-        } finally {
-            lock.unlock(); // Mở khóa để giải phóng tài nguyên
-        }
+        return nextId("Users", "user_id");
     }
 
     /**
      * Tạo một ID mới cho sách.
-     * <p>
-     * Phương thức này tìm ID lớn nhất trong bảng "Books" và tăng lên 1.
-     * Được bảo vệ bằng {@link ReentrantLock} để đảm bảo tính đồng bộ.
-     * </p>
      *
      * @return ID mới của sách.
      */
-    @Transactional
     public int generateBookId() {
-        lock.lock(); // Khóa trước khi thực hiện truy vấn
-        try {
-            Query query = entityManager.createNativeQuery(
-                    "SELECT COALESCE(MAX(book_id), 0) FROM Books"
-            );
-            Number result = (Number) query.getSingleResult();
-            return result.intValue() + 1;
-        } finally {
-            lock.unlock(); // Mở khóa để đảm bảo các luồng khác có thể tiếp tục
-        }
+        return nextId("Books", "book_id");
     }
 
     /**
      * Tạo một ID mới cho danh mục.
-     * <p>
-     * Phương thức này tìm ID lớn nhất trong bảng "Categories" và tăng lên 1.
-     * Được bảo vệ bằng {@link ReentrantLock} để đảm bảo tính đồng bộ.
-     * </p>
      *
      * @return ID mới của danh mục.
      */
-    @Transactional
     public int generateCategoryId() {
-        lock.lock(); // Đảm bảo không có hai luồng nào truy cập cùng lúc
-        try {
-            Query query = entityManager.createNativeQuery(
-                    "SELECT COALESCE(MAX(category_id), 0) FROM Categories"
-            );
-            Number result = (Number) query.getSingleResult();
-            return result.intValue() + 1;
-        } finally {
-            lock.unlock(); // Mở khóa ngay khi xong để tránh deadlock
-        }
+        return nextId("Categories", "category_id");
     }
 
     /**
      * Tạo một ID mới cho cultivation level.
-     * <p>
-     * Phương thức này tìm ID lớn nhất trong bảng "CultivationLevels" và tăng lên 1.
-     * Được bảo vệ bằng {@link ReentrantLock} để đảm bảo tính đồng bộ.
-     * </p>
      *
      * @return ID mới của cultivation level.
      */
-    @Transactional
     public int generateCultivationLevelId() {
-        lock.lock(); // Đảm bảo không có hai luồng nào truy cập cùng lúc
-        try {
-            Query query = entityManager.createNativeQuery(
-                    "SELECT COALESCE(MAX(level_id), 0) FROM CultivationLevels"
-            );
-            Number result = (Number) query.getSingleResult();
-            return result.intValue() + 1;
-        } finally {
-            lock.unlock(); // Mở khóa ngay khi xong để tránh deadlock
-        }
+        return nextId("CultivationLevels", "level_id");
     }
 
     /**
      * Generate a new ID for deals.
-     * <p>
-     * This method finds the highest ID in the "Deals" table and increments it by 1.
-     * Protected by {@link ReentrantLock} to ensure thread safety.
-     * </p>
      *
      * @return New ID for deals.
      */
-    @Transactional
     public int generateDealId() {
-        lock.lock(); // Ensure no two threads access this at the same time
-        try {
-            Query query = entityManager.createNativeQuery(
-                    "SELECT COALESCE(MAX(deal_id), 0) FROM Deals"
-            );
-            Number result = (Number) query.getSingleResult();
-            return result.intValue() + 1;
-        } finally {
-            lock.unlock(); // Unlock to allow other threads to proceed
-        }
+        return nextId("Deals", "deal_id");
     }
 
     /**
      * Tạo một ID mới cho giao dịch.
-     * <p>
-     * Phương thức này tìm ID lớn nhất trong bảng "Transactions" và tăng lên 1.
-     * Được bảo vệ bằng {@link ReentrantLock} để đảm bảo tính đồng bộ.
-     * </p>
      *
      * @return ID mới của giao dịch.
      */
-    @Transactional
     public int generateTransactionId() {
-        lock.lock(); // Khóa để đảm bảo an toàn luồng
-        try {
-            Query query = entityManager.createNativeQuery(
-                    "SELECT COALESCE(MAX(transaction_id), 0) FROM Transactions"
-            );
-            Number result = (Number) query.getSingleResult();
-            return result.intValue() + 1;
-        } finally {
-            lock.unlock(); // Mở khóa để giải phóng tài nguyên
-        }
+        return nextId("Transactions", "transaction_id");
     }
 
     /**
      * Tạo một ID mới cho phương thức thanh toán.
-     * <p>
-     * Phương thức này tìm ID lớn nhất trong bảng "PaymentMethods" và tăng lên 1.
-     * Được bảo vệ bằng {@link ReentrantLock} để đảm bảo tính đồng bộ.
-     * </p>
      *
      * @return ID mới của phương thức thanh toán.
      */
-    @Transactional
     public int generatePaymentMethodId() {
-        lock.lock(); // Đảm bảo không có hai luồng nào truy cập cùng lúc
-        try {
-            Query query = entityManager.createNativeQuery(
-                    "SELECT COALESCE(MAX(payment_method_id), 0) FROM PaymentMethods"
-            );
-            Number result = (Number) query.getSingleResult();
-            return result.intValue() + 1;
-        } finally {
-            lock.unlock(); // Mở khóa ngay khi xong để tránh deadlock
-        }
+        return nextId("PaymentMethods", "payment_method_id");
     }
 
     /**
      * Tạo một ID mới cho gói Premium.
-     * <p>
-     * Phương thức này tìm ID lớn nhất trong bảng "PremiumPackages" và tăng lên 1.
-     * Được bảo vệ bằng {@link ReentrantLock} để đảm bảo tính đồng bộ.
-     * </p>
      *
      * @return ID mới của gói Premium.
      */
-    @Transactional
     public int generatePremiumPackageId() {
-        lock.lock(); // Đảm bảo không có hai luồng nào truy cập cùng lúc
-        try {
-            Query query = entityManager.createNativeQuery(
-                    "SELECT COALESCE(MAX(package_id), 0) FROM PremiumPackages"
-            );
-            Number result = (Number) query.getSingleResult();
-            return result.intValue() + 1;
-        } finally {
-            lock.unlock(); // Mở khóa ngay khi xong để tránh deadlock
-        }
+        return nextId("PremiumPackages", "package_id");
     }
 
-    //
-    @Transactional
+    /**
+     * Tạo một ID mới cho mục wishlist.
+     *
+     * @return ID mới của mục wishlist.
+     */
     public int generateWishlistId() {
-        lock.lock(); // Đảm bảo không có hai luồng nào truy cập cùng lúc
-        try {
-            Query query = entityManager.createNativeQuery(
-                    "SELECT COALESCE(MAX(wishlist_id), 0) FROM Wishlist"
-            );
-            Number result = (Number) query.getSingleResult();
-            return result.intValue() + 1;
-        } finally {
-            lock.unlock(); // Mở khóa ngay khi xong để tránh deadlock
+        return nextId("Wishlist", "wishlist_id");
+    }
+
+    /**
+     * Giữ chỗ một khối ID sách liên tiếp, dùng cho nhập hàng loạt.
+     * <p>
+     * Khối được giữ chỗ trực tiếp trong IdSequences, tách khỏi khối đang dùng của {@link #generateBookId()},
+     * nên một lần nhập lớn chỉ tốn một lần truy cập bảng IdSequences cho mỗi khối.
+     * </p>
+     *
+     * @param count Số ID cần giữ chỗ.
+     * @return ID đầu tiên; các ID từ đó tới {@code start + count - 1} thuộc về người gọi.
+     */
+    public int reserveBookIds(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("count must be positive");
         }
+        long start = reserveBlock("Books", "book_id", count);
+        if (start + count - 1 > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Book ID space exhausted");
+        }
+        return (int) start;
     }
-}
 
+    private int nextId(String table, String idColumn) {
+        return sequences.computeIfAbsent(table, name -> new SequenceHolder(name, idColumn)).next();
+    }
+
+    /**
+     * Giữ chỗ {@code count} ID liên tiếp cho bảng và trả về ID đầu tiên của khối.
+     * <p>
+     * Giá trị bắt đầu luôn lớn hơn MAX(id) hiện có, nên các dòng được chèn ngoài ứng dụng
+     * (script, dữ liệu mẫu) cũng không gây trùng khóa chính.
+     * </p>
+     */
+    private long reserveBlock(String table, String idColumn, int count) {
+        Long start = allocationTransaction.execute(status -> {
+            List<Long> current = jdbcTemplate.queryForList(
+                    "SELECT next_value FROM IdSequences WHERE sequence_name = ? FOR UPDATE",
+                    Long.class, table);
+
+            if (current.isEmpty()) {
+                // Lần đầu: khởi tạo từ MAX(id) của bảng. INSERT IGNORE để node khác chèn trước cũng không lỗi.
+                jdbcTemplate.update(
+                        "INSERT IGNORE INTO IdSequences (sequence_name, next_value, updated_at) " +
+                                "SELECT ?, COALESCE(MAX(" + idColumn + "), 0) + 1, NOW() FROM " + table,
+                        table);
+                current = jdbcTemplate.queryForList(
+                        "SELECT next_value FROM IdSequences WHERE sequence_name = ? FOR UPDATE",
+                        Long.class, table);
+            }
+
+            Long maxExisting = jdbcTemplate.queryForObject(
+                    "SELECT COALESCE(MAX(" + idColumn + "), 0) FROM " + table, Long.class);
+            long blockStart = Math.max(current.get(0), maxExisting + 1);
+
+            jdbcTemplate.update(
+                    "UPDATE IdSequences SET next_value = ?, updated_at = NOW() WHERE sequence_name = ?",
+                    blockStart + count, table);
+            return blockStart;
+        });
+
+        logger.debug("Reserved ID block [{}, {}) for table {}", start, start + count, table);
+        return start;
+    }
+
+    /**
+     * Khối ID đã giữ chỗ: cấp phát trong khoảng [cursor, end).
+     */
+    private static final class Segment {
+        private static final Segment EMPTY = new Segment(0, 0);
+
+        private final AtomicLong cursor;
+        private final long end;
+
+        private Segment(long start, long end) {
+            this.cursor = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+
+    /**
+     * Trạng thái cấp phát ID của một bảng.
+     */
+    private final class SequenceHolder {
+        private final String table;
+        private final String idColumn;
+        private volatile Segment current = Segment.EMPTY;
+
+        private SequenceHolder(String table, String idColumn) {
+            this.table = table;
+            this.idColumn = idColumn;
+        }
+
+        private int next() {
+            while (true) {
+                Segment segment = current;
+                long id = segment.cursor.getAndIncrement();
+                if (id < segment.end) {
+                    return Math.toIntExact(id);
+                }
+
+                // Khối đã hết: chỉ một luồng nạp khối mới (qua pool riêng), các luồng khác thử lại với khối đó
+                synchronized (this) {
+                    if (current == segment) {
+                        long start = reserveBlock(table, idColumn, blockSize);
+                        current = new Segment(start, start + blockSize);
+                    }
+                }
+            }
+        }
+    }
+}
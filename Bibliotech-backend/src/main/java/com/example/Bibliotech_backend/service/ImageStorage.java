@@ -0,0 +1,32 @@
+package com.example.Bibliotech_backend.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Nơi lưu ảnh (ảnh bìa sách).
+ * <p>
+ * Triển khai được chọn theo {@code app.storage.type}: {@code cloudinary} (mặc định) hoặc {@code local} để chạy
+ * và kiểm thử tải mà không cần mạng. Ảnh luôn được đọc từ file trên đĩa, nên triển khai có thể gửi theo luồng
+ * mà không phải nạp toàn bộ ảnh vào heap.
+ * </p>
+ */
+public interface ImageStorage {
+
+    /**
+     * Lưu ảnh từ một file tạm. Triển khai có thể di chuyển file; bên gọi vẫn phải xóa file nếu nó còn tồn tại.
+     *
+     * @param file File ảnh đã ghi xong trên đĩa.
+     * @param contentType Kiểu nội dung của ảnh.
+     * @return URL công khai của ảnh.
+     */
+    String store(Path file, String contentType) throws IOException;
+
+    /**
+     * Xóa ảnh theo URL do {@link #store} trả về. URL không thuộc nơi lưu này hoặc ảnh đã bị xóa được bỏ qua,
+     * nên gọi lại nhiều lần vẫn an toàn.
+     *
+     * @param url URL của ảnh.
+     */
+    void delete(String url) throws IOException;
+}
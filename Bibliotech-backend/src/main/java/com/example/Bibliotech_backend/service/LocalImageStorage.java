@@ -0,0 +1,91 @@
+package com.example.Bibliotech_backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+/**
+ * Lưu ảnh trên ổ đĩa cục bộ ({@code app.storage.type=local}), dùng khi chạy hoặc kiểm thử tải không có mạng.
+ * <p>
+ * Ảnh được chuyển vào thư mục {@code app.storage.local.root} với tên ngẫu nhiên. URL trả về là
+ * {@code app.storage.local.base-url} cộng tên file nếu có cấu hình, ngược lại là URI {@code file:} của ảnh.
+ * </p>
+ */
+@Service
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "local")
+public class LocalImageStorage implements ImageStorage {
+    private static final Logger logger = LoggerFactory.getLogger(LocalImageStorage.class);
+
+    private final Path root;
+    private final String baseUrl;
+
+    public LocalImageStorage(@Value("${app.storage.local.root:${java.io.tmpdir}/bibliotech-images}") String root,
+                             @Value("${app.storage.local.base-url:}") String baseUrl) throws IOException {
+        this.root = Files.createDirectories(Path.of(root)).toAbsolutePath().normalize();
+        this.baseUrl = StringUtils.hasText(baseUrl) && !baseUrl.endsWith("/") ? baseUrl + "/" : baseUrl;
+        logger.info("Storing images on local disk under {}", this.root);
+    }
+
+    @Override
+    public String store(Path file, String contentType) throws IOException {
+        Path target = root.resolve(UUID.randomUUID() + extensionOf(contentType));
+        Files.move(file, target);
+        logger.debug("Stored image {} ({} bytes)", target.getFileName(), Files.size(target));
+        return StringUtils.hasText(baseUrl) ? baseUrl + target.getFileName() : target.toUri().toString();
+    }
+
+    @Override
+    public void delete(String url) throws IOException {
+        Path file = resolve(url);
+        if (file == null) {
+            logger.debug("Not a local image URL: {}", url);
+            return;
+        }
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * File ứng với URL, null nếu URL không trỏ vào thư mục lưu ảnh.
+     */
+    private Path resolve(String url) {
+        if (!StringUtils.hasText(url)) {
+            return null;
+        }
+        Path file;
+        if (StringUtils.hasText(baseUrl) && url.startsWith(baseUrl)) {
+            file = root.resolve(url.substring(baseUrl.length()));
+        } else if (url.startsWith("file:")) {
+            try {
+                file = Path.of(URI.create(url));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        } else {
+            return null;
+        }
+        file = file.toAbsolutePath().normalize();
+        return file.startsWith(root) && !file.equals(root) ? file : null;
+    }
+
+    private static String extensionOf(String contentType) {
+        if (contentType == null) {
+            return "";
+        }
+        return switch (contentType.toLowerCase()) {
+            case "image/jpeg", "image/jpg" -> ".jpg";
+            case "image/png" -> ".png";
+            case "image/gif" -> ".gif";
+            case "image/webp" -> ".webp";
+            default -> "";
+        };
+    }
+}
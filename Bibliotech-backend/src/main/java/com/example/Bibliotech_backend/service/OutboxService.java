@@ -0,0 +1,316 @@
+package com.example.Bibliotech_backend.service;
+
+import com.example.Bibliotech_backend.event.OutboxEnqueuedEvent;
+import com.example.Bibliotech_backend.model.OutboxEvent;
+import com.example.Bibliotech_backend.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Outbox cho các tác vụ phụ gọi dịch vụ bên ngoài (hiện là xóa ảnh khỏi nơi lưu ảnh).
+ * <p>
+ * {@link #enqueue} chỉ ghi một dòng vào bảng OutboxEvents trong transaction của bên gọi, nên request
+ * kết thúc ở tốc độ của cơ sở dữ liệu và tác vụ biến mất cùng transaction nếu transaction bị rollback.
+ * Sau khi commit, một thread nền lấy các dòng đến hạn theo lô, thực hiện rồi xóa dòng thành công.
+ * Dòng thất bại được hẹn lại theo backoff lũy thừa (có jitter) cho tới {@code app.outbox.max-attempts}
+ * lần, sau đó chuyển sang {@code FAILED}.
+ * </p>
+ * <p>
+ * Dòng được nhận bằng {@code SELECT ... FOR UPDATE SKIP LOCKED} và đẩy {@code next_attempt_at} ra sau một
+ * khoảng thuê ({@code app.outbox.lease-ms}) trong cùng transaction ngắn, nên nhiều instance có thể chạy song
+ * song mà không thực hiện trùng; nếu instance chết giữa chừng, dòng tự đến hạn lại khi hết thời gian thuê.
+ * Lần quét định kỳ ({@code app.outbox.poll-ms}) bù cho các dòng ghi từ instance khác hoặc đến hạn thử lại.
+ * </p>
+ */
+@Service
+public class OutboxService {
+    private static final Logger logger = LoggerFactory.getLogger(OutboxService.class);
+
+    /**
+     * Các loại tác vụ mà phiên bản này thực hiện được, dạng danh sách SQL ({@code 'IMAGE_DELETE', ...}).
+     * Dòng có loại khác (do một phiên bản mới hơn ghi trong lúc triển khai cuốn chiếu) được để nguyên ở
+     * PENDING cho phiên bản biết loại đó nhận.
+     */
+    private static final String KNOWN_TYPES = Arrays.stream(OutboxEvent.Type.values())
+            .map(type -> "'" + type.name() + "'")
+            .collect(Collectors.joining(", "));
+
+    private static final String CLAIM_DUE = "SELECT outbox_id, event_type, payload, attempts FROM OutboxEvents "
+            + "WHERE status = 'PENDING' AND next_attempt_at <= ? AND event_type IN (" + KNOWN_TYPES + ") "
+            + "ORDER BY next_attempt_at, outbox_id LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String LEASE = "UPDATE OutboxEvents SET attempts = attempts + 1, next_attempt_at = ? "
+            + "WHERE outbox_id = ?";
+
+    private static final String DELETE_DONE = "DELETE FROM OutboxEvents WHERE outbox_id = ?";
+
+    private static final String RESCHEDULE = "UPDATE OutboxEvents SET status = ?, next_attempt_at = ?, last_error = ? "
+            + "WHERE outbox_id = ?";
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ImageStorage imageStorage;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService executor;
+
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long leaseMs;
+    private final long backoffMs;
+    private final long maxBackoffMs;
+
+    private final Counter dispatchedCounter;
+    private final Counter retriedCounter;
+    private final Counter failedCounter;
+
+    /**
+     * Đang có một lượt xả outbox chạy trên thread nền.
+     */
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    /**
+     * Có yêu cầu xả mới trong lúc lượt hiện tại đang chạy; lượt đó sẽ quét thêm một vòng.
+     */
+    private final AtomicBoolean drainRequested = new AtomicBoolean();
+
+    public OutboxService(OutboxEventRepository outboxEventRepository,
+                         ImageStorage imageStorage,
+                         ApplicationEventPublisher eventPublisher,
+                         JdbcTemplate jdbcTemplate,
+                         PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry,
+                         @Value("${app.outbox.batch-size:50}") int batchSize,
+                         @Value("${app.outbox.max-attempts:10}") int maxAttempts,
+                         @Value("${app.outbox.lease-ms:300000}") long leaseMs,
+                         @Value("${app.outbox.backoff-ms:5000}") long backoffMs,
+                         @Value("${app.outbox.max-backoff-ms:3600000}") long maxBackoffMs) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.imageStorage = imageStorage;
+        this.eventPublisher = eventPublisher;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.leaseMs = leaseMs;
+        this.backoffMs = backoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+
+        // Một thread là đủ: lượt xả tự gom mọi yêu cầu đến trong lúc đang chạy
+        this.executor = new ThreadPoolExecutor(
+                1, 1,
+                0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "outbox-dispatcher");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        this.dispatchedCounter = Counter.builder("outbox.events")
+                .tag("result", "dispatched")
+                .register(meterRegistry);
+        this.retriedCounter = Counter.builder("outbox.events")
+                .tag("result", "retried")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("outbox.events")
+                .tag("result", "failed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Ghi một tác vụ vào outbox trong transaction hiện tại. Tác vụ chỉ được thực hiện sau khi transaction commit.
+     *
+     * @param eventType Loại tác vụ.
+     * @param payload Dữ liệu của tác vụ.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(OutboxEvent.Type eventType, String payload) {
+        outboxEventRepository.save(new OutboxEvent(eventType, payload));
+        eventPublisher.publishEvent(new OutboxEnqueuedEvent(eventType));
+    }
+
+    @TransactionalEventListener
+    public void onEnqueued(OutboxEnqueuedEvent event) {
+        requestDrain();
+    }
+
+    /**
+     * Thực hiện các tác vụ còn tồn khi khởi động và quét định kỳ các dòng đến hạn thử lại.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.outbox.poll-ms:30000}", initialDelayString = "${app.outbox.poll-ms:30000}")
+    public void poll() {
+        requestDrain();
+    }
+
+    private void requestDrain() {
+        drainRequested.set(true);
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            draining.set(false);
+            logger.debug("Outbox dispatcher is shut down, skipping drain");
+        }
+    }
+
+    private void drain() {
+        try {
+            while (drainRequested.getAndSet(false)) {
+                int claimed;
+                do {
+                    claimed = dispatchBatch();
+                } while (claimed == batchSize);
+            }
+        } catch (Exception e) {
+            logger.warn("Outbox drain failed, will retry on next poll", e);
+        } finally {
+            draining.set(false);
+        }
+        // Yêu cầu đến đúng lúc lượt xả vừa kết thúc
+        if (drainRequested.get()) {
+            requestDrain();
+        }
+    }
+
+    /**
+     * Nhận một lô dòng đến hạn, thực hiện và ghi kết quả.
+     *
+     * @return Số dòng đã nhận.
+     */
+    private int dispatchBatch() {
+        List<Claimed> batch = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Claimed> rows = jdbcTemplate.query(CLAIM_DUE, (rs, rowNum) -> new Claimed(
+                    rs.getLong("outbox_id"),
+                    OutboxEvent.Type.valueOf(rs.getString("event_type")),
+                    rs.getString("payload"),
+                    rs.getInt("attempts") + 1), Timestamp.valueOf(now), batchSize);
+            if (!rows.isEmpty()) {
+                Timestamp leasedUntil = Timestamp.valueOf(now.plusNanos(leaseMs * 1_000_000L));
+                List<Object[]> args = new ArrayList<>(rows.size());
+                for (Claimed row : rows) {
+                    args.add(new Object[]{leasedUntil, row.outboxId});
+                }
+                jdbcTemplate.batchUpdate(LEASE, args);
+            }
+            return rows;
+        });
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+
+        List<Object[]> done = new ArrayList<>();
+        List<Object[]> rescheduled = new ArrayList<>();
+        for (Claimed row : batch) {
+            try {
+                handle(row.eventType, row.payload);
+                done.add(new Object[]{row.outboxId});
+                dispatchedCounter.increment();
+            } catch (Exception e) {
+                String error = truncate(e.toString());
+                if (row.attempts >= maxAttempts) {
+                    logger.error("Outbox event {} ({}) failed after {} attempts: {}",
+                            row.outboxId, row.eventType, row.attempts, error);
+                    rescheduled.add(new Object[]{OutboxEvent.Status.FAILED.name(),
+                            Timestamp.valueOf(LocalDateTime.now()), error, row.outboxId});
+                    failedCounter.increment();
+                } else {
+                    logger.warn("Outbox event {} ({}) failed on attempt {}: {}",
+                            row.outboxId, row.eventType, row.attempts, error);
+                    rescheduled.add(new Object[]{OutboxEvent.Status.PENDING.name(),
+                            Timestamp.valueOf(LocalDateTime.now().plusNanos(backoff(row.attempts) * 1_000_000L)),
+                            error, row.outboxId});
+                    retriedCounter.increment();
+                }
+            }
+        }
+
+        if (!done.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_DONE, done);
+        }
+        if (!rescheduled.isEmpty()) {
+            jdbcTemplate.batchUpdate(RESCHEDULE, rescheduled);
+        }
+        logger.debug("Dispatched outbox batch: {} done, {} rescheduled", done.size(), rescheduled.size());
+        return batch.size();
+    }
+
+    private void handle(OutboxEvent.Type eventType, String payload) throws Exception {
+        switch (eventType) {
+            case IMAGE_DELETE -> imageStorage.delete(payload);
+        }
+    }
+
+    /**
+     * Backoff lũy thừa theo số lần đã thử, giới hạn bởi {@code app.outbox.max-backoff-ms}, cộng jitter tới 20%
+     * để các dòng lỗi cùng lúc không dồn lại cùng một mốc.
+     */
+    private long backoff(int attempts) {
+        long delay = backoffMs << Math.min(attempts - 1, 30);
+        if (delay <= 0 || delay > maxBackoffMs) {
+            delay = maxBackoffMs;
+        }
+        return delay + ThreadLocalRandom.current().nextLong(delay / 5 + 1);
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Dòng đã nhận; {@code attempts} đã tính cả lần thử hiện tại.
+     */
+    private static final class Claimed {
+        private final long outboxId;
+        private final OutboxEvent.Type eventType;
+        private final String payload;
+        private final int attempts;
+
+        private Claimed(long outboxId, OutboxEvent.Type eventType, String payload, int attempts) {
+            this.outboxId = outboxId;
+            this.eventType = eventType;
+            this.payload = payload;
+            this.attempts = attempts;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.Bibliotech_backend.service;
+
+import com.example.Bibliotech_backend.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service băm và kiểm tra mật khẩu trên một thread pool riêng có giới hạn.
+ * <p>
+ * BCrypt tốn nhiều CPU, nên khi có nhiều request đăng nhập cùng lúc, việc băm ngay trên thread
+ * của Tomcat có thể chiếm hết worker và làm nghẽn các API khác. Service này giới hạn số tác vụ
+ * băm chạy song song và số tác vụ chờ trong hàng đợi; khi hàng đợi đầy, request bị từ chối ngay
+ * với {@link TooManyRequestsException} (HTTP 429) thay vì xếp hàng vô hạn.
+ * </p>
+ */
+@Service
+public class PasswordHashingService {
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashingService.class);
+
+    private final PasswordEncoder passwordEncoder;
+    private final ExecutorService executor;
+    private final long timeoutMs;
+
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejectedCounter;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.auth.hashing.threads:2}") int threads,
+                                  @Value("${app.auth.hashing.queue-capacity:32}") int queueCapacity,
+                                  @Value("${app.auth.hashing.timeout-ms:5000}") long timeoutMs) {
+        this.passwordEncoder = passwordEncoder;
+        this.timeoutMs = timeoutMs;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                threads, threads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        // Số thread, độ dài hàng đợi, số tác vụ đã chạy: executor_* với tag name=password.hashing
+        this.executor = ExecutorServiceMetrics.monitor(meterRegistry, pool, "password.hashing");
+        this.encodeTimer = Timer.builder("auth.password.hashing")
+                .tag("operation", "encode")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.matchesTimer = Timer.builder("auth.password.hashing")
+                .tag("operation", "matches")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("auth.password.hashing.rejected")
+                .description("Số tác vụ băm mật khẩu bị từ chối do quá tải")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Băm mật khẩu.
+     *
+     * @param rawPassword Mật khẩu gốc.
+     * @return Mật khẩu đã băm.
+     * @throws TooManyRequestsException Nếu thread pool đang quá tải.
+     */
+    public String encode(CharSequence rawPassword) {
+        return submit(encodeTimer.wrap((Callable<String>) () -> passwordEncoder.encode(rawPassword)));
+    }
+
+    /**
+     * Kiểm tra mật khẩu gốc có khớp với mật khẩu đã băm hay không.
+     *
+     * @param rawPassword Mật khẩu gốc.
+     * @param encodedPassword Mật khẩu đã băm.
+     * @return true nếu khớp.
+     * @throws TooManyRequestsException Nếu thread pool đang quá tải.
+     */
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(matchesTimer.wrap((Callable<Boolean>) () -> passwordEncoder.matches(rawPassword, encodedPassword)));
+    }
+
+    private <T> T submit(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new TooManyRequestsException("Hệ thống đang bận, vui lòng thử lại sau");
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejectedCounter.increment();
+            throw new TooManyRequestsException("Hệ thống đang bận, vui lòng thử lại sau", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Password hashing interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", cause);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        List<Runnable> pending = executor.shutdownNow();
+        if (!pending.isEmpty()) {
+            logger.warn("Discarded {} pending password hashing tasks on shutdown", pending.size());
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.Bibliotech_backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.WebRequest;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Tính phiên bản (ETag, Last-Modified) của các tài nguyên đọc nhiều để hỗ trợ GET có điều kiện.
+ * <p>
+ * Phiên bản được tính ngay trong MySQL bằng tổng kiểm (CRC32) trên các cột tạo nên nội dung trả về,
+ * nên khi client gửi {@code If-None-Match} khớp, API trả 304 mà không cần nạp entity hay tuần tự hóa JSON.
+ * Các bảng danh mục, deal và gói Premium đều nhỏ nên tổng kiểm toàn bảng vẫn rẻ, và phiên bản của chúng được
+ * tính lại ở mỗi request nên luôn đúng kể cả khi dữ liệu bị sửa từ nơi khác.
+ * </p>
+ * <p>
+ * Riêng phiên bản sách chỉ được tính khi nạp vào {@link BookDetailCache} và lưu cùng nội dung. Bộ đệm đó chỉ
+ * được xóa trên node đã ghi, nên các node khác có thể trả nội dung và ETag cũ của một cuốn sách trong tối đa
+ * {@code app.books.detail-cache.ttl-ms} sau khi nó bị sửa.
+ * </p>
+ */
+@Service
+public class ResourceVersionService {
+    private static final Logger logger = LoggerFactory.getLogger(ResourceVersionService.class);
+
+    /**
+     * Nội dung của BookResponse: các cột của sách, danh mục (kèm tên danh mục cha) và deal.
+     */
+    private static final String BOOK_VERSION = "SELECT b.updated_at AS last_modified, CONCAT_WS('-', "
+            + "CRC32(CONCAT_WS('|', b.title, b.author, b.isbn, b.original_price, b.discounted_price, b.publication_year, "
+            + "b.language, b.page_count, b.average_rating, b.rating_count, b.description, b.cover_image_url, "
+            + "b.stock_quantity, b.deal_id, b.reading_difficulty, b.estimated_reading_time, b.content_rating, "
+            + "b.created_at, b.updated_at)), "
+            + "(SELECT COALESCE(SUM(CRC32(CONCAT_WS('|', c.category_id, c.category_name, c.description, p.category_id, "
+            + "p.category_name))), 0) FROM BookCategories bc JOIN Categories c ON c.category_id = bc.category_id "
+            + "LEFT JOIN Categories p ON p.category_id = c.parent_category_id WHERE bc.book_id = b.book_id), "
+            + "(SELECT CRC32(CONCAT_WS('|', d.deal_name, d.discount_percentage, d.start_date, d.end_date, d.is_active)) "
+            + "FROM Deals d WHERE d.deal_id = b.deal_id)) AS checksum "
+            + "FROM Books b WHERE b.book_id = ?";
+
+    private static final String CATEGORIES_VERSION = "SELECT MAX(updated_at) AS last_modified, CONCAT_WS('-', COUNT(*), "
+            + "COALESCE(SUM(CRC32(CONCAT_WS('|', category_id, category_name, description, parent_category_id))), 0)) "
+            + "AS checksum FROM Categories";
+
+    private static final String ACTIVE_DEALS_VERSION = "SELECT NULL AS last_modified, CONCAT_WS('-', COUNT(*), "
+            + "COALESCE(SUM(CRC32(CONCAT_WS('|', deal_id, deal_name, discount_percentage, start_date, end_date, "
+            + "is_active))), 0)) AS checksum FROM Deals WHERE is_active = TRUE";
+
+    private static final String ACTIVE_PACKAGES_VERSION = "SELECT NULL AS last_modified, CONCAT_WS('-', COUNT(*), "
+            + "COALESCE(SUM(CRC32(CONCAT_WS('|', package_id, package_name, price, duration, billing_cycle, features, "
+            + "is_active))), 0)) AS checksum FROM PremiumPackages WHERE is_active = TRUE";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ResourceVersionService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Phiên bản của một cuốn sách, null nếu sách không tồn tại. Chỉ chạy khi nạp chi tiết sách vào
+     * {@link BookDetailCache}, nơi phiên bản được lưu cùng nội dung.
+     */
+    public ResourceVersion bookVersion(Integer bookId) {
+        return query("book-" + bookId, BOOK_VERSION, bookId);
+    }
+
+    /**
+     * Phiên bản của danh sách danh mục.
+     */
+    public ResourceVersion categoriesVersion() {
+        return query("categories", CATEGORIES_VERSION);
+    }
+
+    /**
+     * Phiên bản của danh sách deal đang hoạt động.
+     */
+    public ResourceVersion activeDealsVersion() {
+        return query("deals", ACTIVE_DEALS_VERSION);
+    }
+
+    /**
+     * Phiên bản của danh sách gói Premium đang hoạt động.
+     */
+    public ResourceVersion activePremiumPackagesVersion() {
+        return query("premium-packages", ACTIVE_PACKAGES_VERSION);
+    }
+
+    /**
+     * Chạy truy vấn phiên bản; lỗi chỉ được ghi log để API vẫn trả nội dung đầy đủ như bình thường.
+     */
+    private ResourceVersion query(String prefix, String sql, Object... args) {
+        try {
+            List<ResourceVersion> rows = jdbcTemplate.query(sql, (rs, rowNum) -> {
+                Timestamp lastModified = rs.getTimestamp("last_modified");
+                return new ResourceVersion(prefix + "-" + rs.getString("checksum"),
+                        lastModified != null ? lastModified.getTime() : -1);
+            }, args);
+            return rows.isEmpty() ? null : rows.get(0);
+        } catch (DataAccessException e) {
+            logger.warn("Could not compute version of {}", prefix, e);
+            return null;
+        }
+    }
+
+    /**
+     * Phiên bản của một tài nguyên.
+     */
+    public static final class ResourceVersion {
+        private final String etag;
+        private final long lastModified;
+
+        private ResourceVersion(String etag, long lastModified) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        /**
+         * Thời điểm sửa đổi cuối (epoch millis), -1 nếu tài nguyên không có mốc thời gian.
+         */
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * Kiểm tra {@code If-None-Match} / {@code If-Modified-Since} của request và ghi ETag, Last-Modified
+         * vào response. Khi trả về true, response đã được đặt thành 304 và controller không cần trả nội dung.
+         */
+        public boolean isNotModified(WebRequest webRequest) {
+            return webRequest.checkNotModified(etag, lastModified);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.Bibliotech_backend.service;
 
 import com.example.Bibliotech_backend.dto.ReviewRequest;
+import com.example.Bibliotech_backend.event.BookChangedEvent;
 import com.example.Bibliotech_backend.model.Book;
 import com.example.Bibliotech_backend.model.Review;
 import com.example.Bibliotech_backend.repository.BookRepository;
@@ -9,6 +10,7 @@ import com.example.Bibliotech_backend.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -27,6 +29,9 @@ public class ReviewService {
     private final BookRepository bookRepository;
     private final UserRepository userRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     private static final Logger logger = LoggerFactory.getLogger(ReviewService.class);
 
     @Autowired
@@ -212,6 +217,7 @@ public class ReviewService {
             book.setRatingCount(ratingCount);
 
             bookRepository.save(book);
+            eventPublisher.publishEvent(BookChangedEvent.updated(bookId));
 
             logger.debug("Updated book ID: {} with average rating: {} and rating count: {}",
                     bookId, averageRating, ratingCount);
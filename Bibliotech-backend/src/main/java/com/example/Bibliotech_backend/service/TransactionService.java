@@ -8,6 +8,7 @@ import com.example.Bibliotech_backend.model.Users;
 import com.example.Bibliotech_backend.repository.BookRepository;
 import com.example.Bibliotech_backend.repository.TransactionRepository;
 import com.example.Bibliotech_backend.repository.UserRepository;
+import com.example.Bibliotech_backend.security.AccountVersionRegistry;
 import com.example.Bibliotech_backend.model.Book;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,7 +37,10 @@ public class TransactionService {
     private BookRepository bookRepository;
 
     @Autowired
-    private BookService bookService;
+    private BookResponseAssembler bookResponseAssembler;
+
+    @Autowired
+    private AccountVersionRegistry accountVersionRegistry;
 
     private static final Logger logger = LoggerFactory.getLogger(TransactionService.class);
 
@@ -227,6 +231,7 @@ public class TransactionService {
         // Update premium status
         user.setIsPremium(true);
         userRepository.save(user);
+        accountVersionRegistry.markChanged(user.getUserId());
 
         // Mark transaction as completed
         transaction.setStatus(TransactionStatus.COMPLETED);
@@ -292,10 +297,8 @@ public class TransactionService {
         // Lấy thông tin chi tiết của các sách đã mua
         List<Book> purchasedBooks = bookRepository.findAllById(purchasedBookIds);
 
-        // Chuyển đổi sang BookResponse
-        return purchasedBooks.stream()
-                .map(bookService::convertToBookResponse)
-                .collect(Collectors.toList());
+        // Chuyển đổi sang BookResponse, nạp danh mục và deal của cả danh sách một lần
+        return bookResponseAssembler.toResponses(purchasedBooks);
     }
 
     public List<Transaction> getAllTransactions() {
@@ -0,0 +1,144 @@
+package com.example.Bibliotech_backend.util;
+
+import com.example.Bibliotech_backend.dto.BookCardDTO;
+import com.example.Bibliotech_backend.dto.BookResponse;
+import com.example.Bibliotech_backend.exception.BadRequestException;
+import com.example.Bibliotech_backend.model.Book;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Set;
+
+/**
+ * Con trỏ phân trang keyset cho danh sách sách.
+ * <p>
+ * Con trỏ mã hóa giá trị của trường sắp xếp và bookId của cuốn sách cuối trang trước, để trang
+ * tiếp theo được lấy bằng điều kiện {@code (key, bookId) > (lastKey, lastBookId)} thay vì OFFSET.
+ * Chuỗi con trỏ là Base64 URL-safe và không có ý nghĩa với client.
+ * </p>
+ */
+public final class BookCursor {
+    /**
+     * Các trường sắp xếp được hỗ trợ ở chế độ con trỏ.
+     */
+    public static final Set<String> SORT_FIELDS = Set.of("title", "averageRating", "originalPrice", "createdAt");
+
+    /**
+     * Giá trị thay thế khi cột sắp xếp là null, phải trùng với COALESCE trong truy vấn.
+     */
+    public static final BigDecimal NULL_RATING = BigDecimal.ZERO;
+    public static final LocalDateTime NULL_CREATED_AT = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final String sortBy;
+    private final boolean descending;
+    private final Comparable<?> sortKey;
+    private final Integer bookId;
+
+    private BookCursor(String sortBy, boolean descending, Comparable<?> sortKey, Integer bookId) {
+        this.sortBy = sortBy;
+        this.descending = descending;
+        this.sortKey = sortKey;
+        this.bookId = bookId;
+    }
+
+    /**
+     * Tạo con trỏ trỏ tới sau cuốn sách đã cho.
+     */
+    public static BookCursor after(Book book, String sortBy, boolean descending) {
+        return new BookCursor(sortBy, descending, sortKeyOf(book, sortBy), book.getBookId());
+    }
+
+    /**
+     * Tạo con trỏ trỏ tới sau cuốn sách đã cho, ở dạng dữ liệu trả về cho client.
+     */
+    public static BookCursor after(BookResponse book, String sortBy, boolean descending) {
+        Comparable<?> sortKey = sortKeyOf(sortBy, book.getTitle(), book.getAverageRating(),
+                book.getOriginalPrice(), book.getCreatedAt());
+        return new BookCursor(sortBy, descending, sortKey, book.getBookId());
+    }
+
+    /**
+     * Tạo con trỏ trỏ tới sau thẻ sách đã cho.
+     */
+    public static BookCursor after(BookCardDTO card, String sortBy, boolean descending) {
+        Comparable<?> sortKey = sortKeyOf(sortBy, card.getTitle(), card.getAverageRating(),
+                card.getOriginalPrice(), card.getCreatedAt());
+        return new BookCursor(sortBy, descending, sortKey, card.getBookId());
+    }
+
+    /**
+     * Giá trị khóa sắp xếp của một cuốn sách, với giá trị null đã được thay thế và tiêu đề đã chuẩn hóa
+     * như cột title_sort_key.
+     */
+    public static Comparable<?> sortKeyOf(Book book, String sortBy) {
+        return sortKeyOf(sortBy, book.getTitle(), book.getAverageRating(), book.getOriginalPrice(), book.getCreatedAt());
+    }
+
+    private static Comparable<?> sortKeyOf(String sortBy, String title, BigDecimal averageRating,
+                                           BigDecimal originalPrice, LocalDateTime createdAt) {
+        return switch (sortBy) {
+            case "title" -> TextNormalizer.fold(title);
+            case "averageRating" -> averageRating != null ? averageRating : NULL_RATING;
+            case "originalPrice" -> originalPrice;
+            case "createdAt" -> createdAt != null ? createdAt : NULL_CREATED_AT;
+            default -> throw new BadRequestException(
+                    "Không hỗ trợ sắp xếp theo '" + sortBy + "' khi phân trang bằng con trỏ");
+        };
+    }
+
+    public String encode() {
+        String raw = sortBy + "\n" + (descending ? "desc" : "asc") + "\n" + bookId + "\n" + sortKey;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Giải mã con trỏ và kiểm tra nó được tạo với cùng cách sắp xếp.
+     *
+     * @throws BadRequestException Nếu con trỏ không hợp lệ hoặc không khớp cách sắp xếp hiện tại.
+     */
+    public static BookCursor decode(String token, String sortBy, boolean descending) {
+        String[] parts;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            parts = raw.split("\n", 4);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Con trỏ phân trang không hợp lệ");
+        }
+
+        if (parts.length != 4 || !parts[0].equals(sortBy) || !parts[1].equals(descending ? "desc" : "asc")) {
+            throw new BadRequestException("Con trỏ phân trang không khớp với cách sắp xếp hiện tại");
+        }
+
+        try {
+            Integer bookId = Integer.valueOf(parts[2]);
+            Comparable<?> sortKey = switch (sortBy) {
+                case "averageRating", "originalPrice" -> new BigDecimal(parts[3]);
+                case "createdAt" -> LocalDateTime.parse(parts[3]);
+                // fold() không đổi khóa đã chuẩn hóa, chỉ để con trỏ cũ (tiêu đề gốc) vẫn dùng được
+                default -> TextNormalizer.fold(parts[3]);
+            };
+            return new BookCursor(sortBy, descending, sortKey, bookId);
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new BadRequestException("Con trỏ phân trang không hợp lệ");
+        }
+    }
+
+    public String getSortBy() {
+        return sortBy;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public Comparable<?> getSortKey() {
+        return sortKey;
+    }
+
+    public Integer getBookId() {
+        return bookId;
+    }
+}
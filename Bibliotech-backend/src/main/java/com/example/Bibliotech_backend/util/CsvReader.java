@@ -0,0 +1,133 @@
+package com.example.Bibliotech_backend.util;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bộ đọc CSV (RFC 4180) dạng luồng: mỗi lần đọc một bản ghi, không nạp cả tệp vào bộ nhớ.
+ * <p>
+ * Hỗ trợ trường trong dấu nháy kép (chứa dấu phẩy, xuống dòng, và {@code ""} cho một dấu nháy),
+ * xuống dòng LF hoặc CRLF, và bỏ qua BOM UTF-8 ở đầu tệp.
+ * </p>
+ * <p>
+ * Độ dài mỗi trường bị giới hạn, để một dấu nháy không được đóng không khiến phần còn lại của tệp
+ * bị gom vào bộ nhớ như một trường duy nhất.
+ * </p>
+ */
+public final class CsvReader implements Closeable {
+    /**
+     * Độ dài tối đa mặc định của một trường (ký tự), đủ cho mô tả sách dài.
+     */
+    public static final int DEFAULT_MAX_FIELD_LENGTH = 1 << 20;
+
+    private final Reader reader;
+    private final int maxFieldLength;
+    private final StringBuilder field = new StringBuilder();
+    private long recordNumber;
+    private int pushedBack = -2;
+    private boolean started;
+
+    public CsvReader(Reader reader) {
+        this(reader, DEFAULT_MAX_FIELD_LENGTH);
+    }
+
+    public CsvReader(Reader reader, int maxFieldLength) {
+        this.reader = reader instanceof BufferedReader ? reader : new BufferedReader(reader);
+        this.maxFieldLength = maxFieldLength;
+    }
+
+    /**
+     * Đọc bản ghi tiếp theo.
+     *
+     * @return Các trường của bản ghi, hoặc null khi đã hết dữ liệu.
+     * @throws IOException Nếu không đọc được, dấu nháy không được đóng hoặc trường dài quá giới hạn.
+     */
+    public List<String> next() throws IOException {
+        int c = read();
+        if (!started) {
+            started = true;
+            if (c == '\uFEFF') {
+                c = read();
+            }
+        }
+        if (c == -1) {
+            return null;
+        }
+
+        List<String> fields = new ArrayList<>();
+        field.setLength(0);
+        boolean quoted = false;
+        boolean inQuotes = false;
+        while (true) {
+            if (inQuotes) {
+                if (c == -1) {
+                    throw new IOException("Dấu nháy chưa được đóng ở bản ghi " + (recordNumber + 1));
+                }
+                if (c == '"') {
+                    int following = read();
+                    if (following == '"') {
+                        append('"');
+                    } else {
+                        inQuotes = false;
+                        c = following;
+                        continue;
+                    }
+                } else {
+                    append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0 && !quoted) {
+                inQuotes = true;
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                quoted = false;
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                if (c == '\r') {
+                    int following = read();
+                    if (following != '\n') {
+                        pushedBack = following;
+                    }
+                }
+                fields.add(field.toString());
+                recordNumber++;
+                return fields;
+            } else {
+                append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    /**
+     * Số bản ghi đã đọc, kể cả dòng tiêu đề.
+     */
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    private void append(char c) throws IOException {
+        if (field.length() >= maxFieldLength) {
+            throw new IOException("Trường vượt quá " + maxFieldLength + " ký tự ở bản ghi " + (recordNumber + 1));
+        }
+        field.append(c);
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != -2) {
+            int c = pushedBack;
+            pushedBack = -2;
+            return c;
+        }
+        return reader.read();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
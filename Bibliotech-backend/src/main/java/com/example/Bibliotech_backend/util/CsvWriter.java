@@ -0,0 +1,53 @@
+package com.example.Bibliotech_backend.util;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Ghi CSV (RFC 4180) từng dòng, đọc lại được bằng {@link CsvReader}.
+ * <p>
+ * Trường chứa dấu phẩy, dấu nháy kép hoặc xuống dòng được đặt trong dấu nháy kép; giá trị null ghi thành
+ * trường rỗng. Dòng kết thúc bằng CRLF.
+ * </p>
+ */
+public final class CsvWriter {
+    private final Writer writer;
+
+    public CsvWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Ghi một dòng.
+     */
+    public void writeRow(Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (values[i] != null) {
+                writeField(values[i].toString());
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private void writeField(String value) throws IOException {
+        boolean needsQuotes = false;
+        for (int i = 0; i < value.length() && !needsQuotes; i++) {
+            char c = value.charAt(i);
+            needsQuotes = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!needsQuotes) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    public void flush() throws IOException {
+        writer.flush();
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.Bibliotech_backend.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Tiện ích chuẩn hóa văn bản cho tìm kiếm.
+ * <p>
+ * Văn bản được bỏ dấu tiếng Việt (NFD rồi loại các ký tự dấu, "đ" thành "d") và chuyển về chữ thường,
+ * để "Nguyễn Nhật Ánh" và "nguyen nhat anh" cho cùng một kết quả.
+ * </p>
+ */
+public final class TextNormalizer {
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private TextNormalizer() {
+    }
+
+    /**
+     * Bỏ dấu và chuyển văn bản về chữ thường.
+     *
+     * @param text Văn bản gốc.
+     * @return Văn bản đã chuẩn hóa, chuỗi rỗng nếu text là null.
+     */
+    public static String fold(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        String stripped = COMBINING_MARKS.matcher(decomposed).replaceAll("");
+        return stripped.replace('đ', 'd').replace('Đ', 'D').toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Chuẩn hóa rồi tách văn bản thành các từ (chỉ gồm chữ và số).
+     *
+     * @param text Văn bản gốc.
+     * @return Danh sách các từ đã chuẩn hóa, theo thứ tự xuất hiện.
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : TOKEN_SEPARATOR.split(fold(text))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
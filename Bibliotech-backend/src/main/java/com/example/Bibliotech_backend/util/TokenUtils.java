@@ -2,6 +2,8 @@ package com.example.Bibliotech_backend.util;
 
 import com.example.Bibliotech_backend.exception.BadRequestException;
 import com.example.Bibliotech_backend.security.JwtTokenProvider;
+import com.example.Bibliotech_backend.security.TokenDenylist;
+import com.example.Bibliotech_backend.security.VerifiedToken;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.core.Authentication;
@@ -11,10 +13,12 @@ import org.springframework.stereotype.Component;
 @Component
 public class TokenUtils {
     private final JwtTokenProvider jwtTokenProvider;
+    private final TokenDenylist tokenDenylist;
     private static final Logger logger = LoggerFactory.getLogger(TokenUtils.class);
 
-    public TokenUtils(JwtTokenProvider jwtTokenProvider) {
+    public TokenUtils(JwtTokenProvider jwtTokenProvider, TokenDenylist tokenDenylist) {
         this.jwtTokenProvider = jwtTokenProvider;
+        this.tokenDenylist = tokenDenylist;
     }
 
     /**
@@ -37,7 +41,12 @@ public class TokenUtils {
             logger.debug("Token nhận được: {}", rawToken);
 
             // Trích xuất ID người dùng từ token
-            Integer userId = jwtTokenProvider.getUserIdFromJWT(rawToken);
+            VerifiedToken verified = jwtTokenProvider.verifyToken(rawToken);
+            if (tokenDenylist.isRevoked(verified)) {
+                throw new IllegalStateException("Token đã bị thu hồi");
+            }
+
+            Integer userId = verified.getUserId();
             logger.debug("ID người dùng được trích xuất: {}", userId);
 
             return userId;
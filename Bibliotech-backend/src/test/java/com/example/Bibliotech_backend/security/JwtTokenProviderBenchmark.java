@@ -0,0 +1,71 @@
+package com.example.Bibliotech_backend.security;
+
+import com.example.Bibliotech_backend.model.Users;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thông lượng xác minh token: {@code parseAndVerify} là đường cũ (HS512 + Base64 + JSON mỗi request),
+ * {@code verifyCached} là đường hiện tại khi token đã nằm trong bộ đệm (chỉ tính SHA-256 để tra khóa).
+ * <p>
+ * Chạy: {@code mvn -Pbenchmark test -Dbenchmark=JwtTokenProviderBenchmark}
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class JwtTokenProviderBenchmark {
+
+    private JwtTokenProvider tokenProvider;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        tokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "jwtSecret",
+                "benchmark-secret-benchmark-secret-benchmark-secret-benchmark-secret-0123456789");
+        ReflectionTestUtils.setField(tokenProvider, "verifiedCacheSize", 10_000);
+        tokenProvider.init();
+
+        Users user = new Users();
+        user.setUserId(42);
+        user.setUsername("reader42");
+        user.setIsAdmin(false);
+        user.setIsPremium(true);
+        user.setUpdatedAt(LocalDateTime.now());
+        token = tokenProvider.generateToken(user);
+        tokenProvider.verifyToken(token);
+    }
+
+    @Benchmark
+    public VerifiedToken parseAndVerify() {
+        return tokenProvider.parse(token);
+    }
+
+    @Benchmark
+    public VerifiedToken verifyCached() {
+        return tokenProvider.verifyToken(token);
+    }
+
+    @Benchmark
+    public Object cacheKey() {
+        return JwtTokenProvider.TokenKey.of(token);
+    }
+}
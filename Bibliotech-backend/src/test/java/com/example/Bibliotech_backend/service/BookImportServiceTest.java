@@ -0,0 +1,212 @@
+package com.example.Bibliotech_backend.service;
+
+import com.example.Bibliotech_backend.dto.BookImportResult;
+import com.example.Bibliotech_backend.event.BooksImportedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.hibernate.validator.messageinterpolation.ParameterMessageInterpolator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookImportServiceTest {
+    private static final String HEADER = "title,author,isbn,original_price,discounted_price,language,stock_quantity,"
+            + "category_ids,deal_id\r\n";
+
+    private FakeJdbcTemplate jdbcTemplate;
+    private final List<Object> events = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new FakeJdbcTemplate();
+        jdbcTemplate.insert("Categories", "category_id", 1);
+        jdbcTemplate.insert("Categories", "category_id", 2);
+        LocalDate today = LocalDate.now();
+        jdbcTemplate.insert("Deals", "deal_id", 7, "discount_percentage", new BigDecimal("20.00"),
+                "start_date", Date.valueOf(today.minusDays(1)), "end_date", Date.valueOf(today.plusDays(1)),
+                "is_active", true);
+        jdbcTemplate.insert("Deals", "deal_id", 8, "discount_percentage", new BigDecimal("50.00"),
+                "start_date", Date.valueOf(today.plusDays(10)), "end_date", Date.valueOf(today.plusDays(20)),
+                "is_active", true);
+        jdbcTemplate.insert("Books", "book_id", 1, "isbn", "9786040000000");
+    }
+
+    @Test
+    void rejectsInvalidRowsAndImportsTheRest() throws IOException {
+        String csv = HEADER
+                + "Dế Mèn phiêu lưu ký,Tô Hoài,9786041000001,100000,,Vietnamese,5,1;2,\r\n"
+                + ",Khuyết danh,,50000,,Vietnamese,1,1,\r\n"
+                + "Sách giá sai,Tác giả,,abc,,English,1,1,\r\n"
+                + "Danh mục lạ,Tác giả,,50000,,English,1,99,\r\n"
+                + "Deal lạ,Tác giả,,50000,,English,1,1,42\r\n"
+                + "Ngôn ngữ lạ,Tác giả,,50000,,Klingon,1,1,\r\n"
+                + "Trùng trong tệp,Tác giả,9786041000001,50000,,English,1,1,\r\n"
+                + "Trùng trong kho,Tác giả,9786040000000,50000,,English,1,1,\r\n"
+                + "\r\n"
+                + "\"Tắt đèn, bản đặc biệt\",Ngô Tất Tố,,80000,1,Vietnamese,3,2,7\r\n";
+
+        BookImportResult result = importCsv(csv, 100);
+
+        assertEquals(2, result.getImported());
+        assertEquals(7, result.getFailed());
+        assertEquals(9, result.getTotalRows());
+        assertEquals(List.of(2L, 3L, 4L, 5L, 6L, 7L, 8L), errorRows(result));
+        assertEquals("Tiêu đề không được để trống", result.getErrors().get(0).getMessage());
+        assertEquals("Giá trị 'abc' của cột original_price không hợp lệ", result.getErrors().get(1).getMessage());
+        assertEquals("Danh mục không tồn tại: 99", result.getErrors().get(2).getMessage());
+        assertEquals("Deal không tồn tại: 42", result.getErrors().get(3).getMessage());
+        assertEquals("Ngôn ngữ không hợp lệ: Klingon", result.getErrors().get(4).getMessage());
+        assertEquals("ISBN đã tồn tại: 9786041000001", result.getErrors().get(5).getMessage());
+        assertEquals("ISBN đã tồn tại: 9786040000000", result.getErrors().get(6).getMessage());
+
+        assertEquals(List.of("Dế Mèn phiêu lưu ký", "Tắt đèn, bản đặc biệt"), importedTitles());
+        assertEquals(3, jdbcTemplate.rows("BookCategories").size());
+        assertEquals(1, events.size());
+        assertTrue(events.get(0) instanceof BooksImportedEvent);
+    }
+
+    @Test
+    void booksOfADealTakeTheDealPrice() throws IOException {
+        String csv = HEADER
+                + "Trong deal,Tác giả,,80000,1,English,1,1,7\r\n"
+                + "Deal chưa bắt đầu,Tác giả,,80000,1,English,1,1,8\r\n"
+                + "Không deal,Tác giả,,80000,70000,English,1,1,\r\n";
+
+        importCsv(csv, 100);
+
+        List<Object> prices = imported().stream()
+                .map(row -> row.get("discounted_price"))
+                .collect(Collectors.toList());
+        assertEquals(new BigDecimal("64000.00"), prices.get(0));
+        assertNull(prices.get(1));
+        assertEquals(new BigDecimal("70000"), prices.get(2));
+    }
+
+    @Test
+    void fallsBackToRowByRowWhenAChunkFails() throws IOException {
+        jdbcTemplate.rejectInserts(row -> "Hỏng".equals(row.get("title")));
+        String csv = HEADER
+                + "Một,Tác giả,,1000,,English,1,1,\r\n"
+                + "Hai,Tác giả,,1000,,English,1,1,\r\n"
+                + "Hỏng,Tác giả,,1000,,English,1,1,\r\n"
+                + "Bốn,Tác giả,,1000,,English,1,1,\r\n"
+                + "Năm,Tác giả,,1000,,English,1,1,\r\n";
+
+        BookImportResult result = importCsv(csv, 2);
+
+        assertEquals(4, result.getImported());
+        assertEquals(1, result.getFailed());
+        assertEquals(List.of(3L), errorRows(result));
+        assertTrue(result.getErrors().get(0).getMessage().startsWith("Không thể lưu sách: "),
+                result.getErrors().get(0).getMessage());
+        assertEquals(List.of("Một", "Hai", "Bốn", "Năm"), importedTitles());
+        // Mỗi sách đã ghi giữ đúng danh mục, không có liên kết nào của dòng hỏng
+        assertEquals(4, jdbcTemplate.rows("BookCategories").size());
+    }
+
+    @Test
+    void limitsReportedErrors() throws IOException {
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (int i = 0; i < 5; i++) {
+            csv.append(",Tác giả,,1000,,English,1,1,\r\n");
+        }
+
+        BookImportResult result = new BookImportService(jdbcTemplate, idGenerator(), new ObjectMapper(), validator(),
+                events::add, dealScheduler(), transactionManager(), 100, 3)
+                .importBooks(stream(csv.toString()), BookImportService.Format.CSV);
+
+        assertEquals(5, result.getFailed());
+        assertEquals(3, result.getErrors().size());
+        assertTrue(result.isErrorsTruncated());
+    }
+
+    private BookImportResult importCsv(String csv, int chunkSize) throws IOException {
+        BookImportService service = new BookImportService(jdbcTemplate, idGenerator(), new ObjectMapper(), validator(),
+                events::add, dealScheduler(), transactionManager(), chunkSize, 100);
+        return service.importBooks(stream(csv), BookImportService.Format.CSV);
+    }
+
+    private List<Map<String, Object>> imported() {
+        return jdbcTemplate.rows("Books").stream()
+                .filter(row -> row.containsKey("title"))
+                .collect(Collectors.toList());
+    }
+
+    private List<Object> importedTitles() {
+        return imported().stream().map(row -> row.get("title")).collect(Collectors.toList());
+    }
+
+    private static List<Long> errorRows(BookImportResult result) {
+        return result.getErrors().stream().map(BookImportResult.RowError::getRow).collect(Collectors.toList());
+    }
+
+    private static ByteArrayInputStream stream(String csv) {
+        return new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private IdGeneratorService idGenerator() {
+        AtomicInteger next = new AtomicInteger(100);
+        return new IdGeneratorService(new DriverManagerDataSource()) {
+            @Override
+            public int reserveBookIds(int count) {
+                return next.getAndAdd(count);
+            }
+        };
+    }
+
+    private DealLifecycleScheduler dealScheduler() {
+        return new DealLifecycleScheduler(jdbcTemplate, null, events::add, transactionManager(), "");
+    }
+
+    private static Validator validator() {
+        return Validation.byDefaultProvider().configure()
+                .messageInterpolator(new ParameterMessageInterpolator())
+                .buildValidatorFactory()
+                .getValidator();
+    }
+
+    /**
+     * Transaction rỗng: FakeJdbcTemplate ghi ngay, batch lỗi bị từ chối nguyên khối.
+     */
+    private static PlatformTransactionManager transactionManager() {
+        return new AbstractPlatformTransactionManager() {
+            @Override
+            protected Object doGetTransaction() {
+                return new Object();
+            }
+
+            @Override
+            protected void doBegin(Object transaction, TransactionDefinition definition) {
+            }
+
+            @Override
+            protected void doCommit(DefaultTransactionStatus status) {
+            }
+
+            @Override
+            protected void doRollback(DefaultTransactionStatus status) {
+            }
+        };
+    }
+}
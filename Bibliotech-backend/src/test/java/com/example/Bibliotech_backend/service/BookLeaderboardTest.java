@@ -0,0 +1,155 @@
+package com.example.Bibliotech_backend.service;
+
+import com.example.Bibliotech_backend.event.BookChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BookLeaderboardTest {
+    private static final int FICTION = 1;
+    private static final int HISTORY = 2;
+
+    private FakeJdbcTemplate jdbcTemplate;
+    private BookLeaderboard leaderboard;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new FakeJdbcTemplate();
+        addBook(1, "4.8", 120, FICTION);
+        addBook(2, "4.5", 40, FICTION, HISTORY);
+        addBook(3, "4.5", 10, HISTORY);
+        addBook(4, "3.9", 5, FICTION);
+        // Chưa đủ số lượt đánh giá tối thiểu
+        addBook(5, "5.0", 1, FICTION);
+        leaderboard = new BookLeaderboard(jdbcTemplate, 2);
+    }
+
+    @Test
+    void isNotReadyBeforeRebuild() {
+        assertNull(leaderboard.topBookIds(null, 10));
+    }
+
+    @Test
+    void ranksByRatingThenRatingCount() {
+        leaderboard.rebuild();
+
+        assertEquals(List.of(1, 2, 3, 4), leaderboard.topBookIds(null, 10));
+        assertEquals(List.of(1, 2, 4), leaderboard.topBookIds(FICTION, 10));
+        assertEquals(List.of(2, 3), leaderboard.topBookIds(HISTORY, 10));
+        assertEquals(List.of(1, 2), leaderboard.topBookIds(null, 2));
+    }
+
+    @Test
+    void deletedBookLeavesOverallAndEveryCategory() {
+        leaderboard.rebuild();
+
+        deleteBook(2);
+
+        assertEquals(List.of(1, 3, 4), leaderboard.topBookIds(null, 10));
+        assertEquals(List.of(1, 4), leaderboard.topBookIds(FICTION, 10));
+        assertEquals(List.of(3), leaderboard.topBookIds(HISTORY, 10));
+    }
+
+    @Test
+    void deletingTheLastRankedBookOfACategoryEmptiesIt() {
+        leaderboard.rebuild();
+
+        deleteBook(2);
+        deleteBook(3);
+
+        assertEquals(List.of(), leaderboard.topBookIds(HISTORY, 10));
+        assertEquals(List.of(1, 4), leaderboard.topBookIds(null, 10));
+    }
+
+    @Test
+    void bookDroppingBelowMinimumRatingCountIsRemoved() {
+        leaderboard.rebuild();
+
+        jdbcTemplate.delete("Books", "book_id", 1);
+        jdbcTemplate.delete("BookCategories", "book_id", 1);
+        addBook(1, "4.8", 1, FICTION);
+        leaderboard.onBookChanged(BookChangedEvent.updated(1));
+
+        assertEquals(List.of(2, 3, 4), leaderboard.topBookIds(null, 10));
+        assertEquals(List.of(2, 4), leaderboard.topBookIds(FICTION, 10));
+    }
+
+    @Test
+    void refreshingWithTheSameRankKeepsASingleEntry() {
+        leaderboard.rebuild();
+
+        leaderboard.onBookChanged(BookChangedEvent.updated(3));
+        leaderboard.onBookChanged(BookChangedEvent.updated(3));
+
+        assertEquals(List.of(1, 2, 3, 4), leaderboard.topBookIds(null, 10));
+        assertEquals(List.of(2, 3), leaderboard.topBookIds(HISTORY, 10));
+    }
+
+    @Test
+    void movingABookToAnotherCategoryUnlinksTheOldOne() {
+        leaderboard.rebuild();
+
+        jdbcTemplate.delete("BookCategories", "book_id", 4);
+        jdbcTemplate.insert("BookCategories", "book_id", 4, "category_id", HISTORY);
+        leaderboard.onBookChanged(BookChangedEvent.updated(4));
+
+        assertEquals(List.of(1, 2), leaderboard.topBookIds(FICTION, 10));
+        assertEquals(List.of(2, 3, 4), leaderboard.topBookIds(HISTORY, 10));
+    }
+
+    @Test
+    void deletingAnUnknownBookChangesNothing() {
+        leaderboard.rebuild();
+
+        leaderboard.onBookChanged(BookChangedEvent.deleted(99));
+
+        assertEquals(List.of(1, 2, 3, 4), leaderboard.topBookIds(null, 10));
+    }
+
+    @Test
+    void changeDuringRebuildReachesTheNewBoard() {
+        jdbcTemplate = new FakeJdbcTemplate() {
+            private int bookReads;
+
+            @Override
+            public void query(String sql, RowCallbackHandler handler) {
+                super.query(sql, handler);
+                if (sql.contains("FROM Books") && ++bookReads == 2) {
+                    // Điểm được tính lại sau khi lần dựng lại đã đọc dòng cũ
+                    delete("Books", "book_id", 4);
+                    delete("BookCategories", "book_id", 4);
+                    addBook(4, "4.9", 50, FICTION);
+                    leaderboard.onBookChanged(BookChangedEvent.updated(4));
+                }
+            }
+        };
+        addBook(1, "4.8", 120, FICTION);
+        addBook(4, "3.9", 5, FICTION);
+        leaderboard = new BookLeaderboard(jdbcTemplate, 2);
+        leaderboard.rebuild();
+
+        leaderboard.rebuild();
+
+        assertEquals(List.of(4, 1), leaderboard.topBookIds(null, 10));
+    }
+
+    private void addBook(int bookId, String averageRating, int ratingCount, int... categoryIds) {
+        jdbcTemplate.insert("Books", "book_id", bookId, "average_rating", new BigDecimal(averageRating),
+                "rating_count", ratingCount);
+        for (int categoryId : categoryIds) {
+            jdbcTemplate.insert("BookCategories", "book_id", bookId, "category_id", categoryId);
+        }
+    }
+
+    private void deleteBook(int bookId) {
+        jdbcTemplate.delete("Books", "book_id", bookId);
+        jdbcTemplate.delete("BookCategories", "book_id", bookId);
+        leaderboard.onBookChanged(BookChangedEvent.deleted(bookId));
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.Bibliotech_backend.service;
+
+import com.example.Bibliotech_backend.BibliotechBackendApplication;
+import com.example.Bibliotech_backend.dto.BookSearchCriteria;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Số byte cấp phát trên heap cho mỗi trang danh sách: {@code view=full} là đường {@code BookResponse} (nạp entity
+ * Book, kể cả description và danh mục, rồi chuyển đổi), {@code view=card} là projection {@code BookCardDTO}.
+ * {@code sortBy=title} đi qua bản chụp trong bộ nhớ và chỉ nạp các sách của trang theo bookId;
+ * {@code sortBy=stockQuantity} không có trong bản chụp nên đi thẳng xuống truy vấn MySQL theo OFFSET.
+ * <p>
+ * Kết quả cần xem là {@code gc.alloc.rate.norm} do profiler gc của profile benchmark in ra. Benchmark khởi động
+ * toàn bộ ứng dụng nên cần một cơ sở dữ liệu MySQL thử nghiệm đã có sách, cấu hình như khi chạy ứng dụng:
+ * {@code mvn -Pbenchmark test -Dbenchmark=BookListingBenchmark}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BookListingBenchmark {
+
+    @Param({"full", "card"})
+    public String view;
+
+    @Param({"title", "stockQuantity"})
+    public String sortBy;
+
+    @Param({"20"})
+    public int size;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private BookSearchCriteria criteria;
+    private int pages;
+    private int page;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(BibliotechBackendApplication.class)
+                .web(WebApplicationType.NONE)
+                .run();
+        bookService = context.getBean(BookService.class);
+        criteria = new BookSearchCriteria();
+
+        Integer books = context.getBean(JdbcTemplate.class)
+                .queryForObject("SELECT COUNT(*) FROM Books", Integer.class);
+        if (books == null || books < size) {
+            throw new IllegalStateException("Benchmark database needs at least " + size + " books");
+        }
+        // Giới hạn ở 50 trang đầu để OFFSET không lấn át chi phí nạp dữ liệu
+        pages = Math.min(50, books / size);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object listPage() {
+        page = (page + 1) % pages;
+        return "card".equals(view)
+                ? bookService.getBookCards(criteria, page, size, sortBy, "asc")
+                : bookService.getAllBooks(criteria, page, size, sortBy, "asc");
+    }
+}
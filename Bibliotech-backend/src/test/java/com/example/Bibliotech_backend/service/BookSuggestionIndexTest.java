@@ -0,0 +1,132 @@
+package com.example.Bibliotech_backend.service;
+
+import com.example.Bibliotech_backend.dto.BookSuggestion;
+import com.example.Bibliotech_backend.event.BookChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BookSuggestionIndexTest {
+    private FakeJdbcTemplate jdbcTemplate;
+    private BookSuggestionIndex index;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new FakeJdbcTemplate();
+        addBook(1, "Harry Potter và Hòn đá Phù thủy", "J.K. Rowling", "4.8", 120);
+        addBook(2, "Harry Potter và Phòng chứa Bí mật", "J.K. Rowling", "4.6", 80);
+        addBook(3, "Hành trình về phương Đông", "Baird T. Spalding", "4.2", 30);
+        index = new BookSuggestionIndex(jdbcTemplate, 10);
+        index.rebuild();
+    }
+
+    @Test
+    void removingABookDropsOnlyItsKeys() {
+        assertEquals(List.of("Harry Potter và Hòn đá Phù thủy", "Harry Potter và Phòng chứa Bí mật"), texts("harry"));
+
+        delete(1);
+
+        assertEquals(List.of("Harry Potter và Phòng chứa Bí mật"), texts("harry"));
+        assertEquals(List.of(), texts("harry potter va hon"));
+        // Tác giả vẫn còn một cuốn sách nên vẫn được gợi ý
+        assertEquals(List.of("J.K. Rowling"), texts("rowling"));
+        assertEquals(List.of("Hành trình về phương Đông"), texts("hanh"));
+    }
+
+    @Test
+    void removingTheLastBookOfAnAuthorDropsTheAuthor() {
+        delete(1);
+        delete(2);
+
+        assertEquals(List.of(), texts("harry"));
+        assertEquals(List.of(), texts("rowling"));
+        // Nút "h" tách cạnh giữa "harry" và "hanh"; sau khi gộp lại vẫn tìm được phần còn lại
+        assertEquals(List.of("Hành trình về phương Đông"), texts("h"));
+        assertEquals(List.of("Hành trình về phương Đông"), texts("hanh trinh ve"));
+    }
+
+    @Test
+    void removingEverythingLeavesAnEmptyTrieThatAcceptsNewBooks() {
+        delete(1);
+        delete(2);
+        delete(3);
+
+        assertEquals(List.of(), texts("h"));
+
+        addBook(4, "Harry Potter và Hoàng tử lai", "J.K. Rowling", "4.7", 60);
+        index.onBookChanged(BookChangedEvent.created(4));
+
+        assertEquals(List.of("Harry Potter và Hoàng tử lai"), texts("harry potter va hoang"));
+        assertEquals(List.of("J.K. Rowling"), texts("rowling"));
+    }
+
+    @Test
+    void updatingATitleReplacesItsKeys() {
+        jdbcTemplate.delete("Books", "book_id", 3);
+        addBook(3, "Muôn kiếp nhân sinh", "Nguyên Phong", "4.2", 30);
+        index.onBookChanged(BookChangedEvent.updated(3));
+
+        assertEquals(List.of(), texts("hanh"));
+        assertEquals(List.of("Muôn kiếp nhân sinh"), texts("muon"));
+        assertEquals(List.of("Nguyên Phong"), texts("nguyen"));
+        assertEquals(List.of("Harry Potter và Hòn đá Phù thủy", "Harry Potter và Phòng chứa Bí mật"), texts("harry"));
+    }
+
+    @Test
+    void removingAnUnknownBookChangesNothing() {
+        List<String> before = texts("h");
+
+        index.onBookChanged(BookChangedEvent.deleted(99));
+
+        assertEquals(before, texts("h"));
+        assertEquals(3, before.size());
+    }
+
+    @Test
+    void changeDuringRebuildReachesTheNewTrie() {
+        jdbcTemplate = new FakeJdbcTemplate() {
+            private int fullReads;
+
+            @Override
+            public void query(String sql, RowCallbackHandler handler) {
+                super.query(sql, handler);
+                if (++fullReads == 2) {
+                    // Sách được sửa sau khi lần dựng lại đã đọc dòng cũ
+                    delete("Books", "book_id", 3);
+                    addBook(3, "Muôn kiếp nhân sinh", "Nguyên Phong", "4.2", 30);
+                    index.onBookChanged(BookChangedEvent.updated(3));
+                }
+            }
+        };
+        addBook(3, "Hành trình về phương Đông", "Baird T. Spalding", "4.2", 30);
+        index = new BookSuggestionIndex(jdbcTemplate, 10);
+        index.rebuild();
+
+        index.rebuild();
+
+        assertEquals(List.of(), texts("hanh"));
+        assertEquals(List.of("Muôn kiếp nhân sinh"), texts("muon"));
+    }
+
+    private void addBook(int bookId, String title, String author, String averageRating, int ratingCount) {
+        jdbcTemplate.insert("Books", "book_id", bookId, "title", title, "author", author,
+                "average_rating", new BigDecimal(averageRating), "rating_count", ratingCount);
+    }
+
+    private void delete(int bookId) {
+        jdbcTemplate.delete("Books", "book_id", bookId);
+        index.onBookChanged(BookChangedEvent.deleted(bookId));
+    }
+
+    private List<String> texts(String query) {
+        return index.suggest(query, 10).stream()
+                .map(BookSuggestion::getText)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.Bibliotech_backend.service;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * JdbcTemplate giả lưu các bảng trong bộ nhớ, đủ cho các câu SQL đơn giản của những thành phần dựng từ
+ * JdbcTemplate: {@code SELECT cột, ... FROM Bảng [WHERE cột = ? | cột IN (?, ...)]} và
+ * {@code INSERT INTO Bảng (cột, ...) VALUES (...)} gửi theo batch.
+ * <p>
+ * {@link #rejectInserts} mô phỏng lỗi ràng buộc: batch chứa dòng khớp điều kiện bị từ chối nguyên khối.
+ * </p>
+ */
+class FakeJdbcTemplate extends JdbcTemplate {
+    private static final Pattern SELECT = Pattern.compile(
+            "SELECT (.+?) FROM (\\w+)(?: WHERE (\\w+) (?:= \\?|IN \\(.*\\)))?");
+    private static final Pattern INSERT = Pattern.compile("INSERT INTO (\\w+) \\((.+?)\\) VALUES.*");
+
+    private final Map<String, List<Map<String, Object>>> tables = new HashMap<>();
+    private Predicate<Map<String, Object>> rejectInserts = row -> false;
+
+    /**
+     * Thêm một dòng; các cặp tham số là tên cột và giá trị.
+     */
+    FakeJdbcTemplate insert(String table, Object... columnsAndValues) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 0; i < columnsAndValues.length; i += 2) {
+            row.put((String) columnsAndValues[i], columnsAndValues[i + 1]);
+        }
+        rows(table).add(row);
+        return this;
+    }
+
+    /**
+     * Xóa các dòng có {@code column} bằng {@code value}.
+     */
+    void delete(String table, String column, Object value) {
+        rows(table).removeIf(row -> value.equals(row.get(column)));
+    }
+
+    List<Map<String, Object>> rows(String table) {
+        return tables.computeIfAbsent(table, name -> new ArrayList<>());
+    }
+
+    void rejectInserts(Predicate<Map<String, Object>> rejectInserts) {
+        this.rejectInserts = rejectInserts;
+    }
+
+    @Override
+    public void query(String sql, RowCallbackHandler handler) throws DataAccessException {
+        for (Map<String, Object> row : select(sql)) {
+            try {
+                handler.processRow(resultSet(row));
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    @Override
+    public <T> List<T> query(String sql, RowMapper<T> mapper, Object... args) throws DataAccessException {
+        List<T> result = new ArrayList<>();
+        for (Map<String, Object> row : select(sql, args)) {
+            try {
+                result.add(mapper.mapRow(resultSet(row), result.size()));
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public <T> List<T> queryForList(String sql, Class<T> elementType) throws DataAccessException {
+        return queryForList(sql, elementType, new Object[0]);
+    }
+
+    @Override
+    public <T> List<T> queryForList(String sql, Class<T> elementType, Object... args) throws DataAccessException {
+        String column = columns(sql)[0];
+        List<T> result = new ArrayList<>();
+        for (Map<String, Object> row : select(sql, args)) {
+            result.add(elementType.cast(row.get(column)));
+        }
+        return result;
+    }
+
+    @Override
+    public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+                                   ParameterizedPreparedStatementSetter<T> setter) throws DataAccessException {
+        Matcher matcher = INSERT.matcher(sql);
+        if (!matcher.matches()) {
+            throw new UnsupportedOperationException(sql);
+        }
+        String[] columns = matcher.group(2).split(",\\s*");
+        List<Map<String, Object>> inserted = new ArrayList<>();
+        for (T args : batchArgs) {
+            Object[] values = new Object[columns.length];
+            PreparedStatement statement = (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, (proxy, method, parameters) -> {
+                        if (method.getName().startsWith("set") && parameters != null && parameters.length == 2) {
+                            values[(Integer) parameters[0] - 1] = parameters[1];
+                            return null;
+                        }
+                        throw new UnsupportedOperationException(method.getName());
+                    });
+            try {
+                setter.setValues(statement, args);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 0; i < columns.length; i++) {
+                row.put(columns[i], values[i]);
+            }
+            inserted.add(row);
+        }
+        if (inserted.stream().anyMatch(rejectInserts)) {
+            throw new DataIntegrityViolationException("Rejected batch of " + inserted.size() + " rows");
+        }
+        rows(matcher.group(1)).addAll(inserted);
+
+        int[] counts = new int[inserted.size()];
+        Arrays.fill(counts, 1);
+        return new int[][]{counts};
+    }
+
+    private List<Map<String, Object>> select(String sql, Object... args) {
+        Matcher matcher = SELECT.matcher(sql);
+        if (!matcher.matches()) {
+            throw new UnsupportedOperationException(sql);
+        }
+        String filterColumn = matcher.group(3);
+        List<Object> accepted = Arrays.asList(args);
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Map<String, Object> row : rows(matcher.group(2))) {
+            if (filterColumn == null || accepted.contains(row.get(filterColumn))) {
+                result.add(row);
+            }
+        }
+        return result;
+    }
+
+    private static String[] columns(String sql) {
+        Matcher matcher = SELECT.matcher(sql);
+        if (!matcher.matches()) {
+            throw new UnsupportedOperationException(sql);
+        }
+        return matcher.group(1).split(",\\s*");
+    }
+
+    /**
+     * ResultSet chỉ đọc một dòng, hỗ trợ các getter theo tên cột.
+     */
+    private static ResultSet resultSet(Map<String, Object> row) {
+        return (ResultSet) Proxy.newProxyInstance(FakeJdbcTemplate.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (proxy, method, parameters) -> {
+                    Object value = parameters != null && parameters.length == 1 ? row.get((String) parameters[0]) : null;
+                    switch (method.getName()) {
+                        case "getInt":
+                            return value != null ? ((Number) value).intValue() : 0;
+                        case "getBoolean":
+                            return Boolean.TRUE.equals(value);
+                        case "getBigDecimal":
+                            return value instanceof Number number && !(value instanceof BigDecimal)
+                                    ? new BigDecimal(number.toString()) : value;
+                        case "getString":
+                            return value != null ? value.toString() : null;
+                        case "getDate":
+                        case "getObject":
+                            return value;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
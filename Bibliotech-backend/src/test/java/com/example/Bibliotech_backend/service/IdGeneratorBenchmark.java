@@ -0,0 +1,169 @@
+package com.example.Bibliotech_backend.service;
+
+import com.example.Bibliotech_backend.BibliotechBackendApplication;
+import com.example.Bibliotech_backend.dto.BookRequest;
+import com.example.Bibliotech_backend.model.Transaction;
+import com.example.Bibliotech_backend.model.TransactionStatus;
+import com.example.Bibliotech_backend.model.TransactionType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thông lượng chèn song song qua {@code BookService.addBook}, {@code TransactionService.addTransaction} và
+ * {@code WishlistService.addBookToWishlist}, so sánh {@code generator=legacy} (khóa toàn cục + MAX(id)+1,
+ * cách cũ) với {@code generator=segment} (khối hi/lo hiện tại).
+ * <p>
+ * Benchmark khởi động toàn bộ ứng dụng nên cần một cơ sở dữ liệu MySQL thử nghiệm có sẵn ít nhất một người dùng,
+ * cấu hình như khi chạy ứng dụng (ví dụ {@code SPRING_DATASOURCE_URL}), và sẽ ghi dữ liệu vào đó:
+ * {@code mvn -Pbenchmark test -Dbenchmark=IdGeneratorBenchmark}. Với {@code legacy}, các lần chèn song song nhận
+ * trùng ID và thất bại; số lần thất bại được ghi log sau mỗi lượt đo.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(16)
+public class IdGeneratorBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(IdGeneratorBenchmark.class);
+
+    @Param({"legacy", "segment"})
+    public String generator;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+    private BookService bookService;
+    private TransactionService transactionService;
+    private WishlistService wishlistService;
+
+    private List<Integer> userIds;
+    private List<Integer> bookIds;
+    private final AtomicInteger wishlistPair = new AtomicInteger();
+    private final AtomicInteger sequence = new AtomicInteger();
+    private final AtomicLong failures = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(BibliotechBackendApplication.class)
+                .web(WebApplicationType.NONE)
+                .run();
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        bookService = context.getBean(BookService.class);
+        transactionService = context.getBean(TransactionService.class);
+        wishlistService = context.getBean(WishlistService.class);
+
+        if ("legacy".equals(generator)) {
+            IdGeneratorService legacy = new LegacyIdGeneratorService(jdbcTemplate);
+            for (Object service : List.of(bookService, transactionService, wishlistService)) {
+                ReflectionTestUtils.setField(AopTestUtils.getUltimateTargetObject(service), "idGeneratorService", legacy);
+            }
+        }
+
+        userIds = jdbcTemplate.queryForList("SELECT user_id FROM Users ORDER BY user_id LIMIT 100", Integer.class);
+        if (userIds.isEmpty()) {
+            throw new IllegalStateException("Benchmark database needs at least one user");
+        }
+        for (int i = 0; i < 1000; i++) {
+            addBook();
+        }
+        bookIds = jdbcTemplate.queryForList("SELECT book_id FROM Books ORDER BY book_id DESC LIMIT 1000", Integer.class);
+    }
+
+    /**
+     * Xóa wishlist của các người dùng thử nghiệm để mỗi lượt đo có đủ cặp (người dùng, sách) chưa dùng.
+     */
+    @Setup(Level.Iteration)
+    public void resetWishlists() {
+        for (Integer userId : userIds) {
+            jdbcTemplate.update("DELETE FROM Wishlist WHERE user_id = ?", userId);
+        }
+        wishlistPair.set(0);
+        failures.set(0);
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportFailures() {
+        logger.info("generator={} failed inserts: {}", generator, failures.get());
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object addBook() {
+        int n = sequence.incrementAndGet();
+        BookRequest request = new BookRequest();
+        request.setTitle("Benchmark book " + n);
+        request.setAuthor("Benchmark");
+        request.setOriginalPrice(BigDecimal.valueOf(100_000));
+        request.setLanguage("English");
+        request.setStockQuantity(10);
+        request.setCategoryIds(Set.of());
+        try {
+            return bookService.addBook(request);
+        } catch (DataAccessException e) {
+            failures.incrementAndGet();
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object addTransaction() {
+        Transaction transaction = new Transaction();
+        transaction.setUserId(userIds.get(sequence.incrementAndGet() % userIds.size()));
+        transaction.setTransactionType(TransactionType.DEPOSIT);
+        transaction.setAmount(BigDecimal.TEN);
+        transaction.setStatus(TransactionStatus.PENDING);
+        try {
+            return transactionService.addTransaction(transaction);
+        } catch (DataAccessException e) {
+            failures.incrementAndGet();
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object addBookToWishlist() {
+        int pair = wishlistPair.getAndIncrement();
+        Integer userId = userIds.get(pair % userIds.size());
+        Integer bookId = bookIds.get((pair / userIds.size()) % bookIds.size());
+        try {
+            return wishlistService.addBookToWishlist(userId, bookId);
+        } catch (DataAccessException | IllegalStateException e) {
+            failures.incrementAndGet();
+            return e;
+        }
+    }
+}
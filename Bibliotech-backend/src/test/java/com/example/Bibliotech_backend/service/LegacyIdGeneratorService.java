@@ -0,0 +1,45 @@
+package com.example.Bibliotech_backend.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cách sinh ID trước khi có khối hi/lo: một khóa toàn cục và {@code SELECT MAX(id) + 1} cho mỗi lần chèn.
+ * Chỉ dùng làm mốc "trước" trong {@link IdGeneratorBenchmark}.
+ */
+class LegacyIdGeneratorService extends IdGeneratorService {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final JdbcTemplate jdbcTemplate;
+
+    LegacyIdGeneratorService(JdbcTemplate jdbcTemplate) {
+        super(jdbcTemplate.getDataSource());
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public int generateBookId() {
+        return maxPlusOne("Books", "book_id");
+    }
+
+    @Override
+    public int generateTransactionId() {
+        return maxPlusOne("Transactions", "transaction_id");
+    }
+
+    @Override
+    public int generateWishlistId() {
+        return maxPlusOne("Wishlist", "wishlist_id");
+    }
+
+    private int maxPlusOne(String table, String idColumn) {
+        lock.lock();
+        try {
+            Integer max = jdbcTemplate.queryForObject(
+                    "SELECT COALESCE(MAX(" + idColumn + "), 0) FROM " + table, Integer.class);
+            return max + 1;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.Bibliotech_backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvReaderTest {
+
+    @Test
+    void readsBackWhatCsvWriterWrote() throws IOException {
+        Object[][] rows = {
+                {"title", "author", "description"},
+                {"Dế Mèn phiêu lưu ký", "Tô Hoài", "Truyện, thiếu nhi"},
+                {"Nói \"không\"", "\"Ẩn danh\"", ""},
+                {"Dòng 1\r\nDòng 2", "Tác giả\nxuống dòng", "Kết thúc bằng CR\r"},
+                {null, 42, ","},
+        };
+        StringWriter out = new StringWriter();
+        CsvWriter writer = new CsvWriter(out);
+        for (Object[] row : rows) {
+            writer.writeRow(row);
+        }
+        writer.flush();
+
+        List<List<String>> read = readAll(new CsvReader(new StringReader(out.toString())));
+
+        assertEquals(rows.length, read.size());
+        for (int i = 0; i < rows.length; i++) {
+            List<String> expected = new ArrayList<>();
+            for (Object value : rows[i]) {
+                expected.add(value != null ? value.toString() : "");
+            }
+            assertEquals(expected, read.get(i));
+        }
+    }
+
+    @Test
+    void skipsByteOrderMarkAndAcceptsLfAndCrlf() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("\uFEFFtitle,author\r\nA,B\nC,D"));
+
+        assertEquals(List.of(List.of("title", "author"), List.of("A", "B"), List.of("C", "D")), readAll(reader));
+        assertEquals(3, reader.getRecordNumber());
+    }
+
+    @Test
+    void keepsByteOrderMarkAfterTheFirstRecord() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("a\n\uFEFFb\n"));
+
+        assertEquals(List.of(List.of("a"), List.of("\uFEFFb")), readAll(reader));
+    }
+
+    @Test
+    void rejectsUnclosedQuote() {
+        CsvReader reader = new CsvReader(new StringReader("title\n\"Chưa đóng,\nphần còn lại"));
+
+        IOException error = assertThrows(IOException.class, () -> readAll(reader));
+        assertTrue(error.getMessage().contains("bản ghi 2"), error.getMessage());
+    }
+
+    @Test
+    void capsFieldLengthSoUnclosedQuoteDoesNotBufferTheFile() {
+        char[] rest = new char[1000];
+        Arrays.fill(rest, 'x');
+        CsvReader reader = new CsvReader(new StringReader("title\n\"" + new String(rest)), 100);
+
+        IOException error = assertThrows(IOException.class, () -> readAll(reader));
+        assertTrue(error.getMessage().contains("100 ký tự"), error.getMessage());
+    }
+
+    @Test
+    void acceptsFieldsUpToTheLimit() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("abcd,\"ef\"\"g\"\n"), 4);
+
+        assertEquals(List.of("abcd", "ef\"g"), reader.next());
+        assertNull(reader.next());
+        assertThrows(IOException.class, () -> new CsvReader(new StringReader("abcde"), 4).next());
+    }
+
+    private static List<List<String>> readAll(CsvReader reader) throws IOException {
+        List<List<String>> records = new ArrayList<>();
+        List<String> record;
+        while ((record = reader.next()) != null) {
+            records.add(record);
+        }
+        return records;
+    }
+}